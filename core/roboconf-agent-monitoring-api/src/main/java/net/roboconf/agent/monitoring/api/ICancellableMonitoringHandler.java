@@ -0,0 +1,49 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.monitoring.api;
+
+/**
+ * A monitoring handler whose processing can be cancelled from another thread.
+ * <p>
+ * Interrupting a thread does not unblock socket operations. Handlers that
+ * perform network queries should implement this interface, so that probes
+ * that take too long can really be stopped.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public interface ICancellableMonitoringHandler extends IMonitoringHandler {
+
+	/**
+	 * Cancels the current {@link #process()} invocation, if any.
+	 * <p>
+	 * It is invoked from another thread than the one that runs {@link #process()}.
+	 * Typically, it closes the sockets that are in use. The cancelled invocation
+	 * is then expected to return quickly.
+	 * </p>
+	 */
+	void cancel();
+}
@@ -34,7 +34,8 @@ import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
  * <p>
  * Every handler implementation has only one class instance. It is used
  * for all the Roboconf instance models. Therefore, if it has to manage states,
- * it has to do it internally.
+ * it has to do it internally. Handlers that implement {@link IReplicableMonitoringHandler}
+ * are instead replicated, one handler per probe.
  * </p>
  *
  * @author Vincent Zurczak - Linagora
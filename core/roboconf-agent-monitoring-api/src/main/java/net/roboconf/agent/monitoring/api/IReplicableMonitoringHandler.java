@@ -0,0 +1,51 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.monitoring.api;
+
+/**
+ * A monitoring handler that can create new handlers of the same kind.
+ * <p>
+ * A handler processes one probe at a time. When a handler implements this interface,
+ * every probe gets its own handler, so that probes can run concurrently: a slow probe
+ * does not delay the other ones. Otherwise, the probes of this handler run one after
+ * the other.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public interface IReplicableMonitoringHandler extends IMonitoringHandler {
+
+	/**
+	 * Creates a new handler of the same kind.
+	 * <p>
+	 * The new handler must not share its state (current rule, current connection...)
+	 * with this one. Its agent's identifiers are set by the caller.
+	 * </p>
+	 *
+	 * @return a new handler (not null)
+	 */
+	IMonitoringHandler newHandler();
+}
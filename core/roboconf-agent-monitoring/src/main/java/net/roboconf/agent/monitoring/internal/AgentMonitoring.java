@@ -28,13 +28,18 @@ package net.roboconf.agent.monitoring.internal;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import net.roboconf.agent.AgentMessagingInterface;
 import net.roboconf.agent.monitoring.api.IMonitoringHandler;
 import net.roboconf.agent.monitoring.internal.file.FileHandler;
+import net.roboconf.agent.monitoring.internal.nagios.LiveStatusClient;
 import net.roboconf.agent.monitoring.internal.nagios.NagiosHandler;
 import net.roboconf.agent.monitoring.internal.rest.RestHandler;
 import net.roboconf.core.Constants;
@@ -45,6 +50,11 @@ import net.roboconf.core.Constants;
  */
 public class AgentMonitoring {
 
+	/**
+	 * The number of threads that run probes.
+	 */
+	static final int PROBE_THREADS = 4;
+
 	// Injected by iPojo
 	private AgentMessagingInterface agentInterface;
 	private final List<IMonitoringHandler> handlers = new ArrayList<> ();
@@ -52,6 +62,9 @@ public class AgentMonitoring {
 	// Internal fields
 	private final Logger logger = Logger.getLogger( getClass().getName());
 	private ScheduledThreadPoolExecutor timer;
+	private ExecutorService probeExecutor;
+	private MonitoringRunnable task;
+	private long probeTimeout = MonitoringRunnable.DEFAULT_PROBE_TIMEOUT;
 
 
 	/**
@@ -74,10 +87,13 @@ public class AgentMonitoring {
 		if( this.timer == null ) {
 			this.logger.fine( "Agent Monitoring is being started." );
 
+			this.probeExecutor = Executors.newFixedThreadPool( PROBE_THREADS, new ProbeThreadFactory());
 			this.timer = new ScheduledThreadPoolExecutor( 1 );
-			this.timer.scheduleWithFixedDelay(
-					new MonitoringRunnable( this.agentInterface, this.handlers ),
-					0, Constants.PROBES_POLLING_PERIOD, TimeUnit.MILLISECONDS );
+			this.timer.setRemoveOnCancelPolicy( true );
+
+			this.task = new MonitoringRunnable( this.agentInterface, this.handlers, this.probeExecutor, this.timer );
+			this.task.setProbeTimeout( this.probeTimeout );
+			this.timer.scheduleWithFixedDelay( this.task, 0, Constants.PROBES_POLLING_PERIOD, TimeUnit.MILLISECONDS );
 		}
 	}
 
@@ -91,7 +107,15 @@ public class AgentMonitoring {
 		if( this.timer != null ) {
 			this.timer.shutdownNow();
 			this.timer = null;
+			this.task = null;
+		}
+
+		if( this.probeExecutor != null ) {
+			this.probeExecutor.shutdownNow();
+			this.probeExecutor = null;
 		}
+
+		LiveStatusClient.closeIdleConnections();
 	}
 
 
@@ -128,6 +152,23 @@ public class AgentMonitoring {
 	}
 
 
+	/**
+	 * Sets the timeout for probes (invoked by iPojo).
+	 * <p>
+	 * It is independent of the polling period. Probes that run for longer are interrupted.
+	 * </p>
+	 *
+	 * @param probeTimeout the timeout, in milliseconds (0 or less to disable it)
+	 */
+	public void setProbeTimeout( long probeTimeout ) {
+
+		this.probeTimeout = probeTimeout;
+		MonitoringRunnable task = this.task;
+		if( task != null )
+			task.setProbeTimeout( probeTimeout );
+	}
+
+
 	/**
 	 * Force injection of agentInterface field (for tests: normally injected by iPojo).
 	 * @param agentInterface
@@ -157,4 +198,21 @@ public class AgentMonitoring {
 			logger.info( sb.toString());
 		}
 	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class ProbeThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread( Runnable r ) {
+
+			Thread result = new Thread( r, "Roboconf Agent - Probe " + this.count.incrementAndGet());
+			result.setDaemon( true );
+			return result;
+		}
+	}
 }
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.monitoring.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.roboconf.agent.monitoring.internal.MonitoringRunnable.MonitoringHandlerRun;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
+
+/**
+ * A filter that limits the number of autonomic events sent to the DM.
+ * <p>
+ * Every probe can define a hold-down window. After a notification was sent,
+ * other occurrences of the event are not sent until the window expires. They are
+ * counted and, once the window has expired, a single notification is sent with the
+ * number of occurrences and the information of the last one.
+ * </p>
+ * <p>
+ * A probe can also be edge-triggered. In this case, an occurrence is only taken into account
+ * if the condition did not hold the previous time the probe was run.
+ * </p>
+ * <p>
+ * Probes without any of these options are not filtered.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class AutonomicEventFilter {
+
+	private final Map<String,EventState> probeKeyToState = new HashMap<> ();
+
+
+	/**
+	 * Filters the result of a probe.
+	 * @param probeKey the probe's key
+	 * @param bean the probe's configuration
+	 * @param msg the notification built by the probe (null if the condition did not hold)
+	 * @param now the current time, in milliseconds
+	 * @return the notification to send now, or null to send nothing
+	 */
+	public synchronized MsgNotifAutonomic filter( String probeKey, MonitoringHandlerRun bean, MsgNotifAutonomic msg, long now ) {
+
+		// No filtering
+		if( bean.holdDown <= 0 && ! bean.edgeTriggered ) {
+			this.probeKeyToState.remove( probeKey );
+			return msg;
+		}
+
+		EventState state = this.probeKeyToState.get( probeKey );
+		if( state == null ) {
+			state = new EventState();
+			this.probeKeyToState.put( probeKey, state );
+		}
+
+		state.holdDown = bean.holdDown;
+		boolean wasActive = state.active;
+		state.active = msg != null;
+
+		// Edge-triggered probes ignore the condition as long as it holds
+		MsgNotifAutonomic result = null;
+		if( msg == null
+				|| bean.edgeTriggered && wasActive ) {
+			result = null;
+
+		} else if( state.pendingCount == 0 && now - state.lastSent >= state.holdDown ) {
+			state.lastSent = now;
+			result = msg;
+
+		} else {
+			state.pendingCount ++;
+			state.lastPending = msg;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Builds the aggregated notifications whose hold-down window has expired.
+	 * @param now the current time, in milliseconds
+	 * @return a non-null list of notifications to send
+	 */
+	public synchronized List<MsgNotifAutonomic> flush( long now ) {
+
+		List<MsgNotifAutonomic> result = new ArrayList<> ();
+		for( EventState state : this.probeKeyToState.values()) {
+			if( state.pendingCount == 0
+					|| now - state.lastSent < state.holdDown )
+				continue;
+
+			MsgNotifAutonomic last = state.lastPending;
+			result.add( new MsgNotifAutonomic(
+					last.getApplicationName(), last.getScopedInstancePath(),
+					last.getEventName(), last.getEventInfo(),
+					state.pendingCount ));
+
+			state.lastSent = now;
+			state.pendingCount = 0;
+			state.lastPending = null;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Forgets about the probes that do not exist anymore.
+	 * @param probeKeys the keys of the existing probes
+	 */
+	public synchronized void retainProbes( Set<String> probeKeys ) {
+		this.probeKeyToState.keySet().retainAll( probeKeys );
+	}
+
+
+	/**
+	 * @return the number of occurrences waiting for their hold-down window to expire
+	 */
+	synchronized int getPendingCount() {
+
+		int result = 0;
+		for( EventState state : this.probeKeyToState.values())
+			result += state.pendingCount;
+
+		return result;
+	}
+
+
+	/**
+	 * The state of a probe's event.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class EventState {
+		long holdDown, lastSent = Long.MIN_VALUE / 2;
+		boolean active;
+		int pendingCount;
+		MsgNotifAutonomic lastPending;
+	}
+}
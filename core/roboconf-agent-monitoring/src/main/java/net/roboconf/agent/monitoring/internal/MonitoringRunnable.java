@@ -29,48 +29,151 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import net.roboconf.agent.AgentMessagingInterface;
+import net.roboconf.agent.monitoring.api.ICancellableMonitoringHandler;
 import net.roboconf.agent.monitoring.api.IMonitoringHandler;
+import net.roboconf.agent.monitoring.api.IReplicableMonitoringHandler;
 import net.roboconf.core.Constants;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.messaging.api.messages.Message;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomicEvents;
 
 /**
  * Runnable for periodic monitoring checks (polling).
+ * <p>
+ * Rules are parsed once and cached per instance. The cache entry of an instance is invalidated
+ * when its measures files are modified or when the DM updates the configuration of probes.
+ * </p>
+ * <p>
+ * When an executor is given, probes are run on it rather than in the polling thread. A handler
+ * cannot process two probes at once. Handlers that implement {@link IReplicableMonitoringHandler}
+ * are replicated: every probe has its own handler and its own lane, so that a slow probe only
+ * delays itself. Other handlers are shared by all the instances: they have a single lane and their
+ * probes run one after the other. A probe is never queued twice.
+ * </p>
+ * <p>
+ * A probe that runs for longer than the timeout is interrupted and its result is discarded.
+ * The timeout is independent of the polling period. When a scheduler is given, it is verified
+ * as soon as it expires. Otherwise, it is verified at every polling period.
+ * Since interruptions do not unblock socket operations, handlers that implement
+ * {@link ICancellableMonitoringHandler} are also cancelled (their sockets are closed).
+ * A probe that timed out is not queued again before the next polling period.
+ * </p>
+ * <p>
+ * Event sections accept options, e.g. <code>[EVENT nagios my-event hold-down=60 trigger=edge]</code>.
+ * They limit the number of notifications sent to the DM (see {@link AutonomicEventFilter}).
+ * The hold-down window is expressed in seconds.
+ * </p>
+ *
  * @author Pierre-Yves Gibello - Linagora
  */
 public class MonitoringRunnable implements Runnable {
 
 	private static final String COMMENT_DELIMITER = "#";
 	static final String RULE_BEGINNING = "[event";
-	static final String EVENT_PATTERN = "\\" + RULE_BEGINNING + "\\s+(\\S+)\\s+(\\S+)\\s*\\]";
+	static final String EVENT_PATTERN = "\\" + RULE_BEGINNING + "\\s+(\\S+)\\s+([^\\s\\]]+)((?:\\s+[\\w-]+=[^\\s\\]]+)*)\\s*\\]";
+	private static final Pattern RULE_PATTERN = Pattern.compile( EVENT_PATTERN, Pattern.CASE_INSENSITIVE );
+
+	static final String OPTION_HOLD_DOWN = "hold-down";
+	static final String OPTION_TRIGGER = "trigger";
+	static final String TRIGGER_EDGE = "edge";
+	static final String TRIGGER_LEVEL = "level";
+
+	/**
+	 * The default timeout for probes, in milliseconds.
+	 */
+	public static final long DEFAULT_PROBE_TIMEOUT = 20000L;
 
 	private final Logger logger = Logger.getLogger( getClass().getName());
 	private final List<IMonitoringHandler> handlers;
 	private final AgentMessagingInterface agentInterface;
-	private final Pattern eventPattern;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService scheduler;
+	private final AutonomicEventFilter eventFilter = new AutonomicEventFilter();
 	private boolean handlersWereInitialized = false;
+	private String scopedInstancePath;
+
+	// Only accessed from the polling thread
+	final Map<String,CachedRules> instancePathToRules = new HashMap<> ();
+	private final Map<IMonitoringHandler,HandlerLane> sharedLanes = new IdentityHashMap<> ();
+	final Map<String,HandlerLane> probeLanes = new HashMap<> ();
+	volatile long probeTimeout = DEFAULT_PROBE_TIMEOUT;
 
 
 	/**
 	 * Constructor.
+	 * <p>
+	 * Probes are run in the polling thread.
+	 * </p>
+	 *
 	 * @param agentInterface the interface to access the agent
 	 * @param handlers the monitoring handlers
 	 */
 	public MonitoringRunnable( AgentMessagingInterface agentInterface, List<IMonitoringHandler> handlers ) {
+		this( agentInterface, handlers, null );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param agentInterface the interface to access the agent
+	 * @param handlers the monitoring handlers
+	 * @param executor the executor to run probes on (null to run them in the polling thread)
+	 */
+	public MonitoringRunnable( AgentMessagingInterface agentInterface, List<IMonitoringHandler> handlers, ExecutorService executor ) {
+		this( agentInterface, handlers, executor, null );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param agentInterface the interface to access the agent
+	 * @param handlers the monitoring handlers
+	 * @param executor the executor to run probes on (null to run them in the polling thread)
+	 * @param scheduler the scheduler that verifies probe timeouts (null to verify them at every polling period)
+	 */
+	public MonitoringRunnable(
+			AgentMessagingInterface agentInterface,
+			List<IMonitoringHandler> handlers,
+			ExecutorService executor,
+			ScheduledExecutorService scheduler ) {
+
 		this.agentInterface = agentInterface;
 		this.handlers = handlers;
-		this.eventPattern = Pattern.compile( EVENT_PATTERN, Pattern.CASE_INSENSITIVE );
+		this.executor = executor;
+		this.scheduler = scheduler;
+	}
+
+
+	/**
+	 * Sets the timeout for probes.
+	 * @param probeTimeout the timeout, in milliseconds (0 or less to disable it)
+	 */
+	public void setProbeTimeout( long probeTimeout ) {
+		this.probeTimeout = probeTimeout;
 	}
 
 
@@ -86,69 +189,102 @@ public class MonitoringRunnable implements Runnable {
 
 		// Update the handlers
 		if( ! this.handlersWereInitialized ) {
-			for( IMonitoringHandler handler : this.handlers ) {
-				String scopedInstancePath = InstanceHelpers.computeInstancePath( this.agentInterface.getScopedInstance());
-				handler.setAgentId( this.agentInterface.getApplicationName(), scopedInstancePath );
-			}
+			this.scopedInstancePath = InstanceHelpers.computeInstancePath( this.agentInterface.getScopedInstance());
+			for( IMonitoringHandler handler : this.handlers )
+				handler.setAgentId( this.agentInterface.getApplicationName(), this.scopedInstancePath );
 
 			this.handlersWereInitialized = true;
 		}
 
+		// Interrupt the probes that took too long
+		for( HandlerLane lane : this.sharedLanes.values())
+			lane.interruptIfTooLong( this.probeTimeout );
+
+		for( HandlerLane lane : this.probeLanes.values())
+			lane.interruptIfTooLong( this.probeTimeout );
+
+		// Send the events whose hold-down window expired
+		sendAggregatedEvents();
+
 		// Otherwise, check all the instances
+		long configurationVersion = this.agentInterface.getProbesConfigurationVersion();
+		Set<String> monitoredInstancePaths = new HashSet<> ();
+		Set<String> probeKeys = new HashSet<> ();
 		for( Instance inst : InstanceHelpers.buildHierarchicalList( this.agentInterface.getScopedInstance())) {
 
 			// Non started ones are skipped
 			if( inst.getStatus() != InstanceStatus.DEPLOYED_STARTED )
 				continue;
 
-			File dir = InstanceHelpers.findInstanceDirectoryOnAgent( inst );
-			File measureFile = new File( dir, inst.getComponent().getName() + Constants.FILE_EXT_MEASURES );
-			if( ! measureFile.exists())
+			String instancePath = InstanceHelpers.computeInstancePath( inst );
+			List<MonitoringHandlerRun> beans = findRules( inst, instancePath, configurationVersion );
+			if( beans == null )
 				continue;
 
-			// Read the file content
-			this.logger.fine( "A file with measure rules was found for instance '" + inst + "'." );
-			String fileContent;
-			try {
-				fileContent = Utils.readFileContent( measureFile );
-
-			} catch( IOException e ) {
-				this.logger.warning( "A problem occurred while reading the content for measure rules of instance '"+ inst + "'." );
-				Utils.logException( this.logger, e );
-				continue;
-			}
+			// Find the right handlers to process the rules
+			monitoredInstancePaths.add( instancePath );
+			for( MonitoringHandlerRun bean : beans ) {
+				IMonitoringHandler handler = findHandlerByName( bean.handlerName );
+				if( handler == null ) {
+					this.logger.warning( "No handler was found with the ID '" + bean.handlerName + "'. The rule is skipped." );
+					continue;
+				}
 
-			File paramFile;
-			Properties params;
-			try {
-				paramFile = new File( dir, inst.getComponent().getName() + Constants.FILE_EXT_MEASURES + ".properties" );
-				params = Utils.readPropertiesFile( paramFile );
-				this.logger.fine( "A file with measure parameters (properties) was found for instance '" + inst + "'." );
+				Probe probe = new Probe( inst, instancePath, bean );
+				probeKeys.add( probe.key );
+				if( this.executor == null ) {
+					runProbe( handler, probe );
 
-			} catch( IOException e1 ) {
-				params = null;
+				} else {
+					findLane( handler, probe ).submit( probe );
+				}
 			}
+		}
 
-			// Find the right handlers to process the rules
-			for( MonitoringHandlerRun bean : extractRuleSections( measureFile, fileContent, params )) {
-				try {
-					IMonitoringHandler handler = findHandlerByName( bean.handlerName );
-					if( handler == null ) {
-						this.logger.warning( "No handler was found with the ID '" + bean.handlerName + "'. The rule is skipped." );
-						continue;
-					}
+		// Forget about the instances that are not monitored anymore
+		this.instancePathToRules.keySet().retainAll( monitoredInstancePaths );
+		this.eventFilter.retainProbes( probeKeys );
+		Set<IMonitoringHandler> availableHandlers = Collections.newSetFromMap( new IdentityHashMap<IMonitoringHandler,Boolean> ());
+		availableHandlers.addAll( this.handlers );
+		this.sharedLanes.keySet().retainAll( availableHandlers );
+
+		for( Iterator<HandlerLane> it = this.probeLanes.values().iterator(); it.hasNext(); ) {
+			HandlerLane lane = it.next();
+			if( ! availableHandlers.contains( lane.origin )
+					|| ! probeKeys.contains( lane.probeKey ))
+				it.remove();
+		}
+	}
 
-					handler.reset( inst, bean.eventId, bean.rawRulesText );
-					Message msg = handler.process();
-					if( msg != null )
-						this.agentInterface.getMessagingClient().sendMessageToTheDm( msg );
 
-				} catch( IOException e ) {
-					this.logger.warning( "A problem occurred while the agent monitoring was sending a message to the DM. " + e.getMessage());
-					Utils.logException( this.logger, e );
-				}
+	/**
+	 * Finds or creates the lane to run a probe.
+	 * @param handler the (registered) handler that processes this probe
+	 * @param probe the probe
+	 * @return a lane (not null)
+	 */
+	private HandlerLane findLane( IMonitoringHandler handler, Probe probe ) {
+
+		HandlerLane lane;
+		if( handler instanceof IReplicableMonitoringHandler ) {
+			String laneKey = handler.getName() + " | " + probe.key;
+			lane = this.probeLanes.get( laneKey );
+			if( lane == null ) {
+				IMonitoringHandler probeHandler = ((IReplicableMonitoringHandler) handler).newHandler();
+				probeHandler.setAgentId( this.agentInterface.getApplicationName(), this.scopedInstancePath );
+				lane = new HandlerLane( handler, probeHandler, probe.key );
+				this.probeLanes.put( laneKey, lane );
+			}
+
+		} else {
+			lane = this.sharedLanes.get( handler );
+			if( lane == null ) {
+				lane = new HandlerLane( handler, handler, null );
+				this.sharedLanes.put( handler, lane );
 			}
 		}
+
+		return lane;
 	}
 
 
@@ -184,7 +320,7 @@ public class MonitoringRunnable implements Runnable {
 		List<MonitoringHandlerRun> result = new ArrayList<MonitoringHandlerRun> ();
 		for( String s : sections ) {
 
-			Matcher m = this.eventPattern.matcher( s );
+			Matcher m = RULE_PATTERN.matcher( s );
 			if( ! m.find())
 				continue;
 
@@ -193,6 +329,7 @@ public class MonitoringRunnable implements Runnable {
 			bean.handlerName = m.group( 1 );
 			bean.eventId = m.group( 2 );
 			bean.rawRulesText = s;
+			parseOptions( bean, m.group( 3 ));
 
 			result.add( bean );
 		}
@@ -201,6 +338,148 @@ public class MonitoringRunnable implements Runnable {
 	}
 
 
+	/**
+	 * Parses the options of an event section.
+	 * @param bean the handler parameters to update
+	 * @param options the options (e.g. "hold-down=60 trigger=edge")
+	 */
+	private void parseOptions( MonitoringHandlerRun bean, String options ) {
+
+		for( String option : options.trim().split( "\\s+" )) {
+			if( option.isEmpty())
+				continue;
+
+			int pos = option.indexOf( '=' );
+			String key = option.substring( 0, pos ), value = option.substring( pos + 1 );
+			if( OPTION_HOLD_DOWN.equalsIgnoreCase( key )) {
+				try {
+					bean.holdDown = TimeUnit.SECONDS.toMillis( Long.parseLong( value ));
+
+				} catch( NumberFormatException e ) {
+					this.logger.warning( "Invalid hold-down window for event " + bean.eventId + ": " + value + ". It is ignored." );
+				}
+
+			} else if( OPTION_TRIGGER.equalsIgnoreCase( key )
+					&& ( TRIGGER_EDGE.equalsIgnoreCase( value ) || TRIGGER_LEVEL.equalsIgnoreCase( value ))) {
+				bean.edgeTriggered = TRIGGER_EDGE.equalsIgnoreCase( value );
+
+			} else {
+				this.logger.warning( "Unknown option for event " + bean.eventId + ": " + option + ". It is ignored." );
+			}
+		}
+	}
+
+
+	/**
+	 * Finds the monitoring rules of an instance, using the cache when possible.
+	 * @param inst a started instance
+	 * @param instancePath the instance path
+	 * @param configurationVersion the current version of the probes configuration
+	 * @return a list of handler parameters, or null if the instance has no monitoring rule
+	 */
+	private List<MonitoringHandlerRun> findRules( Instance inst, String instancePath, long configurationVersion ) {
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( inst );
+		File measureFile = new File( dir, inst.getComponent().getName() + Constants.FILE_EXT_MEASURES );
+		File paramFile = new File( dir, inst.getComponent().getName() + Constants.FILE_EXT_MEASURES + ".properties" );
+		if( ! measureFile.exists())
+			return null;
+
+		// Is the cache still valid?
+		CachedRules cachedRules = this.instancePathToRules.get( instancePath );
+		if( cachedRules != null
+				&& cachedRules.configurationVersion == configurationVersion
+				&& cachedRules.measuresStamp.equals( FileStamp.of( measureFile ))
+				&& cachedRules.paramsStamp.equals( FileStamp.of( paramFile )))
+			return cachedRules.beans;
+
+		// Read the file content
+		this.logger.fine( "A file with measure rules was found for instance '" + inst + "'." );
+		cachedRules = new CachedRules();
+		cachedRules.configurationVersion = configurationVersion;
+		cachedRules.measuresStamp = FileStamp.of( measureFile );
+		cachedRules.paramsStamp = FileStamp.of( paramFile );
+
+		String fileContent;
+		try {
+			fileContent = Utils.readFileContent( measureFile );
+
+		} catch( IOException e ) {
+			this.logger.warning( "A problem occurred while reading the content for measure rules of instance '"+ inst + "'." );
+			Utils.logException( this.logger, e );
+			this.instancePathToRules.remove( instancePath );
+			return null;
+		}
+
+		Properties params;
+		try {
+			params = Utils.readPropertiesFile( paramFile );
+			this.logger.fine( "A file with measure parameters (properties) was found for instance '" + inst + "'." );
+
+		} catch( IOException e1 ) {
+			params = null;
+		}
+
+		cachedRules.beans = extractRuleSections( measureFile, fileContent, params );
+		this.instancePathToRules.put( instancePath, cachedRules );
+
+		return cachedRules.beans;
+	}
+
+
+	/**
+	 * Runs a probe and sends the resulting notification, if any.
+	 * @param handler the handler
+	 * @param probe the probe
+	 */
+	private void runProbe( IMonitoringHandler handler, Probe probe ) {
+
+		MsgNotifAutonomic msg = null;
+		try {
+			handler.reset( probe.instance, probe.bean.eventId, probe.bean.rawRulesText );
+			msg = handler.process();
+
+		} catch( RuntimeException e ) {
+			this.logger.warning( "Probe " + probe.key + " failed. " + e.getMessage());
+			Utils.logException( this.logger, e );
+		}
+
+		if( ! probe.discarded ) {
+			msg = this.eventFilter.filter( probe.key, probe.bean, msg, System.currentTimeMillis());
+			if( msg != null )
+				sendMessage( msg );
+		}
+	}
+
+
+	/**
+	 * Sends the aggregated events whose hold-down window expired (in a single message if there are several).
+	 */
+	private void sendAggregatedEvents() {
+
+		List<MsgNotifAutonomic> events = this.eventFilter.flush( System.currentTimeMillis());
+		if( events.size() == 1 ) {
+			sendMessage( events.get( 0 ));
+
+		} else if( ! events.isEmpty()) {
+			MsgNotifAutonomic first = events.get( 0 );
+			sendMessage( new MsgNotifAutonomicEvents( first.getApplicationName(), first.getScopedInstancePath(), events ));
+		}
+	}
+
+
+	private void sendMessage( Message msg ) {
+
+		try {
+			this.agentInterface.getMessagingClient().sendMessageToTheDm( msg );
+
+		} catch( IOException e ) {
+			this.logger.warning( "A problem occurred while the agent monitoring was sending a message to the DM. " + e.getMessage());
+			Utils.logException( this.logger, e );
+		}
+	}
+
+
 	private void addSectionIfNotEmpty(List<String> sections, String section) {
 		if( ! Utils.isEmptyOrWhitespaces( section ))
 			sections.add(section);
@@ -225,5 +504,233 @@ public class MonitoringRunnable implements Runnable {
 	 */
 	static class MonitoringHandlerRun {
 		public String handlerName, eventId, rawRulesText;
+		public long holdDown;
+		public boolean edgeTriggered;
+	}
+
+
+	/**
+	 * The rules of an instance, and what they were computed from.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static class CachedRules {
+		long configurationVersion;
+		FileStamp measuresStamp, paramsStamp;
+		List<MonitoringHandlerRun> beans;
+	}
+
+
+	/**
+	 * The last modification date and the size of a file (both are 0 when the file does not exist).
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static final class FileStamp {
+		final long lastModified, length;
+
+		private FileStamp( long lastModified, long length ) {
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		static FileStamp of( File f ) {
+			return new FileStamp( f.lastModified(), f.length());
+		}
+
+		@Override
+		public boolean equals( Object obj ) {
+			return obj instanceof FileStamp
+					&& ((FileStamp) obj).lastModified == this.lastModified
+					&& ((FileStamp) obj).length == this.length;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (this.lastModified ^ this.length);
+		}
+	}
+
+
+	/**
+	 * A rule to verify for a given instance.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class Probe {
+		final Instance instance;
+		final MonitoringHandlerRun bean;
+		final String key;
+		volatile boolean discarded = false;
+
+		Probe( Instance instance, String instancePath, MonitoringHandlerRun bean ) {
+			this.instance = instance;
+			this.bean = bean;
+			this.key = instancePath + " | " + bean.eventId;
+		}
+	}
+
+
+	/**
+	 * The probes waiting for, or being processed by, a given handler.
+	 * <p>
+	 * There is one lane per probe for replicable handlers, and one lane
+	 * per handler for the other ones.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private class HandlerLane implements Runnable {
+
+		final IMonitoringHandler origin;
+		final String probeKey;
+		private final IMonitoringHandler handler;
+
+		// Guarded by this
+		private final Map<String,Probe> pendingProbes = new LinkedHashMap<> ();
+		private final Set<String> timedOutProbeKeys = new HashSet<> ();
+		private boolean scheduled = false;
+		private Probe currentProbe;
+		private Thread currentThread;
+		private long currentProbeStart;
+
+
+		/**
+		 * Constructor.
+		 * @param origin the registered handler
+		 * @param handler the handler that runs the probes (the registered one, or a replica)
+		 * @param probeKey the key of the probe this lane is dedicated to (null if it is shared)
+		 */
+		HandlerLane( IMonitoringHandler origin, IMonitoringHandler handler, String probeKey ) {
+			this.origin = origin;
+			this.handler = handler;
+			this.probeKey = probeKey;
+		}
+
+
+		/**
+		 * Queues a probe, unless it is already waiting or running, or unless it has just timed out.
+		 * @param probe a probe
+		 */
+		synchronized void submit( Probe probe ) {
+
+			// A probe that timed out skips one polling period
+			if( this.timedOutProbeKeys.remove( probe.key )) {
+				MonitoringRunnable.this.logger.fine( "Probe " + probe.key + " timed out recently. It is not queued this time." );
+				return;
+			}
+
+			if( this.pendingProbes.containsKey( probe.key )
+					|| this.currentProbe != null && this.currentProbe.key.equals( probe.key )) {
+				MonitoringRunnable.this.logger.fine( "Probe " + probe.key + " has not completed yet. It is not queued again." );
+				return;
+			}
+
+			this.pendingProbes.put( probe.key, probe );
+			if( ! this.scheduled ) {
+				this.scheduled = true;
+				MonitoringRunnable.this.executor.execute( this );
+			}
+		}
+
+
+		/**
+		 * Interrupts (and cancels) the current probe if it has been running for too long.
+		 * @param timeout the timeout, in milliseconds
+		 */
+		synchronized void interruptIfTooLong( long timeout ) {
+
+			// Probes that timed out during the previous period can be queued again
+			this.timedOutProbeKeys.clear();
+
+			if( this.currentProbe != null
+					&& timeout > 0
+					&& System.currentTimeMillis() - this.currentProbeStart > timeout )
+				interrupt( this.currentProbe );
+		}
+
+
+		/**
+		 * Interrupts (and cancels) a probe if it is still running.
+		 * @param probe a probe
+		 */
+		synchronized void interrupt( Probe probe ) {
+
+			if( this.currentProbe == probe
+					&& ! probe.discarded ) {
+
+				MonitoringRunnable.this.logger.warning( "Probe " + probe.key + " timed out. It is interrupted and its result will be ignored." );
+				probe.discarded = true;
+				this.timedOutProbeKeys.add( probe.key );
+				this.currentThread.interrupt();
+				if( this.handler instanceof ICancellableMonitoringHandler )
+					((ICancellableMonitoringHandler) this.handler).cancel();
+			}
+		}
+
+
+		/**
+		 * Schedules the verification of a probe's timeout.
+		 * @param probe the probe that is about to run
+		 * @return the scheduled verification, or null if there is none
+		 */
+		private ScheduledFuture<?> scheduleTimeout( final Probe probe ) {
+
+			ScheduledFuture<?> result = null;
+			long timeout = MonitoringRunnable.this.probeTimeout;
+			if( MonitoringRunnable.this.scheduler != null && timeout > 0 ) {
+				try {
+					result = MonitoringRunnable.this.scheduler.schedule( new Runnable() {
+						@Override
+						public void run() {
+							interrupt( probe );
+						}
+
+					}, timeout, TimeUnit.MILLISECONDS );
+
+				} catch( RejectedExecutionException e ) {
+					// The agent monitoring is being stopped
+					MonitoringRunnable.this.logger.finest( "The timeout of probe " + probe.key + " could not be scheduled." );
+				}
+			}
+
+			return result;
+		}
+
+
+		@Override
+		public void run() {
+
+			for( ;; ) {
+				Probe probe;
+				synchronized( this ) {
+					Iterator<Probe> it = this.pendingProbes.values().iterator();
+					if( ! it.hasNext()) {
+						this.scheduled = false;
+						return;
+					}
+
+					probe = it.next();
+					it.remove();
+					this.currentProbe = probe;
+					this.currentThread = Thread.currentThread();
+					this.currentProbeStart = System.currentTimeMillis();
+				}
+
+				ScheduledFuture<?> timeoutCheck = scheduleTimeout( probe );
+				try {
+					runProbe( this.handler, probe );
+
+				} finally {
+					if( timeoutCheck != null )
+						timeoutCheck.cancel( false );
+
+					synchronized( this ) {
+						this.currentProbe = null;
+						this.currentThread = null;
+
+						// Do not leak an interruption to the next probe
+						Thread.interrupted();
+					}
+				}
+			}
+		}
 	}
 }
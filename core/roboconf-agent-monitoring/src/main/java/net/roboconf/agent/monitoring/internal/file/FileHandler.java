@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.util.logging.Logger;
 
 import net.roboconf.agent.monitoring.api.IMonitoringHandler;
+import net.roboconf.agent.monitoring.api.IReplicableMonitoringHandler;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
@@ -38,7 +39,7 @@ import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
  * Handler to check the existence of a file or a directory (useful for tests and demonstrations).
  * @author Pierre-Yves Gibello - Linagora
  */
-public class FileHandler implements IMonitoringHandler {
+public class FileHandler implements IReplicableMonitoringHandler {
 
 	static final String HANDLER_NAME = "file";
 	static final String DELETE_IF_EXISTS = "delete if exists";
@@ -59,6 +60,12 @@ public class FileHandler implements IMonitoringHandler {
 	}
 
 
+	@Override
+	public IMonitoringHandler newHandler() {
+		return new FileHandler();
+	}
+
+
 	@Override
 	public void setAgentId( String applicationName, String scopedInstancePath ) {
 		this.applicationName = applicationName;
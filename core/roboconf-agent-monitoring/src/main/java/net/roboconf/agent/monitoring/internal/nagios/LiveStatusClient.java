@@ -25,32 +25,69 @@
 
 package net.roboconf.agent.monitoring.internal.nagios;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import net.roboconf.core.utils.Utils;
 
 /**
  * Live status client.
+ * <p>
+ * Queries are sent with <code>KeepAlive: on</code> and <code>ResponseHeader: fixed16</code>.
+ * Every response starts with a header that gives its status and its length, so that connections
+ * can be kept open and reused. Idle connections are pooled (per server) and shared by all the clients.
+ * Several queries can also be sent at once on a same connection (pipelining).
+ * </p>
+ * <p>
+ * Servers that ignore these headers (and close the connection after every response)
+ * are still supported.
+ * </p>
+ *
  * @author Pierre-Yves Gibello - Linagora
  */
 public class LiveStatusClient {
 
 	private static final String NAGIOS_COLUMNS = "columns:";
+	private static final String NAGIOS_KEEP_ALIVE = "keepalive:";
+	private static final String NAGIOS_RESPONSE_HEADER = "responseheader:";
+	private static final String QUERY_SUFFIX = "KeepAlive: on\nResponseHeader: fixed16\n\n";
+
 	static final String DEFAULT_HOST = "localhost";
 	static final int DEFAULT_PORT = 50000;
 
+	static final int HEADER_LENGTH = 16;
+	static final int STATUS_OK = 200;
+	static final int MAX_RESPONSE_LENGTH = 16 * 1024 * 1024;
+	static final int SOCKET_TIMEOUT = 10000;
+	static final long IDLE_TIMEOUT = 60000;
+	static final int MAX_IDLE_CONNECTIONS = 4;
+
+	// Idle connections, by server (guarded by the map itself)
+	private static final Map<String,Deque<Connection>> IDLE_CONNECTIONS = new HashMap<> ();
+
 	private final Logger logger = Logger.getLogger( getClass().getName());
 	final String host;
 	final int port;
 
+	private volatile Connection activeConnection;
+	private volatile boolean aborted = false;
+
 
 	/**
 	 * Constructor.
@@ -71,33 +108,299 @@ public class LiveStatusClient {
 	 * @throws IOException
 	 */
 	public String queryLivestatus( String nagiosQuery ) throws UnknownHostException, IOException {
+		return queryLivestatus( Collections.singletonList( nagiosQuery )).get( 0 );
+	}
+
+
+	/**
+	 * Queries a live status server with several queries.
+	 * <p>
+	 * Queries are all sent on the same connection, before reading the responses.
+	 * </p>
+	 *
+	 * @param nagiosQueries the queries to pass through a socket (not null)
+	 * @return the responses, in the same order than the queries
+	 * @throws UnknownHostException
+	 * @throws IOException if a connection failed or if the server returned an error
+	 */
+	public List<String> queryLivestatus( List<String> nagiosQueries ) throws UnknownHostException, IOException {
+
+		List<Response> responses = new ArrayList<> ();
+		while( responses.size() < nagiosQueries.size()) {
+			List<String> pendingQueries = nagiosQueries.subList( responses.size(), nagiosQueries.size());
+
+			Connection connection = takeIdleConnection();
+			boolean reused = connection != null;
+			if( ! reused )
+				connection = openConnection();
+
+			boolean keepAlive = false;
+			this.activeConnection = connection;
+			try {
+				if( this.aborted )
+					throw new IOException( "The Live Status query was aborted." );
+
+				keepAlive = exchange( connection, pendingQueries, responses );
+
+			} catch( IOException e ) {
+
+				// The server may have closed an idle connection: try the next one
+				if( ! reused || this.aborted )
+					throw e;
+
+				this.logger.fine( "A pooled Live Status connection could not be reused. " + e.getMessage());
+
+			} finally {
+				this.activeConnection = null;
+				if( keepAlive && ! this.aborted )
+					releaseConnection( connection );
+				else
+					connection.close();
+			}
+		}
+
+		List<String> result = new ArrayList<> ();
+		for( int i=0; i<nagiosQueries.size(); i++ ) {
+			Response response = responses.get( i );
+			if( response.status != STATUS_OK )
+				throw new IOException( "Live Status returned an error (" + response.status + "). " + response.content.trim());
+
+			result.add( format( nagiosQueries.get( i ), response.content ));
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Aborts the current query, if any, by closing its connection.
+	 * <p>
+	 * It is meant to be invoked from another thread. Once aborted,
+	 * this client cannot be used anymore.
+	 * </p>
+	 */
+	public void abort() {
+
+		this.aborted = true;
+		Connection connection = this.activeConnection;
+		if( connection != null )
+			connection.close();
+	}
+
+
+	/**
+	 * Closes all the idle connections.
+	 */
+	public static void closeIdleConnections() {
+
+		List<Connection> connections = new ArrayList<> ();
+		synchronized( IDLE_CONNECTIONS ) {
+			for( Deque<Connection> deque : IDLE_CONNECTIONS.values())
+				connections.addAll( deque );
+
+			IDLE_CONNECTIONS.clear();
+		}
+
+		for( Connection connection : connections )
+			connection.close();
+	}
+
+
+	/**
+	 * Sends queries and reads their responses.
+	 * @param connection a connection
+	 * @param queries the queries to send
+	 * @param responses the list to which responses are added
+	 * @return true if the connection can be reused, false otherwise
+	 * @throws IOException
+	 */
+	private boolean exchange( Connection connection, List<String> queries, List<Response> responses )
+	throws IOException {
+
+		for( String query : queries )
+			connection.out.write( prepareQuery( query ).getBytes( StandardCharsets.UTF_8 ));
+
+		connection.out.flush();
+		boolean keepAlive = true;
+		for( int i=0; i<queries.size() && keepAlive; i++ ) {
+
+			byte[] header = new byte[ HEADER_LENGTH ];
+			int read = readAsMuchAsPossible( connection.in, header );
+			int[] statusAndLength = parseHeader( header, read );
+
+			Response response = new Response();
+			if( statusAndLength != null ) {
+				if( statusAndLength[ 1 ] > MAX_RESPONSE_LENGTH )
+					throw new IOException( "The Live Status response is too large (" + statusAndLength[ 1 ] + " bytes)." );
+
+				// Only read what the header announced
+				byte[] content = new byte[ statusAndLength[ 1 ]];
+				connection.in.readFully( content );
+				response.status = statusAndLength[ 0 ];
+				response.content = new String( content, StandardCharsets.UTF_8 );
+
+			} else if( connection.used ) {
+				// This connection was used with response headers, it cannot return something else
+				throw new IOException( "The Live Status connection was closed by the server." );
+
+			} else {
+				// The server does not support response headers: read until the end of the stream
+				ByteArrayOutputStream os = new ByteArrayOutputStream();
+				os.write( header, 0, read );
+				Utils.copyStreamUnsafelyUseWithCaution( connection.in, os );
+				response.status = STATUS_OK;
+				response.content = os.toString( "UTF-8" );
+				keepAlive = false;
+			}
+
+			responses.add( response );
+			connection.used = true;
+		}
+
+		return keepAlive;
+	}
+
+
+	/**
+	 * Prepares a query so that the connection is kept open and the response has a fixed header.
+	 * @param nagiosQuery a query
+	 * @return a non-null string, terminated by an empty line
+	 */
+	static String prepareQuery( String nagiosQuery ) {
+
+		// Empty lines would end the query
+		StringBuilder sb = new StringBuilder();
+		for( String s : nagiosQuery.split( "\n" )) {
+			s = s.trim();
+			String lower = s.toLowerCase();
+			if( s.isEmpty()
+					|| lower.startsWith( NAGIOS_KEEP_ALIVE )
+					|| lower.startsWith( NAGIOS_RESPONSE_HEADER ))
+				continue;
+
+			sb.append( s );
+			sb.append( "\n" );
+		}
+
+		sb.append( QUERY_SUFFIX );
+		return sb.toString();
+	}
+
+
+	/**
+	 * Parses a fixed response header.
+	 * <p>
+	 * Such a header is made up of a 3-digit status code, a space, the response length
+	 * (padded with spaces to 11 characters) and a line break.
+	 * </p>
+	 *
+	 * @param header the header bytes
+	 * @param read the number of bytes that were read
+	 * @return the status and the response length, or null if this is not a valid header
+	 */
+	static int[] parseHeader( byte[] header, int read ) {
+
+		int[] result = null;
+		if( read == HEADER_LENGTH
+				&& header[ 3 ] == ' '
+				&& header[ HEADER_LENGTH - 1 ] == '\n' ) {
+
+			String s = new String( header, StandardCharsets.US_ASCII );
+			try {
+				int status = Integer.parseInt( s.substring( 0, 3 ));
+				int length = Integer.parseInt( s.substring( 4, HEADER_LENGTH - 1 ).trim());
+				if( length >= 0 )
+					result = new int[] { status, length };
 
-		Socket liveStatusSocket = null;
+			} catch( NumberFormatException e ) {
+				// nothing
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Fills a buffer from a stream, unless the end of the stream is reached before.
+	 * @param in an input stream
+	 * @param buffer a buffer
+	 * @return the number of bytes that were read
+	 * @throws IOException
+	 */
+	private static int readAsMuchAsPossible( DataInputStream in, byte[] buffer ) throws IOException {
+
+		int total = 0, read = 0;
+		while( total < buffer.length && read >= 0 ) {
+			read = in.read( buffer, total, buffer.length - total );
+			if( read > 0 )
+				total += read;
+		}
+
+		return total;
+	}
+
+
+	private Connection openConnection() throws IOException {
+
+		this.logger.fine( "About to open a connection through Live Status..." );
+		Socket socket = new Socket();
 		try {
-			this.logger.fine( "About to open a connection through Live Status..." );
-			liveStatusSocket = new Socket( this.host, this.port );
-			this.logger.fine( "A connection was established through Live Status." );
+			socket.connect( new InetSocketAddress( this.host, this.port ), SOCKET_TIMEOUT );
+			socket.setSoTimeout( SOCKET_TIMEOUT );
 
-			Writer osw = new OutputStreamWriter( liveStatusSocket.getOutputStream(), StandardCharsets.UTF_8 );
-			PrintWriter printer = new PrintWriter( osw, false );
+		} catch( IOException e ) {
+			socket.close();
+			throw e;
+		}
 
-			printer.print( nagiosQuery );
-			printer.flush();
-			liveStatusSocket.shutdownOutput();
+		this.logger.fine( "A connection was established through Live Status." );
+		return new Connection( serverKey(), socket );
+	}
 
-			ByteArrayOutputStream os = new ByteArrayOutputStream();
-			Utils.copyStreamSafely( liveStatusSocket.getInputStream(), os );
 
-			String result = os.toString( "UTF-8" );
-			result = format( nagiosQuery, result );
-			return result;
+	private Connection takeIdleConnection() {
 
-		} finally {
-			if( liveStatusSocket != null )
-				liveStatusSocket.close();
+		Connection result = null;
+		synchronized( IDLE_CONNECTIONS ) {
+			Deque<Connection> deque = IDLE_CONNECTIONS.get( serverKey());
+			while( deque != null && ! deque.isEmpty() && result == null ) {
+				Connection connection = deque.pollLast();
+				if( System.currentTimeMillis() - connection.lastUse < IDLE_TIMEOUT )
+					result = connection;
+				else
+					connection.close();
+			}
+		}
 
-			this.logger.fine( "The Live Status connection was closed." );
+		return result;
+	}
+
+
+	private void releaseConnection( Connection connection ) {
+
+		connection.lastUse = System.currentTimeMillis();
+		boolean pooled = false;
+		synchronized( IDLE_CONNECTIONS ) {
+			Deque<Connection> deque = IDLE_CONNECTIONS.get( connection.serverKey );
+			if( deque == null ) {
+				deque = new ArrayDeque<> ();
+				IDLE_CONNECTIONS.put( connection.serverKey, deque );
+			}
+
+			if( deque.size() < MAX_IDLE_CONNECTIONS ) {
+				deque.addLast( connection );
+				pooled = true;
+			}
 		}
+
+		if( ! pooled )
+			connection.close();
+	}
+
+
+	private String serverKey() {
+		return this.host + ":" + this.port;
 	}
 
 
@@ -129,4 +432,56 @@ public class LiveStatusClient {
 
 		return result;
 	}
+
+
+	/**
+	 * A response from a live status server.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class Response {
+		int status;
+		String content;
+	}
+
+
+	/**
+	 * A connection to a live status server.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class Connection {
+
+		private final Logger logger = Logger.getLogger( getClass().getName());
+		final String serverKey;
+		final Socket socket;
+		final DataInputStream in;
+		final OutputStream out;
+		long lastUse;
+		boolean used = false;
+
+
+		/**
+		 * Constructor.
+		 * @param serverKey
+		 * @param socket
+		 * @throws IOException
+		 */
+		Connection( String serverKey, Socket socket ) throws IOException {
+			this.serverKey = serverKey;
+			this.socket = socket;
+			this.in = new DataInputStream( new BufferedInputStream( socket.getInputStream()));
+			this.out = new BufferedOutputStream( socket.getOutputStream());
+		}
+
+
+		void close() {
+			try {
+				this.socket.close();
+
+			} catch( IOException e ) {
+				// nothing
+			}
+
+			this.logger.fine( "The Live Status connection was closed." );
+		}
+	}
 }
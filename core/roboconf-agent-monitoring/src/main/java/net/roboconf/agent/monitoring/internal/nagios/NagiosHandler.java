@@ -30,7 +30,9 @@ import java.net.UnknownHostException;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import net.roboconf.agent.monitoring.api.ICancellableMonitoringHandler;
 import net.roboconf.agent.monitoring.api.IMonitoringHandler;
+import net.roboconf.agent.monitoring.api.IReplicableMonitoringHandler;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
@@ -39,7 +41,7 @@ import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
  * Handler to check Nagios (polling).
  * @author Pierre-Yves Gibello - Linagora
  */
-public class NagiosHandler implements IMonitoringHandler {
+public class NagiosHandler implements ICancellableMonitoringHandler, IReplicableMonitoringHandler {
 
 	static final String HANDLER_NAME = "nagios";
 	static final String NAGIOS_CONFIG = "nagios configuration at";
@@ -49,6 +51,7 @@ public class NagiosHandler implements IMonitoringHandler {
 	private String applicationName, scopedInstancePath, eventId;
 	String nagiosInstructions, host;
 	int port = -1;
+	private volatile LiveStatusClient currentClient;
 
 
 
@@ -58,6 +61,12 @@ public class NagiosHandler implements IMonitoringHandler {
 	}
 
 
+	@Override
+	public IMonitoringHandler newHandler() {
+		return new NagiosHandler();
+	}
+
+
 	@Override
 	public void setAgentId( String applicationName, String scopedInstancePath ) {
 		this.applicationName = applicationName;
@@ -92,6 +101,7 @@ public class NagiosHandler implements IMonitoringHandler {
 	public MsgNotifAutonomic process() {
 
 		LiveStatusClient client = new LiveStatusClient( this.host, this.port );
+		this.currentClient = client;
 		MsgNotifAutonomic result = null;
 		try {
 			String liveStatusResponse = client.queryLivestatus( this.nagiosInstructions );
@@ -108,8 +118,20 @@ public class NagiosHandler implements IMonitoringHandler {
 		} catch( IOException e ) {
 			this.logger.warning( "I/O exception. " + e.getMessage());
 			Utils.logException( this.logger, e );
+
+		} finally {
+			this.currentClient = null;
 		}
 
 		return result;
 	}
+
+
+	@Override
+	public void cancel() {
+
+		LiveStatusClient client = this.currentClient;
+		if( client != null )
+			client.abort();
+	}
 }
@@ -0,0 +1,304 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.monitoring.internal.rest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A streaming JSON reader that finds the value associated with a path.
+ * <p>
+ * Paths are made up of object keys and array indexes, separated by dots
+ * (e.g. <code>stats.servers.0.lag</code>). The document is read character by character,
+ * without building any tree. Only scalar values can be found. String values are returned
+ * without their quotes. Other values are returned as they appear in the document.
+ * </p>
+ * <p>
+ * For compatibility reasons, a document made up of object members without
+ * the surrounding braces (e.g. <code>"lag": 0</code>) is also accepted.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public final class JsonPathReader {
+
+	static final int MAX_DEPTH = 64;
+	private static final int NONE = -2;
+
+	private final Reader reader;
+	private final List<String> targetPath;
+	private final List<String> currentPath = new ArrayList<> ();
+	private final StringBuilder capturedText = new StringBuilder();
+	private final int captureLimit;
+
+	private int peeked = NONE;
+	private boolean found = false;
+	private String value;
+
+
+	/**
+	 * Constructor.
+	 * @param reader the reader to read the document from (not null)
+	 * @param path the path of the value to find (not null)
+	 * @param captureLimit the maximum number of characters to keep from the document
+	 */
+	public JsonPathReader( Reader reader, String path, int captureLimit ) {
+		this.reader = reader;
+		this.targetPath = Arrays.asList( path.split( "\\." ));
+		this.captureLimit = captureLimit;
+	}
+
+
+	/**
+	 * Reads the whole document and finds the value.
+	 * @return the value associated with the path, or null if it was not found
+	 * @throws IOException if the document could not be read or if it is not valid JSON
+	 */
+	public String read() throws IOException {
+
+		if( peekNonWhitespace() == '"' )
+			readMembers( -1 );
+		else
+			readValue();
+
+		if( peekNonWhitespace() != -1 )
+			throw error( "Unexpected content after the end of the document." );
+
+		return this.value;
+	}
+
+
+	/**
+	 * @return the beginning of the document (at most the capture limit)
+	 */
+	public String getCapturedText() {
+		return this.capturedText.toString();
+	}
+
+
+	private void readValue() throws IOException {
+
+		if( this.currentPath.size() > MAX_DEPTH )
+			throw error( "The document is too deep." );
+
+		int c = peekNonWhitespace();
+		if( c == '{' ) {
+			next();
+			readMembers( '}' );
+
+		} else if( c == '[' ) {
+			next();
+			readElements();
+
+		} else if( c == '"' ) {
+			next();
+			record( readString());
+
+		} else {
+			record( readLiteral());
+		}
+	}
+
+
+	/**
+	 * Reads object members.
+	 * @param end the closing character, or -1 for an object without braces
+	 * @throws IOException
+	 */
+	private void readMembers( int end ) throws IOException {
+
+		if( peekNonWhitespace() == end ) {
+			next();
+			return;
+		}
+
+		for( ;; ) {
+			if( peekNonWhitespace() != '"' )
+				throw error( "A key was expected." );
+
+			next();
+			String key = readString();
+			if( peekNonWhitespace() != ':' )
+				throw error( "A colon was expected after " + key + "." );
+
+			next();
+			this.currentPath.add( key );
+			readValue();
+			this.currentPath.remove( this.currentPath.size() - 1 );
+
+			int c = peekNonWhitespace();
+			if( c == ',' ) {
+				next();
+
+			} else if( c == end ) {
+				next();
+				break;
+
+			// Objects without braces may have one member per line, without commas
+			} else if( end != -1 || c != '"' ) {
+				throw error( "A comma or the end of the object was expected." );
+			}
+		}
+	}
+
+
+	private void readElements() throws IOException {
+
+		if( peekNonWhitespace() == ']' ) {
+			next();
+			return;
+		}
+
+		for( int i=0; ; i++ ) {
+			this.currentPath.add( String.valueOf( i ));
+			readValue();
+			this.currentPath.remove( this.currentPath.size() - 1 );
+
+			int c = next();
+			while( Character.isWhitespace( c ))
+				c = next();
+
+			if( c == ']' )
+				break;
+			else if( c != ',' )
+				throw error( "A comma or the end of the array was expected." );
+		}
+	}
+
+
+	private String readString() throws IOException {
+
+		StringBuilder sb = new StringBuilder();
+		for( int c = next(); c != '"'; c = next()) {
+
+			if( c == -1 )
+				throw error( "Unterminated string." );
+
+			if( c == '\\' ) {
+				c = next();
+				switch( c ) {
+				case 'b': c = '\b'; break;
+				case 'f': c = '\f'; break;
+				case 'n': c = '\n'; break;
+				case 'r': c = '\r'; break;
+				case 't': c = '\t'; break;
+				case 'u':
+					char[] hex = new char[ 4 ];
+					for( int i=0; i<hex.length; i++ )
+						hex[ i ] = (char) next();
+
+					try {
+						c = Integer.parseInt( new String( hex ), 16 );
+
+					} catch( NumberFormatException e ) {
+						throw error( "Invalid unicode escape sequence." );
+					}
+					break;
+
+				case '"':
+				case '\\':
+				case '/':
+					break;
+
+				default:
+					throw error( "Invalid escape sequence." );
+				}
+			}
+
+			sb.append((char) c );
+		}
+
+		return sb.toString();
+	}
+
+
+	private String readLiteral() throws IOException {
+
+		StringBuilder sb = new StringBuilder();
+		for( int c = peek(); Character.isLetterOrDigit( c ) || c == '-' || c == '+' || c == '.'; c = peek())
+			sb.append((char) next());
+
+		String result = sb.toString();
+		if( ! "true".equals( result )
+				&& ! "false".equals( result )
+				&& ! "null".equals( result )) {
+
+			try {
+				Double.parseDouble( result );
+
+			} catch( NumberFormatException e ) {
+				throw error( "Invalid value: '" + result + "'." );
+			}
+		}
+
+		return result;
+	}
+
+
+	private void record( String value ) {
+
+		if( ! this.found && this.currentPath.equals( this.targetPath )) {
+			this.found = true;
+			this.value = value;
+		}
+	}
+
+
+	private int peek() throws IOException {
+
+		if( this.peeked == NONE ) {
+			this.peeked = this.reader.read();
+			if( this.peeked != -1 && this.capturedText.length() < this.captureLimit )
+				this.capturedText.append((char) this.peeked );
+		}
+
+		return this.peeked;
+	}
+
+
+	private int peekNonWhitespace() throws IOException {
+
+		while( Character.isWhitespace( peek()))
+			next();
+
+		return peek();
+	}
+
+
+	private int next() throws IOException {
+		int result = peek();
+		this.peeked = NONE;
+		return result;
+	}
+
+
+	private IOException error( String message ) {
+		return new IOException( "Invalid JSON document. " + message );
+	}
+}
@@ -25,13 +25,17 @@
 
 package net.roboconf.agent.monitoring.internal.rest;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.cert.X509Certificate;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Logger;
@@ -42,31 +46,65 @@ import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
+import net.roboconf.agent.monitoring.api.ICancellableMonitoringHandler;
 import net.roboconf.agent.monitoring.api.IMonitoringHandler;
+import net.roboconf.agent.monitoring.api.IReplicableMonitoringHandler;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
 
 /**
  * Handler to check the value returned by a REST call on a URL.
+ * <p>
+ * Rules look like <code>Check http://host/path THAT some.path &gt; 10 TIMEOUT 5000</code>.
+ * The parameter is a path in the returned JSON document (keys and array indexes separated by dots).
+ * The timeout (in milliseconds) is optional.
+ * </p>
+ * <p>
+ * Responses are parsed as they are read. Connections are kept alive and reused between polls
+ * (this is what the JDK does when response streams are entirely read and closed). When a server
+ * returns an ETag or a last modification date, next queries are conditional. If the server answers
+ * the resource was not modified, the result of the previous evaluation is reused.
+ * </p>
+ *
  * @author Pierre-Yves Gibello - Linagora
  */
-public class RestHandler implements IMonitoringHandler {
+public class RestHandler implements ICancellableMonitoringHandler, IReplicableMonitoringHandler {
 
 	static final String HANDLER_NAME = "rest";
+	static final int DEFAULT_TIMEOUT = 10000;
+	static final int MAX_EVENT_INFO_LENGTH = 64 * 1024;
+	static final int MAX_CACHED_RESULTS = 256;
 
 	private static final String USER_AGENT = "Mozilla/34.0";
 	private static final String CHECK = "check";
 	private static final String THAT = "that";
-	private static final String CONDITION_PATTERN = "(\\w+)\\s+(==|=|>=|>|<=|<)\\s+(\\S+)";
-	private static final String WHOLE_PATTERN = CHECK + "\\s+(\\S+)\\s+" + THAT + "\\s+" + CONDITION_PATTERN;
+	private static final String TIMEOUT = "timeout";
+	private static final String CONDITION_PATTERN = "([\\w.-]+)\\s+(==|=|>=|>|<=|<)\\s+(\\S+)";
+	private static final String WHOLE_PATTERN = CHECK + "\\s+(\\S+)\\s+" + THAT + "\\s+" + CONDITION_PATTERN + "(?:\\s+" + TIMEOUT + "\\s+(\\d+))?";
+	private static final Pattern RULE_PATTERN = Pattern.compile( WHOLE_PATTERN, Pattern.CASE_INSENSITIVE );
+
+	private static SSLSocketFactory trustAllSocketFactory;
 
 	private final Logger logger = Logger.getLogger(getClass().getName());
 	private String applicationName, scopedInstancePath, eventId;
+	private volatile HttpURLConnection currentConnection;
 	String url, conditionParameter, conditionOperator, conditionThreshold;
+	int timeout = DEFAULT_TIMEOUT;
+
+	// Results of previous evaluations, by rule
+	final Map<String,CachedResult> cachedResults = Collections.synchronizedMap( new LinkedHashMap<String,CachedResult>( 16, 0.75f, true ) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<String,CachedResult> eldest ) {
+			return size() > MAX_CACHED_RESULTS;
+		}
+	});
 
 
 
@@ -76,6 +114,12 @@ public class RestHandler implements IMonitoringHandler {
 	}
 
 
+	@Override
+	public IMonitoringHandler newHandler() {
+		return new RestHandler();
+	}
+
+
 	@Override
 	public void setAgentId( String applicationName, String scopedInstancePath ) {
 		this.applicationName = applicationName;
@@ -87,14 +131,21 @@ public class RestHandler implements IMonitoringHandler {
 	public void reset( Instance associatedInstance, String eventId, String rawRulesText ) {
 		this.eventId = eventId;
 
-		Matcher m = Pattern.compile( WHOLE_PATTERN, Pattern.CASE_INSENSITIVE ).matcher( rawRulesText );
+		Matcher m = RULE_PATTERN.matcher( rawRulesText );
 		if( m .find()) {
 			this.url = m.group( 1 );
 			this.conditionParameter = m.group( 2 );
 			this.conditionOperator = m.group( 3 );
 			this.conditionThreshold = m.group( 4 );
+			this.timeout = m.group( 5 ) != null ? Integer.parseInt( m.group( 5 )) : DEFAULT_TIMEOUT;
 
 		} else {
+			// The handler is shared by all the probes: do not keep the previous rule
+			this.url = null;
+			this.conditionParameter = null;
+			this.conditionOperator = null;
+			this.conditionThreshold = null;
+			this.timeout = DEFAULT_TIMEOUT;
 			this.logger.severe( "Invalid content for the 'rest' handler in the agent's monitoring." );
 		}
 	}
@@ -104,36 +155,29 @@ public class RestHandler implements IMonitoringHandler {
 	public MsgNotifAutonomic process() {
 
 		MsgNotifAutonomic result = null;
-		String response = null;
-		if( this.url != null )
-			response = this.url.startsWith("https:") ? httpsQuery() : httpQuery();
-
-		if( response != null )
-			response = response.replace('{', ' ').replace('}', ' ').trim();
+		CachedResult evaluation = null;
+		if( this.url == null )
+			this.logger.warning( "The REST response could not be parsed." );
 		else
-			response = "";
-
-		HashMap<String,String> map = new HashMap<String,String> ();
-		for( String s : response.split( "\\n" )) {
-			String kv[] = s.split(":");
-			if( kv.length == 2 )
-				map.put( kv[0].replace("\"", " ").trim(), kv[ 1 ]);
-			else
-				break;
-		}
+			evaluation = query();
 
-		if( map.isEmpty()) {
-			this.logger.warning( "The REST response could not be parsed." );
-			this.logger.finer( "Received response: " + response );
-
-		} else if( evalCondition( map )) {
-			result = new MsgNotifAutonomic( this.applicationName, this.scopedInstancePath, this.eventId, response.toString());
-		}
+		if( evaluation != null && evaluation.conditionMet )
+			result = new MsgNotifAutonomic( this.applicationName, this.scopedInstancePath, this.eventId, evaluation.eventInfo );
 
 		return result;
 	}
 
 
+	@Override
+	public void cancel() {
+
+		// Closes the socket, which unblocks the thread that reads the response
+		HttpURLConnection conn = this.currentConnection;
+		if( conn != null )
+			conn.disconnect();
+	}
+
+
 	/**
 	 * Evaluates a condition (eg. "lag>=100") using data in key-pair value map (e.g. <"lag","50">).
 	 * @param valueMap The values (key-pairs) on which to evaluate the condition.
@@ -172,69 +216,151 @@ public class RestHandler implements IMonitoringHandler {
 		return result;
 	}
 
+
 	/**
-	 * Query a https URL, ignoring certificates.
-	 * @return The query response
+	 * Queries the URL and evaluates the condition.
+	 * @return the evaluation result, or null if the response could not be retrieved or parsed
 	 */
-	private String httpsQuery() {
+	private CachedResult query() {
 
-		String response = null;
-		try {
-			// Create a trust manager that does not validate certificate chains
-			TrustManager[] trustAllCerts = new TrustManager[] { new LocalX509TrustManager()};
-
-			// Install the all-trusting trust manager
-			final SSLContext sc = SSLContext.getInstance("SSL");
-			sc.init( null, trustAllCerts, new java.security.SecureRandom());
-			HttpsURLConnection.setDefaultSSLSocketFactory( sc.getSocketFactory());
+		String ruleKey = this.url + " " + this.conditionParameter + " " + this.conditionOperator + " " + this.conditionThreshold;
+		CachedResult previous = this.cachedResults.get( ruleKey );
+		CachedResult result = null;
 
-			// Create all-trusting host name verifier
-			HostnameVerifier allHostsValid = new LocalHostnameVerifier();
-			HttpsURLConnection.setDefaultHostnameVerifier( allHostsValid );
+		HttpURLConnection conn = null;
+		try {
+			conn = (HttpURLConnection) new URL( this.url ).openConnection();
+			this.currentConnection = conn;
+			if( conn instanceof HttpsURLConnection ) {
+				// Ignore certificates, for this connection only
+				((HttpsURLConnection) conn).setSSLSocketFactory( findTrustAllSocketFactory());
+				((HttpsURLConnection) conn).setHostnameVerifier( new LocalHostnameVerifier());
+			}
 
-			URL restUrl = new URL( this.url );
-			HttpsURLConnection conn = (HttpsURLConnection) restUrl.openConnection();
-			response = query( conn );
+			conn.setRequestMethod( "GET" );
+			conn.setRequestProperty( "User-Agent", USER_AGENT );
+			conn.setRequestProperty( "Accept", "application/json" );
+			conn.setConnectTimeout( this.timeout );
+			conn.setReadTimeout( this.timeout );
+			if( previous != null && previous.etag != null )
+				conn.setRequestProperty( "If-None-Match", previous.etag );
+			else if( previous != null && previous.lastModified != null )
+				conn.setRequestProperty( "If-Modified-Since", previous.lastModified );
+
+			int code = conn.getResponseCode();
+			if( code == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null ) {
+				this.logger.finer( "The resource at " + this.url + " was not modified. The previous evaluation is reused." );
+				result = previous;
+				drain( conn.getInputStream());
+
+			} else if( code >= HttpURLConnection.HTTP_BAD_REQUEST ) {
+				this.logger.severe( "GET on URL " + this.url + " returned an error (" + code + "). Monitoring notification is discarded." );
+				drain( conn.getErrorStream());
+
+			} else {
+				result = evaluate( conn.getInputStream());
+				if( result != null ) {
+					result.etag = conn.getHeaderField( "ETag" );
+					result.lastModified = conn.getHeaderField( "Last-Modified" );
+					if( result.etag != null || result.lastModified != null )
+						this.cachedResults.put( ruleKey, result );
+					else
+						this.cachedResults.remove( ruleKey );
+				}
+			}
 
 		} catch( Exception e ) {
 			this.logger.severe( "Cannot issue GET on URL " + this.url + ". Monitoring notification is discarded." );
 			Utils.logException(this.logger, e);
+
+			// Release the socket, it may be in an inconsistent state
+			if( conn != null )
+				conn.disconnect();
+
+		} finally {
+			this.currentConnection = null;
 		}
 
-		return response;
+		return result;
 	}
 
+
 	/**
-	 * Query a http URL.
-	 * @return The query response
+	 * Parses a response and evaluates the condition.
+	 * @param in the response stream (closed by this method)
+	 * @return the evaluation result, or null if the response could not be parsed
+	 * @throws IOException if the response could not be read
 	 */
-	private String httpQuery() {
+	private CachedResult evaluate( InputStream in ) throws IOException {
 
-		String response = null;
+		CachedResult result = null;
+		Reader reader = new InputStreamReader( in, StandardCharsets.UTF_8 );
+		JsonPathReader jsonReader = new JsonPathReader( reader, this.conditionParameter, MAX_EVENT_INFO_LENGTH );
 		try {
-			URL restUrl = new URL( this.url );
-			HttpURLConnection conn = (HttpURLConnection) restUrl.openConnection();
-			response = query( conn );
-
-		} catch( Exception e ) {
-			this.logger.severe( "Cannot issue GET on URL " + this.url + ". Monitoring notification is discarded." );
-			Utils.logException(this.logger, e);
+			String value = jsonReader.read();
+			result = new CachedResult();
+			result.eventInfo = jsonReader.getCapturedText().trim();
+			result.conditionMet = evalCondition( Collections.singletonMap( this.conditionParameter, value ));
+
+		} catch( IOException e ) {
+			this.logger.warning( "The REST response could not be parsed. " + e.getMessage());
+			this.logger.finer( "Received response: " + jsonReader.getCapturedText());
+
+		} finally {
+			// So that the connection can be reused
+			drain( in );
 		}
 
-		return response;
+		return result;
 	}
 
 
-	private String query( HttpURLConnection conn ) throws IOException {
+	/**
+	 * Reads a stream until its end and closes it.
+	 * @param in a stream (can be null)
+	 */
+	private static void drain( InputStream in ) {
 
-		conn.setRequestMethod( "GET" );
-		conn.setRequestProperty( "User-Agent", USER_AGENT );
+		if( in != null ) {
+			try {
+				byte[] buffer = new byte[ 1024 ];
+				while( in.read( buffer ) != -1 ) {
+					// nothing
+				}
 
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		InputStream in = conn.getInputStream();
-		Utils.copyStreamSafely( in, os );
+			} catch( IOException e ) {
+				// nothing
+			}
 
-		return os.toString("UTF-8");
+			Utils.closeQuietly( in );
+		}
+	}
+
+
+	/**
+	 * @return a socket factory that does not validate certificate chains (created once)
+	 * @throws GeneralSecurityException
+	 */
+	private static synchronized SSLSocketFactory findTrustAllSocketFactory() throws GeneralSecurityException {
+
+		if( trustAllSocketFactory == null ) {
+			TrustManager[] trustAllCerts = new TrustManager[] { new LocalX509TrustManager()};
+			SSLContext sc = SSLContext.getInstance( "SSL" );
+			sc.init( null, trustAllCerts, new java.security.SecureRandom());
+			trustAllSocketFactory = sc.getSocketFactory();
+		}
+
+		return trustAllSocketFactory;
+	}
+
+
+	/**
+	 * The result of a condition evaluation, and the validators of the response it comes from.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static class CachedResult {
+		boolean conditionMet;
+		String eventInfo, etag, lastModified;
 	}
 
 
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.monitoring.internal;
+
+import java.util.Collections;
+import java.util.List;
+
+import net.roboconf.agent.monitoring.internal.MonitoringRunnable.MonitoringHandlerRun;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class AutonomicEventFilterTest {
+
+	private static final String KEY = "/root | event";
+
+
+	@Test
+	public void testNoOption() {
+
+		AutonomicEventFilter filter = new AutonomicEventFilter();
+		MonitoringHandlerRun bean = new MonitoringHandlerRun();
+
+		MsgNotifAutonomic msg = newMessage( "1" );
+		Assert.assertSame( msg, filter.filter( KEY, bean, msg, 0 ));
+		Assert.assertSame( msg, filter.filter( KEY, bean, msg, 1 ));
+		Assert.assertNull( filter.filter( KEY, bean, null, 2 ));
+		Assert.assertEquals( 0, filter.flush( 3 ).size());
+	}
+
+
+	@Test
+	public void testHoldDown() {
+
+		AutonomicEventFilter filter = new AutonomicEventFilter();
+		MonitoringHandlerRun bean = new MonitoringHandlerRun();
+		bean.holdDown = 100;
+
+		// The first occurrence is sent immediately
+		MsgNotifAutonomic msg = newMessage( "1" );
+		Assert.assertSame( msg, filter.filter( KEY, bean, msg, 1000 ));
+
+		// The next ones are aggregated
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "2" ), 1020 ));
+		Assert.assertNull( filter.filter( KEY, bean, null, 1040 ));
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "3" ), 1060 ));
+		Assert.assertEquals( 2, filter.getPendingCount());
+		Assert.assertEquals( 0, filter.flush( 1080 ).size());
+
+		// Until the window expires
+		List<MsgNotifAutonomic> aggregated = filter.flush( 1100 );
+		Assert.assertEquals( 1, aggregated.size());
+		Assert.assertEquals( 2, aggregated.get( 0 ).getOccurrences());
+		Assert.assertEquals( "3", aggregated.get( 0 ).getEventInfo());
+		Assert.assertEquals( "event", aggregated.get( 0 ).getEventName());
+		Assert.assertEquals( 0, filter.getPendingCount());
+
+		// A new window started with the aggregated notification
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "4" ), 1150 ));
+		Assert.assertEquals( 0, filter.flush( 1199 ).size());
+		Assert.assertEquals( 1, filter.flush( 1200 ).size());
+
+		// Nothing happened for a while
+		msg = newMessage( "5" );
+		Assert.assertSame( msg, filter.filter( KEY, bean, msg, 5000 ));
+	}
+
+
+	@Test
+	public void testEdgeTriggered() {
+
+		AutonomicEventFilter filter = new AutonomicEventFilter();
+		MonitoringHandlerRun bean = new MonitoringHandlerRun();
+		bean.edgeTriggered = true;
+
+		MsgNotifAutonomic msg = newMessage( "1" );
+		Assert.assertSame( msg, filter.filter( KEY, bean, msg, 0 ));
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "2" ), 1 ));
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "3" ), 2 ));
+
+		// The condition does not hold anymore, then it holds again
+		Assert.assertNull( filter.filter( KEY, bean, null, 3 ));
+		msg = newMessage( "4" );
+		Assert.assertSame( msg, filter.filter( KEY, bean, msg, 4 ));
+		Assert.assertEquals( 0, filter.getPendingCount());
+	}
+
+
+	@Test
+	public void testEdgeTriggeredWithHoldDown() {
+
+		AutonomicEventFilter filter = new AutonomicEventFilter();
+		MonitoringHandlerRun bean = new MonitoringHandlerRun();
+		bean.edgeTriggered = true;
+		bean.holdDown = 100;
+
+		// A flapping condition
+		Assert.assertNotNull( filter.filter( KEY, bean, newMessage( "1" ), 0 ));
+		Assert.assertNull( filter.filter( KEY, bean, null, 10 ));
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "2" ), 20 ));
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "3" ), 30 ));
+		Assert.assertNull( filter.filter( KEY, bean, null, 40 ));
+		Assert.assertNull( filter.filter( KEY, bean, newMessage( "4" ), 50 ));
+
+		List<MsgNotifAutonomic> aggregated = filter.flush( 100 );
+		Assert.assertEquals( 1, aggregated.size());
+		Assert.assertEquals( 2, aggregated.get( 0 ).getOccurrences());
+		Assert.assertEquals( "4", aggregated.get( 0 ).getEventInfo());
+	}
+
+
+	@Test
+	public void testRetainProbes() {
+
+		AutonomicEventFilter filter = new AutonomicEventFilter();
+		MonitoringHandlerRun bean = new MonitoringHandlerRun();
+		bean.holdDown = 100;
+
+		filter.filter( KEY, bean, newMessage( "1" ), 0 );
+		filter.filter( KEY, bean, newMessage( "2" ), 1 );
+		Assert.assertEquals( 1, filter.getPendingCount());
+
+		filter.retainProbes( Collections.singleton( KEY ));
+		Assert.assertEquals( 1, filter.getPendingCount());
+
+		filter.retainProbes( Collections.<String>emptySet());
+		Assert.assertEquals( 0, filter.getPendingCount());
+	}
+
+
+	private static MsgNotifAutonomic newMessage( String info ) {
+		return new MsgNotifAutonomic( "app", "/root", "event", info );
+	}
+}
@@ -30,8 +30,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.roboconf.agent.monitoring.api.ICancellableMonitoringHandler;
 import net.roboconf.agent.monitoring.api.IMonitoringHandler;
+import net.roboconf.agent.monitoring.api.IReplicableMonitoringHandler;
+import net.roboconf.agent.monitoring.internal.MonitoringRunnable.CachedRules;
 import net.roboconf.agent.monitoring.internal.MonitoringRunnable.MonitoringHandlerRun;
 import net.roboconf.agent.monitoring.internal.file.FileHandler;
 import net.roboconf.agent.monitoring.internal.nagios.NagiosHandler;
@@ -47,6 +56,7 @@ import net.roboconf.core.utils.Utils;
 import net.roboconf.messaging.api.business.IAgentClient;
 import net.roboconf.messaging.api.messages.Message;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomicEvents;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -240,6 +250,84 @@ public class MonitoringRunnableTest {
 	}
 
 
+	@Test
+	public void testExtractRuleSections_options() throws Exception {
+
+		String fileContent = MonitoringRunnable.RULE_BEGINNING + " unknown event-1 hold-down=60 trigger=edge]\nok\n"
+				+ MonitoringRunnable.RULE_BEGINNING + " unknown event-2 hold-down=oops trigger=level whatever=1]\nok";
+
+		MonitoringRunnable task = new MonitoringRunnable( this.agentInterface, HANDLERS );
+		List<MonitoringHandlerRun> handlers = task.extractRuleSections( new File( "test" ), fileContent, null );
+		Assert.assertEquals( 2, handlers.size());
+
+		MonitoringHandlerRun bean = handlers.get( 0 );
+		Assert.assertEquals( "event-1", bean.eventId );
+		Assert.assertEquals( "ok", bean.rawRulesText );
+		Assert.assertEquals( 60000, bean.holdDown );
+		Assert.assertTrue( bean.edgeTriggered );
+
+		// Invalid and unknown options are ignored
+		bean = handlers.get( 1 );
+		Assert.assertEquals( "event-2", bean.eventId );
+		Assert.assertEquals( 0, bean.holdDown );
+		Assert.assertFalse( bean.edgeTriggered );
+	}
+
+
+	@Test
+	public void testAggregatedEvents() throws Exception {
+
+		List<IMonitoringHandler> handlers = new ArrayList<> ();
+		handlers.add( new TestHandler( "always" ) {
+			@Override
+			public MsgNotifAutonomic process() {
+				return new MsgNotifAutonomic( "app", "/root", "always", "value" );
+			}
+		});
+
+		Instance rootInstance = new Instance( "root" ).component( new Component( "Root" ).installerName( Constants.TARGET_INSTALLER ));
+		rootInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		this.agentInterface.setScopedInstance( rootInstance );
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( rootInstance );
+		Utils.deleteFilesRecursively( dir );
+		Assert.assertTrue( dir.mkdirs());
+
+		try {
+			Utils.writeStringInto(
+					"[EVENT always e1 hold-down=1]\nok\n[EVENT always e2 hold-down=1]\nok\n[EVENT always e3]\nok",
+					new File( dir, "Root.measures" ));
+
+			// First run: one message per event
+			MonitoringRunnable task = new MonitoringRunnable( this.agentInterface, handlers );
+			task.run();
+			Mockito.verify( this.messagingClient, Mockito.times( 3 )).sendMessageToTheDm( Mockito.any( MsgNotifAutonomic.class ));
+
+			// Second run: only the event without hold-down
+			task.run();
+			Mockito.verify( this.messagingClient, Mockito.times( 4 )).sendMessageToTheDm( Mockito.any( MsgNotifAutonomic.class ));
+
+			// Once the window expired, the aggregated events are sent at once
+			Thread.sleep( 1100 );
+			Mockito.reset( this.messagingClient );
+			task.run();
+
+			ArgumentCaptor<Message> msgCapture = ArgumentCaptor.forClass( Message.class );
+			Mockito.verify( this.messagingClient, Mockito.times( 2 )).sendMessageToTheDm( msgCapture.capture());
+			Assert.assertEquals( MsgNotifAutonomicEvents.class, msgCapture.getAllValues().get( 0 ).getClass());
+			Assert.assertEquals( MsgNotifAutonomic.class, msgCapture.getAllValues().get( 1 ).getClass());
+
+			MsgNotifAutonomicEvents events = (MsgNotifAutonomicEvents) msgCapture.getAllValues().get( 0 );
+			Assert.assertEquals( 2, events.getEvents().size());
+			for( MsgNotifAutonomic event : events.getEvents())
+				Assert.assertEquals( 1, event.getOccurrences());
+
+		} finally {
+			Utils.deleteFilesRecursively( dir );
+		}
+	}
+
+
 	@Test
 	public void testExtractRuleSections_unknownParser() throws Exception {
 
@@ -308,6 +396,359 @@ public class MonitoringRunnableTest {
 	}
 
 
+	@Test
+	public void testRulesCache() throws Exception {
+
+		Instance rootInstance = new Instance( "root" ).component( new Component( "Root" ).installerName( Constants.TARGET_INSTALLER ));
+		rootInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		this.agentInterface.setScopedInstance( rootInstance );
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( rootInstance );
+		Utils.deleteFilesRecursively( dir );
+		Assert.assertTrue( dir.mkdirs());
+
+		try {
+			File measureFile = new File( dir, "Root.measures" );
+			Utils.writeStringInto( "[EVENT unknown my-event]\nok", measureFile );
+
+			MonitoringRunnable task = new MonitoringRunnable( this.agentInterface, HANDLERS );
+			task.run();
+			CachedRules rules = task.instancePathToRules.get( "/root" );
+			Assert.assertNotNull( rules );
+			Assert.assertEquals( 1, rules.beans.size());
+			Assert.assertEquals( "my-event", rules.beans.get( 0 ).eventId );
+
+			// Nothing changed: the cache is used
+			task.run();
+			Assert.assertSame( rules, task.instancePathToRules.get( "/root" ));
+
+			// The file was modified
+			Utils.writeStringInto( "[EVENT unknown my-event-2]\nok", measureFile );
+			task.run();
+			CachedRules newRules = task.instancePathToRules.get( "/root" );
+			Assert.assertNotSame( rules, newRules );
+			Assert.assertEquals( "my-event-2", newRules.beans.get( 0 ).eventId );
+
+			// The DM updated the probes
+			this.agentInterface.incrementProbesConfigurationVersion();
+			task.run();
+			Assert.assertNotSame( newRules, task.instancePathToRules.get( "/root" ));
+
+			// The instance is not started anymore
+			rootInstance.setStatus( InstanceStatus.DEPLOYED_STOPPED );
+			task.run();
+			Assert.assertEquals( 0, task.instancePathToRules.size());
+
+		} finally {
+			Utils.deleteFilesRecursively( dir );
+		}
+	}
+
+
+	@Test( timeout = 10000 )
+	public void testParallelProbes() throws Exception {
+
+		// A handler that blocks until it is interrupted, and a fast one
+		final CountDownLatch slowProbeStarted = new CountDownLatch( 1 );
+		final CountDownLatch slowProbeInterrupted = new CountDownLatch( 1 );
+		final CountDownLatch fastProbeCompleted = new CountDownLatch( 1 );
+		final AtomicInteger slowProbeRuns = new AtomicInteger();
+
+		List<IMonitoringHandler> handlers = new ArrayList<> ();
+		handlers.add( new TestHandler( "slow" ) {
+			@Override
+			public MsgNotifAutonomic process() {
+
+				slowProbeRuns.incrementAndGet();
+				slowProbeStarted.countDown();
+				try {
+					Thread.sleep( 60000 );
+
+				} catch( InterruptedException e ) {
+					slowProbeInterrupted.countDown();
+				}
+
+				return new MsgNotifAutonomic( "app", "/root", "slow", null );
+			}
+		});
+
+		handlers.add( new TestHandler( "fast" ) {
+			@Override
+			public MsgNotifAutonomic process() {
+				fastProbeCompleted.countDown();
+				return new MsgNotifAutonomic( "app", "/root", "fast", null );
+			}
+		});
+
+		Instance rootInstance = new Instance( "root" ).component( new Component( "Root" ).installerName( Constants.TARGET_INSTALLER ));
+		rootInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		this.agentInterface.setScopedInstance( rootInstance );
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( rootInstance );
+		Utils.deleteFilesRecursively( dir );
+		Assert.assertTrue( dir.mkdirs());
+
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+		try {
+			Utils.writeStringInto( "[EVENT slow slow-event]\nok\n[EVENT fast fast-event]\nok", new File( dir, "Root.measures" ));
+			MonitoringRunnable task = new MonitoringRunnable( this.agentInterface, handlers, executor );
+			task.run();
+
+			// The slow probe does not prevent the other one from running
+			Assert.assertTrue( slowProbeStarted.await( 5, TimeUnit.SECONDS ));
+			Assert.assertTrue( fastProbeCompleted.await( 5, TimeUnit.SECONDS ));
+
+			// The slow probe times out at the next run, and its result is ignored.
+			// It is not queued again during this run.
+			task.setProbeTimeout( 1 );
+			Thread.sleep( 10 );
+			task.run();
+			Assert.assertTrue( slowProbeInterrupted.await( 5, TimeUnit.SECONDS ));
+
+			executor.shutdown();
+			Assert.assertTrue( executor.awaitTermination( 5, TimeUnit.SECONDS ));
+			Assert.assertEquals( 1, slowProbeRuns.get());
+
+			ArgumentCaptor<Message> msgCapture = ArgumentCaptor.forClass( Message.class );
+			Mockito.verify( this.messagingClient, Mockito.atLeastOnce()).sendMessageToTheDm( msgCapture.capture());
+			for( Message msg : msgCapture.getAllValues())
+				Assert.assertEquals( "fast", ((MsgNotifAutonomic) msg).getEventName());
+
+		} finally {
+			executor.shutdownNow();
+			Utils.deleteFilesRecursively( dir );
+		}
+	}
+
+
+	@Test( timeout = 10000 )
+	public void testTimedOutProbesAreCancelled() throws Exception {
+
+		// A handler that ignores interruptions, as a blocking socket read would do
+		final CountDownLatch probeStarted = new CountDownLatch( 1 );
+		final CountDownLatch probeCancelled = new CountDownLatch( 1 );
+		final AtomicInteger probeCompletions = new AtomicInteger();
+
+		List<IMonitoringHandler> handlers = new ArrayList<> ();
+		handlers.add( new CancellableTestHandler( "blocking" ) {
+			@Override
+			public MsgNotifAutonomic process() {
+
+				probeStarted.countDown();
+				boolean cancelled = false;
+				while( ! cancelled ) {
+					try {
+						cancelled = probeCancelled.await( 10, TimeUnit.SECONDS );
+
+					} catch( InterruptedException e ) {
+						// ignored
+					}
+				}
+
+				probeCompletions.incrementAndGet();
+				return new MsgNotifAutonomic( "app", "/root", "blocking", null );
+			}
+
+			@Override
+			public void cancel() {
+				probeCancelled.countDown();
+			}
+		});
+
+		Instance rootInstance = new Instance( "root" ).component( new Component( "Root" ).installerName( Constants.TARGET_INSTALLER ));
+		rootInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		this.agentInterface.setScopedInstance( rootInstance );
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( rootInstance );
+		Utils.deleteFilesRecursively( dir );
+		Assert.assertTrue( dir.mkdirs());
+
+		ExecutorService executor = Executors.newFixedThreadPool( 1 );
+		try {
+			Utils.writeStringInto( "[EVENT blocking blocking-event]\nok", new File( dir, "Root.measures" ));
+			MonitoringRunnable task = new MonitoringRunnable( this.agentInterface, handlers, executor );
+			task.run();
+			Assert.assertTrue( probeStarted.await( 5, TimeUnit.SECONDS ));
+
+			task.setProbeTimeout( 1 );
+			Thread.sleep( 10 );
+			task.run();
+
+			executor.shutdown();
+			Assert.assertTrue( executor.awaitTermination( 5, TimeUnit.SECONDS ));
+			Assert.assertEquals( 1, probeCompletions.get());
+			Mockito.verify( this.messagingClient, Mockito.never()).sendMessageToTheDm( Mockito.any( Message.class ));
+
+		} finally {
+			executor.shutdownNow();
+			Utils.deleteFilesRecursively( dir );
+		}
+	}
+
+
+	@Test( timeout = 10000 )
+	public void testReplicableHandlers_slowProbesOnlyDelayThemselves() throws Exception {
+
+		// A replicable handler: probes of the root instance block until they are interrupted
+		final CountDownLatch slowProbeStarted = new CountDownLatch( 1 );
+		final CountDownLatch slowProbeInterrupted = new CountDownLatch( 1 );
+		final CountDownLatch fastProbeCompleted = new CountDownLatch( 1 );
+		final AtomicInteger createdHandlers = new AtomicInteger();
+
+		List<IMonitoringHandler> handlers = new ArrayList<> ();
+		handlers.add( new ReplicableTestHandler( "replicable" ) {
+			@Override
+			public IMonitoringHandler newHandler() {
+				createdHandlers.incrementAndGet();
+				return new ReplicableTestHandler( "replicable" ) {
+					private Instance instance;
+
+					@Override
+					public IMonitoringHandler newHandler() {
+						throw new UnsupportedOperationException();
+					}
+
+					@Override
+					public void reset( Instance associatedInstance, String eventId, String rawRulesText ) {
+						this.instance = associatedInstance;
+					}
+
+					@Override
+					public MsgNotifAutonomic process() {
+
+						if( this.instance.getParent() == null ) {
+							slowProbeStarted.countDown();
+							try {
+								Thread.sleep( 60000 );
+
+							} catch( InterruptedException e ) {
+								slowProbeInterrupted.countDown();
+							}
+
+						} else {
+							fastProbeCompleted.countDown();
+						}
+
+						return new MsgNotifAutonomic( "app", "/root", this.instance.getName(), null );
+					}
+				};
+			}
+
+			@Override
+			public MsgNotifAutonomic process() {
+				throw new UnsupportedOperationException();
+			}
+		});
+
+		Instance rootInstance = new Instance( "root" ).component( new Component( "Root" ).installerName( Constants.TARGET_INSTALLER ));
+		Instance childInstance = new Instance( "child" ).component( new Component( "Child" ).installerName( "whatever" ));
+		InstanceHelpers.insertChild( rootInstance, childInstance );
+		rootInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		childInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		this.agentInterface.setScopedInstance( rootInstance );
+
+		File rootDir = InstanceHelpers.findInstanceDirectoryOnAgent( rootInstance );
+		File childDir = InstanceHelpers.findInstanceDirectoryOnAgent( childInstance );
+		Utils.deleteFilesRecursively( rootDir, childDir );
+		Assert.assertTrue( rootDir.mkdirs());
+		Assert.assertTrue( childDir.mkdirs());
+
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try {
+			Utils.writeStringInto( "[EVENT replicable root-event]\nok", new File( rootDir, "Root.measures" ));
+			Utils.writeStringInto( "[EVENT replicable child-event]\nok", new File( childDir, "Child.measures" ));
+			MonitoringRunnable task = new MonitoringRunnable( this.agentInterface, handlers, executor, scheduler );
+			task.setProbeTimeout( 500 );
+			task.run();
+
+			// Every probe has its own handler: the slow probe does not delay the other one
+			Assert.assertTrue( slowProbeStarted.await( 5, TimeUnit.SECONDS ));
+			Assert.assertTrue( fastProbeCompleted.await( 5, TimeUnit.SECONDS ));
+			Assert.assertEquals( 2, createdHandlers.get());
+			Assert.assertEquals( 2, task.probeLanes.size());
+
+			// The timeout is verified by the scheduler, without waiting for the next polling period
+			Assert.assertTrue( slowProbeInterrupted.await( 5, TimeUnit.SECONDS ));
+
+			// Lanes are reused
+			task.run();
+			Assert.assertEquals( 2, createdHandlers.get());
+
+			// Lanes of probes that do not exist anymore are removed
+			Utils.deleteFilesRecursively( childDir );
+			task.run();
+			Assert.assertEquals( 1, task.probeLanes.size());
+
+			executor.shutdown();
+			Assert.assertTrue( executor.awaitTermination( 5, TimeUnit.SECONDS ));
+
+			ArgumentCaptor<Message> msgCapture = ArgumentCaptor.forClass( Message.class );
+			Mockito.verify( this.messagingClient, Mockito.atLeastOnce()).sendMessageToTheDm( msgCapture.capture());
+			for( Message msg : msgCapture.getAllValues())
+				Assert.assertEquals( "child", ((MsgNotifAutonomic) msg).getEventName());
+
+		} finally {
+			executor.shutdownNow();
+			scheduler.shutdownNow();
+			Utils.deleteFilesRecursively( rootDir, childDir );
+		}
+	}
+
+
+	@Test
+	public void testProbeTimeoutCanBeDisabled() throws Exception {
+
+		final CountDownLatch probeStarted = new CountDownLatch( 1 );
+		final CountDownLatch probeCompleted = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+
+		List<IMonitoringHandler> handlers = new ArrayList<> ();
+		handlers.add( new TestHandler( "slow" ) {
+			@Override
+			public MsgNotifAutonomic process() {
+
+				probeStarted.countDown();
+				try {
+					release.await( 5, TimeUnit.SECONDS );
+					probeCompleted.countDown();
+
+				} catch( InterruptedException e ) {
+					// nothing
+				}
+
+				return null;
+			}
+		});
+
+		Instance rootInstance = new Instance( "root" ).component( new Component( "Root" ).installerName( Constants.TARGET_INSTALLER ));
+		rootInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		this.agentInterface.setScopedInstance( rootInstance );
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( rootInstance );
+		Utils.deleteFilesRecursively( dir );
+		Assert.assertTrue( dir.mkdirs());
+
+		ExecutorService executor = Executors.newFixedThreadPool( 1 );
+		try {
+			Utils.writeStringInto( "[EVENT slow slow-event]\nok", new File( dir, "Root.measures" ));
+			MonitoringRunnable task = new MonitoringRunnable( this.agentInterface, handlers, executor );
+			task.setProbeTimeout( 0 );
+			task.run();
+			Assert.assertTrue( probeStarted.await( 5, TimeUnit.SECONDS ));
+
+			Thread.sleep( 10 );
+			task.run();
+			release.countDown();
+			Assert.assertTrue( probeCompleted.await( 5, TimeUnit.SECONDS ));
+
+		} finally {
+			executor.shutdownNow();
+			Utils.deleteFilesRecursively( dir );
+		}
+	}
+
+
 	private void testTheCommonChain( InstanceStatus status, String file ) throws Exception {
 
 		// Create a model
@@ -343,4 +784,53 @@ public class MonitoringRunnableTest {
 		File temporaryDirectory = new File( tmpDirLocation, "rbcf-test" );
 		Utils.deleteFilesRecursively( temporaryDirectory );
 	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private abstract static class TestHandler implements IMonitoringHandler {
+		private final String name;
+
+		TestHandler( String name ) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public void setAgentId( String applicationName, String scopedInstancePath ) {
+			// nothing
+		}
+
+		@Override
+		public void reset( Instance associatedInstance, String eventId, String rawRulesText ) {
+			// nothing
+		}
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private abstract static class ReplicableTestHandler extends TestHandler implements IReplicableMonitoringHandler {
+
+		ReplicableTestHandler( String name ) {
+			super( name );
+		}
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private abstract static class CancellableTestHandler extends TestHandler implements ICancellableMonitoringHandler {
+
+		CancellableTestHandler( String name ) {
+			super( name );
+		}
+	}
 }
@@ -25,10 +25,21 @@
 
 package net.roboconf.agent.monitoring.internal.nagios;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.After;
 import org.junit.Assert;
-
 import org.junit.Test;
 
 /**
@@ -37,6 +48,18 @@ import org.junit.Test;
  */
 public class LiveStatusClientTest {
 
+	private LiveStatusStandIn server;
+
+
+	@After
+	public void stopServer() throws Exception {
+
+		LiveStatusClient.closeIdleConnections();
+		if( this.server != null )
+			this.server.close();
+	}
+
+
 	@Test
 	public void testConstructor() {
 
@@ -64,4 +87,210 @@ public class LiveStatusClientTest {
 		LiveStatusClient client = new LiveStatusClient( null, -45 );
 		client.queryLivestatus( "whatever" );
 	}
+
+
+	@Test
+	public void testPrepareQuery() {
+
+		Assert.assertEquals(
+				"GET hosts\nColumns: host_name\nKeepAlive: on\nResponseHeader: fixed16\n\n",
+				LiveStatusClient.prepareQuery( "GET hosts\n\n  Columns: host_name \nKeepAlive: off\nresponseheader: off" ));
+	}
+
+
+	@Test
+	public void testParseHeader() {
+
+		byte[] header = "200          13\n".getBytes( StandardCharsets.US_ASCII );
+		Assert.assertArrayEquals( new int[] { 200, 13 }, LiveStatusClient.parseHeader( header, header.length ));
+		Assert.assertNull( LiveStatusClient.parseHeader( header, 5 ));
+
+		header = "404 0000000000a\n".getBytes( StandardCharsets.US_ASCII );
+		Assert.assertNull( LiveStatusClient.parseHeader( header, header.length ));
+
+		header = "ok whatever ok..".getBytes( StandardCharsets.US_ASCII );
+		Assert.assertNull( LiveStatusClient.parseHeader( header, header.length ));
+	}
+
+
+	@Test
+	public void testConnectionIsReused() throws Exception {
+
+		this.server = new LiveStatusStandIn( false );
+		LiveStatusClient client = new LiveStatusClient( null, this.server.getPort());
+		Assert.assertEquals( "host_name\nresponse-1", client.queryLivestatus( "GET hosts\nColumns: host_name" ));
+
+		// Another client reuses the same connection
+		client = new LiveStatusClient( null, this.server.getPort());
+		Assert.assertEquals( "response-2", client.queryLivestatus( "GET services" ));
+		Assert.assertEquals( 1, this.server.connectionsCount.get());
+		Assert.assertEquals( Arrays.asList( "GET hosts\nColumns: host_name", "GET services" ), this.server.receivedQueries );
+	}
+
+
+	@Test
+	public void testPipelinedQueries() throws Exception {
+
+		this.server = new LiveStatusStandIn( false );
+		LiveStatusClient client = new LiveStatusClient( null, this.server.getPort());
+		List<String> responses = client.queryLivestatus( Arrays.asList( "GET hosts", "GET services", "GET status" ));
+
+		Assert.assertEquals( Arrays.asList( "response-1", "response-2", "response-3" ), responses );
+		Assert.assertEquals( 1, this.server.connectionsCount.get());
+	}
+
+
+	@Test
+	public void testIdleConnectionClosedByTheServer() throws Exception {
+
+		this.server = new LiveStatusStandIn( true );
+		LiveStatusClient client = new LiveStatusClient( null, this.server.getPort());
+		Assert.assertEquals( "response-1", client.queryLivestatus( "GET hosts" ));
+
+		// The pooled connection was closed: a new one is opened
+		Assert.assertEquals( "response-1", client.queryLivestatus( "GET hosts" ));
+		Assert.assertEquals( 2, this.server.connectionsCount.get());
+	}
+
+
+	@Test
+	public void testErrorStatus() throws Exception {
+
+		this.server = new LiveStatusStandIn( false );
+		LiveStatusClient client = new LiveStatusClient( null, this.server.getPort());
+		try {
+			client.queryLivestatus( "GET error" );
+			Assert.fail( "An exception was expected." );
+
+		} catch( IOException e ) {
+			Assert.assertTrue( e.getMessage().contains( "400" ));
+		}
+
+		// The connection remains usable
+		Assert.assertEquals( "response-2", client.queryLivestatus( "GET hosts" ));
+		Assert.assertEquals( 1, this.server.connectionsCount.get());
+	}
+
+
+	@Test( timeout = 8000 )
+	public void testAbort() throws Exception {
+
+		this.server = new LiveStatusStandIn( false );
+		final LiveStatusClient client = new LiveStatusClient( null, this.server.getPort());
+		final IOException[] errors = new IOException[ 1 ];
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					client.queryLivestatus( "GET slow" );
+
+				} catch( IOException e ) {
+					errors[ 0 ] = e;
+				}
+			}
+		};
+
+		// The server never answers this query: closing the socket unblocks the client
+		thread.start();
+		while( this.server.receivedQueries.isEmpty())
+			Thread.sleep( 10 );
+
+		long before = System.currentTimeMillis();
+		client.abort();
+		thread.join();
+
+		Assert.assertNotNull( errors[ 0 ]);
+		Assert.assertTrue( System.currentTimeMillis() - before < LiveStatusClient.SOCKET_TIMEOUT / 2 );
+	}
+
+
+	/**
+	 * A local server that speaks (a small part of) the Live Status protocol.
+	 * <p>
+	 * It supports persistent connections and fixed response headers.
+	 * Responses are "response-N", where N is the index of the query in its connection.
+	 * Queries that contain "slow" are never answered.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class LiveStatusStandIn extends Thread {
+
+		final AtomicInteger connectionsCount = new AtomicInteger();
+		final List<String> receivedQueries = Collections.synchronizedList( new ArrayList<String> ());
+		private final ServerSocket serverSocket;
+		private final boolean closeAfterResponse;
+
+
+		LiveStatusStandIn( boolean closeAfterResponse ) throws IOException {
+			this.closeAfterResponse = closeAfterResponse;
+			this.serverSocket = new ServerSocket( 0 );
+			setDaemon( true );
+			start();
+		}
+
+
+		int getPort() {
+			return this.serverSocket.getLocalPort();
+		}
+
+
+		void close() throws IOException {
+			this.serverSocket.close();
+		}
+
+
+		@Override
+		public void run() {
+
+			try {
+				for( ;; ) {
+					try( Socket socket = this.serverSocket.accept()) {
+						this.connectionsCount.incrementAndGet();
+						serve( socket );
+					}
+				}
+
+			} catch( IOException e ) {
+				// The server was closed
+			}
+		}
+
+
+		private void serve( Socket socket ) throws IOException {
+
+			BufferedReader reader = new BufferedReader( new InputStreamReader( socket.getInputStream(), StandardCharsets.UTF_8 ));
+			OutputStream out = socket.getOutputStream();
+			int index = 0;
+			StringBuilder query = new StringBuilder();
+			String line;
+			while(( line = reader.readLine()) != null ) {
+
+				if( ! line.isEmpty()) {
+					if( ! line.startsWith( "KeepAlive:" ) && ! line.startsWith( "ResponseHeader:" ))
+						query.append( query.length() > 0 ? "\n" : "" ).append( line );
+
+					continue;
+				}
+
+				// An empty line ends a query
+				this.receivedQueries.add( query.toString());
+				index ++;
+				boolean error = query.toString().contains( "error" );
+				boolean slow = query.toString().contains( "slow" );
+				query.setLength( 0 );
+				if( slow )
+					continue;
+
+				byte[] content = (error ? "Invalid query\n" : "response-" + index).getBytes( StandardCharsets.UTF_8 );
+				String header = String.format( "%03d %11d\n", error ? 400 : 200, content.length );
+				out.write( header.getBytes( StandardCharsets.US_ASCII ));
+				out.write( content );
+				out.flush();
+
+				if( this.closeAfterResponse )
+					break;
+			}
+		}
+	}
 }
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.monitoring.internal.rest;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class JsonPathReaderTest {
+
+	@Test
+	public void testFlatDocuments() throws Exception {
+
+		Assert.assertEquals( "0", find( "{\"lag\": 0}", "lag" ));
+		Assert.assertEquals( "-1.5e3", find( "{\"other\": true, \"lag\": -1.5e3}", "lag" ));
+		Assert.assertEquals( "yes", find( "{\"lag\": \"yes\"}", "lag" ));
+		Assert.assertEquals( "null", find( "{\"lag\": null}", "lag" ));
+		Assert.assertNull( find( "{\"other\": 4}", "lag" ));
+		Assert.assertNull( find( "{}", "lag" ));
+	}
+
+
+	@Test
+	public void testNestedDocuments() throws Exception {
+
+		String json = "{ \"stats\": { \"servers\": [ { \"lag\": 5 }, { \"lag\": 0, \"name\": \"s\\u00e9cond\" } ], \"lag\": 7 } }";
+		Assert.assertEquals( "5", find( json, "stats.servers.0.lag" ));
+		Assert.assertEquals( "0", find( json, "stats.servers.1.lag" ));
+		Assert.assertEquals( "s\u00e9cond", find( json, "stats.servers.1.name" ));
+		Assert.assertEquals( "7", find( json, "stats.lag" ));
+		Assert.assertNull( find( json, "lag" ));
+		Assert.assertNull( find( json, "stats.servers" ));
+		Assert.assertNull( find( json, "stats.servers.2.lag" ));
+
+		Assert.assertEquals( "b", find( "[ \"a\", \"b\" ]", "1" ));
+		Assert.assertEquals( "a\"b\\c/d\n", find( "{ \"s\": \"a\\\"b\\\\c\\/d\\n\" }", "s" ));
+	}
+
+
+	@Test
+	public void testDocumentsWithoutBraces() throws Exception {
+
+		Assert.assertEquals( "0", find( "\"lag\":0", "lag" ));
+		Assert.assertEquals( "2", find( "\"lag\": 0\n\"other\": 2", "other" ));
+		Assert.assertEquals( "2", find( "\"lag\": 0, \"other\": 2", "other" ));
+	}
+
+
+	@Test
+	public void testInvalidDocuments() throws Exception {
+
+		String[] invalidDocuments = {
+			"",
+			"{\"lag\":100:80}",
+			"{\"lag\": 0",
+			"{\"lag\" 0}",
+			"{lag: 0}",
+			"{\"lag\": 0} trailing",
+			"{\"lag\": nope}",
+			"[ 1 2 ]",
+			"{\"lag\": \"unterminated}",
+			"{\"lag\": \"\\x\"}"
+		};
+
+		for( String json : invalidDocuments ) {
+			try {
+				find( json, "lag" );
+				Assert.fail( "An exception was expected for " + json );
+
+			} catch( IOException e ) {
+				// nothing
+			}
+		}
+	}
+
+
+	@Test( expected = IOException.class )
+	public void testTooDeepDocument() throws Exception {
+
+		StringBuilder sb = new StringBuilder();
+		for( int i=0; i<=JsonPathReader.MAX_DEPTH + 1; i++ )
+			sb.append( "[" );
+
+		find( sb.toString(), "0" );
+	}
+
+
+	@Test
+	public void testCapturedText() throws Exception {
+
+		JsonPathReader reader = new JsonPathReader( new StringReader( "{\"lag\": 12345}" ), "lag", 8 );
+		Assert.assertEquals( "12345", reader.read());
+		Assert.assertEquals( "{\"lag\": ", reader.getCapturedText());
+	}
+
+
+	private static String find( String json, String path ) throws IOException {
+		return new JsonPathReader( new StringReader( json ), path, 100 ).read();
+	}
+}
@@ -25,7 +25,10 @@
 
 package net.roboconf.agent.monitoring.internal.rest;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.ServerSocket;
@@ -33,6 +36,7 @@ import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -155,6 +159,26 @@ public class RestHandlerTest {
 	}
 
 
+	@Test
+	public void testConstructor_nestedPathAndTimeout() {
+
+		final String url = "http://localhost:1234";
+		RestHandler handler = new RestHandler();
+		handler.setAgentId( APP_NAME, SCOPED_INSTANCE_PATH );
+		handler.reset( null, EVENT_NAME, "check " + url + " that stats.servers.0.lag > 10 timeout 2500" );
+
+		Assert.assertEquals( url, handler.url );
+		Assert.assertEquals( "stats.servers.0.lag", handler.conditionParameter );
+		Assert.assertEquals( "10", handler.conditionThreshold );
+		Assert.assertEquals( ">", handler.conditionOperator );
+		Assert.assertEquals( 2500, handler.timeout );
+
+		handler.reset( null, EVENT_NAME, "check " + url + " that lag > 10" );
+		Assert.assertEquals( "lag", handler.conditionParameter );
+		Assert.assertEquals( RestHandler.DEFAULT_TIMEOUT, handler.timeout );
+	}
+
+
 	@Test
 	public void testEvalCondition() throws Exception {
 
@@ -393,6 +417,76 @@ public class RestHandlerTest {
 	}
 
 
+	@Test
+	public void testProcess_nestedPath_keepAlive_andETag() throws Exception {
+
+		HttpStandIn server = new HttpStandIn( "{ \"stats\": { \"servers\": [ { \"lag\": 5 }, { \"lag\": 0 } ] } }", false );
+		try {
+			RestHandler handler = new RestHandler();
+			handler.setAgentId( APP_NAME, SCOPED_INSTANCE_PATH );
+			handler.reset( null, EVENT_NAME, "Check http://localhost:" + server.getPort() + " that stats.servers.1.lag = 0" );
+
+			MsgNotifAutonomic msg = handler.process();
+			Assert.assertNotNull( msg );
+			Assert.assertEquals( server.body, msg.getEventInfo());
+			Assert.assertEquals( 0, server.notModifiedCount.get());
+
+			// Second poll: the resource was not modified, the previous evaluation is reused
+			msg = handler.process();
+			Assert.assertNotNull( msg );
+			Assert.assertEquals( server.body, msg.getEventInfo());
+			Assert.assertEquals( 1, server.notModifiedCount.get());
+
+			// Another rule on the same URL does not reuse this evaluation
+			handler.reset( null, EVENT_NAME, "Check http://localhost:" + server.getPort() + " that stats.servers.0.lag = 0" );
+			Assert.assertNull( handler.process());
+			Assert.assertEquals( 1, server.notModifiedCount.get());
+
+			// All the queries went through the same connection
+			Assert.assertEquals( 3, server.requestsCount.get());
+			Assert.assertEquals( 1, server.connectionsCount.get());
+
+		} finally {
+			server.close();
+		}
+	}
+
+
+	@Test
+	public void testProcess_timeout() throws Exception {
+
+		HttpStandIn server = new HttpStandIn( "{ \"lag\": 0 }", true );
+		try {
+			RestHandler handler = new RestHandler();
+			handler.setAgentId( APP_NAME, SCOPED_INSTANCE_PATH );
+			handler.reset( null, EVENT_NAME, "Check http://localhost:" + server.getPort() + " that lag = 0 timeout 300" );
+
+			long before = System.currentTimeMillis();
+			Assert.assertNull( handler.process());
+			Assert.assertTrue( System.currentTimeMillis() - before < 5000 );
+
+		} finally {
+			server.close();
+		}
+	}
+
+
+	@Test
+	public void testProcess_httpError() throws Exception {
+
+		HttpStandIn server = new HttpStandIn( null, false );
+		try {
+			RestHandler handler = new RestHandler();
+			handler.setAgentId( APP_NAME, SCOPED_INSTANCE_PATH );
+			handler.reset( null, EVENT_NAME, "Check http://localhost:" + server.getPort() + " that lag = 0" );
+			Assert.assertNull( handler.process());
+
+		} finally {
+			server.close();
+		}
+	}
+
+
 	private MsgNotifAutonomic queryMockedHttpServer( String url, String result ) throws Exception {
 
 		int port = 50080;
@@ -464,4 +558,110 @@ public class RestHandlerTest {
 			}
 		}
 	}
+
+
+	/**
+	 * A local HTTP server that supports persistent connections and ETags.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class HttpStandIn extends Thread {
+
+		private static final String ETAG = "\"v1\"";
+
+		final AtomicInteger connectionsCount = new AtomicInteger();
+		final AtomicInteger requestsCount = new AtomicInteger();
+		final AtomicInteger notModifiedCount = new AtomicInteger();
+		final String body;
+		private final boolean neverAnswer;
+		private final ServerSocket serverSocket;
+
+
+		/**
+		 * Constructor.
+		 * @param body the response body (null to return a 404 error)
+		 * @param neverAnswer true to never answer
+		 * @throws IOException
+		 */
+		HttpStandIn( String body, boolean neverAnswer ) throws IOException {
+			this.body = body;
+			this.neverAnswer = neverAnswer;
+			this.serverSocket = new ServerSocket( 0 );
+			setDaemon( true );
+			start();
+		}
+
+
+		int getPort() {
+			return this.serverSocket.getLocalPort();
+		}
+
+
+		void close() throws IOException {
+			this.serverSocket.close();
+		}
+
+
+		@Override
+		public void run() {
+
+			try {
+				for( ;; ) {
+					Socket socket = this.serverSocket.accept();
+					this.connectionsCount.incrementAndGet();
+					serve( socket );
+				}
+
+			} catch( IOException e ) {
+				// The server was closed
+			}
+		}
+
+
+		private void serve( final Socket socket ) {
+
+			// One thread per connection, so that connections that are not reused do not block the others
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						BufferedReader reader = new BufferedReader( new InputStreamReader( socket.getInputStream(), StandardCharsets.US_ASCII ));
+						OutputStream out = socket.getOutputStream();
+						for( String line = reader.readLine(); line != null; line = reader.readLine()) {
+
+							// Read the headers
+							boolean notModified = false;
+							for( ; line != null && ! line.isEmpty(); line = reader.readLine())
+								notModified |= line.equalsIgnoreCase( "If-None-Match: " + ETAG );
+
+							HttpStandIn.this.requestsCount.incrementAndGet();
+							if( HttpStandIn.this.neverAnswer )
+								continue;
+
+							String response;
+							if( HttpStandIn.this.body == null ) {
+								response = "HTTP/1.1 404 Not Found\r\nContent-Length: 9\r\n\r\nNot found";
+
+							} else if( notModified ) {
+								HttpStandIn.this.notModifiedCount.incrementAndGet();
+								response = "HTTP/1.1 304 Not Modified\r\nETag: " + ETAG + "\r\n\r\n";
+
+							} else {
+								byte[] bytes = HttpStandIn.this.body.getBytes( StandardCharsets.UTF_8 );
+								response = "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nETag: " + ETAG
+										+ "\r\nContent-Length: " + bytes.length + "\r\n\r\n" + HttpStandIn.this.body;
+							}
+
+							out.write( response.getBytes( StandardCharsets.UTF_8 ));
+							out.flush();
+						}
+
+						socket.close();
+
+					} catch( IOException e ) {
+						// nothing
+					}
+				}
+			}.start();
+		}
+	}
 }
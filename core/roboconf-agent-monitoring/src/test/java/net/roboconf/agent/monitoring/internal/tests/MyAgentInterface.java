@@ -37,6 +37,7 @@ public class MyAgentInterface implements AgentMessagingInterface {
 
 	private final IAgentClient messagingClient;
 	private Instance scopedInstance;
+	private long probesConfigurationVersion = 0;
 
 
 	/**
@@ -76,6 +77,15 @@ public class MyAgentInterface implements AgentMessagingInterface {
 		this.scopedInstance = scopedInstance;
 	}
 
+	@Override
+	public long getProbesConfigurationVersion() {
+		return this.probesConfigurationVersion;
+	}
+
+	public void incrementProbesConfigurationVersion() {
+		this.probesConfigurationVersion ++;
+	}
+
 	@Override
 	public void forceHeartbeatSending() {
 		// nothing
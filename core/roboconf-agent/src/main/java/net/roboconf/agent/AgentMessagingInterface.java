@@ -58,6 +58,11 @@ public interface AgentMessagingInterface {
 	 */
 	String getScopedInstancePath();
 
+	/**
+	 * @return a counter that is incremented every time the DM updates the configuration of probes
+	 */
+	long getProbesConfigurationVersion();
+
 	/**
 	 * Forces the sending of a heart beat to the DM.
 	 */
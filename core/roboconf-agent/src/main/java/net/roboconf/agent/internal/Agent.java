@@ -32,7 +32,9 @@ import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import net.roboconf.agent.AgentMessagingInterface;
@@ -46,6 +48,7 @@ import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.helpers.ComponentHelpers;
 import net.roboconf.core.runtime.IReconfigurable;
 import net.roboconf.core.utils.ProcessStore;
+import net.roboconf.core.utils.ProgramUtils.ExecutionOptions;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.messaging.api.messages.Message;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifMachineDown;
@@ -63,6 +66,10 @@ public class Agent implements AgentMessagingInterface, IReconfigurable {
 	String domain = Constants.DEFAULT_DOMAIN;
 	String networkInterface = AgentConstants.DEFAULT_NETWORK_INTERFACE;
 	boolean overrideProperties = false, simulatePlugins = true;
+	int lifeCycleThreads = 1;
+	long notificationWindow = 0;
+	volatile long recipeTimeout = 0;
+	volatile boolean recipeOutputStreaming = false;
 
 	// Fields that should be injected (ipojo)
 	final List<PluginInterface> plugins = new ArrayList<> ();
@@ -80,6 +87,7 @@ public class Agent implements AgentMessagingInterface, IReconfigurable {
 
 	// Global status
 	public final AtomicBoolean resetInProgress = new AtomicBoolean( false );
+	final AtomicLong probesConfigurationVersion = new AtomicLong();
 
 
 
@@ -183,6 +191,17 @@ public class Agent implements AgentMessagingInterface, IReconfigurable {
 	}
 
 
+	/*
+	 * (non-Javadoc)
+	 * @see net.roboconf.agent.AgentMessagingInterface
+	 * #getProbesConfigurationVersion()
+	 */
+	@Override
+	public long getProbesConfigurationVersion() {
+		return this.probesConfigurationVersion.get();
+	}
+
+
 	/**
 	 * @return true if this agent needs the DM to send its model
 	 */
@@ -239,7 +258,7 @@ public class Agent implements AgentMessagingInterface, IReconfigurable {
 		if( result != null )
 			result.setNames( this.applicationName, this.scopedInstancePath );
 
-		return result == null ? null : new PluginProxy( result );
+		return result == null ? null : new PluginProxy( result, getRecipeExecutionOptions());
 	}
 
 
@@ -519,6 +538,74 @@ public class Agent implements AgentMessagingInterface, IReconfigurable {
 	}
 
 
+	/**
+	 * @param lifeCycleThreads the maximum number of life cycle operations to run in parallel
+	 */
+	public void setLifeCycleThreads( int lifeCycleThreads ) {
+		this.lifeCycleThreads = lifeCycleThreads;
+	}
+
+
+	/**
+	 * @return the maximum number of life cycle operations to run in parallel
+	 */
+	public int getLifeCycleThreads() {
+		return this.lifeCycleThreads;
+	}
+
+
+	/**
+	 * @param notificationWindow the delay during which instance changes are held and coalesced
+	 * before being sent to the DM (in milliseconds, 0 or less to send them immediately)
+	 */
+	public void setNotificationWindow( long notificationWindow ) {
+		this.notificationWindow = notificationWindow;
+	}
+
+
+	/**
+	 * @return the delay during which instance changes are held before being sent to the DM (in milliseconds)
+	 */
+	public long getNotificationWindow() {
+		return this.notificationWindow;
+	}
+
+
+	/**
+	 * Sets the maximum duration of a recipe (script, Puppet run...).
+	 * <p>
+	 * Processes that run longer are terminated, and then killed.
+	 * This setting only applies to the plug-ins invoked by this agent.
+	 * </p>
+	 *
+	 * @param recipeTimeout the timeout, in seconds (0 or less to disable it)
+	 */
+	public void setRecipeTimeout( int recipeTimeout ) {
+		this.recipeTimeout = TimeUnit.SECONDS.toMillis( Math.max( 0, recipeTimeout ));
+	}
+
+
+	/**
+	 * Sets whether the output of recipes is logged while they run.
+	 * <p>
+	 * This setting only applies to the plug-ins invoked by this agent.
+	 * </p>
+	 *
+	 * @param recipeOutputStreaming true to log output lines as soon as they are read
+	 */
+	public void setRecipeOutputStreaming( boolean recipeOutputStreaming ) {
+		this.recipeOutputStreaming = recipeOutputStreaming;
+	}
+
+
+	/**
+	 * @return the options to execute recipes with, built from this agent's settings (never null)
+	 */
+	public ExecutionOptions getRecipeExecutionOptions() {
+		return new ExecutionOptions().timeout( this.recipeTimeout ).outputStreaming( this.recipeOutputStreaming );
+	}
+
+
 	/**
 	 * @param networkInterface the networkInterface to set
 	 */
@@ -614,8 +701,10 @@ public class Agent implements AgentMessagingInterface, IReconfigurable {
 		}
 
 		// Running processes
-		Process p = ProcessStore.getProcess(this.applicationName, this.scopedInstancePath);
-		if( p != null )
+		int runningProcesses = ProcessStore.getProcesses(this.applicationName, this.scopedInstancePath).size();
+		if( runningProcesses > 1 )
+			sb.append( "Be careful. " + runningProcesses + " recipes are under execution." );
+		else if( runningProcesses == 1 )
 			sb.append( "Be careful. A recipe is under execution." );
 		else
 			sb.append( "No recipe is under execution." );
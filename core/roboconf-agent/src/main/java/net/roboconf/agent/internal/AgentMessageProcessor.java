@@ -42,7 +42,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import net.roboconf.agent.internal.lifecycle.AbstractLifeCycleManager;
+import net.roboconf.agent.internal.lifecycle.LifeCycleScheduler;
+import net.roboconf.agent.internal.lifecycle.LifeCycleScheduler.LifeCycleTask;
 import net.roboconf.agent.internal.misc.AgentUtils;
+import net.roboconf.agent.internal.misc.CoalescingAgentClient;
+import net.roboconf.agent.internal.misc.InstancesIndex;
+import net.roboconf.agent.internal.misc.SynchronizedAgentClient;
 import net.roboconf.core.Constants;
 import net.roboconf.core.model.beans.ApplicationTemplate;
 import net.roboconf.core.model.beans.Component;
@@ -52,7 +57,6 @@ import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.ComponentHelpers;
 import net.roboconf.core.model.helpers.ImportHelpers;
 import net.roboconf.core.model.helpers.InstanceHelpers;
-import net.roboconf.core.model.helpers.VariableHelpers;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.messaging.api.AbstractMessageProcessor;
 import net.roboconf.messaging.api.MessagingConstants;
@@ -129,6 +133,31 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 	 */
 	final Map<String,Collection<Import>> applicationNameToExternalExports = new HashMap<> ();
 
+	/**
+	 * An index of the local instances, by import prefix.
+	 * <p>
+	 * Always access it through {@link #index()}.
+	 * </p>
+	 */
+	private InstancesIndex instancesIndex;
+
+	/**
+	 * The scheduler for life cycle operations.
+	 * <p>
+	 * Always access it through {@link #lifeCycleScheduler()}.
+	 * </p>
+	 */
+	private LifeCycleScheduler lifeCycleScheduler;
+	private SynchronizedAgentClient synchronizedClient;
+
+	/**
+	 * The client that coalesces instance changes, if enabled.
+	 * <p>
+	 * Always access it through {@link #messagingClient()}.
+	 * </p>
+	 */
+	private CoalescingAgentClient coalescingClient;
+
 
 
 	/**
@@ -170,6 +199,11 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 		this.logger.fine( "A message of type " + message.getClass().getSimpleName() + " was received and is about to be processed." );
 		this.messageUnderProcessing.set( true );
 		try {
+			// Life cycle operations may run in parallel.
+			// Other messages are processed once they have all completed.
+			if( ! ( message instanceof MsgCmdChangeInstanceState ))
+				waitForLifeCycleOperations();
+
 			if( message instanceof MsgCmdSetScopedInstance )
 				processMsgSetScopedInstance((MsgCmdSetScopedInstance) message );
 
@@ -180,7 +214,7 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 				processMsgAddInstance((MsgCmdAddInstance) message );
 
 			else if( message instanceof MsgCmdChangeInstanceState )
-				processMsgChangeInstanceState((MsgCmdChangeInstanceState) message );
+				scheduleMsgChangeInstanceState((MsgCmdChangeInstanceState) message );
 
 			else if( message instanceof MsgCmdAddImport )
 				processMsgAddImport((MsgCmdAddImport) message );
@@ -274,6 +308,9 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 		this.logger.info( "Resetting the agent..." );
 		this.agent.resetInProgress.set( true );
 
+		// Wait for the life cycle operations in progress
+		waitForLifeCycleOperations();
+
 		// Clear all the messages that were waiting to be processed
 		// (best-effort mode: do what is easy first)
 		getMessageQueue().clear();
@@ -315,13 +352,14 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 		this.agent.setDomain( Constants.DEFAULT_DOMAIN );
 
 		this.scopedInstance = null;
+		this.instancesIndex = null;
 		this.applicationBindings.clear();
 		this.applicationNameToExternalExports.clear();
 		this.reset = false;
 
 		// Send the message while we still have a message client
 		try {
-			this.messagingClient.sendMessageToTheDm( downMsg );
+			messagingClient().sendMessageToTheDm( downMsg );
 
 		} catch( Exception e ) {
 			Utils.logException( this.logger, e );
@@ -370,9 +408,9 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 	 */
 	private void processGatherLogs( MsgCmdGatherLogs message ) throws IOException {
 
-		Map<String,byte[]> logFiles = AgentUtils.collectLogs( this.agent.karafData );
+		Map<String,byte[]> logFiles = AgentUtils.collectLogs( this.agent.karafData, message );
 		MsgNotifLogs msg = new MsgNotifLogs( this.agent.getApplicationName(), this.agent.getScopedInstancePath(), logFiles );
-		this.messagingClient.sendMessageToTheDm( msg );
+		messagingClient().sendMessageToTheDm( msg );
 	}
 
 
@@ -399,6 +437,9 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 			this.logger.warning( "Instance " + message.getInstancePath() + " could not be found. Probe configuration will not be updated." );
 		else
 			AgentUtils.copyInstanceResources( inst, message.getProbeResources());
+
+		// Let the monitoring know it must reload the probes' configuration
+		this.agent.probesConfigurationVersion.incrementAndGet();
 	}
 
 
@@ -445,7 +486,7 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 			// a collection (e.g. a list) would make scripts and recipes more complicated. Besides, it would not be
 			// symmetrical with added imports.
 			List<String> instancePaths = new ArrayList<> ();
-			for( Instance instance : InstanceHelpers.buildHierarchicalList( this.scopedInstance )) {
+			for( Instance instance : index().findInstancesImporting( msg.getExternalExportsPrefix())) {
 				Collection<Import> imports = instance.getImports().get( msg.getExternalExportsPrefix());
 				if( imports == null )
 					continue;
@@ -505,7 +546,7 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 		final String content = message.getContent();
 		MsgEcho response = new MsgEcho( content.replaceFirst( "^PING:", "PONG:" ), message.getUuid());
 		this.logger.fine( "Responding to DM Echo message " + content + " with response " + response.getContent());
-		this.messagingClient.sendMessageToTheDm( response );
+		messagingClient().sendMessageToTheDm( response );
 	}
 
 
@@ -516,11 +557,9 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 	 */
 	void processMsgResynchronize( MsgCmdResynchronize message ) throws IOException {
 
-		if( this.scopedInstance != null ) {
-			for( Instance i : InstanceHelpers.buildHierarchicalList( this.scopedInstance )) {
-				if( i.getStatus() == InstanceStatus.DEPLOYED_STARTED )
-					this.messagingClient.publishExports( i );
-			}
+		for( Instance i : index().getAllInstances()) {
+			if( i.getStatus() == InstanceStatus.DEPLOYED_STARTED )
+				messagingClient().publishExports( i );
 		}
 	}
 
@@ -533,10 +572,8 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 	void processMsgSendInstances( MsgCmdSendInstances message ) throws IOException {
 
 		String appName = this.agent.getApplicationName();
-		if( this.scopedInstance != null ) {
-			for( Instance i : InstanceHelpers.buildHierarchicalList( this.scopedInstance ))
-				this.messagingClient.sendMessageToTheDm( new MsgNotifInstanceChanged( appName, i ));
-		}
+		for( Instance i : index().getAllInstances())
+			messagingClient().sendMessageToTheDm( new MsgNotifInstanceChanged( appName, i ));
 	}
 
 
@@ -570,10 +607,10 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 			InstanceHelpers.removeOffScopeInstances( newScopedInstance );
 
 			this.agent.setScopedInstance( newScopedInstance );
-			instancesToProcess.addAll( InstanceHelpers.buildHierarchicalList( this.scopedInstance ));
+			instancesToProcess.addAll( index().getAllInstances());
 
 			// Propagate the external mapping into the messaging
-			this.messagingClient.setExternalMapping( msg.getExternalExports());
+			messagingClient().setExternalMapping( msg.getExternalExports());
 
 			// Initialize the application bindings
 			this.applicationBindings.putAll( msg.getApplicationBindings());
@@ -585,18 +622,18 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 			// Notify the DM
 			if( this.scopedInstance.getStatus() != InstanceStatus.DEPLOYED_STARTED ) {
 				this.scopedInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
-				this.messagingClient.sendMessageToTheDm( new MsgNotifInstanceChanged( this.agent.getApplicationName(), this.scopedInstance ));
+				messagingClient().sendMessageToTheDm( new MsgNotifInstanceChanged( this.agent.getApplicationName(), this.scopedInstance ));
 			}
 
 			// Listen to requests from other agents for the scoped instance ONLY.
 			// See #301. It won't be done anywhere else for the scoped instance.
-			this.messagingClient.listenToRequestsFromOtherAgents( ListenerCommand.START, this.scopedInstance );
+			messagingClient().listenToRequestsFromOtherAgents( ListenerCommand.START, this.scopedInstance );
 		}
 
 		// Configure the messaging.
 		for( Instance instanceToProcess : instancesToProcess ) {
-			this.messagingClient.listenToExportsFromOtherAgents( ListenerCommand.START, instanceToProcess );
-			this.messagingClient.requestExportsFromOtherAgents( instanceToProcess );
+			messagingClient().listenToExportsFromOtherAgents( ListenerCommand.START, instanceToProcess );
+			messagingClient().requestExportsFromOtherAgents( instanceToProcess );
 		}
 	}
 
@@ -621,7 +658,13 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 
 		} else if( instance.getParent() != null ) {
 			removed = true;
+
+			// Installed resources are kept after an undeployment, delete them now
+			for( Instance instanceToProcess : InstanceHelpers.buildHierarchicalList( instance ))
+				AgentUtils.deleteInstanceResources( instanceToProcess );
+
 			instance.getParent().getChildren().remove( instance );
+			index().removeInstance( instance );
 			this.logger.fine( "Child instance " + msg.getInstancePath() + " was removed from the model." );
 
 		} else {
@@ -630,9 +673,9 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 
 		// Configure the messaging
 		if( removed ) {
-			this.messagingClient.sendMessageToTheDm( new MsgNotifInstanceRemoved( this.agent.getApplicationName(), instance ));
+			messagingClient().sendMessageToTheDm( new MsgNotifInstanceRemoved( this.agent.getApplicationName(), instance ));
 			for( Instance instanceToProcess : InstanceHelpers.buildHierarchicalList( instance ))
-				this.messagingClient.listenToExportsFromOtherAgents( ListenerCommand.STOP, instanceToProcess );
+				messagingClient().listenToExportsFromOtherAgents( ListenerCommand.STOP, instanceToProcess );
 		}
 	}
 
@@ -668,8 +711,9 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 				this.logger.severe( "The new '" + msg.getInstanceName() + "' instance could not be inserted into the local model." );
 
 			} else {
-				this.messagingClient.listenToExportsFromOtherAgents( ListenerCommand.START, newInstance );
-				this.messagingClient.requestExportsFromOtherAgents( newInstance );
+				index().addInstance( newInstance );
+				messagingClient().listenToExportsFromOtherAgents( ListenerCommand.START, newInstance );
+				messagingClient().requestExportsFromOtherAgents( newInstance );
 			}
 		}
 	}
@@ -697,11 +741,57 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 
 		else
 			AbstractLifeCycleManager
-			.build( instance, this.agent.getApplicationName(), this.messagingClient)
+			.build( instance, this.agent.getApplicationName(), messagingClient())
 			.changeInstanceState( instance, plugin, msg.getNewState(), msg.getFileNameToFileContent());
 	}
 
 
+	/**
+	 * Changes the state of an instance through the life cycle scheduler.
+	 * <p>
+	 * Depending on the agent's configuration, the operation may run in parallel
+	 * with other life cycle operations (on independent instances).
+	 * </p>
+	 *
+	 * @param msg the message to process
+	 * @throws IOException if an error occurred with the messaging or while manipulating the file system
+	 * @throws PluginException if something went wrong with the plug-in
+	 */
+	void scheduleMsgChangeInstanceState( final MsgCmdChangeInstanceState msg )
+	throws IOException, PluginException {
+
+		final PluginInterface plugin;
+		final Instance instance = InstanceHelpers.findInstanceByPath( this.scopedInstance, msg.getInstancePath());
+		LifeCycleScheduler scheduler = lifeCycleScheduler();
+
+		// Errors are handled (and logged) by the synchronous processing
+		if( scheduler.getPoolSize() <= 1 ) {
+			processMsgChangeInstanceState( msg );
+
+		} else if( instance == null
+				|| instance.getParent() == null
+				|| ( plugin = this.agent.findPlugin( instance )) == null ) {
+
+			// Do not run it concurrently with the workers: messages would be sent
+			// through another client than theirs, and before those of preceding operations.
+			waitForLifeCycleOperations();
+			processMsgChangeInstanceState( msg );
+
+		} else {
+			final String appName = this.agent.getApplicationName();
+			final IAgentClient client = synchronizedClient();
+			scheduler.submit( instance, new LifeCycleTask() {
+				@Override
+				public void run() throws IOException, PluginException {
+					AbstractLifeCycleManager
+					.build( instance, appName, client )
+					.changeInstanceState( instance, plugin, msg.getNewState(), msg.getFileNameToFileContent());
+				}
+			});
+		}
+	}
+
+
 	/**
 	 * Publishes its exports when required.
 	 * @param msg the message process
@@ -709,9 +799,9 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 	 */
 	void processMsgRequestImport( MsgCmdRequestImport msg ) throws IOException {
 
-		for( Instance instance : InstanceHelpers.buildHierarchicalList( this.scopedInstance )) {
+		for( Instance instance : index().getAllInstances()) {
 			if( instance.getStatus() == InstanceStatus.DEPLOYED_STARTED )
-				this.messagingClient.publishExports( instance, msg.getComponentOrFacetName());
+				messagingClient().publishExports( instance, msg.getComponentOrFacetName());
 		}
 	}
 
@@ -731,13 +821,10 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 			removeCachedExternalImport( msg );
 		}
 
-		// Go through all the instances to see which ones are impacted.
+		// Go through all the instances that import this prefix to see which ones are impacted.
 		// If it is an external exports that is removed, it will not be found in this instance.
-		for( Instance instance : InstanceHelpers.buildHierarchicalList( this.scopedInstance )) {
-
-			Set<String> importPrefixes = VariableHelpers.findPrefixesForImportedVariables( instance );
-			if( ! importPrefixes.contains( msg.getComponentOrFacetName()))
-				continue;
+		InstancesIndex index = index();
+		for( Instance instance : index.findInstancesImporting( msg.getComponentOrFacetName())) {
 
 			// Is there an import to remove?
 			Collection<Import> imports = instance.getImports().get( msg.getComponentOrFacetName());
@@ -750,18 +837,18 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 			if( imports.isEmpty())
 				instance.getImports().remove( msg.getComponentOrFacetName());
 
-			this.logger.fine( "Removing import from " + InstanceHelpers.computeInstancePath( instance )
+			this.logger.fine( "Removing import from " + index.findInstancePath( instance )
 					+ ". Removed exporting instance: " + msg.getRemovedInstancePath());
 
-			this.messagingClient.sendMessageToTheDm( new MsgNotifInstanceChanged( appName, instance ));
+			messagingClient().sendMessageToTheDm( new MsgNotifInstanceChanged( appName, instance ));
 
 			// Update the life cycle if necessary
 			PluginInterface plugin = this.agent.findPlugin( instance );
 			if( plugin == null )
-				throw new PluginException( "No plugin was found for " + InstanceHelpers.computeInstancePath( instance ));
+				throw new PluginException( "No plugin was found for " + index.findInstancePath( instance ));
 
 			AbstractLifeCycleManager
-			.build( instance, this.agent.getApplicationName(), this.messagingClient)
+			.build( instance, this.agent.getApplicationName(), messagingClient())
 			.updateStateFromImports( instance, plugin, toRemove, InstanceStatus.DEPLOYED_STOPPED );
 		}
 
@@ -802,20 +889,15 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 			}
 		}
 
-		// Go through all the instances to see which ones need an update
+		// Go through all the instances that depend on it to see which ones need an update
 		String appName = this.agent.getApplicationName();
-		for( Instance instance : InstanceHelpers.buildHierarchicalList( this.scopedInstance )) {
-
-			// This instance does not depends on it
-			Set<String> importPrefixes = VariableHelpers.findPrefixesForImportedVariables( instance );
-			if( ! importPrefixes.contains( msg.getComponentOrFacetName()))
-				continue;
+		InstancesIndex index = index();
+		for( Instance instance : index.findInstancesImporting( msg.getComponentOrFacetName())) {
 
 			// If an instance depends on its component, make sure it does not add itself to the imports.
 			// Example: MongoDB may depend on other MongoDB instances.
-			if( Objects.equals(
-					InstanceHelpers.computeInstancePath( instance ),
-					msg.getAddedInstancePath()))
+			String instancePath = index.findInstancePath( instance );
+			if( Objects.equals( instancePath, msg.getAddedInstancePath()))
 				continue;
 
 			// Create the right import
@@ -826,17 +908,17 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 					msg.getExportedVariables());
 
 			// Add the import and publish an update to the DM
-			this.logger.fine( "Adding import to " + InstanceHelpers.computeInstancePath( instance ) + ". New import: " + imp );
+			this.logger.fine( "Adding import to " + instancePath + ". New import: " + imp );
 			ImportHelpers.addImport( instance, msg.getComponentOrFacetName(), imp );
-			this.messagingClient.sendMessageToTheDm( new MsgNotifInstanceChanged( appName, instance ));
+			messagingClient().sendMessageToTheDm( new MsgNotifInstanceChanged( appName, instance ));
 
 			// Update the life cycle if necessary
 			PluginInterface plugin = this.agent.findPlugin( instance );
 			if( plugin == null )
-				throw new PluginException( "No plugin was found for " + InstanceHelpers.computeInstancePath( instance ));
+				throw new PluginException( "No plugin was found for " + index.findInstancePath( instance ));
 
 			AbstractLifeCycleManager
-			.build( instance, this.agent.getApplicationName(), this.messagingClient)
+			.build( instance, this.agent.getApplicationName(), messagingClient())
 			.updateStateFromImports( instance, plugin, imp, InstanceStatus.DEPLOYED_STARTED );
 		}
 
@@ -875,11 +957,10 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 	 */
 	private void startChildrenInstancesWaitingForAncestors() throws IOException, PluginException {
 
-		List<Instance> childrenInstances = InstanceHelpers.buildHierarchicalList( this.scopedInstance );
-		childrenInstances.remove( this.scopedInstance );
-
-		for( Instance childInstance : childrenInstances ) {
-			if( childInstance.getStatus() != InstanceStatus.WAITING_FOR_ANCESTOR )
+		InstancesIndex index = index();
+		for( Instance childInstance : index.getAllInstances()) {
+			if( childInstance == this.scopedInstance
+					|| childInstance.getStatus() != InstanceStatus.WAITING_FOR_ANCESTOR )
 				continue;
 
 			if( childInstance.getParent().getStatus() != InstanceStatus.DEPLOYED_STARTED )
@@ -887,11 +968,128 @@ public class AgentMessageProcessor extends AbstractMessageProcessor<IAgentClient
 
 			PluginInterface plugin = this.agent.findPlugin( childInstance );
 			if( plugin == null )
-				this.logger.severe( "No plug-in was found for " + InstanceHelpers.computeInstancePath( childInstance ) + "." );
+				this.logger.severe( "No plug-in was found for " + index.findInstancePath( childInstance ) + "." );
 			else
 				AbstractLifeCycleManager
-				.build( childInstance, this.agent.getApplicationName(), this.messagingClient)
+				.build( childInstance, this.agent.getApplicationName(), messagingClient())
 				.changeInstanceState( childInstance, plugin, InstanceStatus.DEPLOYED_STARTED, null );
 		}
 	}
+
+
+	/**
+	 * @return the index of the local instances, (re)built if the scoped instance changed (never null)
+	 */
+	InstancesIndex index() {
+
+		if( this.instancesIndex == null
+				|| this.instancesIndex.getRootInstance() != this.scopedInstance )
+			this.instancesIndex = new InstancesIndex( this.scopedInstance );
+
+		return this.instancesIndex;
+	}
+
+
+	@Override
+	public void stopProcessor() {
+		super.stopProcessor();
+		if( this.lifeCycleScheduler != null )
+			this.lifeCycleScheduler.shutdown();
+
+		if( this.coalescingClient != null )
+			this.coalescingClient.close();
+	}
+
+
+	/**
+	 * Waits for the life cycle operations in progress to complete.
+	 */
+	void waitForLifeCycleOperations() {
+
+		if( this.lifeCycleScheduler != null ) {
+			try {
+				this.lifeCycleScheduler.awaitCompletion();
+
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				this.logger.warning( "Interrupted while waiting for life cycle operations to complete." );
+			}
+		}
+	}
+
+
+	/**
+	 * @return the maximum number of life cycle operations to run in parallel
+	 */
+	protected int getLifeCycleThreads() {
+		return this.agent.getLifeCycleThreads();
+	}
+
+
+	/**
+	 * @return the life cycle scheduler, (re)created if the agent's configuration changed (never null)
+	 */
+	LifeCycleScheduler lifeCycleScheduler() {
+
+		int poolSize = getLifeCycleThreads();
+		if( this.lifeCycleScheduler == null
+				|| this.lifeCycleScheduler.getPoolSize() != poolSize ) {
+
+			waitForLifeCycleOperations();
+			if( this.lifeCycleScheduler != null )
+				this.lifeCycleScheduler.shutdown();
+
+			this.lifeCycleScheduler = new LifeCycleScheduler( poolSize );
+		}
+
+		return this.lifeCycleScheduler;
+	}
+
+
+	/**
+	 * @return a messaging client that can be shared by concurrent life cycle operations (never null)
+	 */
+	private IAgentClient synchronizedClient() {
+
+		// Coalescing clients are already synchronized
+		IAgentClient client = messagingClient();
+		if( client instanceof SynchronizedAgentClient )
+			return client;
+
+		if( this.synchronizedClient == null
+				|| this.synchronizedClient.getDelegate() != client )
+			this.synchronizedClient = new SynchronizedAgentClient( client );
+
+		return this.synchronizedClient;
+	}
+
+
+	/**
+	 * @return the delay during which instance changes are held before being sent to the DM (in milliseconds)
+	 */
+	protected long getNotificationWindow() {
+		return this.agent.getNotificationWindow();
+	}
+
+
+	/**
+	 * @return the client to use to send messages, (re)created if the agent's configuration changed (never null)
+	 */
+	IAgentClient messagingClient() {
+
+		long window = getNotificationWindow();
+		if( this.coalescingClient != null
+				&& ( window <= 0
+					|| this.coalescingClient.getWindow() != window
+					|| this.coalescingClient.getDelegate() != this.messagingClient )) {
+
+			this.coalescingClient.close();
+			this.coalescingClient = null;
+		}
+
+		if( window > 0 && this.coalescingClient == null )
+			this.coalescingClient = new CoalescingAgentClient( this.messagingClient, window );
+
+		return this.coalescingClient != null ? this.coalescingClient : this.messagingClient;
+	}
 }
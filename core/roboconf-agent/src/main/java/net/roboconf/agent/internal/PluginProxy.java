@@ -30,6 +30,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import net.roboconf.core.model.beans.Import;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.utils.ProgramUtils;
+import net.roboconf.core.utils.ProgramUtils.ExecutionOptions;
 import net.roboconf.plugin.api.PluginException;
 import net.roboconf.plugin.api.PluginInterface;
 
@@ -48,13 +50,29 @@ public class PluginProxy implements PluginInterface {
 	static AtomicInteger errorCount = new AtomicInteger(0);
 
 	PluginInterface plugin;
+	final ExecutionOptions executionOptions;
 
 	/**
 	 * Constructor for plugin proxy.
 	 * @param plugin The proxied plugin
 	 */
 	public PluginProxy(PluginInterface plugin) {
+		this( plugin, null );
+	}
+
+	/**
+	 * Constructor for plugin proxy.
+	 * <p>
+	 * The execution options are made available to the plugin, for the duration
+	 * of each invocation (see {@link ProgramUtils#setThreadOptions(ExecutionOptions)}).
+	 * </p>
+	 *
+	 * @param plugin The proxied plugin
+	 * @param executionOptions The options to execute recipes with (null for default ones)
+	 */
+	public PluginProxy(PluginInterface plugin, ExecutionOptions executionOptions) {
 		this.plugin = plugin;
+		this.executionOptions = executionOptions;
 	}
 
 	/**
@@ -72,36 +90,48 @@ public class PluginProxy implements PluginInterface {
 
 	@Override
 	public void initialize(Instance instance) throws PluginException {
+		ExecutionOptions previousOptions = ProgramUtils.setThreadOptions( this.executionOptions );
 		try {
 			this.plugin.initialize(instance);
 
 		} catch(PluginException e) {
 			PluginProxy.incrementErrorCount();
 			throw e;
+
+		} finally {
+			ProgramUtils.setThreadOptions( previousOptions );
 		}
 		initializeCount.incrementAndGet();
 	}
 
 	@Override
 	public void deploy(Instance instance) throws PluginException {
+		ExecutionOptions previousOptions = ProgramUtils.setThreadOptions( this.executionOptions );
 		try {
 			this.plugin.deploy(instance);
 
 		} catch(PluginException e) {
 			PluginProxy.incrementErrorCount();
 			throw e;
+
+		} finally {
+			ProgramUtils.setThreadOptions( previousOptions );
 		}
 		deployCount.incrementAndGet();
 	}
 
 	@Override
 	public void start(Instance instance) throws PluginException {
+		ExecutionOptions previousOptions = ProgramUtils.setThreadOptions( this.executionOptions );
 		try {
 			this.plugin.start(instance);
 
 		} catch(PluginException e) {
 			PluginProxy.incrementErrorCount();
 			throw e;
+
+		} finally {
+			ProgramUtils.setThreadOptions( previousOptions );
 		}
 		startCount.incrementAndGet();
 	}
@@ -110,35 +140,48 @@ public class PluginProxy implements PluginInterface {
 	public void update(Instance instance, Import importChanged, InstanceStatus statusChanged)
 	throws PluginException {
 
+		ExecutionOptions previousOptions = ProgramUtils.setThreadOptions( this.executionOptions );
 		try {
 			this.plugin.update(instance, importChanged, statusChanged);
 
 		} catch(PluginException e) {
 			PluginProxy.incrementErrorCount();
 			throw e;
+
+		} finally {
+			ProgramUtils.setThreadOptions( previousOptions );
 		}
 		updateCount.incrementAndGet();
 	}
 
 	@Override
 	public void stop(Instance instance) throws PluginException {
+		ExecutionOptions previousOptions = ProgramUtils.setThreadOptions( this.executionOptions );
 		try {
 			this.plugin.stop(instance);
+
 		} catch(PluginException e) {
 			PluginProxy.incrementErrorCount();
 			throw e;
+
+		} finally {
+			ProgramUtils.setThreadOptions( previousOptions );
 		}
 		stopCount.incrementAndGet();
 	}
 
 	@Override
 	public void undeploy(Instance instance) throws PluginException {
+		ExecutionOptions previousOptions = ProgramUtils.setThreadOptions( this.executionOptions );
 		try {
 			this.plugin.undeploy(instance);
 
 		} catch(PluginException e) {
 			PluginProxy.incrementErrorCount();
 			throw e;
+
+		} finally {
+			ProgramUtils.setThreadOptions( previousOptions );
 		}
 		undeployCount.incrementAndGet();
 	}
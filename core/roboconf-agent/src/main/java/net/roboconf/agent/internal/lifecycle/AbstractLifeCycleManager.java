@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.logging.Logger;
 
 import net.roboconf.agent.internal.misc.AgentUtils;
+import net.roboconf.agent.internal.misc.AgentUtils.ResourcesInstallationReport;
 import net.roboconf.core.model.beans.Import;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
@@ -214,11 +215,9 @@ public abstract class AbstractLifeCycleManager {
 			try {
 				this.messagingClient.sendMessageToTheDm( new MsgNotifInstanceChanged( this.appName, instance ));
 
-				// Clean up the potential remains of a previous installation
-				AgentUtils.deleteInstanceResources( instance );
-
-				// Copy the resources
-				AgentUtils.copyInstanceResources( instance, fileNameToFileContent );
+				// Install the resources (only what changed since a previous installation is written)
+				ResourcesInstallationReport report = AgentUtils.installInstanceResources( instance, fileNameToFileContent );
+				this.logger.fine( "Resources of " + instancePath + " were installed: " + report + "." );
 
 				// Initialize the plugin
 				plugin.initialize( instance );
@@ -279,9 +278,9 @@ public abstract class AbstractLifeCycleManager {
 			try {
 				plugin.undeploy( instance );
 
-				// Delete files for undeployed instances
+				// Clean files for undeployed instances (installed resources are kept for a next deployment)
 				for( Instance i : instancesToUndeploy )
-					AgentUtils.deleteInstanceResources( i );
+					AgentUtils.cleanInstanceResources( i );
 
 			} catch( PluginException e ) {
 				this.logger.severe( "An error occured while undeploying " + InstanceHelpers.computeInstancePath( instance ));
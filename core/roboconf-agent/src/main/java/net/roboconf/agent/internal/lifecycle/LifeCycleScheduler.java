@@ -0,0 +1,283 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.lifecycle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.model.helpers.VariableHelpers;
+import net.roboconf.core.utils.Utils;
+import net.roboconf.plugin.api.PluginException;
+
+/**
+ * A scheduler that runs life cycle operations concurrently when they are independent.
+ * <p>
+ * Every operation is associated with an instance. Two operations depend on each other if:
+ * </p>
+ * <ul>
+ * <li>They are associated with the same instance.</li>
+ * <li>One instance is an ancestor of the other one (operations on an instance impact its children).</li>
+ * <li>One instance (or one of its children) imports variables exported by the other one (or its children).</li>
+ * </ul>
+ * <p>
+ * An operation only starts once all the operations it depends on, and that were submitted
+ * before it, have completed. So, dependent operations run in the same order than with a sequential
+ * execution. Independent operations run in parallel, on a bounded thread pool.
+ * </p>
+ * <p>
+ * With a pool size of 1 (or less), operations are run in the thread that submits them.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class LifeCycleScheduler {
+
+	private final Logger logger = Logger.getLogger( getClass().getName());
+	private final int poolSize;
+	private final ExecutorService executor;
+
+	// Operations that were submitted and that did not complete yet (in submission order)
+	private final List<Operation> activeOperations = new ArrayList<> ();
+
+
+	/**
+	 * Constructor.
+	 * @param poolSize the maximum number of operations to run in parallel
+	 */
+	public LifeCycleScheduler( int poolSize ) {
+		this.poolSize = poolSize;
+		this.executor = poolSize > 1 ? Executors.newFixedThreadPool( poolSize, new LifeCycleThreadFactory()) : null;
+	}
+
+
+	/**
+	 * @return the maximum number of operations to run in parallel
+	 */
+	public int getPoolSize() {
+		return this.poolSize;
+	}
+
+
+	/**
+	 * Submits a life cycle operation.
+	 * @param instance the instance the operation is associated with (not null)
+	 * @param task the operation to run (not null)
+	 */
+	public void submit( Instance instance, LifeCycleTask task ) {
+
+		Operation op = new Operation( instance, task );
+		if( this.executor == null ) {
+			op.run();
+
+		} else synchronized( this.activeOperations ) {
+			for( Operation activeOp : this.activeOperations ) {
+				if( activeOp.conflictsWith( op )) {
+					activeOp.dependentOperations.add( op );
+					op.pendingDependencies ++;
+				}
+			}
+
+			this.activeOperations.add( op );
+			if( op.pendingDependencies == 0 )
+				this.executor.execute( op );
+		}
+	}
+
+
+	/**
+	 * Waits for all the submitted operations to complete.
+	 * @throws InterruptedException if the current thread was interrupted
+	 */
+	public void awaitCompletion() throws InterruptedException {
+
+		synchronized( this.activeOperations ) {
+			while( ! this.activeOperations.isEmpty())
+				this.activeOperations.wait();
+		}
+	}
+
+
+	/**
+	 * @return the number of operations that were submitted and that did not complete yet
+	 */
+	public int getActiveOperationsCount() {
+
+		synchronized( this.activeOperations ) {
+			return this.activeOperations.size();
+		}
+	}
+
+
+	/**
+	 * Stops the scheduler once all the submitted operations have completed.
+	 */
+	public void shutdown() {
+
+		if( this.executor != null )
+			this.executor.shutdown();
+	}
+
+
+	/**
+	 * Marks an operation as completed and starts the ones that were waiting for it.
+	 * @param op a completed operation
+	 */
+	private void complete( Operation op ) {
+
+		synchronized( this.activeOperations ) {
+
+			// Operations do not override equals(), remove it by identity
+			for( Iterator<Operation> it = this.activeOperations.iterator(); it.hasNext(); ) {
+				if( it.next() == op ) {
+					it.remove();
+					break;
+				}
+			}
+
+			for( Operation dependentOp : op.dependentOperations ) {
+				if( -- dependentOp.pendingDependencies == 0 )
+					this.executor.execute( dependentOp );
+			}
+
+			this.activeOperations.notifyAll();
+		}
+	}
+
+
+	/**
+	 * A life cycle operation.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public interface LifeCycleTask {
+
+		/**
+		 * Runs the operation.
+		 * @throws IOException if something went wrong
+		 * @throws PluginException if something went wrong
+		 */
+		void run() throws IOException, PluginException;
+	}
+
+
+	/**
+	 * An operation and its scheduling information.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private class Operation implements Runnable {
+
+		final LifeCycleTask task;
+		final Instance instance;
+		final Set<Instance> subTree = Collections.newSetFromMap( new IdentityHashMap<Instance,Boolean> ());
+		final Set<String> importPrefixes = new HashSet<> ();
+		final Set<String> exportPrefixes = new HashSet<> ();
+
+		// Accessed while holding the lock on active operations
+		final List<Operation> dependentOperations = new ArrayList<> ();
+		int pendingDependencies = 0;
+
+
+		/**
+		 * Constructor.
+		 * @param instance
+		 * @param task
+		 */
+		Operation( Instance instance, LifeCycleTask task ) {
+			this.task = task;
+			this.instance = instance;
+
+			// An operation impacts the instance and its children
+			for( Instance inst : InstanceHelpers.buildHierarchicalList( instance )) {
+				this.subTree.add( inst );
+				this.importPrefixes.addAll( VariableHelpers.findPrefixesForImportedVariables( inst ));
+				this.exportPrefixes.addAll( VariableHelpers.findPrefixesForExportedVariables( inst ));
+			}
+		}
+
+
+		/**
+		 * @param op another operation
+		 * @return true if both operations cannot run concurrently
+		 */
+		boolean conflictsWith( Operation op ) {
+
+			// Same instance, or parent / child relation
+			return this.subTree.contains( op.instance )
+					|| op.subTree.contains( this.instance )
+
+					// Import dependencies
+					|| ! Collections.disjoint( this.importPrefixes, op.exportPrefixes )
+					|| ! Collections.disjoint( this.exportPrefixes, op.importPrefixes );
+		}
+
+
+		@Override
+		public void run() {
+
+			try {
+				this.task.run();
+
+			} catch( Exception e ) {
+				String instancePath = InstanceHelpers.computeInstancePath( this.instance );
+				LifeCycleScheduler.this.logger.severe( "A life cycle operation failed for " + instancePath + ". " + e.getMessage());
+				Utils.logException( LifeCycleScheduler.this.logger, e );
+
+			} finally {
+				if( LifeCycleScheduler.this.executor != null )
+					complete( this );
+			}
+		}
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class LifeCycleThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread( Runnable r ) {
+
+			Thread result = new Thread( r, "Roboconf Agent - Life Cycle " + this.count.incrementAndGet());
+			result.setDaemon( true );
+			return result;
+		}
+	}
+}
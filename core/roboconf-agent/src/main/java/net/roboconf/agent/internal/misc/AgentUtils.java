@@ -27,11 +27,18 @@ package net.roboconf.agent.internal.misc;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +51,7 @@ import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.utils.ProgramUtils;
 import net.roboconf.core.utils.Utils;
+import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdGatherLogs;
 
 /**
  * @author Noël - LIG
@@ -53,6 +61,7 @@ import net.roboconf.core.utils.Utils;
 public final class AgentUtils {
 
 	public static final String INJECTED_CONFIGS_DIR = "roboconf/cfg-injection";
+	public static final String RESOURCES_MANIFEST = ".roboconf-resources.manifest";
 
 
 	/**
@@ -157,6 +166,352 @@ public final class AgentUtils {
 	}
 
 
+	/**
+	 * Installs the resources of an instance on the disk, incrementally.
+	 * <p>
+	 * A manifest is stored in the instance directory. It records the size, the last
+	 * modification date and the SHA-256 hash of every installed file. Files that already
+	 * exist with the same size and the same hash are not rewritten. The hash of a file is
+	 * only computed again when its size or its modification date differ from the manifest.
+	 * Files that are not part of the resources (e.g. files that were removed from the resources,
+	 * or that were generated by a previous deployment) are deleted.
+	 * </p>
+	 *
+	 * @param instance an instance
+	 * @param fileNameToFileContent the files to install (key = relative file location, value = file's content)
+	 * @return a non-null report about the installation
+	 * @throws IOException if the installation encountered a problem
+	 */
+	public static ResourcesInstallationReport installInstanceResources( Instance instance, Map<String,byte[]> fileNameToFileContent )
+	throws IOException {
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( instance );
+		Utils.createDirectory( dir );
+
+		Map<String,byte[]> expectedFiles = new HashMap<> ();
+		if( fileNameToFileContent != null ) {
+			for( Map.Entry<String,byte[]> entry : fileNameToFileContent.entrySet())
+				expectedFiles.put( entry.getKey().replace( '\\', '/' ), entry.getValue());
+		}
+
+		ResourcesInstallationReport report = new ResourcesInstallationReport();
+		File manifestFile = new File( dir, RESOURCES_MANIFEST );
+		Properties oldManifest = readResourcesManifest( manifestFile );
+		Properties newManifest = new Properties();
+
+		// Delete what should not be there, keep what did not change
+		for( File f : listResourceFiles( dir )) {
+			String relativePath = Utils.computeFileRelativeLocation( dir, f );
+			byte[] content = expectedFiles.get( relativePath );
+			if( content == null ) {
+				Utils.deleteFilesRecursively( f );
+				report.deletedFiles ++;
+
+			} else if( f.length() == content.length ) {
+				// Files that were not touched since they were recorded are not hashed again
+				String hash = findRecordedHash( oldManifest.getProperty( relativePath ), f );
+				if( hash == null ) {
+					hash = computeSha256( f );
+					report.hashedFiles ++;
+				}
+
+				if( hash.equals( computeSha256( content ))) {
+					newManifest.setProperty( relativePath, buildManifestEntry( f, hash ));
+					expectedFiles.remove( relativePath );
+					report.unchangedFiles ++;
+				}
+			}
+		}
+
+		deleteEmptyDirectories( dir );
+
+		// Write new or modified files
+		for( Map.Entry<String,byte[]> entry : expectedFiles.entrySet()) {
+
+			File f = new File( dir, entry.getKey());
+			Utils.createDirectory( f.getParentFile());
+			writeFile( entry.getValue(), f );
+
+			newManifest.setProperty( entry.getKey(), buildManifestEntry( f, computeSha256( entry.getValue())));
+			report.writtenFiles ++;
+			report.bytesWritten += entry.getValue().length;
+		}
+
+		Utils.writePropertiesFile( newManifest, manifestFile );
+		return report;
+	}
+
+
+	/**
+	 * Cleans the resources of an undeployed instance.
+	 * <p>
+	 * Files installed by {@link #installInstanceResources(Instance, Map)}, and that were not
+	 * modified since then (same size and same modification date), are kept so that a next deployment
+	 * only writes what changed. Files generated at runtime are deleted. When there is no manifest,
+	 * the whole instance directory is deleted.
+	 * </p>
+	 *
+	 * @param instance an instance
+	 * @throws IOException if resources could not be deleted
+	 */
+	public static void cleanInstanceResources( Instance instance ) throws IOException {
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( instance );
+		File manifestFile = new File( dir, RESOURCES_MANIFEST );
+		if( ! manifestFile.isFile()) {
+			Utils.deleteFilesRecursively( dir );
+			return;
+		}
+
+		Properties manifest = readResourcesManifest( manifestFile );
+		Properties newManifest = new Properties();
+		for( File f : listResourceFiles( dir )) {
+
+			String relativePath = Utils.computeFileRelativeLocation( dir, f );
+			String entry = manifest.getProperty( relativePath );
+			if( findRecordedHash( entry, f ) != null )
+				newManifest.setProperty( relativePath, entry );
+			else
+				Utils.deleteFilesRecursively( f );
+		}
+
+		deleteEmptyDirectories( dir );
+		Utils.writePropertiesFile( newManifest, manifestFile );
+	}
+
+
+	/**
+	 * Lists the files located under an instance directory, except the resources manifest.
+	 * <p>
+	 * Unlike {@link Utils#listAllFiles(File)}, hidden files are included.
+	 * </p>
+	 *
+	 * @param dir an existing directory
+	 * @return a non-null list of files
+	 */
+	static List<File> listResourceFiles( File dir ) {
+
+		List<File> result = new ArrayList<> ();
+		List<File> directoriesToInspect = new ArrayList<> ();
+		directoriesToInspect.add( dir );
+
+		while( ! directoriesToInspect.isEmpty()) {
+			File[] subFiles = directoriesToInspect.remove( 0 ).listFiles();
+			if( subFiles == null )
+				continue;
+
+			for( File subFile : subFiles ) {
+				if( subFile.isDirectory())
+					directoriesToInspect.add( subFile );
+				else if( ! subFile.getParentFile().equals( dir ) || ! RESOURCES_MANIFEST.equals( subFile.getName()))
+					result.add( subFile );
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Deletes the empty directories located under a given directory (but not this one).
+	 * @param dir an existing directory
+	 */
+	private static void deleteEmptyDirectories( File dir ) {
+
+		File[] subFiles = dir.listFiles();
+		if( subFiles != null ) {
+			for( File subFile : subFiles ) {
+				if( subFile.isDirectory()) {
+					deleteEmptyDirectories( subFile );
+					String[] remaining = subFile.list();
+					if( remaining != null && remaining.length == 0 && ! subFile.delete())
+						Logger.getLogger( AgentUtils.class.getName()).fine( "Directory " + subFile + " could not be deleted." );
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Reads a resources manifest.
+	 * @param manifestFile a file (that may not exist)
+	 * @return non-null properties
+	 */
+	private static Properties readResourcesManifest( File manifestFile ) {
+
+		Properties result = new Properties();
+		if( manifestFile.isFile())
+			result = Utils.readPropertiesFileQuietly( manifestFile, Logger.getLogger( AgentUtils.class.getName()));
+
+		return result;
+	}
+
+
+	/**
+	 * Builds a manifest entry.
+	 * @param f the file on the disk
+	 * @param hash the SHA-256 hash of the file's content
+	 * @return a non-null string
+	 */
+	private static String buildManifestEntry( File f, String hash ) {
+		return f.length() + ";" + f.lastModified() + ";" + hash;
+	}
+
+
+	/**
+	 * Finds the hash recorded for a file, provided it was not modified since it was recorded.
+	 * @param entry a manifest entry (can be null)
+	 * @param f the file on the disk
+	 * @return the recorded hash, or null if there is none or if the file's size or modification date changed
+	 */
+	private static String findRecordedHash( String entry, File f ) {
+
+		String prefix = f.length() + ";" + f.lastModified() + ";";
+		String result = null;
+		if( entry != null && entry.startsWith( prefix ))
+			result = entry.substring( prefix.length());
+
+		return result;
+	}
+
+
+	/**
+	 * Writes bytes into a file through a file channel.
+	 * @param content the content to write
+	 * @param f the target file
+	 * @throws IOException if something went wrong
+	 */
+	private static void writeFile( byte[] content, File f ) throws IOException {
+
+		FileChannel channel = FileChannel.open(
+				f.toPath(),
+				StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING );
+
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap( content );
+			while( buffer.hasRemaining())
+				channel.write( buffer );
+
+		} finally {
+			channel.close();
+		}
+	}
+
+
+	/**
+	 * Computes the SHA-256 hash of some content.
+	 * @param content some content
+	 * @return a non-null string (hexadecimal form of the hash)
+	 */
+	static String computeSha256( byte[] content ) {
+
+		MessageDigest digest = newSha256Digest();
+		return toHexString( digest.digest( content ));
+	}
+
+
+	/**
+	 * Computes the SHA-256 hash of a file's content.
+	 * @param f an existing file
+	 * @return a non-null string (hexadecimal form of the hash)
+	 * @throws IOException if the file could not be read
+	 */
+	static String computeSha256( File f ) throws IOException {
+
+		MessageDigest digest = newSha256Digest();
+		InputStream in = null;
+		try {
+			in = new FileInputStream( f );
+			byte[] buffer = new byte[ 8192 ];
+			for( int read = in.read( buffer ); read != -1; read = in.read( buffer ))
+				digest.update( buffer, 0, read );
+
+		} finally {
+			Utils.closeQuietly( in );
+		}
+
+		return toHexString( digest.digest());
+	}
+
+
+	private static MessageDigest newSha256Digest() {
+
+		try {
+			return MessageDigest.getInstance( "SHA-256" );
+
+		} catch( NoSuchAlgorithmException e ) {
+			// SHA-256 is supported by all the JVMs
+			throw new IllegalStateException( e );
+		}
+	}
+
+
+	private static String toHexString( byte[] bytes ) {
+
+		StringBuilder sb = new StringBuilder();
+		for( byte b : bytes )
+			sb.append( String.format( "%02x", b ));
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * A report about the installation of instance resources.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public static final class ResourcesInstallationReport {
+
+		int writtenFiles, unchangedFiles, deletedFiles, hashedFiles;
+		long bytesWritten;
+
+
+		/**
+		 * @return the number of files that were written
+		 */
+		public int getWrittenFiles() {
+			return this.writtenFiles;
+		}
+
+		/**
+		 * @return the number of files that were kept as is
+		 */
+		public int getUnchangedFiles() {
+			return this.unchangedFiles;
+		}
+
+		/**
+		 * @return the number of files that were deleted
+		 */
+		public int getDeletedFiles() {
+			return this.deletedFiles;
+		}
+
+		/**
+		 * @return the number of files whose hash had to be computed (they were modified since the last installation)
+		 */
+		public int getHashedFiles() {
+			return this.hashedFiles;
+		}
+
+		/**
+		 * @return the number of bytes that were written
+		 */
+		public long getBytesWritten() {
+			return this.bytesWritten;
+		}
+
+		@Override
+		public String toString() {
+			return this.writtenFiles + " file(s) written (" + this.bytesWritten + " bytes), "
+					+ this.unchangedFiles + " unchanged, " + this.deletedFiles + " deleted, "
+					+ this.hashedFiles + " hashed";
+		}
+	}
+
+
 	/**
 	 * Changes the level of the Roboconf logger.
 	 * <p>
@@ -187,18 +542,34 @@ public final class AgentUtils {
 	 * @return a non-null map
 	 */
 	public static Map<String,byte[]> collectLogs( String karafData ) throws IOException {
+		return collectLogs( karafData, new MsgCmdGatherLogs());
+	}
+
+
+	/**
+	 * Collect the main log files into a map, with respect to size and time limits.
+	 * <p>
+	 * When compression is required, the file names end with ".gz".
+	 * </p>
+	 *
+	 * @param karafData the Karaf's data directory
+	 * @param options the options that define what must be collected (not null)
+	 * @return a non-null map
+	 */
+	public static Map<String,byte[]> collectLogs( String karafData, MsgCmdGatherLogs options ) throws IOException {
 
 		Map<String,byte[]> logFiles = new HashMap<>( 2 );
 		if( ! Utils.isEmptyOrWhitespaces( karafData )) {
 
+			LogsExtractor extractor = new LogsExtractor( options );
 			String[] names = { "karaf.log", "roboconf.log" };
 			for( String name : names ) {
 				File log = new File( karafData, AgentConstants.KARAF_LOGS_DIRECTORY + "/" + name );
 				if( ! log.exists())
 					continue;
 
-				String content = Utils.readFileContent( log );
-				logFiles.put( name, content.getBytes( StandardCharsets.UTF_8 ));
+				String key = options.isCompressed() ? name + ".gz" : name;
+				logFiles.put( key, extractor.extract( log ));
 			}
 		}
 
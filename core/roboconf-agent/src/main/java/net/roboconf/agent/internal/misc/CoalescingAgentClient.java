@@ -0,0 +1,181 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.misc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Logger;
+
+import net.roboconf.core.utils.Utils;
+import net.roboconf.messaging.api.business.IAgentClient;
+import net.roboconf.messaging.api.messages.Message;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceChanged;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstancesChanged;
+
+/**
+ * A messaging client that coalesces instance changes before sending them to the DM.
+ * <p>
+ * Changes are held during a short window. If an instance changes several times
+ * during this window, only its last state is sent. All the held changes are then sent
+ * in a single {@link MsgNotifInstancesChanged} message.
+ * </p>
+ * <p>
+ * Any other message sent to the DM first flushes the held changes, so that the DM
+ * receives messages in the same order than without coalescing.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class CoalescingAgentClient extends SynchronizedAgentClient {
+
+	private final Logger logger = Logger.getLogger( getClass().getName());
+	private final long window;
+	private final Timer timer;
+
+	// Held changes, indexed by application and instance path, in the order they were made
+	private final Map<String,MsgNotifInstanceChanged> pendingChanges = new LinkedHashMap<> ();
+	private boolean flushScheduled = false;
+
+
+	/**
+	 * Constructor.
+	 * @param delegate the client to use (not null)
+	 * @param window the delay during which changes are held (in milliseconds, must be positive)
+	 */
+	public CoalescingAgentClient( IAgentClient delegate, long window ) {
+		super( delegate );
+		this.window = window;
+		this.timer = new Timer( "Roboconf Agent - Instance Notifications", true );
+	}
+
+
+	/**
+	 * @return the delay during which changes are held (in milliseconds)
+	 */
+	public long getWindow() {
+		return this.window;
+	}
+
+
+	@Override
+	public synchronized void sendMessageToTheDm( Message message ) throws IOException {
+
+		if( message instanceof MsgNotifInstanceChanged ) {
+			MsgNotifInstanceChanged change = (MsgNotifInstanceChanged) message;
+			String key = change.getApplicationName() + "|" + change.getInstancePath();
+
+			// The instance's last change determines its position
+			this.pendingChanges.remove( key );
+			this.pendingChanges.put( key, change );
+			if( ! this.flushScheduled ) {
+				this.flushScheduled = true;
+				this.timer.schedule( new FlushTask(), this.window );
+			}
+
+		} else {
+			flush();
+			super.sendMessageToTheDm( message );
+		}
+	}
+
+
+	@Override
+	public synchronized void closeConnection() throws IOException {
+		flush();
+		super.closeConnection();
+	}
+
+
+	/**
+	 * Sends the held changes to the DM.
+	 * @throws IOException if something went wrong
+	 */
+	public synchronized void flush() throws IOException {
+
+		this.flushScheduled = false;
+		if( this.pendingChanges.isEmpty())
+			return;
+
+		List<MsgNotifInstanceChanged> changes = new ArrayList<>( this.pendingChanges.values());
+		this.pendingChanges.clear();
+
+		// Changes all come from the same agent, and thus from the same application
+		if( changes.size() == 1 )
+			super.sendMessageToTheDm( changes.get( 0 ));
+		else
+			super.sendMessageToTheDm( new MsgNotifInstancesChanged( changes.get( 0 ).getApplicationName(), changes ));
+	}
+
+
+	/**
+	 * Sends the held changes and releases the resources used by this client.
+	 */
+	public void close() {
+
+		try {
+			flush();
+
+		} catch( IOException e ) {
+			this.logger.warning( "Instance changes could not be sent to the DM. " + e.getMessage());
+			Utils.logException( this.logger, e );
+
+		} finally {
+			this.timer.cancel();
+		}
+	}
+
+
+	/**
+	 * @return the number of held changes
+	 */
+	synchronized int getPendingChangesCount() {
+		return this.pendingChanges.size();
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private class FlushTask extends TimerTask {
+
+		@Override
+		public void run() {
+
+			try {
+				flush();
+
+			} catch( IOException e ) {
+				CoalescingAgentClient.this.logger.warning( "Instance changes could not be sent to the DM. " + e.getMessage());
+				Utils.logException( CoalescingAgentClient.this.logger, e );
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.misc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.model.helpers.VariableHelpers;
+
+/**
+ * An index of the instances managed by an agent.
+ * <p>
+ * Processing import messages requires to find the instances that import
+ * variables with a given prefix (a component or a facet name). Computing import prefixes
+ * and instance paths for every instance on every message is expensive when an agent manages
+ * a lot of instances. This index stores them once.
+ * </p>
+ * <p>
+ * The index is bound to a root (scoped) instance. It must be updated when
+ * instances are added or removed. It is not thread-safe: it is meant to be used
+ * by the (single) agent's message processor.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstancesIndex {
+
+	private final Instance rootInstance;
+
+	// Instances are compared by identity: Instance#hashCode() computes the instance path
+	private final List<Instance> instances = new ArrayList<> ();
+	private final Map<Instance,String> instanceToPath = new IdentityHashMap<> ();
+	private final Map<String,List<Instance>> prefixToImportingInstances = new HashMap<> ();
+
+
+	/**
+	 * Constructor.
+	 * @param rootInstance the root instance (can be null)
+	 */
+	public InstancesIndex( Instance rootInstance ) {
+		this.rootInstance = rootInstance;
+		addInstance( rootInstance );
+	}
+
+
+	/**
+	 * @return the root instance this index was built for (can be null)
+	 */
+	public Instance getRootInstance() {
+		return this.rootInstance;
+	}
+
+
+	/**
+	 * @return all the indexed instances, parents being listed before their children (never null)
+	 */
+	public List<Instance> getAllInstances() {
+		return Collections.unmodifiableList( this.instances );
+	}
+
+
+	/**
+	 * Finds the instances that import variables with a given prefix.
+	 * @param componentOrFacetName a component or a facet name
+	 * @return a non-null list of instances, parents being listed before their children
+	 */
+	public List<Instance> findInstancesImporting( String componentOrFacetName ) {
+		List<Instance> result = this.prefixToImportingInstances.get( componentOrFacetName );
+		return result == null ? Collections.<Instance>emptyList() : Collections.unmodifiableList( result );
+	}
+
+
+	/**
+	 * Finds the path of an instance.
+	 * @param instance an instance (not null)
+	 * @return the cached path for indexed instances, a computed one otherwise
+	 */
+	public String findInstancePath( Instance instance ) {
+		String path = this.instanceToPath.get( instance );
+		return path != null ? path : InstanceHelpers.computeInstancePath( instance );
+	}
+
+
+	/**
+	 * Indexes an instance and all its children.
+	 * @param instance an instance (can be null)
+	 */
+	public final void addInstance( Instance instance ) {
+
+		for( Instance inst : InstanceHelpers.buildHierarchicalList( instance )) {
+			if( this.instanceToPath.containsKey( inst ))
+				continue;
+
+			this.instances.add( inst );
+			this.instanceToPath.put( inst, InstanceHelpers.computeInstancePath( inst ));
+			for( String prefix : VariableHelpers.findPrefixesForImportedVariables( inst )) {
+				List<Instance> importingInstances = this.prefixToImportingInstances.get( prefix );
+				if( importingInstances == null ) {
+					importingInstances = new ArrayList<> ();
+					this.prefixToImportingInstances.put( prefix, importingInstances );
+				}
+
+				importingInstances.add( inst );
+			}
+		}
+	}
+
+
+	/**
+	 * Removes an instance and all its children from the index.
+	 * @param instance an instance (can be null)
+	 */
+	public void removeInstance( Instance instance ) {
+
+		for( Instance inst : InstanceHelpers.buildHierarchicalList( instance )) {
+			if( this.instanceToPath.remove( inst ) == null )
+				continue;
+
+			removeByIdentity( this.instances, inst );
+			for( Iterator<List<Instance>> it = this.prefixToImportingInstances.values().iterator(); it.hasNext(); ) {
+				List<Instance> importingInstances = it.next();
+				removeByIdentity( importingInstances, inst );
+				if( importingInstances.isEmpty())
+					it.remove();
+			}
+		}
+	}
+
+
+	/**
+	 * Removes an instance from a list, by comparing references.
+	 * @param list a list
+	 * @param instance the instance to remove
+	 */
+	private static void removeByIdentity( List<Instance> list, Instance instance ) {
+
+		for( Iterator<Instance> it = list.iterator(); it.hasNext(); ) {
+			if( it.next() == instance ) {
+				it.remove();
+				break;
+			}
+		}
+	}
+}
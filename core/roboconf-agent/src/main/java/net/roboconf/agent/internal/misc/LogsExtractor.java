@@ -0,0 +1,261 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.misc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdGatherLogs;
+
+/**
+ * Extracts the content of log files with respect to size and time limits.
+ * <p>
+ * Log files are memory-mapped, so that only the extracted part
+ * is loaded in the heap. Time limits rely on the date that starts
+ * every log entry (<code>yyyy-MM-dd HH:mm:ss</code>, as written by the
+ * ISO8601 pattern of Log4j). Log entries are supposed to be sorted by date,
+ * which allows to find time limits with a binary search. Lines that do not start
+ * with a date (e.g. stack traces) belong to the previous log entry.
+ * </p>
+ * <p>
+ * When no size limit is given, the end of log files is kept, within
+ * {@link #DEFAULT_MAX_BYTES_PER_FILE} bytes.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+final class LogsExtractor {
+
+	static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
+	static final long DEFAULT_MAX_BYTES_PER_FILE = 8 * 1024 * 1024;
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	private final MsgCmdGatherLogs options;
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat( DATE_PATTERN );
+
+
+	/**
+	 * Constructor.
+	 * @param options the extraction options
+	 */
+	LogsExtractor( MsgCmdGatherLogs options ) {
+		this.options = options;
+		this.dateFormat.setLenient( false );
+	}
+
+
+	/**
+	 * Extracts the content of a log file.
+	 * @param logFile an existing log file
+	 * @return the extracted content (compressed if required)
+	 * @throws IOException if the file could not be read
+	 */
+	byte[] extract( File logFile ) throws IOException {
+
+		FileChannel channel = FileChannel.open( logFile.toPath(), StandardOpenOption.READ );
+		try {
+			// A mapped buffer cannot exceed 2 GB: keep the end of bigger files
+			long size = channel.size();
+			long mapOffset = Math.max( 0, size - Integer.MAX_VALUE );
+			MappedByteBuffer buffer = channel.map( MapMode.READ_ONLY, mapOffset, size - mapOffset );
+
+			// Time limits
+			int start = 0, end = buffer.limit();
+			if( this.options.getSince() > 0 )
+				start = findFirstEntry( buffer, this.options.getSince());
+
+			if( this.options.getUntil() > 0 )
+				end = Math.max( start, findFirstEntry( buffer, this.options.getUntil() + 1 ));
+
+			// Size limit
+			long max = this.options.getMaxBytesPerFile();
+			boolean tail = this.options.isTail();
+			if( max <= 0 ) {
+				max = DEFAULT_MAX_BYTES_PER_FILE;
+				tail = true;
+			}
+
+			if( end - start > max ) {
+				if( tail ) {
+					// Try not to start in the middle of a line
+					int lineStart = findLineStart( buffer, end - (int) max );
+					start = lineStart < end ? lineStart : end - (int) max;
+
+				} else {
+					end = start + (int) max;
+				}
+			}
+
+			return copy( buffer, start, end );
+
+		} finally {
+			channel.close();
+		}
+	}
+
+
+	/**
+	 * Copies a part of a buffer.
+	 * @param buffer a buffer
+	 * @param start the start position (inclusive)
+	 * @param end the end position (exclusive)
+	 * @return a non-null array (compressed if required)
+	 * @throws IOException if compression failed
+	 */
+	private byte[] copy( ByteBuffer buffer, int start, int end ) throws IOException {
+
+		ByteBuffer window = buffer.duplicate();
+		window.position( start );
+		window.limit( end );
+
+		byte[] result;
+		if( ! this.options.isCompressed()) {
+			result = new byte[ end - start ];
+			window.get( result );
+
+		} else {
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			OutputStream out = new GZIPOutputStream( os );
+			try {
+				byte[] chunk = new byte[ COPY_BUFFER_SIZE ];
+				while( window.hasRemaining()) {
+					int length = Math.min( chunk.length, window.remaining());
+					window.get( chunk, 0, length );
+					out.write( chunk, 0, length );
+				}
+
+			} finally {
+				out.close();
+			}
+
+			result = os.toByteArray();
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Finds the position of the first log entry written at or after a given date.
+	 * @param buffer a buffer
+	 * @param time a date (in ms since the epoch)
+	 * @return the position of the entry, or the buffer's limit if there is none
+	 */
+	int findFirstEntry( ByteBuffer buffer, long time ) {
+
+		// Binary search: "the first entry located after a given position
+		// was written at or after the given date" is monotonic.
+		int low = 0, high = buffer.limit();
+		while( low < high ) {
+			int middle = low + (high - low) / 2;
+			int entry = findNextEntry( buffer, middle );
+			if( entry == buffer.limit() || readDate( buffer, entry ) >= time )
+				high = middle;
+			else
+				low = entry + 1;
+		}
+
+		return findNextEntry( buffer, low );
+	}
+
+
+	/**
+	 * Finds the first log entry that starts at or after a given position.
+	 * @param buffer a buffer
+	 * @param position a position
+	 * @return the position of the entry, or the buffer's limit if there is none
+	 */
+	int findNextEntry( ByteBuffer buffer, int position ) {
+
+		int result = findLineStart( buffer, position );
+		while( result < buffer.limit() && readDate( buffer, result ) < 0 )
+			result = findLineStart( buffer, result + 1 );
+
+		return result;
+	}
+
+
+	/**
+	 * Finds the first line that starts at or after a given position.
+	 * @param buffer a buffer
+	 * @param position a position
+	 * @return the position of the line, or the buffer's limit if there is none
+	 */
+	static int findLineStart( ByteBuffer buffer, int position ) {
+
+		int result = position;
+		if( position > 0 ) {
+			result = buffer.limit();
+			for( int i = position - 1; i < buffer.limit(); i ++ ) {
+				if( buffer.get( i ) == '\n' ) {
+					result = i + 1;
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Reads the date at the beginning of a line.
+	 * @param buffer a buffer
+	 * @param position the position of the line
+	 * @return the date (in ms since the epoch), or -1 if the line does not start with a date
+	 */
+	long readDate( ByteBuffer buffer, int position ) {
+
+		long result = -1;
+		if( position + DATE_PATTERN.length() <= buffer.limit()
+				&& buffer.get( position + 4 ) == '-'
+				&& buffer.get( position + 13 ) == ':' ) {
+
+			byte[] bytes = new byte[ DATE_PATTERN.length()];
+			for( int i = 0; i < bytes.length; i ++ )
+				bytes[ i ] = buffer.get( position + i );
+
+			String s = new String( bytes, StandardCharsets.US_ASCII );
+			Date date = this.dateFormat.parse( s, new ParsePosition( 0 ));
+			if( date != null )
+				result = date.getTime();
+		}
+
+		return result;
+	}
+}
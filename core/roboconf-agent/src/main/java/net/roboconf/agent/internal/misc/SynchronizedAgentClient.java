@@ -0,0 +1,180 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.misc;
+
+import java.io.IOException;
+import java.util.Map;
+
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.messaging.api.business.IAgentClient;
+import net.roboconf.messaging.api.business.ListenerCommand;
+import net.roboconf.messaging.api.jmx.RoboconfMessageQueue;
+import net.roboconf.messaging.api.messages.Message;
+
+/**
+ * A messaging client that forwards invocations to another client, one at a time.
+ * <p>
+ * Messaging clients are not meant to be used by several threads at once.
+ * This class is used when life cycle operations run concurrently.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class SynchronizedAgentClient implements IAgentClient {
+
+	private final IAgentClient delegate;
+
+
+	/**
+	 * Constructor.
+	 * @param delegate the client to use (not null)
+	 */
+	public SynchronizedAgentClient( IAgentClient delegate ) {
+		this.delegate = delegate;
+	}
+
+
+	/**
+	 * @return the delegate
+	 */
+	public IAgentClient getDelegate() {
+		return this.delegate;
+	}
+
+
+	@Override
+	public synchronized void setMessageQueue( RoboconfMessageQueue messageQueue ) {
+		this.delegate.setMessageQueue( messageQueue );
+	}
+
+
+	@Override
+	public synchronized void setDomain( String domain ) {
+		this.delegate.setDomain( domain );
+	}
+
+
+	@Override
+	public synchronized boolean isConnected() {
+		return this.delegate.isConnected();
+	}
+
+
+	@Override
+	public synchronized void openConnection() throws IOException {
+		this.delegate.openConnection();
+	}
+
+
+	@Override
+	public synchronized void closeConnection() throws IOException {
+		this.delegate.closeConnection();
+	}
+
+
+	@Override
+	public synchronized void sendMessageToTheDm( Message message ) throws IOException {
+		this.delegate.sendMessageToTheDm( message );
+	}
+
+
+	@Override
+	public synchronized void listenToTheDm( ListenerCommand command ) throws IOException {
+		this.delegate.listenToTheDm( command );
+	}
+
+
+	@Override
+	public synchronized String getMessagingType() {
+		return this.delegate.getMessagingType();
+	}
+
+
+	@Override
+	public synchronized String getDomain() {
+		return this.delegate.getDomain();
+	}
+
+
+	@Override
+	public synchronized Map<String,String> getConfiguration() {
+		return this.delegate.getConfiguration();
+	}
+
+
+	@Override
+	public synchronized void setApplicationName( String applicationName ) {
+		this.delegate.setApplicationName( applicationName );
+	}
+
+
+	@Override
+	public synchronized void setScopedInstancePath( String scopedInstancePath ) {
+		this.delegate.setScopedInstancePath( scopedInstancePath );
+	}
+
+
+	@Override
+	public synchronized void setExternalMapping( Map<String,String> externalExports ) {
+		this.delegate.setExternalMapping( externalExports );
+	}
+
+
+	@Override
+	public synchronized void publishExports( Instance instance ) throws IOException {
+		this.delegate.publishExports( instance );
+	}
+
+
+	@Override
+	public synchronized void publishExports( Instance instance, String facetOrComponentName ) throws IOException {
+		this.delegate.publishExports( instance, facetOrComponentName );
+	}
+
+
+	@Override
+	public synchronized void unpublishExports( Instance instance ) throws IOException {
+		this.delegate.unpublishExports( instance );
+	}
+
+
+	@Override
+	public synchronized void listenToRequestsFromOtherAgents( ListenerCommand command, Instance instance ) throws IOException {
+		this.delegate.listenToRequestsFromOtherAgents( command, instance );
+	}
+
+
+	@Override
+	public synchronized void requestExportsFromOtherAgents( Instance instance ) throws IOException {
+		this.delegate.requestExportsFromOtherAgents( instance );
+	}
+
+
+	@Override
+	public synchronized void listenToExportsFromOtherAgents( ListenerCommand command, Instance instance ) throws IOException {
+		this.delegate.listenToExportsFromOtherAgents( command, instance );
+	}
+}
@@ -61,6 +61,14 @@ public class NazgulMessageProcessor extends AgentMessageProcessor {
 	}
 
 
+	@Override
+	protected int getLifeCycleThreads() {
+		// Sauron processes messages one after the other, across all the agents.
+		// Life cycle operations must not run in background.
+		return 1;
+	}
+
+
 	public void processMessageForReal( Message message ) {
 		super.processMessage( message );
 	}
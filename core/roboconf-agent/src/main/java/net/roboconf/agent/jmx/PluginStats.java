@@ -26,6 +26,7 @@
 package net.roboconf.agent.jmx;
 
 import net.roboconf.agent.internal.PluginProxy;
+import net.roboconf.core.utils.ProcessStatistics;
 
 /**
  * MBean to monitor plugin invocations.
@@ -36,6 +37,7 @@ public class PluginStats implements PluginStatsMBean {
 	@Override
 	public void reset() {
 		PluginProxy.resetAllCounters();
+		ProcessStatistics.reset();
 	}
 
 	@Override
@@ -72,4 +74,34 @@ public class PluginStats implements PluginStatsMBean {
 	public int getErrorCount() {
 		return PluginProxy.getErrorCount();
 	}
+
+	@Override
+	public long getProcessExecutionCount() {
+		return ProcessStatistics.getExecutionCount();
+	}
+
+	@Override
+	public double getProcessExecutionsPerSecond() {
+		return ProcessStatistics.getExecutionsPerSecond();
+	}
+
+	@Override
+	public long getProcessAverageDuration() {
+		return ProcessStatistics.getAverageDuration();
+	}
+
+	@Override
+	public long getProcessMaxDuration() {
+		return ProcessStatistics.getMaxDuration();
+	}
+
+	@Override
+	public long getProcessTimeoutCount() {
+		return ProcessStatistics.getTimeoutCount();
+	}
+
+	@Override
+	public long getProcessTruncatedOutputCount() {
+		return ProcessStatistics.getTruncatedOutputCount();
+	}
 }
@@ -77,4 +77,40 @@ public interface PluginStatsMBean {
 	 * @return The number of invocation errors
 	 */
 	int getErrorCount();
+
+	/**
+	 * Retrieves the number of processes executed by plug-ins (e.g. scripts).
+	 * @return The number of executed processes
+	 */
+	long getProcessExecutionCount();
+
+	/**
+	 * Retrieves the average number of processes executed per second since the last reset.
+	 * @return The number of executed processes per second
+	 */
+	double getProcessExecutionsPerSecond();
+
+	/**
+	 * Retrieves the average duration of a process execution.
+	 * @return The average duration, in milliseconds
+	 */
+	long getProcessAverageDuration();
+
+	/**
+	 * Retrieves the longest duration of a process execution.
+	 * @return The longest duration, in milliseconds
+	 */
+	long getProcessMaxDuration();
+
+	/**
+	 * Retrieves the number of processes that were killed because they timed out.
+	 * @return The number of timeouts
+	 */
+	long getProcessTimeoutCount();
+
+	/**
+	 * Retrieves the number of processes whose output was truncated.
+	 * @return The number of truncated outputs
+	 */
+	long getProcessTruncatedOutputCount();
 }
@@ -27,6 +27,7 @@ package net.roboconf.agent.internal;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -41,6 +42,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import net.roboconf.agent.internal.misc.AgentUtils;
 import net.roboconf.agent.internal.misc.PluginMock;
 import net.roboconf.agent.internal.test.AgentTestUtils;
 import net.roboconf.core.Constants;
@@ -360,7 +362,7 @@ public class AgentMessageProcessorBasicTest {
 
 
 	@Test
-	public void testRemoveInstance() {
+	public void testRemoveInstance() throws Exception {
 
 		// Initialize all the stuff
 		AgentMessageProcessor processor = (AgentMessageProcessor) this.agent.getMessagingClient().getMessageProcessor();
@@ -388,9 +390,16 @@ public class AgentMessageProcessorBasicTest {
 		Assert.assertEquals( 2, InstanceHelpers.buildHierarchicalList( app.getMySqlVm()).size());
 
 		// Try to remove a valid child (not deployed) => OK
+		// Resources kept after the undeployment are deleted.
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( app.getMySql());
+		Utils.deleteFilesRecursively( dir );
+		AgentUtils.installInstanceResources( app.getMySql(), Collections.singletonMap( "f.txt", new byte[ 1 ]));
+		Assert.assertTrue( dir.exists());
+
 		app.getMySql().setStatus( InstanceStatus.NOT_DEPLOYED );
 		processor.processMessage( new MsgCmdRemoveInstance( app.getMySql()));
 		Assert.assertEquals( 1, InstanceHelpers.buildHierarchicalList( app.getMySqlVm()).size());
+		Assert.assertFalse( dir.exists());
 
 		Assert.assertEquals( 1, this.client.messagesForTheDm.size());
 		Assert.assertEquals( MsgNotifInstanceRemoved.class, this.client.messagesForTheDm.get( 0 ).getClass());
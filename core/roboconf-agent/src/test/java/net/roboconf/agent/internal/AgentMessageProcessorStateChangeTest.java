@@ -25,11 +25,17 @@
 
 package net.roboconf.agent.internal;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import net.roboconf.agent.internal.lifecycle.LifeCycleScheduler;
+import net.roboconf.agent.internal.lifecycle.LifeCycleScheduler.LifeCycleTask;
 import net.roboconf.agent.internal.misc.PluginMock;
 import net.roboconf.agent.internal.test.AgentTestUtils;
 import net.roboconf.core.internal.tests.TestApplicationTemplate;
@@ -452,4 +458,43 @@ public class AgentMessageProcessorStateChangeTest {
 		processor.processMessage( new MsgCmdChangeInstanceState( app.getTomcat(), InstanceStatus.NOT_DEPLOYED ));
 		Assert.assertEquals( InstanceStatus.DEPLOYED_STOPPED, app.getTomcat().getStatus());
 	}
+
+
+	@Test
+	public void testSynchronousFallbackWaitsForParallelOperations() throws Exception {
+
+		TestApplicationTemplate app = new TestApplicationTemplate();
+		this.agent.setLifeCycleThreads( 2 );
+		AgentMessageProcessor processor = (AgentMessageProcessor) this.agent.getMessagingClient().getMessageProcessor();
+		processor.processMessage( new MsgCmdSetScopedInstance( app.getTomcatVm()));
+
+		// Occupy a worker
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final AtomicBoolean completed = new AtomicBoolean( false );
+		LifeCycleScheduler scheduler = processor.lifeCycleScheduler();
+		Assert.assertEquals( 2, scheduler.getPoolSize());
+		scheduler.submit( app.getTomcat(), new LifeCycleTask() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					Thread.sleep( 300 );
+
+				} catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+
+				completed.set( true );
+			}
+		});
+
+		Assert.assertTrue( started.await( 5, TimeUnit.SECONDS ));
+
+		// Actions on the root instance are processed synchronously.
+		// They must not overlap with the operations in progress.
+		processor.scheduleMsgChangeInstanceState( new MsgCmdChangeInstanceState( app.getTomcatVm(), InstanceStatus.NOT_DEPLOYED ));
+		Assert.assertTrue( completed.get());
+		Assert.assertEquals( 0, scheduler.getActiveOperationsCount());
+		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, app.getTomcatVm().getStatus());
+	}
 }
@@ -28,7 +28,13 @@ package net.roboconf.agent.internal;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.utils.ProgramUtils;
+import net.roboconf.core.utils.ProgramUtils.ExecutionOptions;
+import net.roboconf.plugin.api.PluginException;
 import net.roboconf.plugin.api.PluginInterface;
 
 /**
@@ -50,4 +56,34 @@ public class PluginProxyTest {
 		pp.setNames( "app", "/vm" );
 		Mockito.verify( pi ).setNames( "app", "/vm" );
 	}
+
+
+	@Test
+	public void testExecutionOptionsAreSetDuringInvocations() throws Exception {
+
+		final ExecutionOptions options = new ExecutionOptions().timeout( 5000 );
+		final ExecutionOptions[] seenOptions = new ExecutionOptions[ 1 ];
+
+		PluginInterface pi = Mockito.mock( PluginInterface.class );
+		Mockito.doAnswer( new Answer<Void>() {
+			@Override
+			public Void answer( InvocationOnMock invocation ) throws Throwable {
+				seenOptions[ 0 ] = ProgramUtils.getThreadOptions();
+				throw new PluginException( "for test" );
+			}
+
+		}).when( pi ).deploy( Mockito.any( Instance.class ));
+
+		PluginProxy pp = new PluginProxy( pi, options );
+		try {
+			pp.deploy( new Instance( "inst" ));
+			Assert.fail( "An exception was expected." );
+
+		} catch( PluginException e ) {
+			// nothing
+		}
+
+		Assert.assertSame( options, seenOptions[ 0 ]);
+		Assert.assertEquals( 0, ProgramUtils.getThreadOptions().getTimeout());
+	}
 }
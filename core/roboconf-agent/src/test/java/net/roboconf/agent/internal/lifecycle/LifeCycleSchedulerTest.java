@@ -0,0 +1,211 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.lifecycle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.roboconf.agent.internal.lifecycle.LifeCycleScheduler.LifeCycleTask;
+import net.roboconf.core.internal.tests.TestApplication;
+import net.roboconf.core.model.beans.Component;
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.plugin.api.PluginException;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class LifeCycleSchedulerTest {
+
+	private LifeCycleScheduler scheduler;
+
+
+	@After
+	public void shutdownScheduler() {
+		if( this.scheduler != null )
+			this.scheduler.shutdown();
+	}
+
+
+	@Test
+	public void testPoolSizeOfOne_tasksRunInline() throws Exception {
+
+		this.scheduler = new LifeCycleScheduler( 1 );
+		Assert.assertEquals( 1, this.scheduler.getPoolSize());
+
+		final List<Thread> threads = new ArrayList<> ();
+		this.scheduler.submit( new Instance( "inst" ), new LifeCycleTask() {
+			@Override
+			public void run() throws IOException, PluginException {
+				threads.add( Thread.currentThread());
+			}
+		});
+
+		Assert.assertEquals( Collections.singletonList( Thread.currentThread()), threads );
+		Assert.assertEquals( 0, this.scheduler.getActiveOperationsCount());
+	}
+
+
+	@Test
+	public void testIndependentInstances_runConcurrently() throws Exception {
+
+		this.scheduler = new LifeCycleScheduler( 3 );
+		Component comp = new Component( "comp" ).installerName( "target" );
+
+		// All the tasks block until the three of them have started
+		final CountDownLatch started = new CountDownLatch( 3 );
+		final AtomicInteger completed = new AtomicInteger();
+		for( int i=0; i<3; i++ ) {
+			this.scheduler.submit( new Instance( "vm " + i ).component( comp ), new LifeCycleTask() {
+				@Override
+				public void run() throws IOException, PluginException {
+					started.countDown();
+					try {
+						if( started.await( 5, TimeUnit.SECONDS ))
+							completed.incrementAndGet();
+
+					} catch( InterruptedException e ) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+
+		this.scheduler.awaitCompletion();
+		Assert.assertEquals( 3, completed.get());
+		Assert.assertEquals( 0, this.scheduler.getActiveOperationsCount());
+	}
+
+
+	@Test
+	public void testParentAndChild_areSerialized() throws Exception {
+
+		this.scheduler = new LifeCycleScheduler( 4 );
+		TestApplication app = new TestApplication();
+
+		final List<String> events = Collections.synchronizedList( new ArrayList<String> ());
+		this.scheduler.submit( app.getTomcatVm(), new SlowTask( events, "vm", 200 ));
+		this.scheduler.submit( app.getTomcat(), new SlowTask( events, "tomcat", 0 ));
+		this.scheduler.submit( app.getTomcatVm(), new SlowTask( events, "vm-again", 0 ));
+
+		this.scheduler.awaitCompletion();
+		Assert.assertEquals( 6, events.size());
+		Assert.assertEquals( "start vm", events.get( 0 ));
+		Assert.assertEquals( "end vm", events.get( 1 ));
+		Assert.assertEquals( "start tomcat", events.get( 2 ));
+		Assert.assertEquals( "end tomcat", events.get( 3 ));
+		Assert.assertEquals( "start vm-again", events.get( 4 ));
+		Assert.assertEquals( "end vm-again", events.get( 5 ));
+	}
+
+
+	@Test
+	public void testImportDependencies_areSerialized() throws Exception {
+
+		this.scheduler = new LifeCycleScheduler( 4 );
+		TestApplication app = new TestApplication();
+
+		// The WAR imports variables exported by MySQL
+		final List<String> events = Collections.synchronizedList( new ArrayList<String> ());
+		this.scheduler.submit( app.getMySql(), new SlowTask( events, "mysql", 200 ));
+		this.scheduler.submit( app.getWar(), new SlowTask( events, "war", 0 ));
+
+		this.scheduler.awaitCompletion();
+		Assert.assertEquals( 4, events.size());
+		Assert.assertEquals( "start mysql", events.get( 0 ));
+		Assert.assertEquals( "end mysql", events.get( 1 ));
+		Assert.assertEquals( "start war", events.get( 2 ));
+		Assert.assertEquals( "end war", events.get( 3 ));
+	}
+
+
+	@Test
+	public void testFailingTask_doesNotBlockDependentOnes() throws Exception {
+
+		this.scheduler = new LifeCycleScheduler( 2 );
+		TestApplication app = new TestApplication();
+
+		final AtomicInteger executed = new AtomicInteger();
+		this.scheduler.submit( app.getTomcat(), new LifeCycleTask() {
+			@Override
+			public void run() throws IOException, PluginException {
+				executed.incrementAndGet();
+				throw new PluginException( "for test" );
+			}
+		});
+
+		this.scheduler.submit( app.getTomcat(), new LifeCycleTask() {
+			@Override
+			public void run() throws IOException, PluginException {
+				executed.incrementAndGet();
+			}
+		});
+
+		this.scheduler.awaitCompletion();
+		Assert.assertEquals( 2, executed.get());
+		Assert.assertEquals( 0, this.scheduler.getActiveOperationsCount());
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class SlowTask implements LifeCycleTask {
+		private final List<String> events;
+		private final String name;
+		private final long delay;
+
+
+		SlowTask( List<String> events, String name, long delay ) {
+			this.events = events;
+			this.name = name;
+			this.delay = delay;
+		}
+
+
+		@Override
+		public void run() throws IOException, PluginException {
+
+			this.events.add( "start " + this.name );
+			try {
+				Thread.sleep( this.delay );
+
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+
+			this.events.add( "end " + this.name );
+		}
+	}
+}
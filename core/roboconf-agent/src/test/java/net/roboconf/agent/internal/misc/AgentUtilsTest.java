@@ -179,6 +179,133 @@ public class AgentUtilsTest {
 	}
 
 
+	@Test
+	public void testInstallInstanceResources_incremental() throws Exception {
+
+		TestApplicationTemplate app = new TestApplicationTemplate();
+		Map<String,byte[]> fileNameToFileContent = new HashMap<> ();
+		fileNameToFileContent.put( "f1.txt", "I am file 1".getBytes( "UTF-8" ));
+		fileNameToFileContent.put( "f2.txt", "I am file 2".getBytes( "UTF-8" ));
+		fileNameToFileContent.put( "dir1/dir2/f3.txt", "I am file 3".getBytes( "UTF-8" ));
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( app.getTomcat());
+		Utils.deleteFilesRecursively( dir );
+		Assert.assertFalse( dir.exists());
+
+		try {
+			// First installation: everything is written
+			AgentUtils.ResourcesInstallationReport report = AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertEquals( 3, report.getWrittenFiles());
+			Assert.assertEquals( 0, report.getUnchangedFiles());
+			Assert.assertEquals( 0, report.getDeletedFiles());
+			Assert.assertEquals( 33, report.getBytesWritten());
+			Assert.assertEquals( "I am file 1", Utils.readFileContent( new File( dir, "f1.txt" )));
+			Assert.assertEquals( "I am file 3", Utils.readFileContent( new File( dir, "dir1/dir2/f3.txt" )));
+			Assert.assertTrue( new File( dir, AgentUtils.RESOURCES_MANIFEST ).exists());
+
+			// Add a file at runtime, update a file, remove another one
+			File runtimeFile = new File( dir, "dir4/runtime.txt" );
+			Utils.createDirectory( runtimeFile.getParentFile());
+			Utils.writeStringInto( "generated", runtimeFile );
+
+			fileNameToFileContent.put( "f2.txt", "I am the new file 2".getBytes( "UTF-8" ));
+			fileNameToFileContent.remove( "dir1/dir2/f3.txt" );
+
+			// Second installation: only what changed is written
+			report = AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertEquals( 1, report.getWrittenFiles());
+			Assert.assertEquals( 1, report.getUnchangedFiles());
+			Assert.assertEquals( 2, report.getDeletedFiles());
+			Assert.assertEquals( 19, report.getBytesWritten());
+			Assert.assertEquals( "I am the new file 2", Utils.readFileContent( new File( dir, "f2.txt" )));
+			Assert.assertFalse( runtimeFile.exists());
+			Assert.assertFalse( new File( dir, "dir4" ).exists());
+			Assert.assertFalse( new File( dir, "dir1" ).exists());
+
+			// A file modified locally is restored
+			File f1 = new File( dir, "f1.txt" );
+			Utils.writeStringInto( "I was modified", f1 );
+			report = AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertEquals( 1, report.getWrittenFiles());
+			Assert.assertEquals( 1, report.getUnchangedFiles());
+			Assert.assertEquals( 0, report.getDeletedFiles());
+			Assert.assertEquals( "I am file 1", Utils.readFileContent( f1 ));
+
+			// Same size, older modification date, but a different content => hashed and restored too
+			Utils.writeStringInto( "I am file X", f1 );
+			Assert.assertTrue( f1.setLastModified( f1.lastModified() - 100000 ));
+			report = AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertEquals( 1, report.getWrittenFiles());
+			Assert.assertEquals( 1, report.getUnchangedFiles());
+			Assert.assertEquals( 1, report.getHashedFiles());
+			Assert.assertEquals( "I am file 1", Utils.readFileContent( f1 ));
+
+			// Only touching a file is not a modification (but it is hashed again)
+			Assert.assertTrue( f1.setLastModified( f1.lastModified() - 100000 ));
+			report = AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertEquals( 0, report.getWrittenFiles());
+			Assert.assertEquals( 2, report.getUnchangedFiles());
+			Assert.assertEquals( 1, report.getHashedFiles());
+
+			// Nothing changed => no file is read
+			report = AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertEquals( 0, report.getWrittenFiles());
+			Assert.assertEquals( 2, report.getUnchangedFiles());
+			Assert.assertEquals( 0, report.getHashedFiles());
+			Assert.assertEquals( 0, report.getBytesWritten());
+
+		} finally {
+			Utils.deleteFilesRecursively( dir );
+		}
+	}
+
+
+	@Test
+	public void testCleanInstanceResources() throws Exception {
+
+		TestApplicationTemplate app = new TestApplicationTemplate();
+		Map<String,byte[]> fileNameToFileContent = new HashMap<> ();
+		fileNameToFileContent.put( "f1.txt", "I am file 1".getBytes( "UTF-8" ));
+		fileNameToFileContent.put( "dir1/f2.txt", "I am file 2".getBytes( "UTF-8" ));
+
+		File dir = InstanceHelpers.findInstanceDirectoryOnAgent( app.getTomcat());
+		Utils.deleteFilesRecursively( dir );
+
+		try {
+			// No manifest => the directory is deleted
+			AgentUtils.copyInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertTrue( dir.exists());
+			AgentUtils.cleanInstanceResources( app.getTomcat());
+			Assert.assertFalse( dir.exists());
+
+			// With a manifest, installed files are kept
+			AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			File runtimeFile = new File( dir, ".runtime" );
+			Utils.writeStringInto( "generated", runtimeFile );
+			Utils.writeStringInto( "I was modified", new File( dir, "dir1/f2.txt" ));
+
+			AgentUtils.cleanInstanceResources( app.getTomcat());
+			Assert.assertTrue( new File( dir, "f1.txt" ).exists());
+			Assert.assertTrue( new File( dir, AgentUtils.RESOURCES_MANIFEST ).exists());
+			Assert.assertFalse( new File( dir, "dir1" ).exists());
+			Assert.assertFalse( runtimeFile.exists());
+
+			// A next installation only writes the deleted file, and does not hash the kept one
+			AgentUtils.ResourcesInstallationReport report = AgentUtils.installInstanceResources( app.getTomcat(), fileNameToFileContent );
+			Assert.assertEquals( 1, report.getWrittenFiles());
+			Assert.assertEquals( 1, report.getUnchangedFiles());
+			Assert.assertEquals( 0, report.getHashedFiles());
+
+			// Deleting the resources removes everything
+			AgentUtils.deleteInstanceResources( app.getTomcat());
+			Assert.assertFalse( dir.exists());
+
+		} finally {
+			Utils.deleteFilesRecursively( dir );
+		}
+	}
+
+
 	@Test
 	public void testChangeRoboconfLogLevel() throws Exception {
 
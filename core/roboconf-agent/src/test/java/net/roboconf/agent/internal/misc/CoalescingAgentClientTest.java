@@ -0,0 +1,163 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.misc;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import net.roboconf.core.internal.tests.TestApplication;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.messaging.api.business.IAgentClient;
+import net.roboconf.messaging.api.messages.Message;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceChanged;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceRemoved;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstancesChanged;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class CoalescingAgentClientTest {
+
+	private IAgentClient delegate;
+	private CoalescingAgentClient client;
+	private TestApplication app;
+
+
+	@Before
+	public void createClient() {
+		this.delegate = Mockito.mock( IAgentClient.class );
+		this.app = new TestApplication();
+	}
+
+
+	@After
+	public void closeClient() {
+		if( this.client != null )
+			this.client.close();
+	}
+
+
+	@Test
+	public void testChangesAreCoalesced() throws Exception {
+
+		// Long window: we flush explicitly
+		this.client = new CoalescingAgentClient( this.delegate, 100000 );
+		Assert.assertEquals( 100000, this.client.getWindow());
+
+		this.app.getTomcat().setStatus( InstanceStatus.DEPLOYING );
+		this.client.sendMessageToTheDm( new MsgNotifInstanceChanged( "app", this.app.getTomcat()));
+		this.client.sendMessageToTheDm( new MsgNotifInstanceChanged( "app", this.app.getWar()));
+
+		this.app.getTomcat().setStatus( InstanceStatus.DEPLOYED_STOPPED );
+		this.client.sendMessageToTheDm( new MsgNotifInstanceChanged( "app", this.app.getTomcat()));
+
+		Assert.assertEquals( 2, this.client.getPendingChangesCount());
+		Mockito.verifyZeroInteractions( this.delegate );
+
+		this.client.flush();
+		Assert.assertEquals( 0, this.client.getPendingChangesCount());
+
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass( Message.class );
+		Mockito.verify( this.delegate, Mockito.only()).sendMessageToTheDm( captor.capture());
+
+		MsgNotifInstancesChanged msg = (MsgNotifInstancesChanged) captor.getValue();
+		Assert.assertEquals( "app", msg.getApplicationName());
+
+		// The last change of an instance determines its position
+		List<MsgNotifInstanceChanged> changes = msg.getChanges();
+		Assert.assertEquals( 2, changes.size());
+		Assert.assertEquals( InstanceHelpers.computeInstancePath( this.app.getWar()), changes.get( 0 ).getInstancePath());
+		Assert.assertEquals( InstanceHelpers.computeInstancePath( this.app.getTomcat()), changes.get( 1 ).getInstancePath());
+		Assert.assertEquals( InstanceStatus.DEPLOYED_STOPPED, changes.get( 1 ).getNewStatus());
+
+		// Nothing to flush anymore
+		this.client.flush();
+		Mockito.verifyNoMoreInteractions( this.delegate );
+	}
+
+
+	@Test
+	public void testSingleChangeIsSentAsIs() throws Exception {
+
+		this.client = new CoalescingAgentClient( this.delegate, 100000 );
+		MsgNotifInstanceChanged msg = new MsgNotifInstanceChanged( "app", this.app.getTomcat());
+		this.client.sendMessageToTheDm( msg );
+		this.client.flush();
+
+		Mockito.verify( this.delegate, Mockito.only()).sendMessageToTheDm( msg );
+	}
+
+
+	@Test
+	public void testOtherMessagesFlushChangesFirst() throws Exception {
+
+		this.client = new CoalescingAgentClient( this.delegate, 100000 );
+		MsgNotifInstanceChanged msg1 = new MsgNotifInstanceChanged( "app", this.app.getWar());
+		MsgNotifInstanceRemoved msg2 = new MsgNotifInstanceRemoved( "app", this.app.getWar());
+
+		this.client.sendMessageToTheDm( msg1 );
+		this.client.sendMessageToTheDm( msg2 );
+
+		InOrder inOrder = Mockito.inOrder( this.delegate );
+		inOrder.verify( this.delegate ).sendMessageToTheDm( msg1 );
+		inOrder.verify( this.delegate ).sendMessageToTheDm( msg2 );
+		inOrder.verifyNoMoreInteractions();
+	}
+
+
+	@Test
+	public void testChangesAreSentAfterTheWindow() throws Exception {
+
+		this.client = new CoalescingAgentClient( this.delegate, 50 );
+		MsgNotifInstanceChanged msg = new MsgNotifInstanceChanged( "app", this.app.getTomcat());
+		this.client.sendMessageToTheDm( msg );
+
+		Mockito.verify( this.delegate, Mockito.timeout( 5000 )).sendMessageToTheDm( msg );
+		Assert.assertEquals( 0, this.client.getPendingChangesCount());
+	}
+
+
+	@Test
+	public void testChangesAreSentOnClose() throws Exception {
+
+		this.client = new CoalescingAgentClient( this.delegate, 100000 );
+		MsgNotifInstanceChanged msg = new MsgNotifInstanceChanged( "app", this.app.getTomcat());
+		this.client.sendMessageToTheDm( msg );
+		this.client.closeConnection();
+
+		InOrder inOrder = Mockito.inOrder( this.delegate );
+		inOrder.verify( this.delegate ).sendMessageToTheDm( msg );
+		inOrder.verify( this.delegate ).closeConnection();
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.misc;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.roboconf.core.internal.tests.TestApplication;
+import net.roboconf.core.model.beans.Instance;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstancesIndexTest {
+
+	@Test
+	public void testNullRoot() {
+
+		InstancesIndex index = new InstancesIndex( null );
+		Assert.assertNull( index.getRootInstance());
+		Assert.assertEquals( 0, index.getAllInstances().size());
+		Assert.assertEquals( 0, index.findInstancesImporting( "mysql" ).size());
+	}
+
+
+	@Test
+	public void testIndexation() {
+
+		TestApplication app = new TestApplication();
+		InstancesIndex index = new InstancesIndex( app.getTomcatVm());
+
+		Assert.assertEquals( app.getTomcatVm(), index.getRootInstance());
+		Assert.assertEquals(
+				Arrays.asList( app.getTomcatVm(), app.getTomcat(), app.getWar()),
+				index.getAllInstances());
+
+		Assert.assertEquals( Arrays.asList( app.getWar()), index.findInstancesImporting( "mysql" ));
+		Assert.assertEquals( 0, index.findInstancesImporting( "tomcat" ).size());
+		Assert.assertEquals( 0, index.findInstancesImporting( null ).size());
+
+		Assert.assertEquals( "/tomcat-vm/tomcat-server/hello-world", index.findInstancePath( app.getWar()));
+		Assert.assertEquals( "/mysql-vm/mysql-server", index.findInstancePath( app.getMySql()));
+	}
+
+
+	@Test
+	public void testAddAndRemove() {
+
+		TestApplication app = new TestApplication();
+		InstancesIndex index = new InstancesIndex( app.getTomcatVm());
+
+		// Remove a sub-tree
+		index.removeInstance( app.getTomcat());
+		Assert.assertEquals( Arrays.asList( app.getTomcatVm()), index.getAllInstances());
+		Assert.assertEquals( 0, index.findInstancesImporting( "mysql" ).size());
+
+		// Removing it twice has no effect
+		index.removeInstance( app.getTomcat());
+		Assert.assertEquals( Arrays.asList( app.getTomcatVm()), index.getAllInstances());
+
+		// Add it again
+		index.addInstance( app.getTomcat());
+		Assert.assertEquals(
+				Arrays.asList( app.getTomcatVm(), app.getTomcat(), app.getWar()),
+				index.getAllInstances());
+		Assert.assertEquals( Arrays.asList( app.getWar()), index.findInstancesImporting( "mysql" ));
+
+		// Adding it twice does not duplicate entries
+		index.addInstance( app.getTomcat());
+		Assert.assertEquals( 3, index.getAllInstances().size());
+		Assert.assertEquals( 1, index.findInstancesImporting( "mysql" ).size());
+
+		// Add a new instance
+		Instance newWar = new Instance( "war2" ).component( app.getWar().getComponent());
+		newWar.setParent( app.getTomcat());
+		app.getTomcat().getChildren().add( newWar );
+
+		index.addInstance( newWar );
+		Assert.assertEquals( Arrays.asList( app.getWar(), newWar ), index.findInstancesImporting( "mysql" ));
+		Assert.assertEquals( "/tomcat-vm/tomcat-server/war2", index.findInstancePath( newWar ));
+	}
+}
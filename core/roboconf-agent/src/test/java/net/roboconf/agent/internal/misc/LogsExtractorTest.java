@@ -0,0 +1,198 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.agent.internal.misc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.roboconf.core.utils.Utils;
+import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdGatherLogs;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class LogsExtractorTest {
+
+	private static final String LOGS =
+			"2017-03-01 10:00:00,000 | INFO  | entry 1\n"
+			+ "2017-03-01 10:05:00,000 | INFO  | entry 2\n"
+			+ "2017-03-01 10:10:00,000 | ERROR | entry 3\n"
+			+ "java.lang.NullPointerException\n"
+			+ "\tat some.Class.method(Class.java:12)\n"
+			+ "2017-03-01 10:15:00,000 | INFO  | entry 4\n"
+			+ "2017-03-01 10:20:00,000 | INFO  | entry 5\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void testExtract_noLimit() throws Exception {
+
+		File logFile = writeLogs( LOGS );
+		String s = extract( logFile, new MsgCmdGatherLogs());
+		Assert.assertEquals( LOGS, s );
+	}
+
+
+	@Test
+	public void testExtract_emptyFile() throws Exception {
+
+		File logFile = writeLogs( "" );
+		Assert.assertEquals( "", extract( logFile, new MsgCmdGatherLogs()));
+		Assert.assertEquals( "", extract( logFile, new MsgCmdGatherLogs( 10, true, time( "10:00:00" ), 0, false )));
+	}
+
+
+	@Test
+	public void testExtract_sizeLimit() throws Exception {
+
+		File logFile = writeLogs( LOGS );
+
+		String s = extract( logFile, new MsgCmdGatherLogs( 10, false, 0, 0, false ));
+		Assert.assertEquals( LOGS.substring( 0, 10 ), s );
+
+		// Tail: we do not start in the middle of a line
+		s = extract( logFile, new MsgCmdGatherLogs( 50, true, 0, 0, false ));
+		Assert.assertEquals( "2017-03-01 10:20:00,000 | INFO  | entry 5\n", s );
+
+		// Tail: the last line exceeds the limit
+		s = extract( logFile, new MsgCmdGatherLogs( 10, true, 0, 0, false ));
+		Assert.assertEquals( "| entry 5\n", s );
+	}
+
+
+	@Test
+	public void testExtract_timeLimits() throws Exception {
+
+		File logFile = writeLogs( LOGS );
+
+		String s = extract( logFile, new MsgCmdGatherLogs( 0, false, time( "10:10:00" ), 0, false ));
+		Assert.assertTrue( s, s.startsWith( "2017-03-01 10:10:00,000 | ERROR | entry 3\njava.lang" ));
+		Assert.assertTrue( s, s.endsWith( "entry 5\n" ));
+
+		s = extract( logFile, new MsgCmdGatherLogs( 0, false, time( "10:07:00" ), time( "10:12:00" ), false ));
+		Assert.assertTrue( s, s.startsWith( "2017-03-01 10:10:00,000 | ERROR | entry 3\n" ));
+		Assert.assertTrue( s, s.endsWith( "(Class.java:12)\n" ));
+
+		s = extract( logFile, new MsgCmdGatherLogs( 0, false, 0, time( "10:05:00" ), false ));
+		Assert.assertTrue( s, s.startsWith( "2017-03-01 10:00:00,000" ));
+		Assert.assertTrue( s, s.endsWith( "entry 2\n" ));
+
+		s = extract( logFile, new MsgCmdGatherLogs( 0, false, time( "11:00:00" ), 0, false ));
+		Assert.assertEquals( "", s );
+
+		s = extract( logFile, new MsgCmdGatherLogs( 0, false, time( "09:00:00" ), 0, false ));
+		Assert.assertEquals( LOGS, s );
+	}
+
+
+	@Test
+	public void testExtract_defaultSizeLimit() throws Exception {
+
+		// Without any size limit, the end of big files is kept
+		StringBuilder sb = new StringBuilder();
+		String line = "2017-03-01 10:00:00,000 | INFO  | some filling entry\n";
+		long count = LogsExtractor.DEFAULT_MAX_BYTES_PER_FILE / line.length() + 10;
+		for( long i = 0; i < count; i ++ )
+			sb.append( line );
+
+		sb.append( LOGS );
+		File logFile = writeLogs( sb.toString());
+
+		String s = extract( logFile, new MsgCmdGatherLogs());
+		Assert.assertTrue( s.length() <= LogsExtractor.DEFAULT_MAX_BYTES_PER_FILE );
+		Assert.assertTrue( s.startsWith( line ));
+		Assert.assertTrue( s.endsWith( LOGS ));
+	}
+
+
+	@Test
+	public void testExtract_compressed() throws Exception {
+
+		File logFile = writeLogs( LOGS );
+		LogsExtractor extractor = new LogsExtractor( new MsgCmdGatherLogs( 0, false, 0, 0, true ));
+		byte[] bytes = extractor.extract( logFile );
+
+		InputStream in = new GZIPInputStream( new ByteArrayInputStream( bytes ));
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		Utils.copyStreamSafely( in, os );
+		Assert.assertEquals( LOGS, os.toString( "UTF-8" ));
+	}
+
+
+	@Test
+	public void testExtract_manyEntries() throws Exception {
+
+		// Every entry is written one second after the previous one
+		StringBuilder sb = new StringBuilder();
+		SimpleDateFormat sdf = new SimpleDateFormat( LogsExtractor.DATE_PATTERN );
+		long start = time( "10:00:00" );
+		for( int i = 0; i < 5000; i ++ ) {
+			sb.append( sdf.format( start + i * 1000L ));
+			sb.append( ",000 | INFO  | entry " );
+			sb.append( i );
+			sb.append( "\n" );
+			if( i % 7 == 0 )
+				sb.append( "\tsome details\n" );
+		}
+
+		File logFile = writeLogs( sb.toString());
+		String s = extract( logFile, new MsgCmdGatherLogs( 0, false, start + 4000 * 1000L, start + 4001 * 1000L, false ));
+		Assert.assertEquals(
+				sdf.format( start + 4000 * 1000L ) + ",000 | INFO  | entry 4000\n"
+				+ sdf.format( start + 4001 * 1000L ) + ",000 | INFO  | entry 4001\n",
+				s );
+	}
+
+
+	private File writeLogs( String content ) throws Exception {
+
+		File result = this.folder.newFile();
+		Utils.writeStringInto( content, result );
+		return result;
+	}
+
+
+	private String extract( File logFile, MsgCmdGatherLogs options ) throws Exception {
+		LogsExtractor extractor = new LogsExtractor( options );
+		return new String( extractor.extract( logFile ), "UTF-8" );
+	}
+
+
+	private long time( String time ) throws Exception {
+		return new SimpleDateFormat( LogsExtractor.DATE_PATTERN ).parse( "2017-03-01 " + time ).getTime();
+	}
+}
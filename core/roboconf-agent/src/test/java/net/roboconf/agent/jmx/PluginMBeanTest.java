@@ -27,12 +27,14 @@ package net.roboconf.agent.jmx;
 
 import java.lang.management.ManagementFactory;
 import java.util.Arrays;
+import java.util.logging.Logger;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -42,7 +44,10 @@ import org.mockito.stubbing.Answer;
 import net.roboconf.agent.internal.Agent;
 import net.roboconf.agent.internal.PluginProxy;
 import net.roboconf.core.model.beans.Component;
+import net.roboconf.core.internal.tests.TestUtils;
 import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.utils.ProgramUtils;
+import net.roboconf.core.utils.ProgramUtils.ExecutionOptions;
 import net.roboconf.plugin.api.PluginException;
 import net.roboconf.plugin.api.PluginInterface;
 
@@ -199,4 +204,28 @@ public class PluginMBeanTest {
 		Assert.assertEquals( 0, (int) mbs.getAttribute(objectName, "UpdateCount"));
 		Assert.assertEquals( 6, (int) mbs.getAttribute(objectName, "ErrorCount"));
 	}
+
+
+	@Test
+	public void testProcessStatistics() throws Exception {
+
+		Assume.assumeTrue( TestUtils.isUnix());
+		mbs.invoke(objectName, "reset", null, null);
+
+		Assert.assertEquals( 0L, (long) mbs.getAttribute(objectName, "ProcessExecutionCount"));
+		Assert.assertEquals( 0L, (long) mbs.getAttribute(objectName, "ProcessTimeoutCount"));
+		Assert.assertEquals( 0L, (long) mbs.getAttribute(objectName, "ProcessMaxDuration"));
+		Assert.assertEquals( 0L, (long) mbs.getAttribute(objectName, "ProcessTruncatedOutputCount"));
+
+		Logger logger = Logger.getLogger( getClass().getName());
+		ProgramUtils.executeCommand( logger, Arrays.asList( "/bin/sh", "-c", "echo hi" ), null, null, null, null );
+		ProgramUtils.executeCommandWithResult(
+				logger, new String[] { "/bin/sh", "-c", "sleep 20" }, null, null, null, null,
+				new ExecutionOptions().timeout( 100 ).killGracePeriod( 1000 ));
+
+		Assert.assertEquals( 2L, (long) mbs.getAttribute(objectName, "ProcessExecutionCount"));
+		Assert.assertEquals( 1L, (long) mbs.getAttribute(objectName, "ProcessTimeoutCount"));
+		Assert.assertTrue((long) mbs.getAttribute(objectName, "ProcessMaxDuration") >= 100 );
+		Assert.assertTrue((double) mbs.getAttribute(objectName, "ProcessExecutionsPerSecond") > 0 );
+	}
 }
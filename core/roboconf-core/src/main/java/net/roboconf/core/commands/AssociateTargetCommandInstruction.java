@@ -45,6 +45,7 @@ import net.roboconf.core.utils.Utils;
 public class AssociateTargetCommandInstruction extends AbstractCommandInstruction {
 
 	static final String PREFIX = "associate";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+(/.*)\\s+with\\b(.*)", Pattern.CASE_INSENSITIVE );
 	private String targetId, scopedInstancePath;
 
 
@@ -57,8 +58,7 @@ public class AssociateTargetCommandInstruction extends AbstractCommandInstructio
 	AssociateTargetCommandInstruction( Context context, String instruction, int line ) {
 		super( context, instruction, line );
 
-		Pattern p = Pattern.compile( PREFIX + "\\s+(/.*)\\s+with\\b(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.targetId = m.group( 2 ).trim();
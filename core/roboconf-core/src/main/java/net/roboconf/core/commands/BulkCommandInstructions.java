@@ -45,6 +45,8 @@ import net.roboconf.core.model.helpers.ComponentHelpers;
 public class BulkCommandInstructions extends AbstractCommandInstruction {
 
 	private static final String ALL = "\\s+instances\\s+of";
+	private static final Pattern INSTANCE_PATH_PATTERN = Pattern.compile( "([^/]+)(/.*)", Pattern.CASE_INSENSITIVE );
+	private static final Pattern COMPONENT_NAME_PATTERN = Pattern.compile( "(.+)" + ALL + "(.+)", Pattern.CASE_INSENSITIVE );
 
 	private String instancePath, componentName;
 	private ChangeStateInstruction changeStateInstruction;
@@ -102,7 +104,7 @@ public class BulkCommandInstructions extends AbstractCommandInstruction {
 	 * @return a pattern to recognize instructions that update a given instance
 	 */
 	private static Pattern getPatternForInstancePath() {
-		return Pattern.compile( "([^/]+)(/.*)", Pattern.CASE_INSENSITIVE );
+		return INSTANCE_PATH_PATTERN;
 	}
 
 
@@ -110,7 +112,7 @@ public class BulkCommandInstructions extends AbstractCommandInstruction {
 	 * @return a pattern to recognize instructions that update instances of a given component
 	 */
 	private static Pattern getPatternForComponentName() {
-		return Pattern.compile( "(.+)" + ALL + "(.+)", Pattern.CASE_INSENSITIVE );
+		return COMPONENT_NAME_PATTERN;
 	}
 
 
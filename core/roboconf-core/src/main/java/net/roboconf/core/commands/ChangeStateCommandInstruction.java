@@ -42,6 +42,7 @@ import net.roboconf.core.model.beans.Instance.InstanceStatus;
 public class ChangeStateCommandInstruction extends AbstractCommandInstruction {
 
 	static final String PREFIX = "change";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+status\\s+of\\s+(/.*)\\s+to\\b(.*)", Pattern.CASE_INSENSITIVE );
 
 	private InstanceStatus targetStatus;
 	private String targetStatusAsString, instancePath;
@@ -56,8 +57,7 @@ public class ChangeStateCommandInstruction extends AbstractCommandInstruction {
 	ChangeStateCommandInstruction( Context context, String instruction, int line ) {
 		super( context, instruction, line );
 
-		Pattern p = Pattern.compile( PREFIX + "\\s+status\\s+of\\s+(/.*)\\s+to\\b(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.targetStatusAsString = m.group( 2 ).trim().toUpperCase().replace( ' ', '_' ).replace( "_AND_", "_" );
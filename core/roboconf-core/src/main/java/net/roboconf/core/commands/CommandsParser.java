@@ -30,6 +30,7 @@ import static net.roboconf.core.errors.ErrorDetails.instruction;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -58,8 +59,25 @@ public class CommandsParser {
 	 * @param commandsFile a file containing commands (not null)
 	 */
 	public CommandsParser( AbstractApplication app, File commandsFile ) {
+		this( app, commandsFile, readLines( commandsFile ));
+	}
+
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * Instructions are resolved and validated against the application's current state.
+	 * Only reading the file and splitting it into lines (which does not depend on this state)
+	 * is skipped. See {@link #readLines(File)}.
+	 * </p>
+	 *
+	 * @param app an application (not null)
+	 * @param commandsFile the file the lines were read from (not null)
+	 * @param lines the (already read) lines of this file (not null)
+	 */
+	public CommandsParser( AbstractApplication app, File commandsFile, List<CommandLine> lines ) {
 		this.context = new Context( app, commandsFile );
-		parse();
+		parse( lines );
 	}
 
 
@@ -71,7 +89,7 @@ public class CommandsParser {
 	public CommandsParser( AbstractApplication app, String instructionsText ) {
 		this.context = new Context( app, null );
 		if( instructionsText != null )
-			parse( instructionsText );
+			parse( splitLines( instructionsText ));
 	}
 
 
@@ -119,26 +137,68 @@ public class CommandsParser {
 
 
 	/**
-	 * Parses the whole file and extracts instructions.
+	 * Reads a commands file and splits it into lines.
+	 * <p>
+	 * The result only depends on the file's content. It can thus be
+	 * reused as long as the file is not modified.
+	 * </p>
+	 *
+	 * @param commandsFile a commands file (not null)
+	 * @return a non-null and unmodifiable list of lines (empty if the file could not be read)
 	 */
-	private void parse() {
+	public static List<CommandLine> readLines( File commandsFile ) {
 
+		List<CommandLine> result;
 		try {
 			// We assume these files are not that big.
-			String fileContent = Utils.readFileContent( this.context.getCommandFile());
-			parse( fileContent );
+			String fileContent = Utils.readFileContent( commandsFile );
+			result = Collections.unmodifiableList( splitLines( fileContent ));
 
 		} catch( IOException e ) {
-			this.logger.severe( "A commands file could not be read. File path: " + this.context.getName());
+			Logger.getLogger( CommandsParser.class.getName()).severe( "A commands file could not be read. File path: " + commandsFile.getName());
+			result = Collections.emptyList();
 		}
+
+		return result;
 	}
 
 
 	/**
-	 * Parses the whole file and extracts instructions.
-	 * @param instructionsText a non-null string to parse
+	 * Determines whether parsing lines may give different results for the same model.
+	 * <p>
+	 * This is the case when they use time or random variables, or when they execute
+	 * other commands files (which may be created, updated or deleted at any moment).
+	 * Otherwise, the result of the parsing only depends on the application's instances.
+	 * </p>
+	 *
+	 * @param lines a non-null list of lines
+	 * @return true if these lines contain volatile instructions, false otherwise
 	 */
-	private void parse( String instructionsText ) {
+	public static boolean containsVolatileInstructions( List<CommandLine> lines ) {
+
+		boolean result = false;
+		for( CommandLine commandLine : lines ) {
+			String line = commandLine.getText();
+			if( line.contains( DefineVariableCommandInstruction.MILLI_TIME )
+					|| line.contains( DefineVariableCommandInstruction.NANO_TIME )
+					|| line.contains( DefineVariableCommandInstruction.FORMATTED_TIME_PREFIX )
+					|| line.contains( DefineVariableCommandInstruction.RANDOM_UUID )
+					|| line.toLowerCase().startsWith( ExecuteCommandInstruction.PREFIX )) {
+				result = true;
+				break;
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Splits instructions into lines, without comments nor empty lines.
+	 * @param instructionsText a non-null string to split
+	 * @return a non-null list of lines
+	 */
+	static List<CommandLine> splitLines( String instructionsText ) {
 
 		// Allow line breaks in commands. But we must keep the lines count.
 		// So, we replace escaped line breaks by a particular separator.
@@ -147,6 +207,7 @@ public class CommandsParser {
 		instructionsText = instructionsText.replaceAll( "\\\\\n\\s*", sep );
 
 		// Parse line by line.
+		List<CommandLine> result = new ArrayList<> ();
 		int lineNumber = 0;
 		for( String string : Utils.splitNicely( instructionsText, "\n" ) ) {
 
@@ -165,7 +226,26 @@ public class CommandsParser {
 			line = line.replace( sep, "" );
 			int lineCountOffset = (lineLength - line.length()) / sep.length();
 
+			result.add( new CommandLine( line, lineNumber ));
+
+			// Update the line number
+			lineNumber += lineCountOffset;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Parses lines and extracts instructions.
+	 * @param lines a non-null list of lines to parse
+	 */
+	private void parse( List<CommandLine> lines ) {
+
+		for( CommandLine commandLine : lines ) {
+
 			// Verify disabled variables.
+			String line = commandLine.getText();
 			boolean disabled = false;
 			for( String disabledVariableName : this.context.disabledVariables ) {
 				if( line.contains( "$(" + disabledVariableName + ")" )) {
@@ -178,7 +258,7 @@ public class CommandsParser {
 			line = injectContextVariables( line, this.context.variables );
 
 			// Find the instruction
-			AbstractCommandInstruction instr = parse( line, lineNumber );
+			AbstractCommandInstruction instr = parse( line, commandLine.getLineNumber());
 			if( instr != null ) {
 				instr.setDisabled( disabled );
 
@@ -197,12 +277,9 @@ public class CommandsParser {
 				this.parsingErrors.add( new ParsingError(
 						ErrorCode.CMD_UNRECOGNIZED_INSTRUCTION,
 						this.context.getCommandFile(),
-						lineNumber,
+						commandLine.getLineNumber(),
 						instruction( line )));
 			}
-
-			// Update the line number
-			lineNumber += lineCountOffset;
 		}
 	}
 
@@ -252,4 +329,46 @@ public class CommandsParser {
 
 		return result;
 	}
+
+
+	/**
+	 * A line of a commands file, without comments and escaped line breaks.
+	 * <p>
+	 * Variables are not resolved in lines. This is done when instructions are parsed.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public static final class CommandLine {
+
+		private final String text;
+		private final int lineNumber;
+
+
+		/**
+		 * Constructor.
+		 * @param text the line's text
+		 * @param lineNumber the line number in the source file
+		 */
+		CommandLine( String text, int lineNumber ) {
+			this.text = text;
+			this.lineNumber = lineNumber;
+		}
+
+
+		/**
+		 * @return the text
+		 */
+		public String getText() {
+			return this.text;
+		}
+
+
+		/**
+		 * @return the line number
+		 */
+		public int getLineNumber() {
+			return this.lineNumber;
+		}
+	}
 }
@@ -47,6 +47,8 @@ import net.roboconf.core.utils.Utils;
 public class CreateInstanceCommandInstruction extends AbstractCommandInstruction {
 
 	static final String PREFIX = "create";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+(.*)\\s*as\\b(.*)", Pattern.CASE_INSENSITIVE );
+	private static final Pattern UNDER_PATTERN = Pattern.compile( "(.*)\\s+under\\s+(.*)", Pattern.CASE_INSENSITIVE );
 
 	private String instanceName, componentName, parentInstancePath;
 	private Component component;
@@ -63,16 +65,14 @@ public class CreateInstanceCommandInstruction extends AbstractCommandInstruction
 
 		// We could use a look-around in the regexp, but that would be complicated to maintain.
 		// Instead, we will process it as two patterns.
-		Pattern p = Pattern.compile( PREFIX + "\\s+(.*)\\s*as\\b(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.componentName = m.group( 1 ).trim();
 			this.component = ComponentHelpers.findComponent( context.getApp(), this.componentName );
 			this.instanceName = m.group( 2 ).trim();
 
-			Pattern subP = Pattern.compile( "(.*)\\s+under\\s+(.*)", Pattern.CASE_INSENSITIVE );
-			if(( m = subP.matcher( this.instanceName )).matches()) {
+			if(( m = UNDER_PATTERN.matcher( this.instanceName )).matches()) {
 				this.instanceName = m.group( 1 ).trim();
 				this.parentInstancePath = m.group( 2 ).trim();
 			}
@@ -62,6 +62,9 @@ public class DefineVariableCommandInstruction extends AbstractCommandInstruction
 	static final String FAKE_COMPONENT_NAME = "@fake-component@";
 	private static final String EXISTING_INDEX_PATTERN =
 			"(.*)" + Pattern.quote( EXISTING_INDEX_PREFIX ) + "\\s*((MIN)|(MAX))\\s*([<>]\\s*\\d+)?\\s*\\)(.*)";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+([^=]*)\\s*=\\s*(.*)", Pattern.CASE_INSENSITIVE );
+	private static final Pattern UNDER_PATTERN = Pattern.compile( "(.*)\\s+under\\s+(.*)", Pattern.CASE_INSENSITIVE );
+	private static final Pattern INDEX_PATTERN = Pattern.compile( EXISTING_INDEX_PATTERN );
 
 	private String key, value, instancePath;
 
@@ -77,16 +80,14 @@ public class DefineVariableCommandInstruction extends AbstractCommandInstruction
 
 		// We could use a look-around in the regexp, but that would be complicated to maintain.
 		// Instead, we will process it as two patterns.
-		Pattern p = Pattern.compile( PREFIX + "\\s+([^=]*)\\s*=\\s*(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.key = m.group( 1 ).trim();
 			this.value = m.group( 2 ).trim();
 
 			// \\s+under\\s+(/.*)
-			Pattern subP = Pattern.compile( "(.*)\\s+under\\s+(.*)", Pattern.CASE_INSENSITIVE );
-			if(( m = subP.matcher( this.value )).matches()) {
+			if(( m = UNDER_PATTERN.matcher( this.value )).matches()) {
 				this.value = m.group( 1 ).trim();
 				this.instancePath = m.group( 2 ).trim();
 			}
@@ -130,9 +131,8 @@ public class DefineVariableCommandInstruction extends AbstractCommandInstruction
 		}
 
 		// The index variable is very strict
-		Pattern indexPattern = Pattern.compile( EXISTING_INDEX_PATTERN );
 		if( this.value.contains( EXISTING_INDEX_PREFIX )
-				&& ! indexPattern.matcher( this.value ).matches()) {
+				&& ! INDEX_PATTERN.matcher( this.value ).matches()) {
 			result.add( error( ErrorCode.CMD_INVALID_INDEX_PATTERN, variable( this.value )));
 		}
 
@@ -254,8 +254,7 @@ public class DefineVariableCommandInstruction extends AbstractCommandInstruction
 
 		// To perform in last: deal with existing indexes
 		boolean disabled = false;
-		Pattern fullPattern = Pattern.compile( EXISTING_INDEX_PATTERN );
-		Matcher m = fullPattern.matcher( value );
+		Matcher m = INDEX_PATTERN.matcher( value );
 		if( value.contains( EXISTING_INDEX_PREFIX )
 				&& m.matches()) {
 
@@ -40,6 +40,7 @@ import net.roboconf.core.utils.Utils;
 public class EmailCommandInstruction extends AbstractCommandInstruction {
 
 	static final String PREFIX = "email";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+(.*)\\s*with\\s+(.*)", Pattern.CASE_INSENSITIVE );
 
 	private String msg;
 	private final List<String> tos = new ArrayList<> ();
@@ -54,8 +55,7 @@ public class EmailCommandInstruction extends AbstractCommandInstruction {
 	EmailCommandInstruction( Context context, String instruction, int line ) {
 		super( context, instruction, line );
 
-		Pattern p = Pattern.compile( PREFIX + "\\s+(.*)\\s*with\\s+(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.tos.addAll( Utils.splitNicely( m.group( 1 ), "," ));
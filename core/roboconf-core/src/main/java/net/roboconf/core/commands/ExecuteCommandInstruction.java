@@ -46,6 +46,7 @@ import net.roboconf.core.utils.Utils;
 public class ExecuteCommandInstruction extends AbstractCommandInstruction {
 
 	static final String PREFIX = "execute";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+(.*)", Pattern.CASE_INSENSITIVE );
 	private String commandName;
 
 
@@ -58,8 +59,7 @@ public class ExecuteCommandInstruction extends AbstractCommandInstruction {
 	ExecuteCommandInstruction( Context context, String instruction, int line ) {
 		super( context, instruction, line );
 
-		Pattern p = Pattern.compile( PREFIX + "\\s+(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.commandName = m.group( 1 ).trim();
@@ -47,6 +47,7 @@ import net.roboconf.core.utils.Utils;
 public class RenameCommandInstruction extends AbstractCommandInstruction {
 
 	static final String PREFIX = "rename";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+(/.*)\\s*as\\b(.*)", Pattern.CASE_INSENSITIVE );
 	private String newInstanceName, instancePath;
 
 
@@ -59,8 +60,7 @@ public class RenameCommandInstruction extends AbstractCommandInstruction {
 	RenameCommandInstruction( Context context, String instruction, int line ) {
 		super( context, instruction, line );
 
-		Pattern p = Pattern.compile( PREFIX + "\\s+(/.*)\\s*as\\b(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.instancePath = m.group( 1 ).trim();
@@ -46,6 +46,7 @@ import net.roboconf.core.utils.Utils;
 public class ReplicateCommandInstruction extends AbstractCommandInstruction {
 
 	static final String PREFIX = "replicate";
+	private static final Pattern PATTERN = Pattern.compile( PREFIX + "\\s+(/.*)\\s*as\\b(.*)", Pattern.CASE_INSENSITIVE );
 	private String newInstanceName, replicatedInstancePath;
 
 
@@ -58,8 +59,7 @@ public class ReplicateCommandInstruction extends AbstractCommandInstruction {
 	ReplicateCommandInstruction( Context context, String instruction, int line ) {
 		super( context, instruction, line );
 
-		Pattern p = Pattern.compile( PREFIX + "\\s+(/.*)\\s*as\\b(.*)", Pattern.CASE_INSENSITIVE );
-		Matcher m = p.matcher( instruction );
+		Matcher m = PATTERN.matcher( instruction );
 		if( m.matches()) {
 			this.syntaxicallyCorrect = true;
 			this.newInstanceName = m.group( 2 ).trim();
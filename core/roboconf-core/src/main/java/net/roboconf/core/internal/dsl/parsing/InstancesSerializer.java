@@ -0,0 +1,196 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.internal.dsl.parsing;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import net.roboconf.core.dsl.ParsingConstants;
+import net.roboconf.core.dsl.converters.FromInstances;
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.utils.Utils;
+
+/**
+ * A class to serialize instances directly into a stream.
+ * <p>
+ * The result is exactly the same than the one obtained by building a file
+ * definition with {@link FromInstances} (no comment, runtime information included)
+ * and serializing it with {@link FileDefinitionSerializer}. The difference is that
+ * no intermediate model is built: instances are written as they are visited, depth-first.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstancesSerializer {
+
+	private final String lineSeparator;
+
+
+	/**
+	 * Constructor.
+	 * @param lineSeparator the line separator (if null, the OS' one is used)
+	 */
+	public InstancesSerializer( String lineSeparator ) {
+		this.lineSeparator = lineSeparator != null ? lineSeparator : System.getProperty( "line.separator" );
+	}
+
+
+	/**
+	 * Writes instances into a file (UTF-8).
+	 * @param targetFile the target file (may not exist)
+	 * @param rootInstances the root instances (not null)
+	 * @throws IOException if something went wrong
+	 */
+	public void write( File targetFile, Collection<Instance> rootInstances ) throws IOException {
+
+		try( Writer writer = new BufferedWriter( new OutputStreamWriter(
+				Files.newOutputStream( targetFile.toPath()), StandardCharsets.UTF_8 ))) {
+			write( writer, rootInstances );
+		}
+	}
+
+
+	/**
+	 * Writes instances into a writer.
+	 * <p>
+	 * The writer is neither flushed, nor closed.
+	 * </p>
+	 *
+	 * @param writer a writer (not null)
+	 * @param rootInstances the root instances (not null)
+	 * @throws IOException if something went wrong
+	 */
+	public void write( Writer writer, Collection<Instance> rootInstances ) throws IOException {
+
+		boolean first = true;
+		for( Instance rootInstance : rootInstances ) {
+			if( ! first )
+				writer.write( this.lineSeparator );
+
+			first = false;
+			write( writer, rootInstance, 0 );
+			writer.write( this.lineSeparator );
+			writer.write( "\n" );
+		}
+	}
+
+
+	/**
+	 * Writes an instance and its children.
+	 * @param writer a writer
+	 * @param instance an instance
+	 * @param indentationLevel the indentation level
+	 * @throws IOException if something went wrong
+	 */
+	private void write( Writer writer, Instance instance, int indentationLevel ) throws IOException {
+
+		indent( writer, indentationLevel );
+		writer.write( ParsingConstants.KEYWORD_INSTANCE_OF );
+		writer.write( " " );
+		writer.write( String.valueOf( instance.getComponent().getName()));
+		writer.write( " {" );
+
+		// Properties
+		if( ! Utils.isEmptyOrWhitespaces( instance.getName()))
+			writeProperty( writer, ParsingConstants.PROPERTY_INSTANCE_NAME, instance.getName(), indentationLevel + 1 );
+
+		if( ! instance.channels.isEmpty())
+			writeProperty( writer, ParsingConstants.PROPERTY_INSTANCE_CHANNELS, Utils.format( instance.channels, ", " ), indentationLevel + 1 );
+
+		for( Map.Entry<String,String> export : instance.overriddenExports.entrySet())
+			writeProperty( writer, export.getKey(), export.getValue(), indentationLevel + 1 );
+
+		// Runtime information
+		writeProperty( writer, ParsingConstants.PROPERTY_INSTANCE_STATE, instance.getStatus().toString(), indentationLevel + 1 );
+		if( ! instance.data.isEmpty()) {
+			writer.write( this.lineSeparator );
+			indent( writer, indentationLevel + 1 );
+			writer.write( ParsingConstants.PROPERTY_INSTANCE_DATA );
+			writer.write( ": " );
+
+			for( Iterator<Map.Entry<String,String>> it = instance.data.entrySet().iterator(); it.hasNext(); ) {
+				Map.Entry<String,String> entry = it.next();
+				writer.write( String.valueOf( entry.getKey()));
+				writer.write( " = " );
+				writer.write( String.valueOf( entry.getValue()));
+
+				if( it.hasNext())
+					writer.write( ", " );
+			}
+
+			writer.write( ";" );
+		}
+
+		// Children (preceded by an empty line)
+		for( Instance child : instance.getChildren()) {
+			writer.write( this.lineSeparator );
+			writer.write( this.lineSeparator );
+			write( writer, child, indentationLevel + 1 );
+		}
+
+		writer.write( this.lineSeparator );
+		indent( writer, indentationLevel );
+		writer.write( "}" );
+	}
+
+
+	/**
+	 * Writes a property on its own line.
+	 * @param writer a writer
+	 * @param name the property name
+	 * @param value the property value
+	 * @param indentationLevel the indentation level
+	 * @throws IOException if something went wrong
+	 */
+	private void writeProperty( Writer writer, String name, String value, int indentationLevel ) throws IOException {
+
+		writer.write( this.lineSeparator );
+		indent( writer, indentationLevel );
+		writer.write( String.valueOf( name ));
+		writer.write( ": " );
+		writer.write( String.valueOf( value ));
+		writer.write( ";" );
+	}
+
+
+	/**
+	 * @param writer
+	 * @param indentationLevel
+	 * @throws IOException
+	 */
+	private void indent( Writer writer, int indentationLevel ) throws IOException {
+		for( int i=0; i<indentationLevel; i++ )
+			writer.write( "\t" );
+	}
+}
@@ -33,6 +33,9 @@ import static net.roboconf.core.errors.ErrorDetails.name;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -44,14 +47,12 @@ import java.util.Set;
 import net.roboconf.core.Constants;
 import net.roboconf.core.autonomic.RuleParser;
 import net.roboconf.core.commands.CommandsParser;
-import net.roboconf.core.dsl.ParsingModelIo;
 import net.roboconf.core.dsl.converters.FromGraphDefinition;
 import net.roboconf.core.dsl.converters.FromInstanceDefinition;
-import net.roboconf.core.dsl.converters.FromInstances;
-import net.roboconf.core.dsl.parsing.FileDefinition;
 import net.roboconf.core.errors.ErrorCode;
 import net.roboconf.core.errors.RoboconfError;
 import net.roboconf.core.errors.RoboconfErrorHelpers;
+import net.roboconf.core.internal.dsl.parsing.InstancesSerializer;
 import net.roboconf.core.model.beans.ApplicationTemplate;
 import net.roboconf.core.model.beans.Graphs;
 import net.roboconf.core.model.beans.Instance;
@@ -477,14 +478,36 @@ public final class RuntimeModelIo {
 
 	/**
 	 * Writes all the instances into a file.
+	 * <p>
+	 * Instances are streamed into the file, without building
+	 * an intermediate file definition in memory.
+	 * </p>
+	 * <p>
+	 * They are first written into a temporary file, located in the same directory,
+	 * which then replaces the target file. This way, a crash during the serialization
+	 * cannot leave a truncated file.
+	 * </p>
+	 *
 	 * @param targetFile the file to save
 	 * @param rootInstances the root instances (not null)
 	 * @throws IOException if something went wrong
 	 */
 	public static void writeInstances( File targetFile, Collection<Instance> rootInstances ) throws IOException {
 
-		FileDefinition def = new FromInstances().buildFileDefinition( rootInstances, targetFile, false, true );
-		ParsingModelIo.saveRelationsFile( def, false, "\n" );
+		File dir = targetFile.getAbsoluteFile().getParentFile();
+		File tempFile = File.createTempFile( "." + targetFile.getName() + ".", ".tmp", dir );
+		try {
+			new InstancesSerializer( "\n" ).write( tempFile, rootInstances );
+			try {
+				Files.move( tempFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+
+			} catch( AtomicMoveNotSupportedException e ) {
+				Files.move( tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+			}
+
+		} finally {
+			Utils.deleteFilesRecursivelyAndQuietly( tempFile );
+		}
 	}
 
 
@@ -27,13 +27,11 @@ package net.roboconf.core.model.beans;
 
 import java.io.Serializable;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.utils.LazyMap;
+import net.roboconf.core.utils.LazySet;
 import net.roboconf.core.utils.RoboconfFlexMap;
 
 /**
@@ -122,19 +120,21 @@ public class Instance implements Serializable {
 	private String name;
 	private Component component;
 	private Instance parent;
-	private final Collection<Instance> children = new CopyOnWriteArraySet<> ();
 	private InstanceStatus status = InstanceStatus.NOT_DEPLOYED;
 
-	public final Collection<String> channels = new HashSet<> ();
-	public final Map<String,String> overriddenExports = new HashMap<> ();
+	// Most instances have no child, no channel, no overridden export and no import.
+	// Large applications contain a lot of instances, so collections are only allocated when used.
+	private final Collection<Instance> children = new LazySet<>( true );
+	public final Collection<String> channels = new LazySet<>( false );
+	public final Map<String,String> overriddenExports = new LazyMap<>( false );
 
 	// Data can be accessed through several threads and for various reasons.
-	// ConcurrentHashMap does not accept null values. So, we use our own wrapper.
+	// Concurrent maps do not accept null values. So, we use our own wrapper.
 	public final Map<String,String> data = new RoboconfFlexMap<>( "@!xyz!@" );
 
 	// At runtime, imported variables are grouped by prefix.
 	// The prefix is a component or a facet name.
-	private final Map<String,Collection<Import>> variablePrefixToImports = new TreeMap<> ();
+	private final Map<String,Collection<Import>> variablePrefixToImports = new LazyMap<>( true );
 
 
 	/**
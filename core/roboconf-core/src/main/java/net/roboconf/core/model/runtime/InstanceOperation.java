@@ -0,0 +1,187 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.model.runtime;
+
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
+
+/**
+ * An operation on an instance, meant to be applied with others at once.
+ * <p>
+ * The meaning of the instance path depends on the operation type:
+ * </p>
+ * <ul>
+ * <li>{@link OperationType#ADD}: the path of the parent instance (null to add a root instance).</li>
+ * <li>{@link OperationType#REMOVE}: the path of the instance to remove.</li>
+ * <li>{@link OperationType#CHANGE_STATE}: the path of the instance whose state must change.</li>
+ * </ul>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstanceOperation {
+
+	private OperationType type;
+	private String instancePath;
+	private Instance instance;
+	private InstanceStatus newStatus;
+
+
+	/**
+	 * Constructor.
+	 */
+	public InstanceOperation() {
+		// nothing
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param type the operation type
+	 * @param instancePath the instance path
+	 */
+	public InstanceOperation( OperationType type, String instancePath ) {
+		this.type = type;
+		this.instancePath = instancePath;
+	}
+
+
+	/**
+	 * Creates an operation to add an instance.
+	 * @param parentInstancePath the path of the parent instance (null for a root instance)
+	 * @param instance the instance to add
+	 * @return a new operation
+	 */
+	public static InstanceOperation add( String parentInstancePath, Instance instance ) {
+		InstanceOperation result = new InstanceOperation( OperationType.ADD, parentInstancePath );
+		result.setInstance( instance );
+		return result;
+	}
+
+
+	/**
+	 * Creates an operation to remove an instance.
+	 * @param instancePath the path of the instance to remove
+	 * @return a new operation
+	 */
+	public static InstanceOperation remove( String instancePath ) {
+		return new InstanceOperation( OperationType.REMOVE, instancePath );
+	}
+
+
+	/**
+	 * Creates an operation to change the state of an instance.
+	 * @param instancePath the instance path
+	 * @param newStatus the new status
+	 * @return a new operation
+	 */
+	public static InstanceOperation changeState( String instancePath, InstanceStatus newStatus ) {
+		InstanceOperation result = new InstanceOperation( OperationType.CHANGE_STATE, instancePath );
+		result.setNewStatus( newStatus );
+		return result;
+	}
+
+	/**
+	 * @return the type
+	 */
+	public OperationType getType() {
+		return this.type;
+	}
+
+	/**
+	 * @param type the type to set
+	 */
+	public void setType( OperationType type ) {
+		this.type = type;
+	}
+
+	/**
+	 * @return the instance path
+	 */
+	public String getInstancePath() {
+		return this.instancePath;
+	}
+
+	/**
+	 * @param instancePath the instance path to set
+	 */
+	public void setInstancePath( String instancePath ) {
+		this.instancePath = instancePath;
+	}
+
+	/**
+	 * @return the instance to add
+	 */
+	public Instance getInstance() {
+		return this.instance;
+	}
+
+	/**
+	 * @param instance the instance to add
+	 */
+	public void setInstance( Instance instance ) {
+		this.instance = instance;
+	}
+
+	/**
+	 * @return the new status
+	 */
+	public InstanceStatus getNewStatus() {
+		return this.newStatus;
+	}
+
+	/**
+	 * @param newStatus the new status to set
+	 */
+	public void setNewStatus( InstanceStatus newStatus ) {
+		this.newStatus = newStatus;
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public enum OperationType {
+		ADD, REMOVE, CHANGE_STATE;
+
+		/**
+		 * Finds an operation type from a string (case-insensitive).
+		 * @param s a string (can be null)
+		 * @return an operation type, or null if none matched
+		 */
+		public static OperationType which( String s ) {
+
+			OperationType result = null;
+			for( OperationType type : values()) {
+				if( type.toString().equalsIgnoreCase( s )) {
+					result = type;
+					break;
+				}
+			}
+
+			return result;
+		}
+	}
+}
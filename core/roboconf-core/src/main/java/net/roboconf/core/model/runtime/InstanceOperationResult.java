@@ -0,0 +1,75 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.model.runtime;
+
+/**
+ * The result of an {@link InstanceOperation}.
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstanceOperationResult {
+
+	private final String instancePath, message;
+	private final boolean success;
+
+
+	/**
+	 * Constructor.
+	 * @param instancePath the path of the instance the operation applied to
+	 * @param success true if the operation succeeded
+	 * @param message an error message (null if the operation succeeded)
+	 */
+	public InstanceOperationResult( String instancePath, boolean success, String message ) {
+		this.instancePath = instancePath;
+		this.success = success;
+		this.message = message;
+	}
+
+	/**
+	 * @return the path of the instance the operation applied to
+	 */
+	public String getInstancePath() {
+		return this.instancePath;
+	}
+
+	/**
+	 * @return true if the operation succeeded
+	 */
+	public boolean isSuccess() {
+		return this.success;
+	}
+
+	/**
+	 * @return an error message (null if the operation succeeded)
+	 */
+	public String getMessage() {
+		return this.message;
+	}
+
+	@Override
+	public String toString() {
+		return this.instancePath + (this.success ? ": OK" : ": " + this.message);
+	}
+}
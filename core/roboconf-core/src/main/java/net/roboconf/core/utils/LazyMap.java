@@ -0,0 +1,152 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.utils;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A map whose storage is only allocated when the first entry is added.
+ * <p>
+ * Depending on the constructor parameter, the underlying storage is either a
+ * {@link HashMap} or a {@link TreeMap} (to keep keys ordered). Like these maps,
+ * this class is not thread-safe. String keys are interned.
+ * </p>
+ * <p>
+ * Once allocated, hash maps keep their default capacity: a smaller one would
+ * change their iteration order, which is visible in serialized models.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LazyMap<K,V> extends AbstractMap<K,V> implements Serializable {
+
+	private static final long serialVersionUID = 4329876152716404591L;
+
+	private final boolean sorted;
+	private Map<K,V> delegate;
+
+
+	/**
+	 * Constructor.
+	 * @param sorted true to keep keys ordered, false otherwise
+	 */
+	public LazyMap( boolean sorted ) {
+		this.sorted = sorted;
+	}
+
+
+	@Override
+	public int size() {
+		return this.delegate == null ? 0 : this.delegate.size();
+	}
+
+
+	@Override
+	public boolean isEmpty() {
+		return this.delegate == null || this.delegate.isEmpty();
+	}
+
+
+	@Override
+	public boolean containsKey( Object key ) {
+		return this.delegate != null && this.delegate.containsKey( key );
+	}
+
+
+	@Override
+	public boolean containsValue( Object value ) {
+		return this.delegate != null && this.delegate.containsValue( value );
+	}
+
+
+	@Override
+	public V get( Object key ) {
+		return this.delegate == null ? null : this.delegate.get( key );
+	}
+
+
+	@Override
+	public V put( K key, V value ) {
+
+		if( this.delegate == null )
+			this.delegate = this.sorted ? new TreeMap<K,V> () : new HashMap<K,V> ();
+
+		return this.delegate.put( Utils.intern( key ), value );
+	}
+
+
+	@Override
+	public V remove( Object key ) {
+		return this.delegate == null ? null : this.delegate.remove( key );
+	}
+
+
+	@Override
+	public void clear() {
+		if( this.delegate != null )
+			this.delegate.clear();
+	}
+
+
+	@Override
+	public Set<Entry<K,V>> entrySet() {
+		return new EntrySet();
+	}
+
+
+	/**
+	 * A live view of the entries.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private class EntrySet extends AbstractSet<Entry<K,V>> {
+
+		@Override
+		public Iterator<Entry<K,V>> iterator() {
+			Map<K,V> map = LazyMap.this.delegate;
+			return map == null ? Collections.<Entry<K,V>>emptyIterator() : map.entrySet().iterator();
+		}
+
+		@Override
+		public int size() {
+			return LazyMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			LazyMap.this.clear();
+		}
+	}
+}
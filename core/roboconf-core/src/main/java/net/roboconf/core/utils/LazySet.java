@@ -0,0 +1,140 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.utils;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * A set whose storage is only allocated when the first element is added.
+ * <p>
+ * Most instances in an application have no channel and no child. Allocating
+ * empty hash tables or copy-on-write arrays for all of them wastes a lot of memory
+ * in large applications. This set only holds a (null) reference until it is really used.
+ * </p>
+ * <p>
+ * Depending on the constructor parameter, the underlying storage is either a
+ * {@link HashSet} or a {@link CopyOnWriteArraySet} (for sets that are read by several threads).
+ * The allocation itself is thread-safe. String elements are interned.
+ * </p>
+ * <p>
+ * Once allocated, hash sets keep their default capacity: a smaller one would
+ * change their iteration order, which is visible in serialized models.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ * @param <E> the type of the elements
+ */
+public class LazySet<E> extends AbstractSet<E> implements Serializable {
+
+	private static final long serialVersionUID = -1871624497317652117L;
+
+	private final boolean concurrent;
+	private volatile Set<E> delegate;
+
+
+	/**
+	 * Constructor.
+	 * @param concurrent true to use a copy-on-write set, false for a hash set
+	 */
+	public LazySet( boolean concurrent ) {
+		this.concurrent = concurrent;
+	}
+
+
+	@Override
+	public int size() {
+		Set<E> set = this.delegate;
+		return set == null ? 0 : set.size();
+	}
+
+
+	@Override
+	public boolean isEmpty() {
+		Set<E> set = this.delegate;
+		return set == null || set.isEmpty();
+	}
+
+
+	@Override
+	public boolean contains( Object o ) {
+		Set<E> set = this.delegate;
+		return set != null && set.contains( o );
+	}
+
+
+	@Override
+	public Iterator<E> iterator() {
+		Set<E> set = this.delegate;
+		return set == null ? Collections.<E>emptyIterator() : set.iterator();
+	}
+
+
+	@Override
+	public boolean add( E e ) {
+		return delegate().add( Utils.intern( e ));
+	}
+
+
+	@Override
+	public boolean remove( Object o ) {
+		Set<E> set = this.delegate;
+		return set != null && set.remove( o );
+	}
+
+
+	@Override
+	public void clear() {
+		Set<E> set = this.delegate;
+		if( set != null )
+			set.clear();
+	}
+
+
+	/**
+	 * @return the underlying set, created if necessary (never null)
+	 */
+	private Set<E> delegate() {
+
+		Set<E> set = this.delegate;
+		if( set == null ) {
+			synchronized( this ) {
+				set = this.delegate;
+				if( set == null ) {
+					set = this.concurrent ? new CopyOnWriteArraySet<E> () : new HashSet<E> ();
+					this.delegate = set;
+				}
+			}
+		}
+
+		return set;
+	}
+}
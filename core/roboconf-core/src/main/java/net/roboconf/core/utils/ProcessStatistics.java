@@ -0,0 +1,136 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global statistics about the processes executed through {@link ProgramUtils}.
+ * @author Vincent Zurczak - Linagora
+ */
+public final class ProcessStatistics {
+
+	private static final AtomicLong EXECUTION_COUNT = new AtomicLong();
+	private static final AtomicLong TIMEOUT_COUNT = new AtomicLong();
+	private static final AtomicLong TOTAL_DURATION = new AtomicLong();
+	private static final AtomicLong MAX_DURATION = new AtomicLong();
+	private static final AtomicLong TRUNCATED_OUTPUT_COUNT = new AtomicLong();
+	private static volatile long resetTime = System.currentTimeMillis();
+
+
+	/**
+	 * Private empty constructor.
+	 */
+	private ProcessStatistics() {
+		// nothing
+	}
+
+
+	/**
+	 * Records a process execution.
+	 * @param duration the execution duration (in milliseconds)
+	 * @param timedOut true if the process was killed because it timed out
+	 * @param outputTruncated true if a part of the process output was dropped
+	 */
+	static void record( long duration, boolean timedOut, boolean outputTruncated ) {
+
+		EXECUTION_COUNT.incrementAndGet();
+		TOTAL_DURATION.addAndGet( duration );
+		if( timedOut )
+			TIMEOUT_COUNT.incrementAndGet();
+
+		if( outputTruncated )
+			TRUNCATED_OUTPUT_COUNT.incrementAndGet();
+
+		for( long max = MAX_DURATION.get(); duration > max; max = MAX_DURATION.get()) {
+			if( MAX_DURATION.compareAndSet( max, duration ))
+				break;
+		}
+	}
+
+
+	/**
+	 * Resets all the counters.
+	 */
+	public static synchronized void reset() {
+		EXECUTION_COUNT.set( 0 );
+		TIMEOUT_COUNT.set( 0 );
+		TOTAL_DURATION.set( 0 );
+		MAX_DURATION.set( 0 );
+		TRUNCATED_OUTPUT_COUNT.set( 0 );
+		resetTime = System.currentTimeMillis();
+	}
+
+
+	/**
+	 * @return the number of executed processes since the last reset
+	 */
+	public static long getExecutionCount() {
+		return EXECUTION_COUNT.get();
+	}
+
+
+	/**
+	 * @return the average number of executed processes per second since the last reset
+	 */
+	public static double getExecutionsPerSecond() {
+		long elapsed = Math.max( 1, System.currentTimeMillis() - resetTime );
+		return EXECUTION_COUNT.get() * 1000d / elapsed;
+	}
+
+
+	/**
+	 * @return the number of processes that were killed because they timed out
+	 */
+	public static long getTimeoutCount() {
+		return TIMEOUT_COUNT.get();
+	}
+
+
+	/**
+	 * @return the number of processes whose output was truncated
+	 */
+	public static long getTruncatedOutputCount() {
+		return TRUNCATED_OUTPUT_COUNT.get();
+	}
+
+
+	/**
+	 * @return the average duration of a process execution (in milliseconds)
+	 */
+	public static long getAverageDuration() {
+		long count = EXECUTION_COUNT.get();
+		return count == 0 ? 0 : TOTAL_DURATION.get() / count;
+	}
+
+
+	/**
+	 * @return the longest duration of a process execution (in milliseconds)
+	 */
+	public static long getMaxDuration() {
+		return MAX_DURATION.get();
+	}
+}
@@ -25,16 +25,25 @@
 
 package net.roboconf.core.utils;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Global process store.
+ * <p>
+ * Several processes can be associated with a same agent (e.g. when life cycle
+ * operations run in parallel). This class is thread-safe and does not rely on locks:
+ * the list of processes associated with an agent is copied on every modification.
+ * </p>
+ *
  * @author Pierre-Yves Gibello - Linagora
  */
 public class ProcessStore {
 
-	private static final Map<String, Process> PROCESS_MAP = new HashMap<> ();
+	private static final ConcurrentMap<String,List<Process>> PROCESS_MAP = new ConcurrentHashMap<> ();
 
 
 	/**
@@ -42,25 +51,85 @@ public class ProcessStore {
 	 * process can be reached later (eg. to cancel it when blocked).
 	 * @param process The process to be stored
 	 */
-	public static synchronized void setProcess(String applicationName, String scopedInstancePath, Process process) {
-		PROCESS_MAP.put(toAgentId(applicationName, scopedInstancePath), process);
+	public static void setProcess(String applicationName, String scopedInstancePath, Process process) {
+
+		String key = toAgentId(applicationName, scopedInstancePath);
+		for( ;; ) {
+			List<Process> oldList = PROCESS_MAP.get( key );
+			if( oldList == null ) {
+				if( PROCESS_MAP.putIfAbsent( key, Collections.singletonList( process )) == null )
+					break;
+
+			} else {
+				List<Process> newList = new ArrayList<>( oldList );
+				newList.add( process );
+				if( PROCESS_MAP.replace( key, oldList, Collections.unmodifiableList( newList )))
+					break;
+			}
+		}
 	}
 
 
 	/**
 	 * Retrieves a stored process, when found.
-	 * @return The process
+	 * @return The process (the most recent one if several processes are running)
 	 */
-	public static synchronized Process getProcess(String applicationName, String scopedInstancePath) {
-		return PROCESS_MAP.get(toAgentId(applicationName, scopedInstancePath));
+	public static Process getProcess(String applicationName, String scopedInstancePath) {
+		List<Process> processes = PROCESS_MAP.get(toAgentId(applicationName, scopedInstancePath));
+		return processes == null ? null : processes.get( processes.size() - 1 );
 	}
 
 
 	/**
-	 * Removes a stored process, if found.
+	 * Retrieves all the stored processes for a given agent.
+	 * @return a non-null list of processes
 	 */
-	public static synchronized Process clearProcess(String applicationName, String scopedInstancePath) {
-		return PROCESS_MAP.remove(toAgentId(applicationName, scopedInstancePath));
+	public static List<Process> getProcesses(String applicationName, String scopedInstancePath) {
+		List<Process> processes = PROCESS_MAP.get(toAgentId(applicationName, scopedInstancePath));
+		return processes == null ? Collections.<Process>emptyList() : processes;
+	}
+
+
+	/**
+	 * Removes all the stored processes of a given agent, if found.
+	 * @return The most recent process, or null if none was found
+	 */
+	public static Process clearProcess(String applicationName, String scopedInstancePath) {
+		List<Process> processes = PROCESS_MAP.remove(toAgentId(applicationName, scopedInstancePath));
+		return processes == null ? null : processes.get( processes.size() - 1 );
+	}
+
+
+	/**
+	 * Removes a given process, if found.
+	 * <p>
+	 * Other processes associated with the same agent are kept.
+	 * </p>
+	 *
+	 * @return true if the process was found, false otherwise
+	 */
+	public static boolean clearProcess(String applicationName, String scopedInstancePath, Process process) {
+
+		String key = toAgentId(applicationName, scopedInstancePath);
+		boolean result = false;
+		for( ;; ) {
+			List<Process> oldList = PROCESS_MAP.get( key );
+			if( oldList == null || ! oldList.contains( process ))
+				break;
+
+			List<Process> newList = new ArrayList<>( oldList );
+			newList.remove( process );
+			boolean done = newList.isEmpty()
+					? PROCESS_MAP.remove( key, oldList )
+					: PROCESS_MAP.replace( key, oldList, Collections.unmodifiableList( newList ));
+
+			if( done ) {
+				result = true;
+				break;
+			}
+		}
+
+		return result;
 	}
 
 
@@ -25,15 +25,28 @@
 
 package net.roboconf.core.utils;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -43,6 +56,48 @@ import java.util.logging.Logger;
  */
 public final class ProgramUtils {
 
+	/**
+	 * The default delay between a polite termination request and a forced kill (in milliseconds).
+	 */
+	public static final long DEFAULT_KILL_GRACE_PERIOD = 5000;
+
+	/**
+	 * The default maximum number of characters kept for each output flow of a process.
+	 */
+	public static final int DEFAULT_OUTPUT_CAPACITY = 1024 * 1024;
+
+	/**
+	 * The delay we accept to wait for output pumps once a process has terminated (in milliseconds).
+	 * <p>
+	 * A process may start children that inherit its output flows (e.g. a daemon).
+	 * In this case, the pumps only terminate when these children do.
+	 * </p>
+	 */
+	static final long PUMP_JOIN_DELAY = 2000;
+
+	/**
+	 * The maximum number of threads used to read output flows and wait for processes.
+	 * <p>
+	 * Every execution uses two of them (three with a timeout).
+	 * </p>
+	 */
+	static final int MAX_PUMP_THREADS = 192;
+
+	/**
+	 * The size of the buffer used to read output flows (in characters).
+	 */
+	static final int PUMP_BUFFER_SIZE = 8192;
+
+	// Pumps and waiters are shared by all the executions
+	private static final ExecutorService PUMPS = new ThreadPoolExecutor(
+			0, MAX_PUMP_THREADS, 60L, TimeUnit.SECONDS,
+			new SynchronousQueue<Runnable> (),
+			new PumpThreadFactory());
+
+	// Options used when none is specified, for the current thread
+	private static final ThreadLocal<ExecutionOptions> THREAD_OPTIONS = new ThreadLocal<> ();
+
+
 	/**
 	 * Private empty constructor.
 	 */
@@ -51,11 +106,43 @@ public final class ProgramUtils {
 	}
 
 
+	/**
+	 * Sets the options used by the current thread when executions do not specify any.
+	 * <p>
+	 * This allows callers (e.g. an agent) to pass their options to code that does not know
+	 * them (e.g. a plug-in). It should be reset once this code was invoked.
+	 * </p>
+	 *
+	 * @param options the options to use by default in this thread (null to use built-in defaults)
+	 * @return the options that were previously set for this thread (can be null)
+	 */
+	public static ExecutionOptions setThreadOptions( ExecutionOptions options ) {
+
+		ExecutionOptions result = THREAD_OPTIONS.get();
+		if( options == null )
+			THREAD_OPTIONS.remove();
+		else
+			THREAD_OPTIONS.set( options );
+
+		return result;
+	}
+
+
+	/**
+	 * @return the options used by the current thread when executions do not specify any (never null)
+	 */
+	public static ExecutionOptions getThreadOptions() {
+		ExecutionOptions result = THREAD_OPTIONS.get();
+		return result != null ? result : new ExecutionOptions();
+	}
+
+
 	/**
 	 * Executes a command on the VM and retrieves all the result.
 	 * <p>
 	 * This includes the process's exit value, its normal output as well
-	 * as the error flow.
+	 * as the error flow. The current thread's execution options are used
+	 * (see {@link #setThreadOptions(ExecutionOptions)}).
 	 * </p>
 	 * @param logger a logger (not null)
 	 * @param command a command to execute (not null, not empty)
@@ -75,6 +162,46 @@ public final class ProgramUtils {
 			final String scopedInstancePath)
 	throws IOException, InterruptedException {
 
+		return executeCommandWithResult( logger, command, workingDir, environmentVars, applicationName, scopedInstancePath, getThreadOptions());
+	}
+
+
+	/**
+	 * Executes a command on the VM and retrieves all the result.
+	 * <p>
+	 * This includes the process's exit value, its normal output as well
+	 * as the error flow. Output flows are read by shared threads and only their
+	 * last characters are kept (see {@link ExecutionOptions#outputCapacity(int)}).
+	 * </p>
+	 * <p>
+	 * If the process does not complete within the timeout, it is asked to terminate.
+	 * If it is still running after the grace period, it is killed.
+	 * </p>
+	 * <p>
+	 * The number of concurrent executions is bounded (see {@link #MAX_PUMP_THREADS}).
+	 * Beyond it, new processes are killed and an {@link IOException} is thrown.
+	 * </p>
+	 *
+	 * @param logger a logger (not null)
+	 * @param command a command to execute (not null, not empty)
+	 * @param workingDir the working directory for the command
+	 * @param environmentVars a map containing environment variables (can be null)
+	 * @param applicationName the roboconf application name (null if not specified)
+	 * @param scopedInstancePath the roboconf scoped instance path (null if not specified)
+	 * @param options the execution options (not null)
+	 * @throws IOException if a new process could not be created or if too many processes are running
+	 * @throws InterruptedException if the new process encountered a process
+	 */
+	public static ExecutionResult executeCommandWithResult(
+			final Logger logger,
+			final String[] command,
+			final File workingDir,
+			final Map<String,String> environmentVars,
+			final String applicationName,
+			final String scopedInstancePath,
+			final ExecutionOptions options )
+	throws IOException, InterruptedException {
+
 		logger.fine( "Executing command: " + Arrays.toString( command ));
 
 		// Setup
@@ -93,38 +220,86 @@ public final class ProgramUtils {
 		}
 
 		// Prepare the result
-		StringBuilder normalOutput = new StringBuilder();
-		StringBuilder errorOutput = new StringBuilder();
+		BoundedOutput normalOutput = new BoundedOutput( options.getOutputCapacity());
+		BoundedOutput errorOutput = new BoundedOutput( options.getOutputCapacity());
 		int exitValue = -1;
+		boolean timedOut = false;
 
 		// Execute
-		Process process = pb.start();
+		long start = System.nanoTime();
+		final Process process = pb.start();
 
-		// Store process in ThreadLocal, so it can be cancelled later (eg. if blocked)
+		// Store the process, so it can be cancelled later (eg. if blocked)
 		logger.fine("Storing process [" + applicationName + "] [" + scopedInstancePath + "]");
 		ProcessStore.setProcess(applicationName, scopedInstancePath, process);
 
+		Future<?> errorPump = null, normalPump = null;
 		try {
-			new Thread( new OutputRunnable( process, true, errorOutput, logger )).start();
-			new Thread( new OutputRunnable( process, false, normalOutput, logger )).start();
+			try {
+				errorPump = PUMPS.submit( new OutputRunnable( process.getErrorStream(), true, errorOutput, logger, options.isOutputStreaming()));
+				normalPump = PUMPS.submit( new OutputRunnable( process.getInputStream(), false, normalOutput, logger, options.isOutputStreaming()));
+
+			} catch( RejectedExecutionException e ) {
+				destroyForcibly( process, logger );
+				throw new IOException( "Too many processes are running. " + Arrays.toString( command ) + " was killed.", e );
+			}
+
+			if( options.getTimeout() <= 0 ) {
+				exitValue = process.waitFor();
+
+			} else {
+				Future<Integer> waiter;
+				try {
+					waiter = PUMPS.submit( new Callable<Integer>() {
+						@Override
+						public Integer call() throws Exception {
+							return process.waitFor();
+						}
+					});
+
+				} catch( RejectedExecutionException e ) {
+					destroyForcibly( process, logger );
+					throw new IOException( "Too many processes are running. " + Arrays.toString( command ) + " was killed.", e );
+				}
+
+				Integer value = waitFor( waiter, options.getTimeout());
+				if( value == null ) {
+					timedOut = true;
+					logger.warning( "Command execution timed out after " + options.getTimeout() + " ms. The process is going to be terminated. " + Arrays.toString( command ));
+					value = terminate( process, waiter, options.getKillGracePeriod(), logger );
+				}
+
+				if( value != null )
+					exitValue = value;
+			}
 
-			exitValue = process.waitFor();
 			if( exitValue != 0 )
 				logger.warning( "Command execution returned a non-zero code. Code:" + exitValue );
 
 		} finally {
-			ProcessStore.clearProcess(applicationName, scopedInstancePath);
+			ProcessStore.clearProcess(applicationName, scopedInstancePath, process);
+			join( errorPump, process, logger );
+			join( normalPump, process, logger );
+
+			long duration = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+			ProcessStatistics.record( duration, timedOut, normalOutput.isTruncated() || errorOutput.isTruncated());
 		}
 
 		return new ExecutionResult(
 				normalOutput.toString().trim(),
 				errorOutput.toString().trim(),
-				exitValue );
+				exitValue,
+				timedOut );
 	}
 
 
 	/**
 	 * Executes a command on the VM and logs the output.
+	 * <p>
+	 * The current thread's execution options are used
+	 * (see {@link #setThreadOptions(ExecutionOptions)}).
+	 * </p>
+	 *
 	 * @param logger a logger (not null)
 	 * @param command a command to execute (not null, not empty)
 	 * @param workingDir the working directory for the command
@@ -143,12 +318,17 @@ public final class ProgramUtils {
 			final String scopedInstancePath)
 	throws IOException, InterruptedException {
 
-		ExecutionResult result = executeCommandWithResult( logger, command, workingDir, environmentVars, applicationName, scopedInstancePath);
-		if( ! Utils.isEmptyOrWhitespaces( result.getNormalOutput()))
-			logger.fine( result.getNormalOutput());
+		ExecutionOptions options = getThreadOptions();
+		ExecutionResult result = executeCommandWithResult( logger, command, workingDir, environmentVars, applicationName, scopedInstancePath, options );
 
-		if( ! Utils.isEmptyOrWhitespaces( result.getErrorOutput()))
-			logger.warning( result.getErrorOutput());
+		// Lines were already logged while they were read
+		if( ! options.isOutputStreaming()) {
+			if( ! Utils.isEmptyOrWhitespaces( result.getNormalOutput()))
+				logger.fine( result.getNormalOutput());
+
+			if( ! Utils.isEmptyOrWhitespaces( result.getErrorOutput()))
+				logger.warning( result.getErrorOutput());
+		}
 
 		return result.getExitValue();
 	}
@@ -175,6 +355,192 @@ public final class ProgramUtils {
 	}
 
 
+	/**
+	 * Waits for a process to complete.
+	 * @param waiter a future that waits for the process
+	 * @param timeout a timeout, in milliseconds
+	 * @return the exit value, or null if the process did not complete in time
+	 * @throws InterruptedException if the current thread was interrupted
+	 */
+	private static Integer waitFor( Future<Integer> waiter, long timeout ) throws InterruptedException {
+
+		Integer result = null;
+		try {
+			result = waiter.get( timeout, TimeUnit.MILLISECONDS );
+
+		} catch( TimeoutException e ) {
+			// nothing, result is null
+
+		} catch( ExecutionException e ) {
+			// Should not happen, waitFor() only throws InterruptedException
+			throw new InterruptedException( e.getMessage());
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Terminates a process: a termination request is first sent, and then the process is killed.
+	 * @param process the process to terminate
+	 * @param waiter a future that waits for the process
+	 * @param gracePeriod the delay between both steps (in milliseconds)
+	 * @param logger a logger
+	 * @return the exit value, or null if the process could not be terminated
+	 * @throws InterruptedException if the current thread was interrupted
+	 */
+	private static Integer terminate( Process process, Future<Integer> waiter, long gracePeriod, Logger logger )
+	throws InterruptedException {
+
+		process.destroy();
+		Integer result = waitFor( waiter, gracePeriod );
+		if( result == null ) {
+			logger.warning( "A process did not terminate within " + gracePeriod + " ms. It is going to be killed." );
+			destroyForcibly( process, logger );
+			result = waitFor( waiter, gracePeriod );
+		}
+
+		// Its output pumps are cancelled once the process store was cleared
+		if( result == null ) {
+			logger.severe( "A process could not be killed. It is left behind." );
+			waiter.cancel( true );
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Kills a process.
+	 * <p>
+	 * Process#destroyForcibly() only exists since Java 8, and we still target Java 7.
+	 * So, it is invoked by reflection, when available.
+	 * </p>
+	 *
+	 * @param process a process
+	 * @param logger a logger
+	 */
+	static void destroyForcibly( Process process, Logger logger ) {
+
+		try {
+			Method m = Process.class.getMethod( "destroyForcibly" );
+			m.invoke( process );
+
+		} catch( NoSuchMethodException e ) {
+			process.destroy();
+
+		} catch( Exception e ) {
+			Utils.logException( logger, e );
+		}
+	}
+
+
+	/**
+	 * Waits for an output pump to complete.
+	 * <p>
+	 * If it does not complete in time, it is cancelled: it stops as soon as it reads something
+	 * (or when the flow is closed). The process's flows are also closed, which unblocks the pump
+	 * on most systems.
+	 * </p>
+	 *
+	 * @param pump a pump (can be null)
+	 * @param process the process whose output is read
+	 * @param logger a logger
+	 */
+	private static void join( Future<?> pump, Process process, Logger logger ) {
+
+		if( pump == null )
+			return;
+
+		try {
+			pump.get( PUMP_JOIN_DELAY, TimeUnit.MILLISECONDS );
+
+		} catch( TimeoutException e ) {
+			logger.fine( "An output flow is still open after the process completed. It will not be read anymore." );
+			pump.cancel( true );
+			Utils.closeQuietly( process.getInputStream());
+			Utils.closeQuietly( process.getErrorStream());
+
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+
+		} catch( ExecutionException e ) {
+			Utils.logException( logger, e );
+		}
+	}
+
+
+	/**
+	 * Options for the execution of a process.
+	 * <p>
+	 * By default, there is no timeout, output flows are not logged while the process
+	 * runs and their capacity is {@link ProgramUtils#DEFAULT_OUTPUT_CAPACITY}.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public static class ExecutionOptions {
+
+		private long timeout = 0;
+		private long killGracePeriod = DEFAULT_KILL_GRACE_PERIOD;
+		private int outputCapacity = DEFAULT_OUTPUT_CAPACITY;
+		private boolean outputStreaming = false;
+
+
+		/**
+		 * @param timeout the timeout, in milliseconds (0 or less to disable it)
+		 * @return this object
+		 */
+		public ExecutionOptions timeout( long timeout ) {
+			this.timeout = timeout;
+			return this;
+		}
+
+		/**
+		 * @param killGracePeriod the delay between a termination request and a forced kill (in milliseconds)
+		 * @return this object
+		 */
+		public ExecutionOptions killGracePeriod( long killGracePeriod ) {
+			this.killGracePeriod = killGracePeriod;
+			return this;
+		}
+
+		/**
+		 * @param outputCapacity the maximum number of characters kept for each output flow
+		 * @return this object
+		 */
+		public ExecutionOptions outputCapacity( int outputCapacity ) {
+			this.outputCapacity = outputCapacity;
+			return this;
+		}
+
+		/**
+		 * @param outputStreaming true to log output lines as soon as they are read
+		 * @return this object
+		 */
+		public ExecutionOptions outputStreaming( boolean outputStreaming ) {
+			this.outputStreaming = outputStreaming;
+			return this;
+		}
+
+		public long getTimeout() {
+			return this.timeout;
+		}
+
+		public long getKillGracePeriod() {
+			return this.killGracePeriod;
+		}
+
+		public int getOutputCapacity() {
+			return this.outputCapacity;
+		}
+
+		public boolean isOutputStreaming() {
+			return this.outputStreaming;
+		}
+	}
+
+
 	/**
 	 * @author Vincent Zurczak - Linagora
 	 */
@@ -182,6 +548,7 @@ public final class ProgramUtils {
 
 		private final String normalOutput, errorOutput;
 		private final int exitValue;
+		private final boolean timedOut;
 
 		/**
 		 * Constructor.
@@ -190,9 +557,21 @@ public final class ProgramUtils {
 		 * @param exitValue
 		 */
 		public ExecutionResult( String normalOutput, String errorOutput, int exitValue ) {
+			this( normalOutput, errorOutput, exitValue, false );
+		}
+
+		/**
+		 * Constructor.
+		 * @param normalOutput
+		 * @param errorOutput
+		 * @param exitValue
+		 * @param timedOut
+		 */
+		public ExecutionResult( String normalOutput, String errorOutput, int exitValue, boolean timedOut ) {
 			this.normalOutput = normalOutput;
 			this.errorOutput = errorOutput;
 			this.exitValue = exitValue;
+			this.timedOut = timedOut;
 		}
 
 		public String getNormalOutput() {
@@ -206,51 +585,221 @@ public final class ProgramUtils {
 		public int getExitValue() {
 			return this.exitValue;
 		}
+
+		public boolean isTimedOut() {
+			return this.timedOut;
+		}
+	}
+
+
+	/**
+	 * A buffer that only keeps the last characters of an output flow.
+	 * <p>
+	 * To avoid moving characters on every append, the buffer is only
+	 * trimmed when it reaches twice its capacity (or when it is read).
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static class BoundedOutput {
+
+		private final int capacity;
+		private final StringBuilder sb = new StringBuilder();
+		private long droppedCharacters = 0;
+
+
+		/**
+		 * Constructor.
+		 * @param capacity the maximum number of characters to keep
+		 */
+		BoundedOutput( int capacity ) {
+			this.capacity = Math.max( 1, capacity );
+		}
+
+
+		/**
+		 * Appends characters.
+		 * @param chars a character array
+		 * @param offset the offset of the first character to append
+		 * @param length the number of characters to append
+		 */
+		synchronized void append( char[] chars, int offset, int length ) {
+
+			// Characters that would be dropped anyway are not copied
+			int skipped = Math.max( 0, length - this.capacity );
+			if( skipped > 0 ) {
+				this.droppedCharacters += skipped + this.sb.length();
+				this.sb.setLength( 0 );
+			}
+
+			this.sb.append( chars, offset + skipped, length - skipped );
+			if( this.sb.length() >= 2 * this.capacity )
+				trim();
+		}
+
+
+		/**
+		 * Appends a string.
+		 * @param s a string
+		 */
+		void append( String s ) {
+			append( s.toCharArray(), 0, s.length());
+		}
+
+
+		/**
+		 * @return true if characters were dropped
+		 */
+		synchronized boolean isTruncated() {
+			return this.droppedCharacters > 0 || this.sb.length() > this.capacity;
+		}
+
+
+		@Override
+		public synchronized String toString() {
+
+			trim();
+			StringBuilder result = new StringBuilder( this.sb.length() + 64 );
+			if( this.droppedCharacters > 0 )
+				result.append( "[... " + this.droppedCharacters + " character(s) truncated ...]\n" );
+
+			result.append( this.sb );
+			return result.toString();
+		}
+
+
+		/**
+		 * Drops the oldest characters beyond the capacity.
+		 */
+		private void trim() {
+
+			int excess = this.sb.length() - this.capacity;
+			if( excess > 0 ) {
+				this.sb.delete( 0, excess );
+				this.droppedCharacters += excess;
+			}
+		}
 	}
 
 
 	/**
+	 * A runnable that reads an output flow into a bounded output.
+	 * <p>
+	 * The flow is read by chunks, in a fixed-size buffer. Lines are never
+	 * built in memory, except when they are logged (and then, they are logged
+	 * by pieces of at most {@link ProgramUtils#PUMP_BUFFER_SIZE} characters).
+	 * The runnable stops as soon as possible once its thread was interrupted.
+	 * </p>
+	 *
 	 * @author Noël - LIG
 	 */
 	private static class OutputRunnable implements Runnable {
 
-		private final Process process;
+		private final InputStream is;
 		private final boolean errorLevel;
 		private final Logger logger;
-		private final StringBuilder sb;
+		private final BoundedOutput output;
+		private final boolean streaming;
 
 		/**
 		 * Constructor.
-		 * @param process
+		 * @param is
 		 * @param errorLevel
-		 * @param sb
+		 * @param output
 		 * @param logger
+		 * @param streaming
 		 */
-		public OutputRunnable( Process process, boolean errorLevel, StringBuilder sb, Logger logger ) {
-			this.process = process;
+		public OutputRunnable( InputStream is, boolean errorLevel, BoundedOutput output, Logger logger, boolean streaming ) {
+			this.is = is;
 			this.errorLevel = errorLevel;
-			this.sb = sb;
+			this.output = output;
 			this.logger = logger;
+			this.streaming = streaming;
 		}
 
 		@Override
 		public void run() {
 
 			final String prefix = this.errorLevel ? "-- ERROR --" : "";
-			BufferedReader br = null;
+			final char[] buffer = new char[ PUMP_BUFFER_SIZE ];
+			final StringBuilder pendingLine = new StringBuilder();
+
+			Reader reader = null;
 			try {
-				InputStream is = this.errorLevel ? this.process.getErrorStream() : this.process.getInputStream();
-				br = new BufferedReader( new InputStreamReader( is, StandardCharsets.UTF_8 ));
+				reader = new InputStreamReader( this.is, StandardCharsets.UTF_8 );
+				boolean lineStart = true;
+				for( int read = reader.read( buffer ); read != -1; read = reader.read( buffer )) {
+
+					int segmentStart = 0;
+					for( int i=0; i<read; i++ ) {
+						if( lineStart && ! prefix.isEmpty())
+							this.output.append( prefix );
+
+						lineStart = buffer[ i ] == '\n';
+						if( lineStart ) {
+							this.output.append( buffer, segmentStart, i + 1 - segmentStart );
+							log( pendingLine, buffer, segmentStart, i - segmentStart, true );
+							segmentStart = i + 1;
+						}
+					}
+
+					this.output.append( buffer, segmentStart, read - segmentStart );
+					log( pendingLine, buffer, segmentStart, read - segmentStart, false );
 
-				for( String line = br.readLine(); line != null; line = br.readLine())
-					this.sb.append( prefix + line + "\n" );
+					// Cancelled pumps stop reading
+					if( Thread.currentThread().isInterrupted())
+						break;
+				}
+
+				log( pendingLine, buffer, 0, 0, true );
 
 			} catch( IOException e ) {
 				this.logger.severe( Utils.writeExceptionButDoNotUseItForLogging( e ));
 
 			} finally {
-				Utils.closeQuietly( br );
+				Utils.closeQuietly( reader );
 			}
 		}
+
+
+		/**
+		 * Logs output lines, when streaming is enabled.
+		 * @param pendingLine the beginning of the current line
+		 * @param chars the characters read
+		 * @param offset the offset of the characters to add to the current line
+		 * @param length the number of characters to add to the current line
+		 * @param endOfLine true if the current line ends with these characters
+		 */
+		private void log( StringBuilder pendingLine, char[] chars, int offset, int length, boolean endOfLine ) {
+
+			if( ! this.streaming )
+				return;
+
+			pendingLine.append( chars, offset, length );
+			if(( endOfLine && pendingLine.length() > 0 )
+					|| pendingLine.length() >= PUMP_BUFFER_SIZE ) {
+
+				String prefix = this.errorLevel ? "-- ERROR --" : "";
+				this.logger.log( this.errorLevel ? Level.WARNING : Level.FINE, prefix + pendingLine );
+				pendingLine.setLength( 0 );
+			}
+		}
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class PumpThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread( Runnable r ) {
+
+			Thread result = new Thread( r, "Roboconf - Process Pump " + this.count.incrementAndGet());
+			result.setDaemon( true );
+			return result;
+		}
 	}
 }
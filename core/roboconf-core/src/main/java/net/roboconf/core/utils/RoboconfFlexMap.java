@@ -26,20 +26,28 @@
 package net.roboconf.core.utils;
 
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
- * A concurrent hash map that supports null values and keeps key ordering during iterations.
+ * A concurrent map that supports null values and keeps key ordering during iterations.
  * <p>
- * For the record, ConcurrentHashMaps do not accept null values.
+ * For the record, concurrent maps do not accept null values.
+ * </p>
+ * <p>
+ * Entries are stored in a {@link ConcurrentSkipListMap}, which is only allocated
+ * when the first entry is added. Keys are thus always ordered, and {@link #keySet()}
+ * and {@link #entrySet()} return (weakly consistent) views instead of copies.
+ * String keys are interned.
  * </p>
  *
  * @author Vincent Zurczak - Linagora
@@ -49,7 +57,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class RoboconfFlexMap<K extends Comparable<?>,V> implements Serializable, Map<K,V> {
 
 	private static final long serialVersionUID = 7715241436637667834L;
-	private final ConcurrentHashMap<K,V> map = new ConcurrentHashMap<> ();
+	private volatile ConcurrentSkipListMap<K,V> map;
 	private final V nullValue;
 
 
@@ -66,44 +74,52 @@ public class RoboconfFlexMap<K extends Comparable<?>,V> implements Serializable,
 
 	@Override
 	public void clear() {
-		this.map.clear();
+		Map<K,V> m = this.map;
+		if( m != null )
+			m.clear();
 	}
 
 	@Override
 	public boolean containsKey( Object key ) {
-		return this.map.containsKey( key );
+		Map<K,V> m = this.map;
+		return m != null && m.containsKey( key );
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return this.map.isEmpty();
+		Map<K,V> m = this.map;
+		return m == null || m.isEmpty();
 	}
 
+	/**
+	 * @return a live view of the keys, ordered
+	 */
 	@Override
 	public Set<K> keySet() {
-		return new TreeSet<>( this.map.keySet());
+		return new KeySet();
 	}
 
 	@Override
 	public int size() {
-		return this.map.size();
+		Map<K,V> m = this.map;
+		return m == null ? 0 : m.size();
 	}
 
 	@Override
 	public String toString() {
-		return this.map.toString();
+		return rawMap().toString();
 	}
 
 	@Override
 	public int hashCode() {
-		return this.map.hashCode();
+		return rawMap().hashCode();
 	}
 
 	@Override
 	public boolean equals( Object obj ) {
 		return obj instanceof RoboconfFlexMap<?,?>
 			&& this.nullValue.equals(((RoboconfFlexMap<?,?>) obj).nullValue)
-			&& this.map.equals(((RoboconfFlexMap<?,?>) obj).map);
+			&& rawMap().equals(((RoboconfFlexMap<?,?>) obj).rawMap());
 	}
 
 
@@ -111,39 +127,34 @@ public class RoboconfFlexMap<K extends Comparable<?>,V> implements Serializable,
 
 	@Override
 	public V get( Object key ) {
-		return outFilter( this.map.get( key ));
+		Map<K,V> m = this.map;
+		return m == null ? null : outFilter( m.get( key ));
 	}
 
 	@Override
 	public boolean containsValue( Object value ) {
-		return this.map.containsValue( rawInFilter( value ));
+		Map<K,V> m = this.map;
+		return m != null && m.containsValue( rawInFilter( value ));
 	}
 
 	@Override
 	public V put( K key, V value ) {
-		return this.map.put( key, inFilter( value ));
+		return outFilter( storage().put( Utils.intern( key ), inFilter( value )));
 	}
 
 	@Override
 	public V remove( Object key ) {
-		return outFilter( this.map.remove( key ));
+		Map<K,V> m = this.map;
+		return m == null ? null : outFilter( m.remove( key ));
 	}
 
 
 	/**
-	 * @return a snapshot view of the map, with keys being ordered
+	 * @return a live view of the map, with keys being ordered
 	 */
 	@Override
 	public Set<Entry<K,V>> entrySet() {
-
-		TreeMap<K,V> tempMap = new TreeMap<> ();
-		for( Entry<K,V> entry : this.map.entrySet()) {
-			tempMap.put(
-					entry.getKey(),
-					outFilter( entry.getValue()));
-		}
-
-		return tempMap.entrySet();
+		return new EntrySet();
 	}
 
 
@@ -162,9 +173,9 @@ public class RoboconfFlexMap<K extends Comparable<?>,V> implements Serializable,
 	@Override
 	public Collection<V> values() {
 
-		Collection<V> result = new ArrayList<>( this.map.size());
+		Collection<V> result = new ArrayList<>( size());
 		for( Map.Entry<K,V> entry : entrySet())
-			result.add( outFilter( entry.getValue()));
+			result.add( entry.getValue());
 
 		return result;
 	}
@@ -200,4 +211,105 @@ public class RoboconfFlexMap<K extends Comparable<?>,V> implements Serializable,
 	private Object rawInFilter( Object value ) {
 		return value == null ? this.nullValue : value;
 	}
+
+
+	/**
+	 * @return the internal map, or an empty map if it was not yet allocated (never null)
+	 */
+	private Map<K,V> rawMap() {
+		Map<K,V> m = this.map;
+		return m == null ? Collections.<K,V>emptyMap() : m;
+	}
+
+
+	/**
+	 * @return the internal map, created if necessary (never null)
+	 */
+	private ConcurrentSkipListMap<K,V> storage() {
+
+		ConcurrentSkipListMap<K,V> m = this.map;
+		if( m == null ) {
+			synchronized( this ) {
+				m = this.map;
+				if( m == null ) {
+					m = new ConcurrentSkipListMap<> ();
+					this.map = m;
+				}
+			}
+		}
+
+		return m;
+	}
+
+
+	/**
+	 * A live view of the keys.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			Map<K,V> m = RoboconfFlexMap.this.map;
+			return m == null ? Collections.<K>emptyIterator() : m.keySet().iterator();
+		}
+
+		@Override
+		public int size() {
+			return RoboconfFlexMap.this.size();
+		}
+
+		@Override
+		public boolean contains( Object o ) {
+			return containsKey( o );
+		}
+
+		@Override
+		public void clear() {
+			RoboconfFlexMap.this.clear();
+		}
+	}
+
+
+	/**
+	 * A live view of the entries, with null values restored.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private class EntrySet extends AbstractSet<Entry<K,V>> {
+
+		@Override
+		public Iterator<Entry<K,V>> iterator() {
+
+			Map<K,V> m = RoboconfFlexMap.this.map;
+			final Iterator<Entry<K,V>> it = m == null ? Collections.<Entry<K,V>>emptyIterator() : m.entrySet().iterator();
+			return new Iterator<Entry<K,V>> () {
+
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				@Override
+				public Entry<K,V> next() {
+					Entry<K,V> entry = it.next();
+					return new AbstractMap.SimpleImmutableEntry<>( entry.getKey(), outFilter( entry.getValue()));
+				}
+
+				@Override
+				public void remove() {
+					it.remove();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return RoboconfFlexMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			RoboconfFlexMap.this.clear();
+		}
+	}
 }
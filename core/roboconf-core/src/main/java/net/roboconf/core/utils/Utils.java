@@ -195,6 +195,21 @@ public final class Utils {
 	}
 
 
+	/**
+	 * Interns an object if it is a string.
+	 * <p>
+	 * Useful for keys that are repeated in a lot of objects (e.g. instance data).
+	 * </p>
+	 *
+	 * @param object an object (can be null)
+	 * @return the canonical representation of the string, or the object itself otherwise
+	 */
+	@SuppressWarnings( "unchecked" )
+	public static <T> T intern( T object ) {
+		return object instanceof String ? (T) ((String) object).intern() : object;
+	}
+
+
 	/**
 	 * Expands a template, replacing each {{ param }} by the corresponding value.
 	 * <p>
@@ -101,6 +101,52 @@ public class CommandsParserTest {
 	}
 
 
+	@Test
+	public void testReadLines() throws Exception {
+
+		File f = TestUtils.findTestFile( "/commands/multi-line-commands.txt" );
+		List<CommandsParser.CommandLine> lines = CommandsParser.readLines( f );
+		Assert.assertEquals( 3, lines.size());
+
+		// Lines can be reused by several parsers
+		CommandsParser parser1 = new CommandsParser( this.app, f, lines );
+		CommandsParser parser2 = new CommandsParser( this.app, f, lines );
+		Assert.assertEquals( 0, parser1.getParsingErrors().size());
+		Assert.assertEquals( 3, parser1.instructions.size());
+		Assert.assertEquals( 0, parser2.getParsingErrors().size());
+		Assert.assertEquals( 3, parser2.instructions.size());
+		Assert.assertNotSame( parser1.instructions.get( 0 ), parser2.instructions.get( 0 ));
+
+		// Line numbers are preserved
+		CommandsParser parser = new CommandsParser( this.app, f );
+		for( int i=0; i<lines.size(); i++ )
+			Assert.assertEquals( parser.instructions.get( i ).line, lines.get( i ).getLineNumber());
+	}
+
+
+	@Test
+	public void testReadLines_inexistingFile() {
+
+		File f = new File( "inexisting" );
+		List<CommandsParser.CommandLine> lines = CommandsParser.readLines( f );
+		Assert.assertEquals( 0, lines.size());
+	}
+
+
+	@Test
+	public void testContainsVolatileInstructions() {
+
+		Assert.assertFalse( CommandsParser.containsVolatileInstructions( CommandsParser.splitLines(
+				"rename /tomcat-vm as vm 2\ndefine index = $(SMART_INDEX)\n# execute something" )));
+
+		Assert.assertTrue( CommandsParser.containsVolatileInstructions( CommandsParser.splitLines( "define t = $(MILLI_TIME)" )));
+		Assert.assertTrue( CommandsParser.containsVolatileInstructions( CommandsParser.splitLines( "define t = $(NANO_TIME)" )));
+		Assert.assertTrue( CommandsParser.containsVolatileInstructions( CommandsParser.splitLines( "define t = $(FORMATTED_TIME yyyy)" )));
+		Assert.assertTrue( CommandsParser.containsVolatileInstructions( CommandsParser.splitLines( "define id = $(UUID)" )));
+		Assert.assertTrue( CommandsParser.containsVolatileInstructions( CommandsParser.splitLines( "rename /tomcat-vm as vm 2\nExecute other" )));
+	}
+
+
 	@Test
 	public void testInexistingFile() {
 
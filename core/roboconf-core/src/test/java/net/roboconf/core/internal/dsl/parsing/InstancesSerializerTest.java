@@ -0,0 +1,117 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.internal.dsl.parsing;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.roboconf.core.dsl.ParsingModelIo;
+import net.roboconf.core.dsl.converters.FromInstances;
+import net.roboconf.core.dsl.parsing.FileDefinition;
+import net.roboconf.core.model.beans.Component;
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.utils.Utils;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstancesSerializerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void testNoInstance() throws Exception {
+		compare( new ArrayList<Instance>( 0 ), "\n" );
+	}
+
+
+	@Test
+	public void testSeveralHierarchies() throws Exception {
+
+		Component vmComponent = new Component( "VM" );
+		Component tomcatComponent = new Component( "Tomcat" );
+		Component warComponent = new Component( "WAR" );
+
+		Instance vm1 = new Instance( "vm1" ).component( vmComponent ).status( InstanceStatus.DEPLOYED_STARTED );
+		vm1.data.put( Instance.IP_ADDRESS, "127.0.0.1" );
+		vm1.data.put( Instance.MACHINE_ID, "m1" );
+		vm1.data.put( "null-value", null );
+
+		Instance tomcat1 = new Instance( "tomcat" ).component( tomcatComponent ).channel( "c1" ).channel( "c2" );
+		tomcat1.overriddenExports.put( "Tomcat.port", "9090" );
+		InstanceHelpers.insertChild( vm1, tomcat1 );
+
+		InstanceHelpers.insertChild( tomcat1, new Instance( "war1" ).component( warComponent ));
+		InstanceHelpers.insertChild( tomcat1, new Instance( "war2" ).component( warComponent ).status( InstanceStatus.DEPLOYING ));
+		InstanceHelpers.insertChild( vm1, new Instance( "tomcat2" ).component( tomcatComponent ));
+
+		Instance vm2 = new Instance( "vm2" ).component( vmComponent );
+		Instance vm3 = new Instance( "" ).component( vmComponent );
+
+		List<Instance> rootInstances = Arrays.asList( vm1, vm2, vm3 );
+		compare( rootInstances, "\n" );
+		compare( rootInstances, "\r\n" );
+		compare( rootInstances, null );
+	}
+
+
+	@Test
+	public void testWriteIntoFile() throws Exception {
+
+		Instance vm = new Instance( "vm" ).component( new Component( "VM" ));
+		InstanceHelpers.insertChild( vm, new Instance( "server" ).component( new Component( "Server" )));
+
+		File targetFile = this.folder.newFile();
+		new InstancesSerializer( "\n" ).write( targetFile, Arrays.asList( vm ));
+
+		FileDefinition def = new FromInstances().buildFileDefinition( Arrays.asList( vm ), targetFile, false, true );
+		String expected = ParsingModelIo.writeConfigurationFile( def, false, "\n" );
+		Assert.assertEquals( expected, Utils.readFileContent( targetFile ));
+	}
+
+
+	private void compare( List<Instance> rootInstances, String lineSeparator ) throws Exception {
+
+		FileDefinition def = new FromInstances().buildFileDefinition( rootInstances, new File( "whatever" ), false, true );
+		String expected = ParsingModelIo.writeConfigurationFile( def, false, lineSeparator );
+
+		StringWriter writer = new StringWriter();
+		new InstancesSerializer( lineSeparator ).write( writer, rootInstances );
+		Assert.assertEquals( expected, writer.toString());
+	}
+}
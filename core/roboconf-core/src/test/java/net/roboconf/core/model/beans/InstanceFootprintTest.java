@@ -0,0 +1,108 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.model.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.helpers.InstanceHelpers;
+
+/**
+ * A (rough) memory benchmark for large applications.
+ * <p>
+ * It builds an application with 100,000 instances, most of them
+ * without any channel, data, overridden export or import. The retained
+ * heap is estimated by comparing the used memory before and after.
+ * The result is only logged: run this test manually to compare versions.
+ * </p>
+ * <p>
+ * By default, it is ignored by the build.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+@Ignore
+public class InstanceFootprintTest {
+
+	private static final int VM_COUNT = 10000;
+	private static final int CHILDREN_PER_VM = 9;
+
+	private final Logger logger = Logger.getLogger( getClass().getName());
+
+
+	@Test
+	public void testFootprintOfALargeApplication() {
+
+		Component vmComponent = new Component( "VM" );
+		Component serverComponent = new Component( "Server" );
+		Component appComponent = new Component( "App" );
+
+		long before = usedMemory();
+		List<Instance> rootInstances = new ArrayList<>( VM_COUNT );
+		for( int i=0; i<VM_COUNT; i++ ) {
+
+			Instance vm = new Instance( "vm-" + i ).component( vmComponent ).status( InstanceStatus.DEPLOYED_STARTED );
+			vm.data.put( Instance.IP_ADDRESS, "192.168.1." + (i % 256));
+			vm.data.put( Instance.MACHINE_ID, "machine-" + i );
+			rootInstances.add( vm );
+
+			Instance server = new Instance( "server" ).component( serverComponent );
+			InstanceHelpers.insertChild( vm, server );
+			for( int j=1; j<CHILDREN_PER_VM; j++ )
+				InstanceHelpers.insertChild( server, new Instance( "app-" + j ).component( appComponent ));
+		}
+
+		long after = usedMemory();
+		int instanceCount = VM_COUNT * (CHILDREN_PER_VM + 1);
+		long bytesPerInstance = (after - before) / instanceCount;
+		this.logger.info( instanceCount + " instances retain about " + (after - before) / 1024 + " kb (" + bytesPerInstance + " bytes per instance)." );
+
+		// Keep the model alive until the measure was made.
+		// Measures based on the runtime depend on the garbage collector,
+		// so they are only logged, not verified.
+		Assert.assertEquals( VM_COUNT, rootInstances.size());
+		Assert.assertEquals( CHILDREN_PER_VM + 1, InstanceHelpers.buildHierarchicalList( rootInstances.get( 0 )).size());
+	}
+
+
+	private static long usedMemory() {
+
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for( int i=0; i<5; i++ ) {
+			System.gc();
+			used = Math.min( used, runtime.totalMemory() - runtime.freeMemory());
+		}
+
+		return used;
+	}
+}
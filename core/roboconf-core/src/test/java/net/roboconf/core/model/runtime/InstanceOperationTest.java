@@ -0,0 +1,89 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.model.runtime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.runtime.InstanceOperation.OperationType;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstanceOperationTest {
+
+	@Test
+	public void testFactories() {
+
+		Instance inst = new Instance( "inst" );
+		InstanceOperation op = InstanceOperation.add( "/vm", inst );
+		Assert.assertEquals( OperationType.ADD, op.getType());
+		Assert.assertEquals( "/vm", op.getInstancePath());
+		Assert.assertEquals( inst, op.getInstance());
+		Assert.assertNull( op.getNewStatus());
+
+		op = InstanceOperation.remove( "/vm/inst" );
+		Assert.assertEquals( OperationType.REMOVE, op.getType());
+		Assert.assertEquals( "/vm/inst", op.getInstancePath());
+		Assert.assertNull( op.getInstance());
+		Assert.assertNull( op.getNewStatus());
+
+		op = InstanceOperation.changeState( "/vm/inst", InstanceStatus.DEPLOYED_STARTED );
+		Assert.assertEquals( OperationType.CHANGE_STATE, op.getType());
+		Assert.assertEquals( "/vm/inst", op.getInstancePath());
+		Assert.assertNull( op.getInstance());
+		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, op.getNewStatus());
+	}
+
+
+	@Test
+	public void testWhich() {
+
+		Assert.assertEquals( OperationType.ADD, OperationType.which( "add" ));
+		Assert.assertEquals( OperationType.REMOVE, OperationType.which( "REMOVE" ));
+		Assert.assertEquals( OperationType.CHANGE_STATE, OperationType.which( "change_State" ));
+		Assert.assertNull( OperationType.which( "change-state" ));
+		Assert.assertNull( OperationType.which( null ));
+	}
+
+
+	@Test
+	public void testResult() {
+
+		InstanceOperationResult result = new InstanceOperationResult( "/vm", true, null );
+		Assert.assertEquals( "/vm", result.getInstancePath());
+		Assert.assertTrue( result.isSuccess());
+		Assert.assertNull( result.getMessage());
+		Assert.assertEquals( "/vm: OK", result.toString());
+
+		result = new InstanceOperationResult( "/vm", false, "oops" );
+		Assert.assertFalse( result.isSuccess());
+		Assert.assertEquals( "oops", result.getMessage());
+		Assert.assertEquals( "/vm: oops", result.toString());
+	}
+}
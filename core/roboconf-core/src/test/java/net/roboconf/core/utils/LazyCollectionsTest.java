@@ -0,0 +1,139 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.core.utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class LazyCollectionsTest {
+
+	@Test
+	public void testLazySet() {
+
+		for( boolean concurrent : new boolean[] { true, false }) {
+
+			LazySet<String> set = new LazySet<>( concurrent );
+			Assert.assertTrue( set.isEmpty());
+			Assert.assertEquals( 0, set.size());
+			Assert.assertFalse( set.contains( "a" ));
+			Assert.assertFalse( set.remove( "a" ));
+			Assert.assertFalse( set.iterator().hasNext());
+			set.clear();
+
+			Assert.assertTrue( set.add( new String( "a" )));
+			Assert.assertFalse( set.add( "a" ));
+			Assert.assertTrue( set.add( "b" ));
+			Assert.assertEquals( 2, set.size());
+			Assert.assertTrue( set.contains( "a" ));
+			Assert.assertSame( "a", set.iterator().next());
+
+			Assert.assertTrue( set.remove( "a" ));
+			Assert.assertEquals( 1, set.size());
+			set.clear();
+			Assert.assertTrue( set.isEmpty());
+		}
+	}
+
+
+	@Test
+	public void testLazySet_concurrentKeepsInsertionOrder() {
+
+		LazySet<String> set = new LazySet<>( true );
+		set.addAll( Arrays.asList( "z", "b", "y", "a" ));
+		Assert.assertEquals( Arrays.asList( "z", "b", "y", "a" ), Arrays.asList( set.toArray()));
+	}
+
+
+	@Test
+	public void testLazyMap() {
+
+		for( boolean sorted : new boolean[] { true, false }) {
+
+			LazyMap<String,String> map = new LazyMap<>( sorted );
+			Assert.assertTrue( map.isEmpty());
+			Assert.assertEquals( 0, map.size());
+			Assert.assertNull( map.get( "a" ));
+			Assert.assertNull( map.remove( "a" ));
+			Assert.assertFalse( map.containsKey( "a" ));
+			Assert.assertFalse( map.containsValue( "a" ));
+			Assert.assertFalse( map.entrySet().iterator().hasNext());
+			Assert.assertEquals( 0, map.keySet().size());
+			map.clear();
+
+			Assert.assertNull( map.put( new String( "a" ), "1" ));
+			Assert.assertEquals( "1", map.put( "a", "2" ));
+			map.put( "b", null );
+			Assert.assertEquals( 2, map.size());
+			Assert.assertTrue( map.containsKey( "b" ));
+			Assert.assertTrue( map.containsValue( "2" ));
+			Assert.assertSame( "a", map.keySet().iterator().next());
+
+			// Views are live
+			Iterator<Map.Entry<String,String>> it = map.entrySet().iterator();
+			it.next();
+			it.remove();
+			Assert.assertEquals( 1, map.size());
+
+			map.entrySet().clear();
+			Assert.assertTrue( map.isEmpty());
+		}
+	}
+
+
+	@Test
+	public void testLazyMap_sortedKeys() {
+
+		LazyMap<String,String> map = new LazyMap<>( true );
+		map.put( "c", "" );
+		map.put( "a", "" );
+		map.put( "b", "" );
+		Assert.assertEquals( Arrays.asList( "a", "b", "c" ), Arrays.asList( map.keySet().toArray()));
+	}
+
+
+	@Test
+	public void testLazyMap_equalsAndHashCode() {
+
+		LazyMap<String,String> map1 = new LazyMap<>( true );
+		LazyMap<String,String> map2 = new LazyMap<>( false );
+		Assert.assertEquals( map1, map2 );
+		Assert.assertEquals( map1.hashCode(), map2.hashCode());
+
+		map1.put( "k", "v" );
+		Assert.assertNotEquals( map1, map2 );
+
+		map2.put( "k", "v" );
+		Assert.assertEquals( map1, map2 );
+		Assert.assertEquals( map1.hashCode(), map2.hashCode());
+	}
+}
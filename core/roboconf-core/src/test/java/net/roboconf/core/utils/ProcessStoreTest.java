@@ -26,6 +26,7 @@
 package net.roboconf.core.utils;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -59,4 +60,25 @@ public class ProcessStoreTest {
 		ProcessStore.clearProcess(null, null);
 		Assert.assertNull(ProcessStore.getProcess(null, null));
 	}
+
+
+	@Test
+	public void testSeveralProcessesForTheSameAgent() throws IOException {
+
+		Process p1 = (new ProcessBuilder("date")).start();
+		Process p2 = (new ProcessBuilder("date")).start();
+
+		ProcessStore.setProcess(this.applicationName, "/several", p1);
+		ProcessStore.setProcess(this.applicationName, "/several", p2);
+		Assert.assertSame(p2, ProcessStore.getProcess(this.applicationName, "/several"));
+		Assert.assertEquals(Arrays.asList(p1, p2), ProcessStore.getProcesses(this.applicationName, "/several"));
+
+		Assert.assertTrue(ProcessStore.clearProcess(this.applicationName, "/several", p2));
+		Assert.assertFalse(ProcessStore.clearProcess(this.applicationName, "/several", p2));
+		Assert.assertSame(p1, ProcessStore.getProcess(this.applicationName, "/several"));
+
+		Assert.assertTrue(ProcessStore.clearProcess(this.applicationName, "/several", p1));
+		Assert.assertNull(ProcessStore.getProcess(this.applicationName, "/several"));
+		Assert.assertEquals(0, ProcessStore.getProcesses(this.applicationName, "/several").size());
+	}
 }
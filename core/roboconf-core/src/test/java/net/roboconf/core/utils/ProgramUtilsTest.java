@@ -36,6 +36,9 @@ import org.junit.Assume;
 import org.junit.Test;
 
 import net.roboconf.core.internal.tests.TestUtils;
+import net.roboconf.core.utils.ProgramUtils.BoundedOutput;
+import net.roboconf.core.utils.ProgramUtils.ExecutionOptions;
+import net.roboconf.core.utils.ProgramUtils.ExecutionResult;
 
 /**
  * @author Vincent Zurczak - Linagora
@@ -162,4 +165,132 @@ public class ProgramUtilsTest {
 				Arrays.asList( "whatever" ),
 				null, null, null, null);
 	}
+
+
+	@Test
+	public void testTimeout_UnixFamily() throws Exception {
+
+		Assume.assumeTrue( TestUtils.isUnix());
+		long timeoutsBefore = ProcessStatistics.getTimeoutCount();
+		long before = System.currentTimeMillis();
+		ExecutionResult result = ProgramUtils.executeCommandWithResult(
+				Logger.getLogger( getClass().getName()),
+				new String[] { "/bin/sh", "-c", "sleep 30" },
+				null, null, "app", "/timeout",
+				new ExecutionOptions().timeout( 200 ).killGracePeriod( 1000 ));
+
+		Assert.assertTrue( result.isTimedOut());
+		Assert.assertNotEquals( 0, result.getExitValue());
+		Assert.assertTrue( System.currentTimeMillis() - before < 10000 );
+		Assert.assertEquals( timeoutsBefore + 1, ProcessStatistics.getTimeoutCount());
+		Assert.assertNull( ProcessStore.getProcess( "app", "/timeout" ));
+	}
+
+
+	@Test
+	public void testNoTimeout_UnixFamily() throws Exception {
+
+		Assume.assumeTrue( TestUtils.isUnix());
+		long countBefore = ProcessStatistics.getExecutionCount();
+		ExecutionResult result = ProgramUtils.executeCommandWithResult(
+				Logger.getLogger( getClass().getName()),
+				new String[] { "/bin/sh", "-c", "echo hello; echo oops >&2" },
+				null, null, null, null,
+				new ExecutionOptions().timeout( 10000 ).outputStreaming( true ));
+
+		Assert.assertFalse( result.isTimedOut());
+		Assert.assertEquals( 0, result.getExitValue());
+		Assert.assertEquals( "hello", result.getNormalOutput());
+		Assert.assertEquals( "-- ERROR --oops", result.getErrorOutput());
+		Assert.assertTrue( ProcessStatistics.getExecutionCount() > countBefore );
+	}
+
+
+	@Test
+	public void testOutputIsBounded_UnixFamily() throws Exception {
+
+		Assume.assumeTrue( TestUtils.isUnix());
+		ExecutionResult result = ProgramUtils.executeCommandWithResult(
+				Logger.getLogger( getClass().getName()),
+				new String[] { "/bin/sh", "-c", "i=0; while [ $i -lt 5000 ]; do i=$((i+1)); echo line $i; done" },
+				null, null, null, null,
+				new ExecutionOptions().outputCapacity( 100 ));
+
+		Assert.assertEquals( 0, result.getExitValue());
+		Assert.assertTrue( result.getNormalOutput().startsWith( "[... " ));
+		Assert.assertTrue( result.getNormalOutput().endsWith( "line 5000" ));
+		Assert.assertTrue( result.getNormalOutput().length() < 200 );
+	}
+
+
+	@Test
+	public void testBoundedOutput() {
+
+		BoundedOutput output = new BoundedOutput( 10 );
+		Assert.assertFalse( output.isTruncated());
+		Assert.assertEquals( "", output.toString());
+
+		output.append( "abc\n" );
+		output.append( "def\n" );
+		Assert.assertFalse( output.isTruncated());
+		Assert.assertEquals( "abc\ndef\n", output.toString());
+
+		output.append( "ghi\n" );
+		Assert.assertTrue( output.isTruncated());
+		Assert.assertEquals( "[... 2 character(s) truncated ...]\nc\ndef\nghi\n", output.toString());
+
+		output.append( "0123456789abcdef\n" );
+		Assert.assertEquals( "[... 19 character(s) truncated ...]\n789abcdef\n", output.toString());
+	}
+
+
+	@Test
+	public void testLongLinesAreBounded_UnixFamily() throws Exception {
+
+		// A single line, without any line break
+		Assume.assumeTrue( TestUtils.isUnix());
+		ExecutionResult result = ProgramUtils.executeCommandWithResult(
+				Logger.getLogger( getClass().getName()),
+				new String[] { "/bin/sh", "-c", "head -c 100000 /dev/zero | tr '\\0' 'a'; echo b >&2" },
+				null, null, null, null,
+				new ExecutionOptions().outputCapacity( 100 ).outputStreaming( true ));
+
+		Assert.assertEquals( 0, result.getExitValue());
+		Assert.assertTrue( result.getNormalOutput().startsWith( "[... 99900 character(s) truncated ...]\naaa" ));
+		Assert.assertTrue( result.getNormalOutput().length() < 200 );
+		Assert.assertEquals( "-- ERROR --b", result.getErrorOutput());
+	}
+
+
+	@Test
+	public void testThreadOptions() throws Exception {
+
+		ExecutionOptions defaultOptions = ProgramUtils.getThreadOptions();
+		Assert.assertEquals( 0, defaultOptions.getTimeout());
+		Assert.assertFalse( defaultOptions.isOutputStreaming());
+
+		ExecutionOptions options = new ExecutionOptions().timeout( 1000 ).outputStreaming( true );
+		Assert.assertNull( ProgramUtils.setThreadOptions( options ));
+		try {
+			Assert.assertSame( options, ProgramUtils.getThreadOptions());
+
+			// Other threads are not impacted
+			final ExecutionOptions[] otherThreadOptions = new ExecutionOptions[ 1 ];
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					otherThreadOptions[ 0 ] = ProgramUtils.getThreadOptions();
+				}
+			};
+
+			thread.start();
+			thread.join();
+			Assert.assertEquals( 0, otherThreadOptions[ 0 ].getTimeout());
+
+		} finally {
+			Assert.assertSame( options, ProgramUtils.setThreadOptions( null ));
+		}
+
+		Assert.assertEquals( 0, ProgramUtils.getThreadOptions().getTimeout());
+	}
 }
@@ -27,7 +27,9 @@ package net.roboconf.core.utils;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 
 import org.junit.Assert;
@@ -122,4 +124,47 @@ public class RoboconfFlexMapTest {
 		Assert.assertNotEquals( map2.hashCode(), map3.hashCode());
 		Assert.assertNotEquals( map2.hashCode(), map4.hashCode());
 	}
+
+
+	@Test
+	public void testViews() {
+
+		RoboconfFlexMap<String,String> map = new RoboconfFlexMap<>( "!!!!!" );
+		Set<String> keys = map.keySet();
+		Set<Map.Entry<String,String>> entries = map.entrySet();
+		Assert.assertTrue( keys.isEmpty());
+		Assert.assertTrue( entries.isEmpty());
+		Assert.assertEquals( 0, map.hashCode());
+		Assert.assertEquals( "{}", map.toString());
+
+		// Views created before the first insertion are updated
+		map.put( "c", null );
+		map.put( "a", "1" );
+		map.put( new String( "b" ), "2" );
+
+		Assert.assertEquals( 3, keys.size());
+		Assert.assertTrue( keys.contains( "b" ));
+		Assert.assertEquals( Arrays.asList( "a", "b", "c" ), Arrays.asList( keys.toArray()));
+		Assert.assertSame( "b", keys.toArray()[ 1 ]);
+
+		Iterator<Map.Entry<String,String>> it = entries.iterator();
+		Assert.assertEquals( "1", it.next().getValue());
+		Assert.assertEquals( "2", it.next().getValue());
+
+		Map.Entry<String,String> entry = it.next();
+		Assert.assertEquals( "c", entry.getKey());
+		Assert.assertNull( entry.getValue());
+
+		// Removals go through the map
+		it.remove();
+		Assert.assertFalse( map.containsKey( "c" ));
+		Assert.assertEquals( 2, map.size());
+
+		// The map can be modified while iterating
+		for( String key : map.keySet())
+			map.remove( key );
+
+		Assert.assertTrue( map.isEmpty());
+		Assert.assertTrue( keys.isEmpty());
+	}
 }
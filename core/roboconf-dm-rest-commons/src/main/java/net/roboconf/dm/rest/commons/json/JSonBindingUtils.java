@@ -58,6 +58,9 @@ import net.roboconf.core.model.helpers.ComponentHelpers;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.model.helpers.VariableHelpers;
 import net.roboconf.core.model.runtime.CommandHistoryItem;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperation.OperationType;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.core.model.runtime.Preference;
 import net.roboconf.core.model.runtime.Preference.PreferenceKeyCategory;
 import net.roboconf.core.model.runtime.ScheduledJob;
@@ -120,6 +123,12 @@ public final class JSonBindingUtils {
 		SERIALIZERS.put( Preference.class, new PreferenceSerializer());
 		DESERIALIZERS.put( Preference.class, new PreferenceDeserializer());
 
+		SERIALIZERS.put( InstanceOperation.class, new InstanceOperationSerializer());
+		DESERIALIZERS.put( InstanceOperation.class, new InstanceOperationDeserializer());
+
+		SERIALIZERS.put( InstanceOperationResult.class, new InstanceOperationResultSerializer());
+		DESERIALIZERS.put( InstanceOperationResult.class, new InstanceOperationResultDeserializer());
+
 		// Write ONLY
 		SERIALIZERS.put( MappedCollectionWrapper.class, new MappedCollectionWrapperSerializer());
 		SERIALIZERS.put( TargetUsageItem.class, new TargetUsageItemSerializer());
@@ -183,6 +192,11 @@ public final class JSonBindingUtils {
 	private static final String PREF_VALUE = "value";
 	private static final String PREF_CATEGORY = "category";
 
+	private static final String OP_TYPE = "type";
+	private static final String OP_INSTANCE = "instance";
+	private static final String OP_SUCCESS = "success";
+	private static final String OP_MESSAGE = "message";
+
 	private static final String JOB_NAME = "job-name";
 	private static final String JOB_APP_NAME = "app-name";
 	private static final String JOB_CMD_NAME = "cmd-name";
@@ -454,6 +468,125 @@ public final class JSonBindingUtils {
 	}
 
 
+	/**
+	 * A JSon serializer for instance operations.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public static class InstanceOperationSerializer extends JsonSerializer<InstanceOperation> {
+
+		@Override
+		public void serialize(
+				InstanceOperation op,
+				JsonGenerator generator,
+				SerializerProvider provider )
+		throws IOException {
+
+			generator.writeStartObject();
+			if( op.getType() != null )
+				generator.writeStringField( OP_TYPE, op.getType().toString().toLowerCase());
+
+			if( op.getInstancePath() != null )
+				generator.writeStringField( PATH, op.getInstancePath());
+
+			if( op.getNewStatus() != null )
+				generator.writeStringField( INST_STATUS, op.getNewStatus().toString());
+
+			if( op.getInstance() != null )
+				generator.writeObjectField( OP_INSTANCE, op.getInstance());
+
+			generator.writeEndObject();
+		}
+	}
+
+
+	/**
+	 * A JSon deserializer for instance operations.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public static class InstanceOperationDeserializer extends JsonDeserializer<InstanceOperation> {
+
+		@Override
+		public InstanceOperation deserialize( JsonParser parser, DeserializationContext context ) throws IOException {
+
+			ObjectCodec oc = parser.getCodec();
+			JsonNode node = oc.readTree( parser );
+			InstanceOperation op = new InstanceOperation();
+
+			JsonNode n;
+			if(( n = node.get( OP_TYPE )) != null )
+				op.setType( OperationType.which( n.textValue()));
+
+			if(( n = node.get( PATH )) != null )
+				op.setInstancePath( n.textValue());
+
+			if(( n = node.get( INST_STATUS )) != null )
+				op.setNewStatus( InstanceStatus.whichStatus( n.textValue()));
+
+			if(( n = node.get( OP_INSTANCE )) != null ) {
+				ObjectMapper mapper = createObjectMapper();
+				op.setInstance( mapper.readValue( n.toString(), Instance.class ));
+			}
+
+			return op;
+		}
+	}
+
+
+	/**
+	 * A JSon serializer for the results of instance operations.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public static class InstanceOperationResultSerializer extends JsonSerializer<InstanceOperationResult> {
+
+		@Override
+		public void serialize(
+				InstanceOperationResult result,
+				JsonGenerator generator,
+				SerializerProvider provider )
+		throws IOException {
+
+			generator.writeStartObject();
+			if( result.getInstancePath() != null )
+				generator.writeStringField( PATH, result.getInstancePath());
+
+			generator.writeBooleanField( OP_SUCCESS, result.isSuccess());
+			if( result.getMessage() != null )
+				generator.writeStringField( OP_MESSAGE, result.getMessage());
+
+			generator.writeEndObject();
+		}
+	}
+
+
+	/**
+	 * A JSon deserializer for the results of instance operations.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	public static class InstanceOperationResultDeserializer extends JsonDeserializer<InstanceOperationResult> {
+
+		@Override
+		public InstanceOperationResult deserialize( JsonParser parser, DeserializationContext context ) throws IOException {
+
+			ObjectCodec oc = parser.getCodec();
+			JsonNode node = oc.readTree( parser );
+			String path = null, message = null;
+			boolean success = false;
+
+			JsonNode n;
+			if(( n = node.get( PATH )) != null )
+				path = n.textValue();
+
+			if(( n = node.get( OP_SUCCESS )) != null )
+				success = n.asBoolean();
+
+			if(( n = node.get( OP_MESSAGE )) != null )
+				message = n.textValue();
+
+			return new InstanceOperationResult( path, success, message );
+		}
+	}
+
+
 	/**
 	 * A JSon serializer for target descriptors.
 	 * @author Vincent Zurczak - Linagora
@@ -1074,28 +1207,58 @@ public final class JSonBindingUtils {
 				SerializerProvider provider )
 		throws IOException {
 
-			generator.writeStartObject();
-			if( instance.getName() != null ) {
+			String path = instance.getName() == null ? null : InstanceHelpers.computeInstancePath( instance );
+			writeInstance( generator, instance, path, null );
+		}
+	}
+
+
+	/**
+	 * Writes an instance, possibly with only some of its fields.
+	 * <p>
+	 * This method is used by the instance serializer. It is also available
+	 * to stream instances without building intermediate collections.
+	 * </p>
+	 *
+	 * @param generator a JSon generator
+	 * @param instance an instance
+	 * @param instancePath the instance path (not null if the instance has a name)
+	 * @param fields the JSon fields to write (null to write all of them)
+	 * @throws IOException if something went wrong
+	 */
+	public static void writeInstance( JsonGenerator generator, Instance instance, String instancePath, Set<String> fields )
+	throws IOException {
+
+		generator.writeStartObject();
+		if( instance.getName() != null ) {
+			if( fields == null || fields.contains( NAME ))
 				generator.writeStringField( NAME, instance.getName());
-				generator.writeStringField( PATH, InstanceHelpers.computeInstancePath( instance ));
-			}
 
-			if( instance.getStatus() != null )
-				generator.writeStringField( INST_STATUS, String.valueOf( instance.getStatus()));
+			if( fields == null || fields.contains( PATH ))
+				generator.writeStringField( PATH, instancePath );
+		}
 
-			if( instance.getComponent() != null )
-				generator.writeObjectField( INST_COMPONENT, instance.getComponent());
+		if( instance.getStatus() != null
+				&& ( fields == null || fields.contains( INST_STATUS )))
+			generator.writeStringField( INST_STATUS, String.valueOf( instance.getStatus()));
 
-			if( ! instance.channels.isEmpty()) {
-				generator.writeArrayFieldStart( INST_CHANNELS );
-				for( String channel : instance.channels )
-					generator.writeString( channel );
+		if( instance.getComponent() != null
+				&& ( fields == null || fields.contains( INST_COMPONENT )))
+			generator.writeObjectField( INST_COMPONENT, instance.getComponent());
 
-				generator.writeEndArray();
-			}
+		if( ! instance.channels.isEmpty()
+				&& ( fields == null || fields.contains( INST_CHANNELS ))) {
+
+			generator.writeArrayFieldStart( INST_CHANNELS );
+			for( String channel : instance.channels )
+				generator.writeString( channel );
 
-			// All exports are serialized in the same object (overridden or not).
-			// Will be necessary in external apps, like web console (eg. to edit exports).
+			generator.writeEndArray();
+		}
+
+		// All exports are serialized in the same object (overridden or not).
+		// Will be necessary in external apps, like web console (eg. to edit exports).
+		if( fields == null || fields.contains( INST_EXPORTS )) {
 			Map<String, String> exports = InstanceHelpers.findAllExportedVariables(instance);
 			if( ! exports.isEmpty()) {
 				generator.writeFieldName( INST_EXPORTS );
@@ -1105,21 +1268,22 @@ public final class JSonBindingUtils {
 
 				generator.writeEndObject();
 			}
+		}
 
-			// Write some meta-data (useful for web clients).
-			// De-serializing this information is useless for the moment.
-			if( ! instance.data.isEmpty()) {
+		// Write some meta-data (useful for web clients).
+		// De-serializing this information is useless for the moment.
+		if( ! instance.data.isEmpty()
+				&& ( fields == null || fields.contains( INST_DATA ))) {
 
-				generator.writeFieldName( INST_DATA );
-				generator.writeStartObject();
-				for( Map.Entry<String,String> entry : instance.data.entrySet())
-					generator.writeObjectField( entry.getKey(), entry.getValue());
-
-				generator.writeEndObject();
-			}
+			generator.writeFieldName( INST_DATA );
+			generator.writeStartObject();
+			for( Map.Entry<String,String> entry : instance.data.entrySet())
+				generator.writeObjectField( entry.getKey(), entry.getValue());
 
 			generator.writeEndObject();
 		}
+
+		generator.writeEndObject();
 	}
 
 
@@ -26,11 +26,20 @@
 package net.roboconf.dm.rest.commons.security;
 
 import java.io.IOException;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.CallbackHandler;
 import javax.security.auth.callback.NameCallback;
@@ -39,6 +48,8 @@ import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.auth.login.LoginContext;
 import javax.security.auth.login.LoginException;
 
+import net.roboconf.core.utils.Utils;
+
 /**
  * A class in charge of managing authentication and sessions.
  * <p>
@@ -50,11 +61,20 @@ import javax.security.auth.login.LoginException;
  * <p>
  * When the authentication succeeds, a token is generated by this class
  * (a random UUID in fact). The token is stored by this class and associated
- * with the login time.
+ * with the login time and the user name.
  * </p>
  * <p>
  * Since sessions can be limited in time (depending on admin preferences),
- * we can verify on every action that the session is still valid.
+ * we can verify on every action that the session is still valid. Expired sessions
+ * are swept periodically (on login) and the number of sessions is bounded: when the limit
+ * is reached, the least recently used session is evicted.
+ * </p>
+ * <p>
+ * When a signing key is set, tokens are not stored anymore. They contain the user name and the
+ * login time, and they are signed with a HMAC. They can be validated without any shared state
+ * (e.g. by several DMs sharing the same key). Only tokens that were explicitly invalidated
+ * (logout) are remembered, until they expire. Since revoked tokens cannot be evicted, signed
+ * tokens are only used when sessions have a limited validity period.
  * </p>
  * <p>
  * To prevent "man in the middle" "attacks, authentication should be
@@ -65,12 +85,34 @@ import javax.security.auth.login.LoginException;
  */
 public class AuthenticationManager {
 
-	private final ConcurrentHashMap<String,Long> tokenToLoginTime = new ConcurrentHashMap<> ();
-	private final ConcurrentHashMap<String,String> tokenToUsername = new ConcurrentHashMap<> ();
+	public static final int DEFAULT_MAX_SESSIONS = 10000;
+	static final long SWEEP_PERIOD = 60000;
+	static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	// Mac instances are not thread-safe and expensive to look up
+	private static final ThreadLocal<Mac> MAC = new ThreadLocal<Mac>() {
+		@Override
+		protected Mac initialValue() {
+			try {
+				return Mac.getInstance( HMAC_ALGORITHM );
+
+			} catch( NoSuchAlgorithmException e ) {
+				// HmacSHA256 is available in every JVM
+				throw new IllegalStateException( e );
+			}
+		}
+	};
+
+	private final SessionStore sessions = new SessionStore( true );
+	private final SessionStore revokedTokens = new SessionStore( false );
 	private final Logger logger = Logger.getLogger( getClass().getName());
 	private final String realm;
 
 	private IAuthService authService;
+	private volatile SecretKeySpec signingKey;
+	private volatile long sessionPeriod = -1;
 
 
 
@@ -94,6 +136,52 @@ public class AuthenticationManager {
 	}
 
 
+	/**
+	 * Sets the validity period of sessions, used to sweep expired sessions.
+	 * @param sessionPeriod the validity period for a session (in seconds, < 0 for unbound)
+	 */
+	public void setSessionPeriod( long sessionPeriod ) {
+		this.sessionPeriod = sessionPeriod;
+		warnIfSigningIsIgnored();
+	}
+
+
+	/**
+	 * Sets the maximum number of sessions.
+	 * @param maxSessions the maximum number of sessions (a value < 1 means {@value #DEFAULT_MAX_SESSIONS})
+	 */
+	public void setMaxSessions( int maxSessions ) {
+
+		int max = maxSessions < 1 ? DEFAULT_MAX_SESSIONS : maxSessions;
+		this.sessions.setMaxSize( max );
+	}
+
+
+	/**
+	 * Sets the key used to sign tokens.
+	 * <p>
+	 * When set, tokens are signed and not stored anymore.
+	 * Sessions that were created before remain valid.
+	 * </p>
+	 * <p>
+	 * The key is ignored as long as the session period is not strictly positive.
+	 * Otherwise, signed tokens would never expire and revoked ones would have to be
+	 * remembered forever.
+	 * </p>
+	 *
+	 * @param signingKey a secret key (null or empty to store tokens in memory)
+	 */
+	public void setSigningKey( String signingKey ) {
+
+		if( Utils.isEmptyOrWhitespaces( signingKey ))
+			this.signingKey = null;
+		else
+			this.signingKey = new SecretKeySpec( signingKey.getBytes( StandardCharsets.UTF_8 ), HMAC_ALGORITHM );
+
+		warnIfSigningIsIgnored();
+	}
+
+
 	/**
 	 * Authenticates a user and creates a new session.
 	 * @param user a user name
@@ -106,10 +194,17 @@ public class AuthenticationManager {
 		try {
 			this.authService.authenticate( user, pwd );
 
-			token = UUID.randomUUID().toString();
-			Long now = new Date().getTime();
-			this.tokenToLoginTime.put( token, now );
-			this.tokenToUsername.put( token, user );
+			long now = System.currentTimeMillis();
+			SecretKeySpec key = findSigningKey();
+			if( key != null ) {
+				token = buildSignedToken( user, now, key );
+				this.revokedTokens.sweepIfNecessary( now, this.sessionPeriod );
+
+			} else {
+				token = UUID.randomUUID().toString();
+				this.sessions.sweepIfNecessary( now, this.sessionPeriod );
+				this.sessions.put( token, new Session( user, now ));
+			}
 
 		} catch( LoginException e ) {
 			this.logger.severe( "Invalid login attempt by user " + user );
@@ -128,20 +223,17 @@ public class AuthenticationManager {
 	public boolean isSessionValid( final String token, long validityPeriod ) {
 
 		boolean valid = false;
-		Long loginTime = null;
-		if( token != null )
-			loginTime = this.tokenToLoginTime.get( token );
-
+		Session session = findSession( token );
 		if( validityPeriod < 0 ) {
-			valid = loginTime != null;
+			valid = session != null;
 
-		} else if( loginTime != null ) {
-			long now = new Date().getTime();
-			valid = (now - loginTime) <= validityPeriod * 1000;
+		} else if( session != null ) {
+			long now = System.currentTimeMillis();
+			valid = (now - session.loginTime) <= validityPeriod * 1000;
 
 			// Invalid sessions should be deleted
 			if( ! valid )
-				logout( token );
+				this.sessions.remove( token );
 		}
 
 		return valid;
@@ -157,9 +249,13 @@ public class AuthenticationManager {
 	 * @param token a token (can be null)
 	 */
 	public void logout( String token ) {
-		if( token != null ) {
-			this.tokenToLoginTime.remove( token );
-			this.tokenToUsername.remove( token );
+
+		if( token != null && this.sessions.remove( token ) == null ) {
+
+			// Signed tokens are valid until they expire: remember them
+			Session session = findSignedSession( token );
+			if( session != null )
+				this.revokedTokens.put( token, session );
 		}
 	}
 
@@ -170,7 +266,265 @@ public class AuthenticationManager {
 	 * @return a user name, or null if the otken did not match anything
 	 */
 	public String findUsername( String token ) {
-		return token == null ? null : this.tokenToUsername.get( token );
+		Session session = findSession( token );
+		return session == null ? null : session.username;
+	}
+
+
+	/**
+	 * @return the number of sessions stored in memory (revoked tokens included)
+	 */
+	public int getStoredSessionsCount() {
+		return this.sessions.size() + this.revokedTokens.size();
+	}
+
+
+	/**
+	 * Finds the session associated with a token.
+	 * @param token a token (can be null)
+	 * @return a session, or null if the token is not valid
+	 */
+	private Session findSession( String token ) {
+
+		Session result = null;
+		if( token != null ) {
+			result = findSignedSession( token );
+			if( result == null )
+				result = this.sessions.get( token );
+			else if( this.revokedTokens.get( token ) != null )
+				result = null;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Verifies a signed token.
+	 * @param token a token (not null)
+	 * @return the session the token contains, or null if it is not a valid signed token
+	 */
+	private Session findSignedSession( String token ) {
+
+		Session result = null;
+		SecretKeySpec key = findSigningKey();
+		String[] parts = key == null ? null : token.split( "\\." );
+		if( parts != null && parts.length == 3 ) {
+			try {
+				String payload = parts[ 0 ] + "." + parts[ 1 ];
+				byte[] expected = sign( payload, key ).getBytes( StandardCharsets.UTF_8 );
+				byte[] actual = parts[ 2 ].getBytes( StandardCharsets.UTF_8 );
+
+				// Constant-time comparison
+				if( MessageDigest.isEqual( expected, actual )) {
+					String username = new String( fromHex( parts[ 1 ]), StandardCharsets.UTF_8 );
+					result = new Session( username, Long.parseLong( parts[ 0 ]));
+				}
+
+			} catch( IllegalArgumentException e ) {
+				// The token was not a signed one
+				this.logger.finest( "A token could not be parsed as a signed token." );
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * @return the key to sign tokens with, or null if tokens must not be signed
+	 */
+	private SecretKeySpec findSigningKey() {
+		return this.sessionPeriod > 0 ? this.signingKey : null;
+	}
+
+
+	private void warnIfSigningIsIgnored() {
+		if( this.signingKey != null && this.sessionPeriod <= 0 )
+			this.logger.warning( "Tokens are not signed because sessions do not expire. Set a session period to sign them." );
+	}
+
+
+	/**
+	 * Builds a signed token.
+	 * @param user a user name
+	 * @param loginTime the login time
+	 * @param key the signing key
+	 * @return a non-null token
+	 */
+	static String buildSignedToken( String user, long loginTime, SecretKeySpec key ) {
+		String payload = loginTime + "." + toHex( user.getBytes( StandardCharsets.UTF_8 ));
+		return payload + "." + sign( payload, key );
+	}
+
+
+	/**
+	 * Signs a payload.
+	 * @param payload a payload
+	 * @param key the signing key
+	 * @return the signature, as an hexadecimal string
+	 */
+	static String sign( String payload, SecretKeySpec key ) {
+
+		try {
+			Mac mac = MAC.get();
+			mac.init( key );
+			return toHex( mac.doFinal( payload.getBytes( StandardCharsets.UTF_8 )));
+
+		} catch( GeneralSecurityException e ) {
+			// The key is a HMAC one
+			throw new IllegalStateException( e );
+		}
+	}
+
+
+	static String toHex( byte[] bytes ) {
+
+		char[] result = new char[ bytes.length * 2 ];
+		for( int i = 0; i < bytes.length; i ++ ) {
+			result[ 2 * i ] = HEX[(bytes[ i ] >> 4) & 0x0F ];
+			result[ 2 * i + 1 ] = HEX[ bytes[ i ] & 0x0F ];
+		}
+
+		return new String( result );
+	}
+
+
+	static byte[] fromHex( String hex ) {
+
+		if( hex.length() % 2 != 0 )
+			throw new IllegalArgumentException( "Invalid hexadecimal string." );
+
+		byte[] result = new byte[ hex.length() / 2 ];
+		for( int i = 0; i < result.length; i ++ ) {
+			int high = Character.digit( hex.charAt( 2 * i ), 16 );
+			int low = Character.digit( hex.charAt( 2 * i + 1 ), 16 );
+			if( high < 0 || low < 0 )
+				throw new IllegalArgumentException( "Invalid hexadecimal string." );
+
+			result[ i ] = (byte) ((high << 4) + low);
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * A session.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static final class Session {
+		final String username;
+		final long loginTime;
+		volatile long lastAccess = System.nanoTime();
+
+
+		/**
+		 * Constructor.
+		 * @param username
+		 * @param loginTime
+		 */
+		Session( String username, long loginTime ) {
+			this.username = username;
+			this.loginTime = loginTime;
+		}
+	}
+
+
+	/**
+	 * A store of sessions, that can evict the least recently used ones.
+	 * <p>
+	 * It is read on every request, so it does not rely on any lock.
+	 * Eviction only happens when sessions are added, which is much less frequent.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static final class SessionStore {
+
+		private final ConcurrentMap<String,Session> tokenToSession = new ConcurrentHashMap<> ();
+		private final AtomicLong lastSweep = new AtomicLong( System.currentTimeMillis());
+		private final boolean bounded;
+		private volatile int maxSize = DEFAULT_MAX_SESSIONS;
+
+
+		/**
+		 * Constructor.
+		 * @param bounded true to evict the least recently used sessions beyond the maximum size
+		 */
+		SessionStore( boolean bounded ) {
+			this.bounded = bounded;
+		}
+
+
+		Session get( String token ) {
+
+			Session result = this.tokenToSession.get( token );
+			if( result != null )
+				result.lastAccess = System.nanoTime();
+
+			return result;
+		}
+
+
+		void put( String token, Session session ) {
+			this.tokenToSession.put( token, session );
+			evictIfNecessary();
+		}
+
+
+		Session remove( String token ) {
+			return this.tokenToSession.remove( token );
+		}
+
+
+		int size() {
+			return this.tokenToSession.size();
+		}
+
+
+		void setMaxSize( int maxSize ) {
+			this.maxSize = maxSize;
+			evictIfNecessary();
+		}
+
+
+		/**
+		 * Removes expired sessions, if it was not done recently.
+		 * @param now the current time
+		 * @param sessionPeriod the validity period for a session (in seconds, < 0 for unbound)
+		 */
+		void sweepIfNecessary( long now, long sessionPeriod ) {
+
+			long last = this.lastSweep.get();
+			if( sessionPeriod >= 0
+					&& now - last >= SWEEP_PERIOD
+					&& this.lastSweep.compareAndSet( last, now )) {
+
+				for( Iterator<Session> it = this.tokenToSession.values().iterator(); it.hasNext(); ) {
+					if( now - it.next().loginTime > sessionPeriod * 1000 )
+						it.remove();
+				}
+			}
+		}
+
+
+		/**
+		 * Evicts the least recently used sessions while the store is too big.
+		 */
+		private void evictIfNecessary() {
+
+			while( this.bounded && this.tokenToSession.size() > this.maxSize ) {
+				Map.Entry<String,Session> eldest = null;
+				for( Map.Entry<String,Session> entry : this.tokenToSession.entrySet()) {
+					if( eldest == null || entry.getValue().lastAccess - eldest.getValue().lastAccess < 0 )
+						eldest = entry;
+				}
+
+				if( eldest != null )
+					this.tokenToSession.remove( eldest.getKey(), eldest.getValue());
+			}
+		}
 	}
 
 
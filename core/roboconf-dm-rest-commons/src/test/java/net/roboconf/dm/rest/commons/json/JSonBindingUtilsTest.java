@@ -58,6 +58,9 @@ import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.model.runtime.CommandHistoryItem;
 import net.roboconf.core.model.runtime.EventType;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperation.OperationType;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.core.model.runtime.Preference;
 import net.roboconf.core.model.runtime.Preference.PreferenceKeyCategory;
 import net.roboconf.core.model.runtime.ScheduledJob;
@@ -1203,6 +1206,69 @@ public class JSonBindingUtilsTest {
 	}
 
 
+	@Test
+	public void testInstanceOperationBinding() throws Exception {
+
+		ObjectMapper mapper = JSonBindingUtils.createObjectMapper();
+
+		// Empty operation
+		StringWriter writer = new StringWriter();
+		mapper.writeValue( writer, new InstanceOperation());
+		Assert.assertEquals( "{}", writer.toString());
+
+		// Change state
+		final String result = "{\"type\":\"change_state\",\"path\":\"/vm/server\",\"status\":\"DEPLOYED_STARTED\"}";
+		writer = new StringWriter();
+		mapper.writeValue( writer, InstanceOperation.changeState( "/vm/server", InstanceStatus.DEPLOYED_STARTED ));
+		Assert.assertEquals( result, writer.toString());
+
+		InstanceOperation readOp = mapper.readValue( result, InstanceOperation.class );
+		Assert.assertEquals( OperationType.CHANGE_STATE, readOp.getType());
+		Assert.assertEquals( "/vm/server", readOp.getInstancePath());
+		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, readOp.getNewStatus());
+		Assert.assertNull( readOp.getInstance());
+
+		// Add
+		Instance inst = new Instance( "server" ).component( new Component( "tomcat" ));
+		writer = new StringWriter();
+		mapper.writeValue( writer, InstanceOperation.add( "/vm", inst ));
+
+		readOp = mapper.readValue( writer.toString(), InstanceOperation.class );
+		Assert.assertEquals( OperationType.ADD, readOp.getType());
+		Assert.assertEquals( "/vm", readOp.getInstancePath());
+		Assert.assertNull( readOp.getNewStatus());
+		Assert.assertNotNull( readOp.getInstance());
+		Assert.assertEquals( "server", readOp.getInstance().getName());
+		Assert.assertEquals( "tomcat", readOp.getInstance().getComponent().getName());
+	}
+
+
+	@Test
+	public void testInstanceOperationResultBinding() throws Exception {
+
+		ObjectMapper mapper = JSonBindingUtils.createObjectMapper();
+
+		final String result = "{\"path\":\"/vm\",\"success\":false,\"message\":\"oops\"}";
+		StringWriter writer = new StringWriter();
+		mapper.writeValue( writer, new InstanceOperationResult( "/vm", false, "oops" ));
+		Assert.assertEquals( result, writer.toString());
+
+		InstanceOperationResult readResult = mapper.readValue( result, InstanceOperationResult.class );
+		Assert.assertEquals( "/vm", readResult.getInstancePath());
+		Assert.assertFalse( readResult.isSuccess());
+		Assert.assertEquals( "oops", readResult.getMessage());
+
+		writer = new StringWriter();
+		mapper.writeValue( writer, new InstanceOperationResult( null, true, null ));
+		Assert.assertEquals( "{\"success\":true}", writer.toString());
+
+		readResult = mapper.readValue( writer.toString(), InstanceOperationResult.class );
+		Assert.assertNull( readResult.getInstancePath());
+		Assert.assertTrue( readResult.isSuccess());
+		Assert.assertNull( readResult.getMessage());
+	}
+
+
 	@Test
 	public void testScheduledJobBinding_1() throws Exception {
 
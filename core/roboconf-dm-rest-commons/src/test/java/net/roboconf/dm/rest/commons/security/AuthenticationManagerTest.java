@@ -25,6 +25,9 @@
 
 package net.roboconf.dm.rest.commons.security;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.LanguageCallback;
 import javax.security.auth.callback.NameCallback;
@@ -32,12 +35,16 @@ import javax.security.auth.callback.PasswordCallback;
 import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.auth.login.LoginException;
 
+import javax.crypto.spec.SecretKeySpec;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import net.roboconf.dm.rest.commons.security.AuthenticationManager.IAuthService;
 import net.roboconf.dm.rest.commons.security.AuthenticationManager.RoboconfCallbackHandler;
+import net.roboconf.dm.rest.commons.security.AuthenticationManager.Session;
+import net.roboconf.dm.rest.commons.security.AuthenticationManager.SessionStore;
 
 /**
  * @author Vincent Zurczak - Linagora
@@ -136,4 +143,205 @@ public class AuthenticationManagerTest {
 				new LanguageCallback()
 		});
 	}
+
+
+	@Test
+	public void testMaxSessions_lruEviction() {
+
+		AuthenticationManager mngr = new AuthenticationManager( "realm" );
+		mngr.setAuthService( Mockito.mock( IAuthService.class ));
+		mngr.setMaxSessions( 2 );
+
+		String token1 = mngr.login( "me", "my password" );
+		String token2 = mngr.login( "me", "my password" );
+
+		// Token 1 is now more recent than token 2
+		Assert.assertTrue( mngr.isSessionValid( token1, -1 ));
+		String token3 = mngr.login( "me", "my password" );
+
+		Assert.assertEquals( 2, mngr.getStoredSessionsCount());
+		Assert.assertTrue( mngr.isSessionValid( token1, -1 ));
+		Assert.assertFalse( mngr.isSessionValid( token2, -1 ));
+		Assert.assertTrue( mngr.isSessionValid( token3, -1 ));
+
+		// Reducing the limit evicts sessions immediately
+		mngr.setMaxSessions( 1 );
+		Assert.assertEquals( 1, mngr.getStoredSessionsCount());
+		Assert.assertTrue( mngr.isSessionValid( token3, -1 ));
+
+		// Invalid values mean the default limit
+		mngr.setMaxSessions( 0 );
+		for( int i = 0; i < 10; i ++ )
+			mngr.login( "me", "my password" );
+
+		Assert.assertEquals( 11, mngr.getStoredSessionsCount());
+	}
+
+
+	@Test
+	public void testSessionStore_sweep() {
+
+		SessionStore store = new SessionStore( true );
+		long now = System.currentTimeMillis();
+		store.put( "old", new Session( "me", now - 10000 ));
+		store.put( "new", new Session( "me", now ));
+
+		// Too early
+		store.sweepIfNecessary( now, 5 );
+		Assert.assertEquals( 2, store.size());
+
+		// Unbound sessions are never swept
+		store.sweepIfNecessary( now + AuthenticationManager.SWEEP_PERIOD, -1 );
+		Assert.assertEquals( 2, store.size());
+
+		// Expired sessions are removed
+		store.sweepIfNecessary( now + AuthenticationManager.SWEEP_PERIOD, 65 );
+		Assert.assertEquals( 1, store.size());
+		Assert.assertNotNull( store.get( "new" ));
+		Assert.assertNull( store.get( "old" ));
+	}
+
+
+	@Test
+	public void testSignedTokens() {
+
+		AuthenticationManager mngr = new AuthenticationManager( "realm" );
+		mngr.setAuthService( Mockito.mock( IAuthService.class ));
+		mngr.setSessionPeriod( 3600 );
+		mngr.setSigningKey( "my secret" );
+
+		String token = mngr.login( "me, myself", "my password" );
+		Assert.assertNotNull( token );
+		Assert.assertEquals( 0, mngr.getStoredSessionsCount());
+		Assert.assertTrue( mngr.isSessionValid( token, 10 ));
+		Assert.assertTrue( mngr.isSessionValid( token, -1 ));
+		Assert.assertEquals( "me, myself", mngr.findUsername( token ));
+
+		// Another manager with the same key validates it
+		AuthenticationManager otherMngr = new AuthenticationManager( "realm" );
+		otherMngr.setSessionPeriod( 3600 );
+		otherMngr.setSigningKey( "my secret" );
+		Assert.assertTrue( otherMngr.isSessionValid( token, 10 ));
+		Assert.assertEquals( "me, myself", otherMngr.findUsername( token ));
+
+		// Not with another key, or without key
+		otherMngr.setSigningKey( "another secret" );
+		Assert.assertFalse( otherMngr.isSessionValid( token, 10 ));
+		otherMngr.setSigningKey( "" );
+		Assert.assertFalse( otherMngr.isSessionValid( token, 10 ));
+
+		// Tampered tokens are rejected
+		String[] parts = token.split( "\\." );
+		String tampered = parts[ 0 ] + "." + AuthenticationManager.toHex( "admin".getBytes()) + "." + parts[ 2 ];
+		Assert.assertFalse( mngr.isSessionValid( tampered, -1 ));
+		Assert.assertNull( mngr.findUsername( tampered ));
+		Assert.assertFalse( mngr.isSessionValid( "1.zz." + parts[ 2 ], -1 ));
+		Assert.assertFalse( mngr.isSessionValid( "a.b", -1 ));
+
+		// Logout revokes the token
+		mngr.logout( token );
+		Assert.assertEquals( 1, mngr.getStoredSessionsCount());
+		Assert.assertFalse( mngr.isSessionValid( token, -1 ));
+		Assert.assertNull( mngr.findUsername( token ));
+	}
+
+
+	@Test
+	public void testSignedTokens_expired() {
+
+		SecretKeySpec key = new SecretKeySpec( "my secret".getBytes(), AuthenticationManager.HMAC_ALGORITHM );
+		String token = AuthenticationManager.buildSignedToken( "me", System.currentTimeMillis() - 20000, key );
+
+		AuthenticationManager mngr = new AuthenticationManager( "realm" );
+		mngr.setSessionPeriod( 3600 );
+		mngr.setSigningKey( "my secret" );
+		Assert.assertTrue( mngr.isSessionValid( token, 30 ));
+		Assert.assertFalse( mngr.isSessionValid( token, 10 ));
+	}
+
+
+	@Test
+	public void testSignedTokens_notWithUnboundSessions() {
+
+		AuthenticationManager mngr = new AuthenticationManager( "realm" );
+		mngr.setAuthService( Mockito.mock( IAuthService.class ));
+		mngr.setSigningKey( "my secret" );
+
+		// Sessions never expire: tokens are stored
+		String token = mngr.login( "me", "my password" );
+		Assert.assertEquals( 1, token.split( "\\." ).length );
+		Assert.assertEquals( 1, mngr.getStoredSessionsCount());
+
+		// Signed tokens are not accepted either
+		SecretKeySpec key = new SecretKeySpec( "my secret".getBytes(), AuthenticationManager.HMAC_ALGORITHM );
+		String signedToken = AuthenticationManager.buildSignedToken( "me", System.currentTimeMillis(), key );
+		Assert.assertFalse( mngr.isSessionValid( signedToken, -1 ));
+
+		mngr.setSessionPeriod( 0 );
+		Assert.assertFalse( mngr.isSessionValid( signedToken, -1 ));
+
+		mngr.setSessionPeriod( 10 );
+		Assert.assertTrue( mngr.isSessionValid( signedToken, -1 ));
+	}
+
+
+	@Test
+	public void testSignedTokens_revocationsAreNotEvicted() {
+
+		AuthenticationManager mngr = new AuthenticationManager( "realm" );
+		mngr.setAuthService( Mockito.mock( IAuthService.class ));
+		mngr.setSessionPeriod( 3600 );
+		mngr.setSigningKey( "my secret" );
+		mngr.setMaxSessions( 2 );
+
+		List<String> tokens = new ArrayList<> ();
+		for( int i = 0; i < 5; i ++ ) {
+			String token = mngr.login( "me" + i, "my password" );
+			tokens.add( token );
+			mngr.logout( token );
+		}
+
+		Assert.assertEquals( 5, mngr.getStoredSessionsCount());
+		for( String token : tokens )
+			Assert.assertFalse( mngr.isSessionValid( token, -1 ));
+	}
+
+
+	@Test
+	public void testSignedTokens_previousSessionsRemainValid() {
+
+		AuthenticationManager mngr = new AuthenticationManager( "realm" );
+		mngr.setAuthService( Mockito.mock( IAuthService.class ));
+		mngr.setSessionPeriod( 3600 );
+		String token = mngr.login( "me", "my password" );
+
+		mngr.setSigningKey( "my secret" );
+		Assert.assertTrue( mngr.isSessionValid( token, -1 ));
+
+		mngr.logout( token );
+		Assert.assertFalse( mngr.isSessionValid( token, -1 ));
+		Assert.assertEquals( 0, mngr.getStoredSessionsCount());
+	}
+
+
+	@Test
+	public void testHexConversions() {
+
+		byte[] bytes = { 0, 1, -1, 16, 127, -128 };
+		String hex = AuthenticationManager.toHex( bytes );
+		Assert.assertEquals( "0001ff107f80", hex );
+		Assert.assertArrayEquals( bytes, AuthenticationManager.fromHex( hex ));
+	}
+
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testHexConversions_oddLength() {
+		AuthenticationManager.fromHex( "abc" );
+	}
+
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testHexConversions_invalidCharacter() {
+		AuthenticationManager.fromHex( "zz" );
+	}
 }
@@ -25,7 +25,9 @@
 
 package net.roboconf.dm.rest.services.internal;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.ops4j.pax.url.mvn.MavenResolver;
@@ -36,6 +38,8 @@ import com.sun.jersey.api.core.ResourceConfig;
 import net.roboconf.dm.management.Manager;
 import net.roboconf.dm.rest.commons.security.AuthenticationManager;
 import net.roboconf.dm.rest.services.cors.ResponseCorsFilter;
+import net.roboconf.dm.rest.services.internal.filters.GzipResponseFilter;
+import net.roboconf.dm.rest.services.internal.filters.ModelVersionFilter;
 import net.roboconf.dm.rest.services.internal.resources.IApplicationResource;
 import net.roboconf.dm.rest.services.internal.resources.IDebugResource;
 import net.roboconf.dm.rest.services.internal.resources.IHistoryResource;
@@ -65,6 +69,8 @@ public class RestApplication extends DefaultResourceConfig {
 	private final ManagementResource managementResource;
 	private final SchedulerResource schedulerResource;
 	private final AuthenticationResource authenticationResource;
+	private final ModelVersionFilter modelVersionFilter;
+	private final GzipResponseFilter gzipResponseFilter;
 
 
 	/**
@@ -82,9 +88,17 @@ public class RestApplication extends DefaultResourceConfig {
 		this.schedulerResource = new SchedulerResource( manager );
 		this.authenticationResource = new AuthenticationResource( manager );
 		this.historyResource = new HistoryResource( manager );
+		this.modelVersionFilter = new ModelVersionFilter( manager );
+		this.gzipResponseFilter = new GzipResponseFilter();
 
 		getFeatures().put( "com.sun.jersey.api.json.POJOMappingFeature", Boolean.TRUE );
 		getFeatures().put( ResourceConfig.FEATURE_DISABLE_WADL, Boolean.TRUE );
+
+		// Conditional GETs and compression (filters can be given as instances)
+		List<Object> requestFilters = new ArrayList<> ();
+		requestFilters.add( this.modelVersionFilter );
+		getProperties().put( ResourceConfig.PROPERTY_CONTAINER_REQUEST_FILTERS, requestFilters );
+		enableCors( false );
 	}
 
 
@@ -168,9 +182,12 @@ public class RestApplication extends DefaultResourceConfig {
 	 */
 	public void enableCors( boolean enableCors ) {
 
+		List<Object> responseFilters = new ArrayList<> ();
+		responseFilters.add( this.modelVersionFilter );
+		responseFilters.add( this.gzipResponseFilter );
 		if( enableCors )
-			getProperties().put( ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS, ResponseCorsFilter.class.getName());
-		else
-			getProperties().remove( ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS );
+			responseFilters.add( ResponseCorsFilter.class.getName());
+
+		getProperties().put( ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS, responseFilters );
 	}
 }
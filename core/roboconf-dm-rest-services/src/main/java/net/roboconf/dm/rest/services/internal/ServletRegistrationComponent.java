@@ -44,6 +44,7 @@ import net.roboconf.dm.management.Manager;
 import net.roboconf.dm.rest.commons.security.AuthenticationManager;
 import net.roboconf.dm.rest.services.internal.filters.AuthenticationFilter;
 import net.roboconf.dm.rest.services.internal.icons.IconServlet;
+import net.roboconf.dm.rest.services.internal.metrics.MetricsServlet;
 import net.roboconf.dm.rest.services.internal.websocket.RoboconfWebSocketServlet;
 import net.roboconf.dm.rest.services.internal.websocket.WebSocketHandler;
 import net.roboconf.dm.rest.services.jmx.RestServicesMBean;
@@ -64,6 +65,7 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 	public static final String REST_CONTEXT = "/roboconf-dm";
 	public static final String WEBSOCKET_CONTEXT = "/roboconf-dm-websocket";
 	static final String ICONS_CONTEXT = "/roboconf-icons";
+	public static final String METRICS_CONTEXT = "/roboconf-metrics";
 
 	// Injected by iPojo
 	private HttpService httpService;
@@ -74,6 +76,11 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 	private boolean enableCors = false;
 	private boolean enableAuthentication = false;
 	private long sessionPeriod;
+	private int sessionMaxCount = AuthenticationManager.DEFAULT_MAX_SESSIONS;
+	private String sessionSigningKey;
+	private int rateLimit, rateLimitBurst, maxConcurrentExpensiveRequests;
+	private boolean metricsAnonymousAccess = false;
+	private String metricsScrapeToken;
 
 	// Internal fields
 	private final Logger logger = Logger.getLogger( getClass().getName());
@@ -106,7 +113,7 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 	 * @throws Exception in case of critical error
 	 */
 	public void starting() throws Exception {
-		this.logger.fine( "iPojo registers REST and icons servlets related to Roboconf's DM." );
+		this.logger.fine( "iPojo registers REST, icons and metrics servlets related to Roboconf's DM." );
 
 		// Create the REST application with its resources.
 		// The scheduler may be null, it is optional.
@@ -129,6 +136,13 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 		IconServlet iconServlet = new IconServlet( this.manager );
 		this.httpService.registerServlet( ICONS_CONTEXT, iconServlet, initParams, null );
 
+		// Deal with the metrics servlet
+		initParams = new Hashtable<> ();
+		initParams.put( "servlet-name", "Roboconf DM (metrics)" );
+
+		MetricsServlet metricsServlet = new MetricsServlet();
+		this.httpService.registerServlet( METRICS_CONTEXT, metricsServlet, initParams, null );
+
 		// Register the web socket
 		initParams = new Hashtable<> ();
 		initParams.put( "servlet-name", "Roboconf DM (websocket)" );
@@ -142,6 +156,11 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 		this.authenticationFilter.setAuthenticationManager( this.authenticationMngr );
 		this.authenticationFilter.setSessionPeriod( this.sessionPeriod );
 		this.authenticationFilter.setEnableCors( this.enableCors );
+		this.authenticationFilter.setRateLimit( this.rateLimit );
+		this.authenticationFilter.setRateLimitBurst( this.rateLimitBurst );
+		this.authenticationFilter.setMaxConcurrentExpensiveRequests( this.maxConcurrentExpensiveRequests );
+		this.authenticationFilter.setMetricsAnonymousAccess( this.metricsAnonymousAccess );
+		this.authenticationFilter.setMetricsScrapeToken( this.metricsScrapeToken );
 
 		initParams = new Hashtable<> ();
 		initParams.put( "urlPatterns", "*" );
@@ -164,11 +183,15 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 		if( this.filterServiceRegistration != null )
 			this.filterServiceRegistration.unregister();
 
+		if( this.authenticationFilter != null )
+			this.authenticationFilter.destroy();
+
 		// Update the HTTP service
-		this.logger.fine( "iPojo unregisters REST and icons servlets related to Roboconf's DM." );
+		this.logger.fine( "iPojo unregisters REST, icons and metrics servlets related to Roboconf's DM." );
 		if( this.httpService != null ) {
 			this.httpService.unregister( REST_CONTEXT );
 			this.httpService.unregister( ICONS_CONTEXT );
+			this.httpService.unregister( METRICS_CONTEXT );
 			this.httpService.unregister( WEBSOCKET_CONTEXT );
 
 		} else {
@@ -299,6 +322,9 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 		// changing the realm will invalidate all the current sessions
 		this.logger.fine( "New authentication realm: " + authenticationRealm );
 		this.authenticationMngr = new AuthenticationManager( authenticationRealm );
+		this.authenticationMngr.setSessionPeriod( this.sessionPeriod );
+		this.authenticationMngr.setMaxSessions( this.sessionMaxCount );
+		this.authenticationMngr.setSigningKey( this.sessionSigningKey );
 
 		// Propagate the change
 		if( this.authenticationFilter != null )
@@ -319,6 +345,102 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 
 		if( this.authenticationFilter != null )
 			this.authenticationFilter.setSessionPeriod( sessionPeriod );
+
+		if( this.authenticationMngr != null )
+			this.authenticationMngr.setSessionPeriod( sessionPeriod );
+	}
+
+
+	/**
+	 * @param sessionMaxCount the maximum number of sessions kept in memory
+	 */
+	public void setSessionMaxCount( int sessionMaxCount ) {
+
+		this.logger.fine( "New maximum number of sessions: " + sessionMaxCount );
+		this.sessionMaxCount = sessionMaxCount;
+
+		if( this.authenticationMngr != null )
+			this.authenticationMngr.setMaxSessions( sessionMaxCount );
+	}
+
+
+	/**
+	 * @param sessionSigningKey the key used to sign session tokens (null or empty to store them in memory)
+	 */
+	public void setSessionSigningKey( String sessionSigningKey ) {
+
+		// Do not log the key itself
+		this.logger.fine( "Session tokens are now " + (Utils.isEmptyOrWhitespaces( sessionSigningKey ) ? "stored in memory." : "signed." ));
+		this.sessionSigningKey = sessionSigningKey;
+
+		if( this.authenticationMngr != null )
+			this.authenticationMngr.setSigningKey( sessionSigningKey );
+	}
+
+
+	/**
+	 * @param rateLimit the number of REST requests allowed per second and per client (0 or less to disable it)
+	 */
+	public void setRateLimit( int rateLimit ) {
+
+		this.logger.fine( "New rate limit for REST requests: " + rateLimit + " per second and per client." );
+		this.rateLimit = rateLimit;
+
+		if( this.authenticationFilter != null )
+			this.authenticationFilter.setRateLimit( rateLimit );
+	}
+
+
+	/**
+	 * @param rateLimitBurst the maximum number of REST requests a client can send at once
+	 */
+	public void setRateLimitBurst( int rateLimitBurst ) {
+
+		this.logger.fine( "New burst for REST requests: " + rateLimitBurst );
+		this.rateLimitBurst = rateLimitBurst;
+
+		if( this.authenticationFilter != null )
+			this.authenticationFilter.setRateLimitBurst( rateLimitBurst );
+	}
+
+
+	/**
+	 * @param maxConcurrentExpensiveRequests the maximum number of expensive REST requests that can run concurrently
+	 */
+	public void setMaxConcurrentExpensiveRequests( int maxConcurrentExpensiveRequests ) {
+
+		this.logger.fine( "New maximum number of concurrent expensive REST requests: " + maxConcurrentExpensiveRequests );
+		this.maxConcurrentExpensiveRequests = maxConcurrentExpensiveRequests;
+
+		if( this.authenticationFilter != null )
+			this.authenticationFilter.setMaxConcurrentExpensiveRequests( maxConcurrentExpensiveRequests );
+	}
+
+
+	/**
+	 * @param metricsAnonymousAccess true to let anyone scrape the metrics servlet without credentials
+	 */
+	public void setMetricsAnonymousAccess( boolean metricsAnonymousAccess ) {
+
+		this.logger.fine( "Anonymous access to metrics is now " + (metricsAnonymousAccess ? "enabled" : "disabled") + "." );
+		this.metricsAnonymousAccess = metricsAnonymousAccess;
+
+		if( this.authenticationFilter != null )
+			this.authenticationFilter.setMetricsAnonymousAccess( metricsAnonymousAccess );
+	}
+
+
+	/**
+	 * @param metricsScrapeToken a token monitoring tools can use to scrape metrics (null or empty to disable it)
+	 */
+	public void setMetricsScrapeToken( String metricsScrapeToken ) {
+
+		// Do not log the token itself
+		this.logger.fine( "Scrape token for metrics is now " + (Utils.isEmptyOrWhitespaces( metricsScrapeToken ) ? "disabled." : "set." ));
+		this.metricsScrapeToken = metricsScrapeToken;
+
+		if( this.authenticationFilter != null )
+			this.authenticationFilter.setMetricsScrapeToken( metricsScrapeToken );
 	}
 
 
@@ -346,6 +468,9 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 
 	public final AtomicLong restRequestsCount = new AtomicLong();
 	public final AtomicLong restRequestsWithAuthFailureCount = new AtomicLong();
+	public final AtomicLong auditRecordsDroppedCount = new AtomicLong();
+	public final AtomicLong rateLimitedRequestsCount = new AtomicLong();
+	public final AtomicLong concurrencyLimitedRequestsCount = new AtomicLong();
 
 	// Web socket handlers are not created by us directly.
 	// Static access is the most simple solution.
@@ -370,6 +495,32 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 	}
 
 
+	@Override
+	public long getAuditRecordsDroppedCount() {
+		return this.auditRecordsDroppedCount.get();
+	}
+
+
+	@Override
+	public long getRateLimitedRequestsCount() {
+		return this.rateLimitedRequestsCount.get();
+	}
+
+
+	@Override
+	public long getConcurrencyLimitedRequestsCount() {
+		return this.concurrencyLimitedRequestsCount.get();
+	}
+
+
+	@Override
+	public int getCurrentExpensiveRequestsCount() {
+
+		AuthenticationFilter filter = this.authenticationFilter;
+		return filter == null ? 0 : filter.getAdmissionController().getRunningExpensiveRequestsCount();
+	}
+
+
 	@Override
 	public long getRestRequestsCount() {
 		return this.restRequestsCount.get();
@@ -392,6 +543,9 @@ public class ServletRegistrationComponent implements RestServicesMBean {
 	public void reset() {
 		this.restRequestsCount.set( 0 );
 		this.restRequestsWithAuthFailureCount.set( 0 );
+		this.auditRecordsDroppedCount.set( 0 );
+		this.rateLimitedRequestsCount.set( 0 );
+		this.concurrencyLimitedRequestsCount.set( 0 );
 		WS_CONNECTION_ERRORS_COUNT.set( 0 );
 	}
 }
@@ -0,0 +1,325 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.admission;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether REST requests can be processed, so that abusive clients cannot saturate the DM.
+ * <p>
+ * Two mechanisms are available, and both are disabled by default.
+ * </p>
+ * <ul>
+ * <li>Rate limiting: every client (session or IP address) is associated with a token bucket.
+ * A request consumes a token. Buckets are refilled at a constant rate, and they can hold
+ * a given number of tokens, which allows short bursts.</li>
+ * <li>Concurrency limiting: the number of expensive operations that run at the same time
+ * is capped. Requests beyond this limit are rejected immediately, they do not wait.</li>
+ * </ul>
+ * <p>
+ * The number of buckets kept in memory is bounded. When it is reached, full buckets
+ * are dropped first: their clients have been idle long enough for a new bucket to be the same.
+ * If there are still too many buckets, arbitrary ones are dropped until only 90% of the limit
+ * remains, so that this does not happen for every new client. Clients whose bucket was
+ * dropped start with a full bucket.
+ * </p>
+ * <p>
+ * Requests are never serialized by this class: only the bucket of the client is locked.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class AdmissionController {
+
+	public static final int DEFAULT_MAX_CLIENTS = 10000;
+
+	/**
+	 * The delay (in seconds) suggested to clients whose expensive requests were rejected.
+	 */
+	public static final long EXPENSIVE_RETRY_AFTER = 1;
+
+	private final AtomicLong rateLimitedCount;
+	private final AtomicLong concurrencyLimitedCount;
+	private final AtomicInteger runningExpensiveRequestsCount = new AtomicInteger();
+	private final ConcurrentMap<String,TokenBucket> clientToBucket = new ConcurrentHashMap<> ();
+	private final AtomicBoolean evicting = new AtomicBoolean( false );
+
+	private volatile int rateLimit, rateLimitBurst, maxConcurrentExpensiveRequests;
+
+
+	/**
+	 * Constructor.
+	 * @param rateLimitedCount a counter to increment when requests are rejected by the rate limit
+	 * @param concurrencyLimitedCount a counter to increment when expensive requests are rejected
+	 */
+	public AdmissionController( AtomicLong rateLimitedCount, AtomicLong concurrencyLimitedCount ) {
+		this.rateLimitedCount = rateLimitedCount;
+		this.concurrencyLimitedCount = concurrencyLimitedCount;
+	}
+
+
+	/**
+	 * @return true if requests are rate-limited
+	 */
+	public boolean isRateLimitEnabled() {
+		return this.rateLimit > 0;
+	}
+
+
+	/**
+	 * Tries to consume a token for a client.
+	 * @param clientKey a key that identifies the client (session or IP address)
+	 * @return 0 if the request can be processed, or the number of seconds after which the client should retry
+	 */
+	public long acquireToken( String clientKey ) {
+		return acquireToken( clientKey, System.nanoTime());
+	}
+
+
+	/**
+	 * Tries to consume a token for a client.
+	 * @param clientKey a key that identifies the client (session or IP address)
+	 * @param nowInNanos the current instant, obtained with {@link System#nanoTime()}
+	 * @return 0 if the request can be processed, or the number of seconds after which the client should retry
+	 */
+	long acquireToken( String clientKey, long nowInNanos ) {
+
+		long result = 0;
+		int rate = this.rateLimit;
+		if( rate > 0 ) {
+
+			// The bucket can at least hold one second of requests
+			int capacity = Math.max( rate, this.rateLimitBurst );
+
+			// Only the client's bucket is locked
+			TokenBucket bucket = this.clientToBucket.get( clientKey );
+			if( bucket == null ) {
+				evictIfNecessary( rate, capacity, nowInNanos );
+				TokenBucket newBucket = new TokenBucket( capacity, nowInNanos );
+				bucket = this.clientToBucket.putIfAbsent( clientKey, newBucket );
+				if( bucket == null )
+					bucket = newBucket;
+			}
+
+			synchronized( bucket ) {
+				result = bucket.tryConsume( rate, capacity, nowInNanos );
+			}
+
+			if( result > 0 )
+				this.rateLimitedCount.incrementAndGet();
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Tries to start an expensive request.
+	 * <p>
+	 * If this method returns true, {@link #leaveExpensiveRequest()} must be invoked
+	 * once the request has been processed.
+	 * </p>
+	 *
+	 * @return true if the request can be processed, false if too many expensive requests are running
+	 */
+	public boolean enterExpensiveRequest() {
+
+		boolean result;
+		for( ;; ) {
+			int current = this.runningExpensiveRequestsCount.get();
+			int max = this.maxConcurrentExpensiveRequests;
+			if( max > 0 && current >= max ) {
+				result = false;
+				break;
+			}
+
+			if( this.runningExpensiveRequestsCount.compareAndSet( current, current + 1 )) {
+				result = true;
+				break;
+			}
+		}
+
+		if( ! result )
+			this.concurrencyLimitedCount.incrementAndGet();
+
+		return result;
+	}
+
+
+	/**
+	 * Indicates an expensive request has been processed.
+	 */
+	public void leaveExpensiveRequest() {
+		this.runningExpensiveRequestsCount.decrementAndGet();
+	}
+
+
+	/**
+	 * @return the number of expensive requests being processed
+	 */
+	public int getRunningExpensiveRequestsCount() {
+		return this.runningExpensiveRequestsCount.get();
+	}
+
+
+	/**
+	 * @return the number of clients whose bucket is kept in memory
+	 */
+	int getClientsCount() {
+		return this.clientToBucket.size();
+	}
+
+
+	/**
+	 * Drops buckets if there is no room for a new one.
+	 * <p>
+	 * Only one thread at a time does it. Others do not wait.
+	 * </p>
+	 *
+	 * @param rate the number of tokens added per second
+	 * @param capacity the maximum number of tokens
+	 * @param nowInNanos the current instant
+	 */
+	private void evictIfNecessary( int rate, int capacity, long nowInNanos ) {
+
+		if( this.clientToBucket.size() >= DEFAULT_MAX_CLIENTS
+				&& this.evicting.compareAndSet( false, true )) {
+
+			try {
+				// Full buckets first
+				for( Iterator<TokenBucket> it = this.clientToBucket.values().iterator(); it.hasNext(); ) {
+					TokenBucket bucket = it.next();
+					synchronized( bucket ) {
+						if( bucket.isFull( rate, capacity, nowInNanos ))
+							it.remove();
+					}
+				}
+
+				// Then, any bucket
+				int excess = this.clientToBucket.size() - DEFAULT_MAX_CLIENTS / 10 * 9;
+				for( Iterator<String> it = this.clientToBucket.keySet().iterator(); excess > 0 && it.hasNext(); excess -- ) {
+					it.next();
+					it.remove();
+				}
+
+			} finally {
+				this.evicting.set( false );
+			}
+		}
+	}
+
+
+	/**
+	 * @param rateLimit the number of requests allowed per second and per client (0 or less to disable rate limiting)
+	 */
+	public void setRateLimit( int rateLimit ) {
+		this.rateLimit = rateLimit;
+	}
+
+
+	/**
+	 * @param rateLimitBurst the maximum number of requests a client can send at once (at least the rate limit)
+	 */
+	public void setRateLimitBurst( int rateLimitBurst ) {
+		this.rateLimitBurst = rateLimitBurst;
+	}
+
+
+	/**
+	 * @param maxConcurrentExpensiveRequests the maximum number of expensive requests that can run concurrently
+	 * (0 or less for no limit)
+	 */
+	public void setMaxConcurrentExpensiveRequests( int maxConcurrentExpensiveRequests ) {
+		this.maxConcurrentExpensiveRequests = maxConcurrentExpensiveRequests;
+	}
+
+
+	/**
+	 * A token bucket.
+	 * <p>
+	 * Accesses must be synchronized on the bucket.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static class TokenBucket {
+
+		double tokens;
+		long lastRefill;
+
+
+		/**
+		 * Constructor.
+		 * @param capacity
+		 * @param nowInNanos
+		 */
+		TokenBucket( int capacity, long nowInNanos ) {
+			this.tokens = capacity;
+			this.lastRefill = nowInNanos;
+		}
+
+
+		/**
+		 * Determines whether the bucket would be full after a refill.
+		 * @param rate the number of tokens added per second
+		 * @param capacity the maximum number of tokens
+		 * @param nowInNanos the current instant
+		 * @return true if the bucket is full, false otherwise
+		 */
+		boolean isFull( int rate, int capacity, long nowInNanos ) {
+			double elapsedSeconds = Math.max( 0, nowInNanos - this.lastRefill ) / 1000000000d;
+			return this.tokens + elapsedSeconds * rate >= capacity;
+		}
+
+
+		/**
+		 * Refills the bucket and tries to consume a token.
+		 * @param rate the number of tokens added per second
+		 * @param capacity the maximum number of tokens
+		 * @param nowInNanos the current instant
+		 * @return 0 if a token was consumed, or the number of seconds before a token is available
+		 */
+		long tryConsume( int rate, int capacity, long nowInNanos ) {
+
+			double elapsedSeconds = Math.max( 0, nowInNanos - this.lastRefill ) / 1000000000d;
+			this.tokens = Math.min( capacity, this.tokens + elapsedSeconds * rate );
+			this.lastRefill = nowInNanos;
+
+			long result = 0;
+			if( this.tokens >= 1 )
+				this.tokens --;
+			else
+				result = Math.max( 1, (long) Math.ceil(( 1 - this.tokens ) / rate ));
+
+			return result;
+		}
+	}
+}
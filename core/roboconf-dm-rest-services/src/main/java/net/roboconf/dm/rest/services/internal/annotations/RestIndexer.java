@@ -29,6 +29,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -41,11 +42,20 @@ import javax.ws.rs.Path;
 import net.roboconf.dm.rest.services.internal.RestApplication;
 
 /**
+ * An index of the REST operations, used for audit and permissions checking.
+ * <p>
+ * Beside the list of operations, URL patterns are organized as a tree of path
+ * segments, one per REST verb. Finding the operation associated with a request
+ * does not involve any regular expression: it only walks through the segments
+ * of the requested path. Literal segments are preferred over path parameters.
+ * </p>
+ *
  * @author Vincent Zurczak - Linagora
  */
 public class RestIndexer {
 
 	public final List<RestOperationBean> restMethods = new ArrayList<> ();
+	private final Map<String,RouteNode> verbToRoutes = new HashMap<> ();
 	private final Logger logger = Logger.getLogger( getClass().getName());
 
 
@@ -89,14 +99,20 @@ public class RestIndexer {
 				if( m.isAnnotationPresent( Path.class )) {
 					Path pathAnnotation = m.getAnnotation( Path.class );
 					subPath = pathAnnotation.value();
+
+					// Jersey inserts a slash between both paths when necessary
+					if( ! subPath.startsWith( "/" ) && ! basePath.endsWith( "/" ))
+						subPath = "/" + subPath;
 				}
 
 				RestOperationBean restOperationBean = new RestOperationBean();
 				restOperationBean.methodName = m.getName();
 				restOperationBean.restVerb = restVerb;
 				restOperationBean.jerseyPath = basePath + subPath;
+				restOperationBean.expensive = m.isAnnotationPresent( Expensive.class );
 				restOperationBean.urlPattern = restOperationBean.jerseyPath.replaceAll( "\\{[^}]+\\}", "[^/]+" );
 				this.restMethods.add( restOperationBean );
+				register( restOperationBean );
 
 				// Duplicate URL patterns?
 				String key = restVerb + "_" + restOperationBean.urlPattern;
@@ -121,11 +137,116 @@ public class RestIndexer {
 	}
 
 
+	/**
+	 * Finds the REST operation associated with a request.
+	 * @param restVerb the REST verb (case does not matter)
+	 * @param path the requested path, without the servlet context and the query string (can be null)
+	 * @return the matching operation, or null if none was found
+	 */
+	public RestOperationBean findOperation( String restVerb, String path ) {
+
+		RestOperationBean result = null;
+		RouteNode root = restVerb == null ? null : this.verbToRoutes.get( restVerb.toUpperCase( Locale.ENGLISH ));
+		if( root != null && path != null && path.startsWith( "/" ))
+			result = root.find( path.substring( 1 ).split( "/", -1 ), 0 );
+
+		return result;
+	}
+
+
+	/**
+	 * Registers an operation in the tree of its REST verb.
+	 * @param restOperationBean an operation
+	 */
+	private void register( RestOperationBean restOperationBean ) {
+
+		RouteNode node = this.verbToRoutes.get( restOperationBean.restVerb );
+		if( node == null ) {
+			node = new RouteNode();
+			this.verbToRoutes.put( restOperationBean.restVerb, node );
+		}
+
+		for( String segment : restOperationBean.jerseyPath.substring( 1 ).split( "/", -1 ))
+			node = node.child( segment );
+
+		// Duplicates are handled by the constructor
+		if( node.operation == null )
+			node.operation = restOperationBean;
+	}
+
+
+	/**
+	 * A node in a tree of path segments.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class RouteNode {
+
+		final Map<String,RouteNode> literals = new HashMap<> ();
+		RouteNode parameter;
+		RestOperationBean operation;
+
+
+		/**
+		 * Gets or creates a child node.
+		 * @param segment a segment of a Jersey path
+		 * @return a non-null node
+		 */
+		RouteNode child( String segment ) {
+
+			RouteNode result;
+			if( segment.startsWith( "{" ) && segment.endsWith( "}" )) {
+				if( this.parameter == null )
+					this.parameter = new RouteNode();
+
+				result = this.parameter;
+
+			} else {
+				result = this.literals.get( segment );
+				if( result == null ) {
+					result = new RouteNode();
+					this.literals.put( segment, result );
+				}
+			}
+
+			return result;
+		}
+
+
+		/**
+		 * Finds the operation associated with path segments.
+		 * @param segments the segments of the requested path
+		 * @param index the index of the segment to match
+		 * @return an operation, or null if none was found
+		 */
+		RestOperationBean find( String[] segments, int index ) {
+
+			RestOperationBean result = null;
+			if( index == segments.length ) {
+				result = this.operation;
+
+			} else {
+				// Literal segments first, then path parameters (which cannot be empty)
+				RouteNode node = this.literals.get( segments[ index ]);
+				if( node != null )
+					result = node.find( segments, index + 1 );
+
+				if( result == null
+						&& this.parameter != null
+						&& ! segments[ index ].isEmpty())
+					result = this.parameter.find( segments, index + 1 );
+			}
+
+			return result;
+		}
+	}
+
+
 	/**
 	 * @author Vincent Zurczak - Linagora
 	 */
 	public static class RestOperationBean {
 		private String methodName, urlPattern, jerseyPath, restVerb;
+		private boolean expensive;
 
 		/**
 		 * @return the methodName
@@ -155,6 +276,13 @@ public class RestIndexer {
 			return this.restVerb;
 		}
 
+		/**
+		 * @return true if the operation was marked with {@link Expensive}
+		 */
+		public boolean isExpensive() {
+			return this.expensive;
+		}
+
 		@Override
 		public String toString() {
 			return this.methodName;
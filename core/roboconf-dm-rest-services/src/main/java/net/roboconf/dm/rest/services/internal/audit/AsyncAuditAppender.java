@@ -0,0 +1,155 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.audit;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * An appender that logs audit records in the background.
+ * <p>
+ * Formatting and logging records through Pax-Logging is not free. So, REST requests
+ * only hand their records to this class, and a single thread logs them. The number of
+ * pending records is bounded. When this limit is reached, records are dropped and counted.
+ * The number of dropped records is then logged in the audit log itself.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class AsyncAuditAppender {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private final Logger logger;
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong droppedCount;
+	private final AtomicLong droppedSinceLastReport = new AtomicLong();
+
+
+	/**
+	 * Constructor.
+	 * @param logger the logger to use
+	 * @param capacity the maximum number of pending records
+	 * @param droppedCount a counter to increment when records are dropped
+	 */
+	public AsyncAuditAppender( Logger logger, int capacity, AtomicLong droppedCount ) {
+		this.logger = logger;
+		this.droppedCount = droppedCount;
+
+		// The thread only lives when there are records to log
+		this.executor = new ThreadPoolExecutor(
+				1, 1, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>( capacity ),
+				new AuditThreadFactory());
+
+		this.executor.allowCoreThreadTimeOut( true );
+	}
+
+
+	/**
+	 * Hands a record to the appender.
+	 * <p>
+	 * This method never blocks.
+	 * </p>
+	 *
+	 * @param record an audit record
+	 * @return true if the record will be logged, false if it was dropped
+	 */
+	public boolean append( final AuditLogRecord record ) {
+
+		boolean result = true;
+		try {
+			this.executor.execute( new Runnable() {
+				@Override
+				public void run() {
+					log( record );
+				}
+			});
+
+		} catch( RejectedExecutionException e ) {
+			this.droppedCount.incrementAndGet();
+			this.droppedSinceLastReport.incrementAndGet();
+			result = false;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Stops the appender once the pending records have been logged.
+	 */
+	public void shutdown() {
+		this.executor.shutdown();
+	}
+
+
+	/**
+	 * @return the number of records waiting to be logged
+	 */
+	public int getPendingCount() {
+		return this.executor.getQueue().size();
+	}
+
+
+	/**
+	 * Logs a record (invoked in the background).
+	 * @param record an audit record
+	 */
+	void log( AuditLogRecord record ) {
+
+		long dropped = this.droppedSinceLastReport.getAndSet( 0 );
+		if( dropped > 0 ) {
+			LogRecord warning = new LogRecord( Level.WARNING, dropped + " audit records were dropped because too many requests were received." );
+			warning.setLoggerName( AuditLogRecord.LOGGER_NAME );
+			this.logger.log( warning );
+		}
+
+		this.logger.log( record );
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class AuditThreadFactory implements ThreadFactory {
+
+		@Override
+		public Thread newThread( Runnable r ) {
+
+			Thread result = new Thread( r, "Roboconf DM - Audit" );
+			result.setDaemon( true );
+			return result;
+		}
+	}
+}
@@ -30,6 +30,8 @@ import static net.roboconf.dm.rest.services.cors.ResponseCorsFilter.ORIGIN;
 import static net.roboconf.dm.rest.services.cors.ResponseCorsFilter.buildHeaders;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -45,11 +47,14 @@ import javax.servlet.http.HttpServletResponse;
 
 import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.management.api.IPreferencesMngr;
+import net.roboconf.dm.metrics.DmMetrics;
 import net.roboconf.dm.rest.commons.UrlConstants;
 import net.roboconf.dm.rest.commons.security.AuthenticationManager;
 import net.roboconf.dm.rest.services.internal.ServletRegistrationComponent;
+import net.roboconf.dm.rest.services.internal.admission.AdmissionController;
 import net.roboconf.dm.rest.services.internal.annotations.RestIndexer;
 import net.roboconf.dm.rest.services.internal.annotations.RestIndexer.RestOperationBean;
+import net.roboconf.dm.rest.services.internal.audit.AsyncAuditAppender;
 import net.roboconf.dm.rest.services.internal.audit.AuditLogRecord;
 import net.roboconf.dm.rest.services.internal.resources.IAuthenticationResource;
 import net.roboconf.dm.rest.services.internal.resources.IPreferencesResource;
@@ -58,25 +63,45 @@ import net.roboconf.dm.rest.services.jmx.RestServicesMBean;
 /**
  * A filter to determine and request (if necessary) authentication.
  * <p>
+ * It also performs admission control: clients that send too many requests,
+ * or too many expensive requests at once, get a 429 error with a
+ * <code>Retry-After</code> header.
+ * </p>
+ * <p>
  * This filter is registered as an OSGi service. PAX's web extender automatically
  * binds it to the web server (Karaf's Jetty). This filter is only applied to the
  * resources in this bundle, which means the REST API and the web socket. Other web
  * applications are not impacted. As an example, Karaf and Roboconf web administrations
  * are served by other bundles, this filter cannot be applied to them.
  * </p>
+ * <p>
+ * The metrics servlet is also served by this bundle. Scrapes are not REST requests:
+ * they are neither audited nor counted. But they are always limited per IP address.
+ * Unless anonymous access was enabled, they require a valid session or the scrape token
+ * (sent as a bearer token in the <code>Authorization</code> header).
+ * </p>
  * @author Vincent Zurczak - Linagora
  */
 public class AuthenticationFilter implements Filter {
 
 	static final String USER_AGENT = "User-Agent";
+	static final String OTHER_ROUTE = "other";
+	static final String RETRY_AFTER = "Retry-After";
+	static final String AUTHORIZATION = "Authorization";
+	static final String BEARER_PREFIX = "Bearer ";
+	static final int TOO_MANY_REQUESTS = 429;
 
 	private final Logger logger = Logger.getLogger( getClass().getName());
 	private final RestServicesMBean restServicesMBean;
 	private final RestIndexer restIndexer;
+	private final AsyncAuditAppender auditAppender;
+	private final AdmissionController admissionController;
 
 	private AuthenticationManager authenticationMngr;
 	private boolean authenticationEnabled, enableCors;
 	private long sessionPeriod;
+	private boolean metricsAnonymousAccess;
+	private String metricsScrapeToken;
 
 
 	/**
@@ -86,6 +111,14 @@ public class AuthenticationFilter implements Filter {
 	public AuthenticationFilter( RestServicesMBean restServicesMBean ) {
 		this.restIndexer = new RestIndexer();
 		this.restServicesMBean = restServicesMBean;
+		this.auditAppender = new AsyncAuditAppender(
+				this.logger,
+				AsyncAuditAppender.DEFAULT_CAPACITY,
+				((ServletRegistrationComponent) restServicesMBean).auditRecordsDroppedCount );
+
+		this.admissionController = new AdmissionController(
+				((ServletRegistrationComponent) restServicesMBean).rateLimitedRequestsCount,
+				((ServletRegistrationComponent) restServicesMBean).concurrencyLimitedRequestsCount );
 	}
 
 
@@ -93,107 +126,295 @@ public class AuthenticationFilter implements Filter {
 	public void doFilter( ServletRequest req, ServletResponse resp, FilterChain chain )
 	throws IOException, ServletException {
 
+		String requestedPath = null, restVerb = null;
+		if( req instanceof HttpServletRequest ) {
+			requestedPath = ((HttpServletRequest) req).getRequestURI();
+			restVerb = ((HttpServletRequest) req).getMethod();
+		}
+
+		// Metrics are scraped by monitoring tools, they are not part of the REST API
+		if( isMetricsPath( requestedPath )) {
+			processMetricsRequest((HttpServletRequest) req, (HttpServletResponse) resp, chain );
+			return;
+		}
+
 		// Measure activity
+		long start = System.nanoTime();
 		((ServletRegistrationComponent) this.restServicesMBean).restRequestsCount.incrementAndGet();
 
-		// Authentication and audit
-		if( ! this.authenticationEnabled ) {
-			chain.doFilter( req, resp );
+		// Find the invoked operation (null if it is not a REST operation)
+		RestOperationBean operation = null;
+		if( requestedPath != null )
+			operation = this.restIndexer.findOperation( restVerb, cleanPath( requestedPath ));
 
-		} else {
-			HttpServletRequest request = (HttpServletRequest) req;
-			HttpServletResponse response = (HttpServletResponse) resp;
-			String requestedPath = request.getRequestURI();
-			String restVerb = request.getMethod();
-
-			// Find the session ID in the cookies
-			String sessionId = null;
-			Cookie[] cookies = request.getCookies();
-			if( cookies != null ) {
-				for( Cookie cookie : cookies ) {
-					if( UrlConstants.SESSION_ID.equals( cookie.getName())) {
-						sessionId = cookie.getValue();
-						break;
-					}
-				}
-			}
+		boolean expensive = operation != null && operation.isExpensive();
+		boolean admitted = false;
+		try {
+			// Authentication and audit
+			if( ! this.authenticationEnabled ) {
 
-			// Audit
-			audit( request, sessionId );
+				// Only HTTP requests are subject to admission control
+				admitted = ! (req instanceof HttpServletRequest)
+						|| admit((HttpServletRequest) req, (HttpServletResponse) resp, null, expensive );
+
+				if( admitted )
+					chain.doFilter( req, resp );
 
-			// Is there a valid session?
-			boolean loggedIn = false;
-			if( ! Utils.isEmptyOrWhitespaces( sessionId )) {
-				loggedIn = this.authenticationMngr.isSessionValid( sessionId, this.sessionPeriod );
-				this.logger.finest( "Session " + sessionId + (loggedIn ? " was successfully " : " failed to be ") + "validated." );
 			} else {
-				this.logger.finest( "No session ID was found in the cookie. Authentication cannot be performed." );
+				HttpServletRequest request = (HttpServletRequest) req;
+				HttpServletResponse response = (HttpServletResponse) resp;
+
+				// Find the session ID in the cookies
+				String sessionId = findSessionId( request );
+
+				// Admission control (a 429 error is sent if the request is rejected).
+				// Requests without a session are limited per IP address: this is checked
+				// before anything else, so that floods are neither audited nor validated.
+				// Only trust the session ID if it was validated.
+				boolean loggedIn = false;
+				if( Utils.isEmptyOrWhitespaces( sessionId )) {
+					this.logger.finest( "No session ID was found in the cookie. Authentication cannot be performed." );
+					admitted = admit( request, response, null, expensive );
+
+				} else {
+					loggedIn = this.authenticationMngr.isSessionValid( sessionId, this.sessionPeriod );
+					this.logger.finest( "Session " + sessionId + (loggedIn ? " was successfully " : " failed to be ") + "validated." );
+					admitted = admit( request, response, loggedIn ? sessionId : null, expensive );
+				}
+
+				if( ! admitted ) {
+					this.logger.finest( "A request was rejected by the admission control." );
+
+				} else {
+					// Audit
+					audit( request, restVerb, requestedPath, sessionId, operation );
+					processAdmittedRequest( request, response, chain, restVerb, requestedPath, loggedIn );
+				}
 			}
 
-			// Valid session, go on. Send an error otherwise.
-			// No redirection, we mainly deal with our web socket and REST API.
+		} finally {
+			if( admitted && expensive )
+				this.admissionController.leaveExpensiveRequest();
 
-			// Exceptions:
-			// * We want to reach the login API.
-			// * We want to get the user language preference.
-			// * We received an OPTIONS request.
+			// Label by route (not by URI), so that the number of histograms remains bounded
+			String route = operation == null ? OTHER_ROUTE : operation.getRestVerb() + " " + operation.getJerseyPath();
+			DmMetrics.recordRestRequest( route, start );
+		}
+	}
+
+
+	/**
+	 * Processes a request that passed the admission control when authentication is enabled.
+	 * @param request the request
+	 * @param response the response
+	 * @param chain the filter chain
+	 * @param restVerb the HTTP verb
+	 * @param requestedPath the requested path
+	 * @param loggedIn true if the request comes with a valid session
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private void processAdmittedRequest(
+			HttpServletRequest request,
+			HttpServletResponse response,
+			FilterChain chain,
+			String restVerb,
+			String requestedPath,
+			boolean loggedIn )
+	throws IOException, ServletException {
 
-			// POST requests with CORS are always preceded by an OPTIONS request.
-			// OPTIONS requests never come with a cookie. So, we do not filter them.
-			boolean loginRequest = requestedPath.endsWith( IAuthenticationResource.PATH + IAuthenticationResource.LOGIN_PATH );
-			boolean optionsRequest = "options".equalsIgnoreCase( restVerb );
-			boolean languagePreference =
-					requestedPath.endsWith( IPreferencesResource.PATH )
-					&& "get".equalsIgnoreCase( restVerb )
-					&& ("key=" + IPreferencesMngr.USER_LANGUAGE).equals( request.getQueryString());
+		// Valid session, go on. Send an error otherwise.
+		// No redirection, we mainly deal with our web socket and REST API.
 
-			if( loggedIn || loginRequest || languagePreference || optionsRequest ) {
-				chain.doFilter( request, response );
+		// Exceptions:
+		// * We want to reach the login API.
+		// * We want to get the user language preference.
+		// * We received an OPTIONS request.
 
-			} else {
-				// CORS?
-				if( this.enableCors ) {
-					Map<String,String> headers = buildHeaders(
-							request.getHeader( CORS_REQ_HEADERS ),
-							request.getHeader( ORIGIN ));
-
-					for( Map.Entry<String,String> h : headers.entrySet())
-						response.setHeader( h.getKey(), h.getValue());
-				}
+		// POST requests with CORS are always preceded by an OPTIONS request.
+		// OPTIONS requests never come with a cookie. So, we do not filter them.
+		boolean loginRequest = requestedPath.endsWith( IAuthenticationResource.PATH + IAuthenticationResource.LOGIN_PATH );
+		boolean optionsRequest = "options".equalsIgnoreCase( restVerb );
+		boolean languagePreference =
+				requestedPath.endsWith( IPreferencesResource.PATH )
+				&& "get".equalsIgnoreCase( restVerb )
+				&& ("key=" + IPreferencesMngr.USER_LANGUAGE).equals( request.getQueryString());
 
-				// Send an error
-				((ServletRegistrationComponent) this.restServicesMBean).restRequestsWithAuthFailureCount.incrementAndGet();
-				response.sendError( 403, "Authentication is required." );
+		if( loggedIn || loginRequest || languagePreference || optionsRequest ) {
+			chain.doFilter( request, response );
+
+		} else {
+			// CORS?
+			addCorsHeaders( request, response );
+
+			// Send an error
+			((ServletRegistrationComponent) this.restServicesMBean).restRequestsWithAuthFailureCount.incrementAndGet();
+			response.sendError( 403, "Authentication is required." );
+		}
+	}
+
+
+	/**
+	 * Processes a request for the metrics servlet.
+	 * <p>
+	 * Scrapes are always limited per IP address, even when they come with
+	 * credentials. Then, unless anonymous access was enabled, they must come with
+	 * the scrape token or with a valid session (if authentication is enabled).
+	 * </p>
+	 *
+	 * @param request the request
+	 * @param response the response
+	 * @param chain the filter chain
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private void processMetricsRequest( HttpServletRequest request, HttpServletResponse response, FilterChain chain )
+	throws IOException, ServletException {
+
+		if( ! admit( request, response, null, false )) {
+			this.logger.finest( "A metrics scrape was rejected by the admission control." );
+
+		} else if( this.metricsAnonymousAccess
+				|| hasValidScrapeToken( request )
+				|| this.authenticationEnabled && hasValidSession( request )) {
+			chain.doFilter( request, response );
+
+		} else {
+			this.logger.finest( "A metrics scrape was rejected: no valid credentials were found." );
+			addCorsHeaders( request, response );
+			response.sendError( 403, "Authentication is required." );
+		}
+	}
+
+
+	/**
+	 * @param request the request
+	 * @return true if the request comes with the configured scrape token, false otherwise
+	 */
+	private boolean hasValidScrapeToken( HttpServletRequest request ) {
+
+		String token = this.metricsScrapeToken;
+		String header = request.getHeader( AUTHORIZATION );
+
+		boolean result = false;
+		if( ! Utils.isEmptyOrWhitespaces( token )
+				&& header != null
+				&& header.startsWith( BEARER_PREFIX )) {
+
+			// Constant-time comparison
+			byte[] expected = token.trim().getBytes( StandardCharsets.UTF_8 );
+			byte[] actual = header.substring( BEARER_PREFIX.length()).trim().getBytes( StandardCharsets.UTF_8 );
+			result = MessageDigest.isEqual( expected, actual );
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * @param request the request
+	 * @return true if the request comes with a valid session, false otherwise
+	 */
+	private boolean hasValidSession( HttpServletRequest request ) {
+		String sessionId = findSessionId( request );
+		return ! Utils.isEmptyOrWhitespaces( sessionId )
+				&& this.authenticationMngr.isSessionValid( sessionId, this.sessionPeriod );
+	}
+
+
+	/**
+	 * Finds the session ID in the cookies of a request.
+	 * @param request the request
+	 * @return the session ID, or null if none was found
+	 */
+	private static String findSessionId( HttpServletRequest request ) {
+
+		String sessionId = null;
+		Cookie[] cookies = request.getCookies();
+		if( cookies != null ) {
+			for( Cookie cookie : cookies ) {
+				if( UrlConstants.SESSION_ID.equals( cookie.getName())) {
+					sessionId = cookie.getValue();
+					break;
+				}
 			}
 		}
+
+		return sessionId;
+	}
+
+
+	/**
+	 * Determines whether a request can be processed.
+	 * <p>
+	 * If it cannot, a 429 error is sent. If it can and if it is expensive,
+	 * {@link AdmissionController#leaveExpensiveRequest()} must be invoked once
+	 * it has been processed.
+	 * </p>
+	 *
+	 * @param request the request
+	 * @param response the response
+	 * @param validSessionId the ID of a valid session (null if there is none)
+	 * @param expensive true if the request is an expensive operation
+	 * @return true if the request was admitted, false otherwise
+	 * @throws IOException if the error could not be sent
+	 */
+	private boolean admit( HttpServletRequest request, HttpServletResponse response, String validSessionId, boolean expensive )
+	throws IOException {
+
+		// Requests with a valid session are limited per session, others per IP address
+		long retryAfter = 0;
+		if( this.admissionController.isRateLimitEnabled()) {
+			String clientKey = validSessionId != null ? "session:" + validSessionId : "ip:" + request.getRemoteAddr();
+			retryAfter = this.admissionController.acquireToken( clientKey );
+		}
+
+		if( retryAfter == 0 && expensive && ! this.admissionController.enterExpensiveRequest())
+			retryAfter = AdmissionController.EXPENSIVE_RETRY_AFTER;
+
+		boolean result = retryAfter == 0;
+		if( ! result ) {
+			addCorsHeaders( request, response );
+			response.setHeader( RETRY_AFTER, String.valueOf( retryAfter ));
+			response.sendError( TOO_MANY_REQUESTS, "Too many requests. Retry later." );
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Adds CORS headers to a response, if CORS is enabled.
+	 * @param request the request
+	 * @param response the response
+	 */
+	private void addCorsHeaders( HttpServletRequest request, HttpServletResponse response ) {
+
+		if( this.enableCors ) {
+			Map<String,String> headers = buildHeaders(
+					request.getHeader( CORS_REQ_HEADERS ),
+					request.getHeader( ORIGIN ));
+
+			for( Map.Entry<String,String> h : headers.entrySet())
+				response.setHeader( h.getKey(), h.getValue());
+		}
 	}
 
 
 	/**
 	 * @param request
+	 * @param restVerb
+	 * @param requestedPath
 	 * @param sessionId
+	 * @param operation the invoked operation (can be null)
 	 */
-	private void audit( HttpServletRequest request, String sessionId ) {
+	private void audit( HttpServletRequest request, String restVerb, String requestedPath, String sessionId, RestOperationBean operation ) {
 
-		// Find the right method
-		RestOperationBean rightBean = null;
-		String restVerb = request.getMethod();
-		String uri = request.getRequestURI();
+		String uri = requestedPath;
 		String queryString = request.getQueryString();
 		if( queryString != null )
 			uri += "?" + queryString;
 
-		String path = cleanPath( uri );
-		for( RestOperationBean rmb : this.restIndexer.restMethods ) {
-			if( path != null
-					&& path.matches( rmb.getUrlPattern())
-					&& rmb.getRestVerb().equalsIgnoreCase( restVerb )) {
-
-				rightBean = rmb;
-				break;
-			}
-		}
-
 		// TODO; check the permissions?
 
 		// Audit
@@ -201,16 +422,14 @@ public class AuthenticationFilter implements Filter {
 		String userAgent = request.getHeader( USER_AGENT );
 		String user = this.authenticationMngr.findUsername( sessionId );
 		boolean authorized = user != null;
-		if( rightBean != null )
-			this.logger.log( new AuditLogRecord( user, rightBean.getJerseyPath(), uri, restVerb, ipAddress, userAgent, authorized ));
-		else
-			this.logger.log( new AuditLogRecord( user, null, uri, restVerb, ipAddress, userAgent, authorized ));
+		String targetResource = operation != null ? operation.getJerseyPath() : null;
+		this.auditAppender.append( new AuditLogRecord( user, targetResource, uri, restVerb, ipAddress, userAgent, authorized ));
 	}
 
 
 	@Override
 	public void destroy() {
-		// nothing
+		this.auditAppender.shutdown();
 	}
 
 
@@ -252,6 +471,68 @@ public class AuthenticationFilter implements Filter {
 	}
 
 
+	/**
+	 * @param rateLimit the number of requests allowed per second and per client (0 or less to disable it)
+	 */
+	public void setRateLimit( int rateLimit ) {
+		this.admissionController.setRateLimit( rateLimit );
+	}
+
+
+	/**
+	 * @param rateLimitBurst the maximum number of requests a client can send at once
+	 */
+	public void setRateLimitBurst( int rateLimitBurst ) {
+		this.admissionController.setRateLimitBurst( rateLimitBurst );
+	}
+
+
+	/**
+	 * @param maxConcurrentExpensiveRequests the maximum number of expensive requests that can run concurrently
+	 */
+	public void setMaxConcurrentExpensiveRequests( int maxConcurrentExpensiveRequests ) {
+		this.admissionController.setMaxConcurrentExpensiveRequests( maxConcurrentExpensiveRequests );
+	}
+
+
+	/**
+	 * @param metricsAnonymousAccess true to let anyone scrape metrics without credentials
+	 */
+	public void setMetricsAnonymousAccess( boolean metricsAnonymousAccess ) {
+		this.metricsAnonymousAccess = metricsAnonymousAccess;
+	}
+
+
+	/**
+	 * @param metricsScrapeToken a token monitoring tools can use to scrape metrics (null or empty to disable it)
+	 */
+	public void setMetricsScrapeToken( String metricsScrapeToken ) {
+		this.metricsScrapeToken = metricsScrapeToken;
+	}
+
+
+	/**
+	 * @return the admission controller
+	 */
+	public AdmissionController getAdmissionController() {
+		return this.admissionController;
+	}
+
+
+	/**
+	 * Determines whether a path targets the metrics servlet.
+	 * @param path a path (can be null)
+	 * @return true if it targets the metrics servlet, false otherwise
+	 */
+	static boolean isMetricsPath( String path ) {
+
+		String prefix = ServletRegistrationComponent.METRICS_CONTEXT;
+		return path != null
+				&& path.startsWith( prefix )
+				&& ( path.length() == prefix.length() || path.charAt( prefix.length()) == '/' );
+	}
+
+
 	/**
 	 * Cleans the path by removing the servlet paths and URL parameters.
 	 * @param path a non-null path
@@ -259,9 +540,25 @@ public class AuthenticationFilter implements Filter {
 	 */
 	static String cleanPath( String path ) {
 
-		return path
-				.replaceFirst( "^" + ServletRegistrationComponent.REST_CONTEXT + "/", "/" )
-				.replaceFirst( "^" + ServletRegistrationComponent.WEBSOCKET_CONTEXT + "/", "/" )
-				.replaceFirst( "\\?.*", "" );
+		// Invoked for every request: no regular expression here
+		String result = removePrefix( path, ServletRegistrationComponent.REST_CONTEXT + "/" );
+		result = removePrefix( result, ServletRegistrationComponent.WEBSOCKET_CONTEXT + "/" );
+
+		int index = result.indexOf( '?' );
+		if( index >= 0 )
+			result = result.substring( 0, index );
+
+		return result;
+	}
+
+
+	/**
+	 * Replaces a path prefix by a slash.
+	 * @param path a non-null path
+	 * @param prefix a non-null prefix, ending with a slash
+	 * @return a non-null path
+	 */
+	private static String removePrefix( String path, String prefix ) {
+		return path.startsWith( prefix ) ? path.substring( prefix.length() - 1 ) : path;
 	}
 }
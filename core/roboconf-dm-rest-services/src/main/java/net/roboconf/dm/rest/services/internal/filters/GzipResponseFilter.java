@@ -0,0 +1,244 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
+
+/**
+ * A Jersey filter that compresses JSON responses when they are big enough.
+ * <p>
+ * Small responses are not worth the CPU cost of compression. Since most of our
+ * responses are streamed by Jackson (their size is not known in advance), the beginning
+ * of a response is buffered until the threshold is reached. If it is never reached, the
+ * response is sent as is.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class GzipResponseFilter implements ContainerResponseFilter {
+
+	public static final int DEFAULT_THRESHOLD = 8 * 1024;
+	static final String GZIP = "gzip";
+
+	private final int threshold;
+
+
+	/**
+	 * Constructor.
+	 */
+	public GzipResponseFilter() {
+		this( DEFAULT_THRESHOLD );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param threshold the minimal size of a response to compress it (in bytes)
+	 */
+	public GzipResponseFilter( int threshold ) {
+		this.threshold = threshold;
+	}
+
+
+	@Override
+	public ContainerResponse filter( ContainerRequest request, ContainerResponse response ) {
+
+		String acceptEncoding = request.getHeaderValue( HttpHeaders.ACCEPT_ENCODING );
+		if( acceptEncoding != null
+				&& acceptEncoding.toLowerCase( Locale.ENGLISH ).contains( GZIP )
+				&& ! "HEAD".equals( request.getMethod())
+				&& response.getEntity() != null
+				&& response.getHttpHeaders().getFirst( HttpHeaders.CONTENT_ENCODING ) == null ) {
+
+			response.setContainerResponseWriter( new GzipResponseWriter( response.getContainerResponseWriter(), this.threshold ));
+		}
+
+		return response;
+	}
+
+
+	/**
+	 * A response writer that decides whether the response must be compressed.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static class GzipResponseWriter implements ContainerResponseWriter {
+
+		private final ContainerResponseWriter delegate;
+		private final int threshold;
+		private ThresholdOutputStream out;
+
+
+		/**
+		 * Constructor.
+		 * @param delegate
+		 * @param threshold
+		 */
+		GzipResponseWriter( ContainerResponseWriter delegate, int threshold ) {
+			this.delegate = delegate;
+			this.threshold = threshold;
+		}
+
+
+		@Override
+		public OutputStream writeStatusAndHeaders( long contentLength, ContainerResponse response )
+		throws IOException {
+
+			// The media type is only known once the entity is about to be written
+			OutputStream result;
+			MediaType mediaType = response.getMediaType();
+			if( mediaType == null || ! MediaType.APPLICATION_JSON_TYPE.isCompatible( mediaType )) {
+				result = this.delegate.writeStatusAndHeaders( contentLength, response );
+
+			} else {
+				response.getHttpHeaders().add( HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING );
+				if( contentLength >= 0 && contentLength < this.threshold ) {
+					result = this.delegate.writeStatusAndHeaders( contentLength, response );
+
+				} else {
+					this.out = new ThresholdOutputStream( this.delegate, response, this.threshold );
+					result = this.out;
+				}
+			}
+
+			return result;
+		}
+
+
+		@Override
+		public void finish() throws IOException {
+
+			if( this.out != null )
+				this.out.complete();
+
+			this.delegate.finish();
+		}
+	}
+
+
+	/**
+	 * An output stream that buffers content until a threshold is reached, and then compresses it.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static class ThresholdOutputStream extends OutputStream {
+
+		private final ContainerResponseWriter delegate;
+		private final ContainerResponse response;
+		private final int threshold;
+
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private GZIPOutputStream gzipOut;
+		private boolean completed = false;
+
+
+		/**
+		 * Constructor.
+		 * @param delegate
+		 * @param response
+		 * @param threshold
+		 */
+		ThresholdOutputStream( ContainerResponseWriter delegate, ContainerResponse response, int threshold ) {
+			this.delegate = delegate;
+			this.response = response;
+			this.threshold = threshold;
+		}
+
+
+		@Override
+		public void write( int b ) throws IOException {
+			write( new byte[] {(byte) b}, 0, 1 );
+		}
+
+
+		@Override
+		public void write( byte[] b, int off, int len ) throws IOException {
+
+			if( this.gzipOut == null && this.buffer.size() + len >= this.threshold )
+				startCompression();
+
+			if( this.gzipOut != null )
+				this.gzipOut.write( b, off, len );
+			else
+				this.buffer.write( b, off, len );
+		}
+
+
+		@Override
+		public void flush() throws IOException {
+
+			// Flushing a small response must not force its headers
+			if( this.gzipOut != null )
+				this.gzipOut.flush();
+		}
+
+
+		@Override
+		public void close() throws IOException {
+			complete();
+		}
+
+
+		/**
+		 * Sends what remains to the client.
+		 * @throws IOException
+		 */
+		void complete() throws IOException {
+
+			if( ! this.completed ) {
+				this.completed = true;
+				if( this.gzipOut != null ) {
+					this.gzipOut.finish();
+					this.gzipOut.flush();
+
+				} else {
+					OutputStream rawOut = this.delegate.writeStatusAndHeaders( this.buffer.size(), this.response );
+					this.buffer.writeTo( rawOut );
+					rawOut.flush();
+				}
+			}
+		}
+
+
+		private void startCompression() throws IOException {
+
+			this.response.getHttpHeaders().putSingle( HttpHeaders.CONTENT_ENCODING, GZIP );
+			this.gzipOut = new GZIPOutputStream( this.delegate.writeStatusAndHeaders( -1, this.response ));
+			this.buffer.writeTo( this.gzipOut );
+			this.buffer = null;
+		}
+	}
+}
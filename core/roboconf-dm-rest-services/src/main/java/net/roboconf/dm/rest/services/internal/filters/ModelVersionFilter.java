@@ -0,0 +1,312 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.filters;
+
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerRequestFilter;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+
+import net.roboconf.dm.management.Manager;
+import net.roboconf.dm.rest.commons.UrlConstants;
+
+/**
+ * A Jersey filter that associates model versions with REST read operations.
+ * <p>
+ * Read operations on applications, instances, components, bindings and targets
+ * get an ETag built from the versions maintained by the DM. When a client sends
+ * an <code>If-None-Match</code> header that matches the current versions, a
+ * 304 response is returned without invoking the resource (nothing is computed
+ * nor serialized).
+ * </p>
+ * <p>
+ * Clients can also long-poll: with a <code>Prefer: wait=&lt;seconds&gt;</code> header,
+ * a matching conditional request is held until the versions change (and the resource
+ * is then invoked) or until the delay expires (and a 304 response is returned).
+ * Every waiting request holds a server thread. So, the number of concurrent waiters
+ * is limited. Beyond this limit, a 503 response is returned with a <code>Retry-After</code> header.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class ModelVersionFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+	static final String PREFER = "Prefer";
+	static final String RETRY_AFTER = "Retry-After";
+	static final long MAX_WAIT_MS = 60000;
+	static final long WAIT_SLICE_MS = 1000;
+	static final int MAX_WAITERS = 16;
+	static final int RETRY_AFTER_SECONDS = 5;
+
+	private static final String ETAG_PROPERTY = ModelVersionFilter.class.getName() + ".etag";
+	private static final Pattern WAIT_PATTERN = Pattern.compile( "\\bwait\\s*=\\s*(\\d+)", Pattern.CASE_INSENSITIVE );
+
+	private final Manager manager;
+	private final String bootId;
+	final Semaphore waiters = new Semaphore( MAX_WAITERS );
+
+
+	/**
+	 * Constructor.
+	 * @param manager
+	 */
+	public ModelVersionFilter( Manager manager ) {
+		this.manager = manager;
+
+		// Versions are not persisted: distinguish ETags from one start to another
+		this.bootId = Long.toString( System.currentTimeMillis(), 36 );
+	}
+
+
+	@Override
+	public ContainerRequest filter( ContainerRequest request ) {
+
+		VersionedResource resource = null;
+		if( "GET".equals( request.getMethod()))
+			resource = findVersionedResource( request.getPath( true ));
+
+		if( resource != null ) {
+			String etag = computeEtag( resource );
+			if( matches( request.getHeaderValue( HttpHeaders.IF_NONE_MATCH ), etag )) {
+
+				long waitMs = findWaitDelay( request.getHeaderValue( PREFER ));
+				if( waitMs > 0 ) {
+					if( ! this.waiters.tryAcquire())
+						throw new WebApplicationException( Response.status( Status.SERVICE_UNAVAILABLE ).header( RETRY_AFTER, RETRY_AFTER_SECONDS ).build());
+
+					try {
+						etag = waitForChange( resource, etag, waitMs );
+
+					} finally {
+						this.waiters.release();
+					}
+				}
+
+				if( matches( request.getHeaderValue( HttpHeaders.IF_NONE_MATCH ), etag ))
+					throw new WebApplicationException( Response.notModified( new EntityTag( etag )).build());
+			}
+
+			// The version was read before the resource computes its result.
+			// At worst, a client will get a result that is more recent than its ETag.
+			request.getProperties().put( ETAG_PROPERTY, etag );
+		}
+
+		return request;
+	}
+
+
+	@Override
+	public ContainerResponse filter( ContainerRequest request, ContainerResponse response ) {
+
+		Object etag = request.getProperties().get( ETAG_PROPERTY );
+		if( etag != null && response.getStatus() == Status.OK.getStatusCode())
+			response.getHttpHeaders().putSingle( HttpHeaders.ETAG, new EntityTag((String) etag ));
+
+		return response;
+	}
+
+
+	/**
+	 * Finds which versions a REST path depends on.
+	 * @param path a path, relative to the REST application's root
+	 * @return a versioned resource, or null if the path does not depend on versions
+	 */
+	static VersionedResource findVersionedResource( String path ) {
+
+		String[] segments = path.replaceAll( "^/+|/+$", "" ).split( "/+" );
+		VersionedResource result = null;
+
+		// GET /applications, GET /applications/templates
+		if( UrlConstants.APPLICATIONS.equals( segments[ 0 ])) {
+			if( segments.length == 1
+					|| segments.length == 2 && "templates".equals( segments[ 1 ]))
+				result = new VersionedResource( null, true, false );
+		}
+
+		// GET /app/{name}/instances, components, bind (and their sub-paths), targets
+		else if( UrlConstants.APP.equals( segments[ 0 ]) && segments.length > 2 ) {
+			String name = segments[ 1 ];
+			String sub = segments[ 2 ];
+			if( "instances".equals( sub ) || "components".equals( sub ) || "bind".equals( sub ))
+				result = new VersionedResource( name, false, false );
+			else if( UrlConstants.TARGETS.equals( sub ) && segments.length == 3 )
+				result = new VersionedResource( name, false, true );
+		}
+
+		// GET /targets and sub-paths (target listings depend on the applications too)
+		else if( UrlConstants.TARGETS.equals( segments[ 0 ])) {
+			result = new VersionedResource( null, true, true );
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Parses the delay a client accepts to wait for a change.
+	 * @param preferHeader the value of the "Prefer" header (can be null)
+	 * @return a delay in milliseconds, between 0 and {@link #MAX_WAIT_MS}
+	 */
+	static long findWaitDelay( String preferHeader ) {
+
+		long result = 0;
+		Matcher m;
+		if( preferHeader != null && (m = WAIT_PATTERN.matcher( preferHeader )).find()) {
+			try {
+				long seconds = Long.parseLong( m.group( 1 ));
+				result = seconds > MAX_WAIT_MS / 1000 ? MAX_WAIT_MS : seconds * 1000;
+
+			} catch( NumberFormatException e ) {
+				result = MAX_WAIT_MS;
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Determines whether an <code>If-None-Match</code> header matches an ETag.
+	 * @param ifNoneMatch the header's value (can be null)
+	 * @param etag an ETag value (not quoted)
+	 * @return true if they match
+	 */
+	static boolean matches( String ifNoneMatch, String etag ) {
+
+		boolean result = false;
+		if( ifNoneMatch != null ) {
+			for( String s : ifNoneMatch.split( "," )) {
+				s = s.trim();
+				if( s.startsWith( "W/" ))
+					s = s.substring( 2 );
+
+				if( "*".equals( s )
+						|| s.equals( "\"" + etag + "\"" )) {
+					result = true;
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Computes the ETag of a resource.
+	 * @param resource a versioned resource
+	 * @return a non-null ETag value (not quoted)
+	 */
+	String computeEtag( VersionedResource resource ) {
+
+		StringBuilder sb = new StringBuilder( this.bootId );
+		if( resource.applicationName != null )
+			sb.append( "-a" ).append( this.manager.notificationMngr().getModelVersion( resource.applicationName ));
+
+		if( resource.global )
+			sb.append( "-m" ).append( this.manager.notificationMngr().getModelVersion( null ));
+
+		if( resource.targets )
+			sb.append( "-t" ).append( this.manager.targetsMngr().getVersion());
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * Waits for the ETag of a resource to change.
+	 * <p>
+	 * We block on one counter at a time, by slices. Other counters
+	 * the resource depends on are checked after every slice.
+	 * </p>
+	 *
+	 * @param resource a versioned resource
+	 * @param etag the current ETag
+	 * @param waitMs the maximum delay to wait for, in milliseconds
+	 * @return the new ETag (or the same one if nothing changed)
+	 */
+	String waitForChange( VersionedResource resource, String etag, long waitMs ) {
+
+		long deadline = System.currentTimeMillis() + waitMs;
+		long remaining = waitMs;
+		String result = etag;
+		try {
+			while( result.equals( etag ) && remaining > 0 ) {
+				long slice = Math.min( remaining, WAIT_SLICE_MS );
+				if( resource.applicationName != null || resource.global ) {
+					long known = this.manager.notificationMngr().getModelVersion( resource.applicationName );
+					this.manager.notificationMngr().waitForModelVersionChange( resource.applicationName, known, slice );
+
+				} else {
+					long known = this.manager.targetsMngr().getVersion();
+					this.manager.targetsMngr().waitForVersionChange( known, slice );
+				}
+
+				result = computeEtag( resource );
+				remaining = deadline - System.currentTimeMillis();
+			}
+
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * The versions a REST resource depends on.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static final class VersionedResource {
+
+		final String applicationName;
+		final boolean global, targets;
+
+
+		/**
+		 * Constructor.
+		 * @param applicationName an application name (can be null)
+		 * @param global true if the resource depends on the whole model
+		 * @param targets true if the resource depends on targets
+		 */
+		VersionedResource( String applicationName, boolean global, boolean targets ) {
+			this.applicationName = applicationName;
+			this.global = global;
+			this.targets = targets;
+		}
+	}
+}
@@ -28,6 +28,9 @@ package net.roboconf.dm.rest.services.internal.icons;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletException;
@@ -41,14 +44,27 @@ import net.roboconf.dm.management.Manager;
 
 /**
  * A servlet to serve icons associated with applications.
+ * <p>
+ * Resolved icons are cached in memory. The cache is invalidated every time an application
+ * or a template is created, modified or deleted. Responses carry an ETag and a last modification
+ * date, so that browsers can revalidate them with conditional requests.
+ * </p>
+ *
  * @author Vincent Zurczak - Linagora
  */
 public class IconServlet extends HttpServlet {
 
+	static final String CACHE_CONTROL_VALUE = "public, max-age=60";
+	static final int MAX_CACHED_ICONS = 500;
+	static final long MAX_CACHED_ICON_SIZE = 256 * 1024;
+
 	private static final long serialVersionUID = -5151659440091869460L;
 	private final transient Manager manager;
 	private final transient Logger logger = Logger.getLogger( getClass().getName());
 
+	private final transient Map<String,CachedIcon> pathToIcon = new ConcurrentHashMap<> ();
+	private transient volatile long cacheVersion = -1;
+
 
 	/**
 	 * Constructor.
@@ -64,18 +80,138 @@ public class IconServlet extends HttpServlet {
 	throws ServletException, IOException {
 
 		this.logger.finer( "An icon was requested for " + req.getPathInfo());
-		File f = this.manager.configurationMngr().findIconFromPath( req.getPathInfo());
-		if( f == null ) {
+		CachedIcon icon = findIcon( req.getPathInfo());
+		if( icon == null ) {
 			resp.setStatus( HttpServletResponse.SC_NOT_FOUND );
 
 		} else {
-			resp.setContentType( IconUtils.findMimeType( f ));
-			resp.setContentLength((int) f.length());
+			resp.setHeader( "ETag", icon.etag );
+			resp.setDateHeader( "Last-Modified", icon.lastModified );
+			resp.setHeader( "Cache-Control", CACHE_CONTROL_VALUE );
+
+			if( isNotModified( req, icon )) {
+				resp.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+
+			} else {
+				resp.setContentType( icon.mimeType );
+				resp.setContentLength((int) icon.length );
+
+				OutputStream out = resp.getOutputStream();
+				if( icon.content != null )
+					out.write( icon.content );
+				else
+					Utils.copyStream( icon.file, out );
+
+				out.flush();
+				Utils.closeQuietly( out );
+			}
+		}
+	}
+
+
+	/**
+	 * Finds an icon, from the cache if possible.
+	 * @param pathInfo the requested path
+	 * @return an icon, or null if none was found
+	 * @throws IOException if the icon could not be read
+	 */
+	CachedIcon findIcon( String pathInfo ) throws IOException {
+
+		// Applications or templates changed? Forget everything.
+		long version = this.manager.notificationMngr().getTemplatesAndApplicationsVersion();
+		if( version != this.cacheVersion ) {
+			this.pathToIcon.clear();
+			this.cacheVersion = version;
+		}
+
+		CachedIcon result = pathInfo == null ? null : this.pathToIcon.get( pathInfo );
+
+		// Icons may also have been modified or deleted on the disk
+		if( result != null && result.file.lastModified() != result.lastModified ) {
+			this.pathToIcon.remove( pathInfo );
+			result = null;
+		}
+
+		if( result == null && pathInfo != null ) {
+			File f = this.manager.configurationMngr().findIconFromPath( pathInfo );
+			if( f != null ) {
+				result = new CachedIcon( f );
+
+				// Keys are paths: do not let clients fill the memory with variants
+				if( this.pathToIcon.size() >= MAX_CACHED_ICONS )
+					this.pathToIcon.clear();
+
+				this.pathToIcon.put( pathInfo, result );
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Determines whether a client already has the current version of an icon.
+	 * @param req the request
+	 * @param icon the icon
+	 * @return true if the icon was not modified
+	 */
+	static boolean isNotModified( HttpServletRequest req, CachedIcon icon ) {
+
+		boolean result;
+		String ifNoneMatch = req.getHeader( "If-None-Match" );
+		if( ifNoneMatch != null ) {
+			result = false;
+			for( String s : ifNoneMatch.split( "," )) {
+				s = s.trim();
+				if( icon.etag.equals( s ) || "*".equals( s )) {
+					result = true;
+					break;
+				}
+			}
+
+		} else {
+			// HTTP dates have a precision of one second
+			long ifModifiedSince = -1;
+			try {
+				ifModifiedSince = req.getDateHeader( "If-Modified-Since" );
+
+			} catch( IllegalArgumentException e ) {
+				// Invalid date, ignore it
+			}
+
+			result = ifModifiedSince >= 0 && icon.lastModified / 1000 <= ifModifiedSince / 1000;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * An icon and the information required to serve it.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static final class CachedIcon {
+
+		final File file;
+		final String mimeType, etag;
+		final long lastModified, length;
+		final byte[] content;
+
+
+		/**
+		 * Constructor.
+		 * @param file an existing icon file
+		 * @throws IOException if the file could not be read
+		 */
+		CachedIcon( File file ) throws IOException {
+			this.file = file;
+			this.mimeType = IconUtils.findMimeType( file );
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+			this.etag = "\"" + Long.toHexString( this.lastModified ) + "-" + Long.toHexString( this.length ) + "\"";
 
-			OutputStream out = resp.getOutputStream();
-			Utils.copyStream( f, out );
-			out.flush();
-			Utils.closeQuietly( out );
+			// Big icons are streamed from the disk
+			this.content = this.length <= MAX_CACHED_ICON_SIZE ? Files.readAllBytes( file.toPath()) : null;
 		}
 	}
 }
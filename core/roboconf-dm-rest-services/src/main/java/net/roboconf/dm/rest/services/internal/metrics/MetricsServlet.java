@@ -0,0 +1,88 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import net.roboconf.core.utils.Utils;
+import net.roboconf.dm.metrics.DmMetrics;
+import net.roboconf.dm.metrics.MetricsRegistry;
+
+/**
+ * A servlet that exports the DM metrics in Prometheus' text format.
+ * <p>
+ * It is a plain servlet, and not a REST resource, so that scraping the metrics
+ * does not go through Jersey and JSON serialization. Exporting only reads
+ * atomic counters, it does not lock anything used by the DM.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class MetricsServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 2307315442339455717L;
+	private final transient MetricsRegistry registry;
+
+
+	/**
+	 * Constructor.
+	 */
+	public MetricsServlet() {
+		this( DmMetrics.REGISTRY );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param registry the registry whose metrics must be exported
+	 */
+	public MetricsServlet( MetricsRegistry registry ) {
+		this.registry = registry;
+	}
+
+
+	@Override
+	protected void doGet( HttpServletRequest req, HttpServletResponse resp )
+	throws ServletException, IOException {
+
+		byte[] content = this.registry.toPrometheusText().getBytes( StandardCharsets.UTF_8 );
+		resp.setStatus( HttpServletResponse.SC_OK );
+		resp.setContentType( MetricsRegistry.CONTENT_TYPE );
+		resp.setContentLength( content.length );
+
+		OutputStream out = resp.getOutputStream();
+		out.write( content );
+		out.flush();
+		Utils.closeQuietly( out );
+	}
+}
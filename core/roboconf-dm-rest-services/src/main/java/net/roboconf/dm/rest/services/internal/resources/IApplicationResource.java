@@ -41,8 +41,10 @@ import javax.ws.rs.core.Response;
 import net.roboconf.core.model.beans.Component;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.runtime.InstanceOperation;
 import net.roboconf.dm.rest.commons.UrlConstants;
 import net.roboconf.dm.rest.commons.beans.TargetAssociation;
+import net.roboconf.dm.rest.services.internal.annotations.Expensive;
 
 /**
  * The REST API to manipulate instances on the DM.
@@ -101,6 +103,7 @@ public interface IApplicationResource {
 	 */
 	@POST
 	@Path( "/deploy-all" )
+	@Expensive
 	Response deployAndStartAll( @PathParam("name") String applicationName, @QueryParam("instance-path") String instancePath );
 
 
@@ -116,6 +119,7 @@ public interface IApplicationResource {
 	 */
 	@POST
 	@Path( "/stop-all" )
+	@Expensive
 	Response stopAll( @PathParam("name") String applicationName, @QueryParam("instance-path") String instancePath );
 
 
@@ -131,6 +135,7 @@ public interface IApplicationResource {
 	 */
 	@POST
 	@Path( "/undeploy-all" )
+	@Expensive
 	Response undeployAll( @PathParam("name") String applicationName, @QueryParam("instance-path") String instancePath );
 
 
@@ -167,6 +172,30 @@ public interface IApplicationResource {
 	Response removeInstance( @PathParam("name") String applicationName, @QueryParam("instance-path") String instancePath );
 
 
+	/**
+	 * Applies several operations on instances at once.
+	 * <p>
+	 * Instances can be added, removed or have their state changed. Operations are applied
+	 * in the given order, and the model is saved only once. A failing operation does not prevent
+	 * the next ones from being applied. The response contains one result per operation.
+	 * </p>
+	 *
+	 * @param applicationName the application name
+	 * @param operations the operations to apply
+	 * @return a response
+	 *
+	 * @HTTP 200 The operations were applied (check the results to know which ones succeeded).
+	 * @HTTP 404 The application was not found.
+	 * @HTTP 403 The operations could not be applied.
+	 */
+	@POST
+	@Path( "/instances/bulk" )
+	@Consumes( MediaType.APPLICATION_JSON )
+	@Produces( MediaType.APPLICATION_JSON )
+	@Expensive
+	Response applyInstanceOperations( @PathParam("name") String applicationName, List<InstanceOperation> operations );
+
+
 	/**
 	 * Finds the associations between the application "scoped" instances and targets.
 	 * @param applicationName the application name
@@ -190,6 +219,7 @@ public interface IApplicationResource {
 	 */
 	@POST
 	@Path( "/resynchronize" )
+	@Expensive
 	Response resynchronize( @PathParam("name") String applicationName );
 
 
@@ -264,12 +294,37 @@ public interface IApplicationResource {
 
 	/**
 	 * Lists instances of a given application.
+	 * <p>
+	 * Equivalent to {@link #listChildrenInstances(String, String, boolean, String, String, int, int)}
+	 * without any filter or pagination parameter.
+	 * </p>
+	 *
+	 * @param applicationName the application name
+	 * @param instancePath the instance path (null to consider the whole application)
+	 * @param allChildren true to get all the children, false to only get the direct children
+	 * @return a non-null list of instances
+	 */
+	List<Instance> listChildrenInstances( String applicationName, String instancePath, boolean allChildren );
+
+
+	/**
+	 * Lists instances of a given application.
+	 * <p>
+	 * Instances are sorted by path. Filters are applied before pagination.
+	 * Without any filter or pagination parameter, all the instances are returned.
+	 * </p>
+	 *
 	 * @param applicationName the application name
 	 * @param instancePath the instance path (null to consider the whole application)
 	 * @param allChildren true to get all the children, false to only get the direct children
+	 * @param componentName only return instances associated with this component (null to ignore)
+	 * @param status only return instances with this status (null to ignore)
+	 * @param start the index of the first instance to return (for pagination, set to 0 if &lt; 0)
+	 * @param limit the maximum number of instances to return (for pagination, 0 or less for no limit)
 	 * @return a non-null list of instances
 	 *
 	 * @HTTP 200 Everything went fine.
+	 * @HTTP 403 The status is invalid.
 	 */
 	@GET
 	@Path( "/instances" )
@@ -277,7 +332,53 @@ public interface IApplicationResource {
 	List<Instance> listChildrenInstances(
 			@PathParam("name") String applicationName,
 			@QueryParam("instance-path") String instancePath,
-			@QueryParam("all-children") boolean allChildren );
+			@QueryParam("all-children") boolean allChildren,
+			@QueryParam("component") String componentName,
+			@QueryParam("status") String status,
+			@QueryParam("start") int start,
+			@QueryParam("limit") int limit );
+
+
+	/**
+	 * Lists instances of a given application, page by page.
+	 * <p>
+	 * Unlike {@link #listChildrenInstances(String, String, boolean, String, String, int, int)},
+	 * the whole list is never built in memory and only some fields of instances can be returned. The response is streamed. It is a JSon object
+	 * with an "instances" array and, when other instances match the criteria, a "next" field. The
+	 * value of this field is the cursor to use to get the next page.
+	 * </p>
+	 * <p>
+	 * Instances are sorted by path (parents first, then siblings by name).
+	 * </p>
+	 *
+	 * @param applicationName the application name
+	 * @param instancePath the instance path (null to consider the whole application)
+	 * @param cursor the cursor returned with the previous page (null for the first page)
+	 * @param limit the maximum number of instances to return (0 for the default value)
+	 * @param componentName only return instances associated with this component (null to ignore)
+	 * @param status only return instances with this status (null to ignore)
+	 * @param pathPrefix only return instances whose path starts with this prefix (null to ignore)
+	 * @param depth the maximum depth, relative to the instance (1 for direct children, 0 for all the children)
+	 * @param fields a comma-separated list of JSon fields to return for every instance (null for all of them)
+	 * @return a response
+	 *
+	 * @HTTP 200 Everything went fine.
+	 * @HTTP 403 The status is invalid.
+	 * @HTTP 404 The application or the instance was not found.
+	 */
+	@GET
+	@Path( "/instances/page" )
+	@Produces( MediaType.APPLICATION_JSON )
+	Response listChildrenInstancesPage(
+			@PathParam("name") String applicationName,
+			@QueryParam("instance-path") String instancePath,
+			@QueryParam("cursor") String cursor,
+			@QueryParam("limit") int limit,
+			@QueryParam("component") String componentName,
+			@QueryParam("status") String status,
+			@QueryParam("path-prefix") String pathPrefix,
+			@QueryParam("depth") int depth,
+			@QueryParam("fields") String fields );
 
 
 	/**
@@ -364,6 +465,7 @@ public interface IApplicationResource {
 	 */
 	@POST
 	@Path( "/commands/execute" )
+	@Expensive
 	Response executeCommand( @PathParam("name") String app, @QueryParam("command-name") String commandName );
 
 
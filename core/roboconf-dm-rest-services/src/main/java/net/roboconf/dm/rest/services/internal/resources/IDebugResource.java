@@ -36,6 +36,7 @@ import javax.ws.rs.core.Response;
 
 import net.roboconf.dm.rest.commons.Diagnostic;
 import net.roboconf.dm.rest.commons.UrlConstants;
+import net.roboconf.dm.rest.services.internal.annotations.Expensive;
 import net.roboconf.dm.rest.services.internal.resources.impl.DebugResource;
 
 /**
@@ -148,5 +149,6 @@ public interface IDebugResource {
 	@GET
 	@Produces( MediaType.APPLICATION_JSON )
 	@Path("/diagnose-application")
+	@Expensive
 	List<Diagnostic> diagnoseApplication( @QueryParam("application-name") String applicationName );
 }
@@ -45,6 +45,7 @@ import com.sun.jersey.multipart.FormDataParam;
 import net.roboconf.core.model.beans.Application;
 import net.roboconf.core.model.beans.ApplicationTemplate;
 import net.roboconf.dm.rest.commons.UrlConstants;
+import net.roboconf.dm.rest.services.internal.annotations.Expensive;
 
 /**
  * The REST API to manipulate applications on the DM.
@@ -80,6 +81,7 @@ public interface IManagementResource {
 	@Path("/templates")
 	@Consumes( MediaType.MULTIPART_FORM_DATA )
 	@Produces( MediaType.APPLICATION_JSON )
+	@Expensive
 	Response loadUploadedZippedApplicationTemplate(
 			@FormDataParam("file") InputStream uploadedInputStream,
 			@FormDataParam("file") FormDataContentDisposition fileDetail );
@@ -109,6 +111,7 @@ public interface IManagementResource {
 	@Path("/templates/url")
 	@Consumes( MediaType.APPLICATION_JSON )
 	@Produces( MediaType.APPLICATION_JSON )
+	@Expensive
 	Response loadZippedApplicationTemplate( @QueryParam( "url" ) String url );
 
 
@@ -139,6 +142,7 @@ public interface IManagementResource {
 	@Path("/templates/local")
 	@Consumes( MediaType.APPLICATION_JSON )
 	@Produces( MediaType.APPLICATION_JSON )
+	@Expensive
 	Response loadUnzippedApplicationTemplate( @QueryParam( "local-file-path" ) String localFilePath );
 
 
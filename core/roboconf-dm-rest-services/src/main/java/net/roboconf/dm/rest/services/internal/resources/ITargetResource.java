@@ -45,6 +45,7 @@ import com.sun.jersey.multipart.FormDataParam;
 import net.roboconf.core.model.runtime.TargetUsageItem;
 import net.roboconf.core.model.runtime.TargetWrapperDescriptor;
 import net.roboconf.dm.rest.commons.UrlConstants;
+import net.roboconf.dm.rest.services.internal.annotations.Expensive;
 
 /**
  * The REST API related to targets.
@@ -112,6 +113,7 @@ public interface ITargetResource {
 	@Path("/archive")
 	@Consumes( MediaType.MULTIPART_FORM_DATA )
 	@Produces( MediaType.APPLICATION_JSON )
+	@Expensive
 	Response loadTargetArchive(
 			@FormDataParam("file") InputStream uploadedInputStream,
 			@FormDataParam("file") FormDataContentDisposition fileDetail );
@@ -40,6 +40,8 @@ import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -47,6 +49,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.ws.rs.Path;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -64,6 +67,8 @@ import net.roboconf.core.model.helpers.ComponentHelpers;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.model.helpers.VariableHelpers;
 import net.roboconf.core.model.runtime.CommandHistoryItem;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.core.model.runtime.TargetWrapperDescriptor;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.management.ManagedApplication;
@@ -76,6 +81,7 @@ import net.roboconf.dm.rest.commons.beans.ApplicationBindings.ApplicationBinding
 import net.roboconf.dm.rest.commons.beans.TargetAssociation;
 import net.roboconf.dm.rest.services.internal.errors.RestError;
 import net.roboconf.dm.rest.services.internal.resources.IApplicationResource;
+import net.roboconf.dm.rest.services.internal.utils.InstancesPageOutput;
 import net.roboconf.dm.rest.services.internal.utils.RestServicesUtils;
 import net.roboconf.target.api.TargetException;
 
@@ -311,6 +317,31 @@ public class ApplicationResource implements IApplicationResource {
 	 */
 	@Override
 	public List<Instance> listChildrenInstances( String applicationName, String instancePath, boolean allChildren ) {
+		return listChildrenInstances( applicationName, instancePath, allChildren, null, null, 0, 0 );
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.roboconf.dm.internal.rest.api.IApplicationWs
+	 * #listChildrenInstances(java.lang.String, java.lang.String, boolean,
+	 * java.lang.String, java.lang.String, int, int)
+	 */
+	@Override
+	public List<Instance> listChildrenInstances(
+			String applicationName,
+			String instancePath,
+			boolean allChildren,
+			String componentName,
+			String status,
+			int start,
+			int limit ) {
+
+		// Invalid statuses are rejected, as for pages of instances
+		if( status != null && ! InstanceStatus.isValidState( status )) {
+			Response response = handleError( Status.FORBIDDEN, new RestError( REST_INEXISTING, name( status )), lang( this.manager )).build();
+			throw new WebApplicationException( response );
+		}
 
 		List<Instance> result = new ArrayList<> ();
 		Application app = this.manager.applicationMngr().findApplicationByName( applicationName );
@@ -341,12 +372,89 @@ public class ApplicationResource implements IApplicationResource {
 			}
 		}
 
+		// Filters
+		if( componentName != null || status != null ) {
+			InstanceStatus expectedStatus = status == null ? null : InstanceStatus.whichStatus( status );
+			for( Iterator<Instance> it = result.iterator(); it.hasNext(); ) {
+				Instance instance = it.next();
+				if( componentName != null && ! componentName.equals( instance.getComponent().getName())
+						|| status != null && instance.getStatus() != expectedStatus )
+					it.remove();
+			}
+		}
+
 		// Bug #64: sort instance paths for the clients
 		Collections.sort( result, new InstanceComparator());
+
+		// Pagination
+		int from = Math.min( Math.max( 0, start ), result.size());
+		int to = limit > 0 ? Math.min( result.size(), from + limit ) : result.size();
+		if( from > 0 || to < result.size())
+			result = new ArrayList<>( result.subList( from, to ));
+
 		return result;
 	}
 
 
+	/*
+	 * (non-Javadoc)
+	 * @see net.roboconf.dm.rest.services.internal.resources.IApplicationResource
+	 * #listChildrenInstancesPage(java.lang.String, java.lang.String, java.lang.String, int,
+	 * java.lang.String, java.lang.String, java.lang.String, int, java.lang.String)
+	 */
+	@Override
+	public Response listChildrenInstancesPage(
+			String applicationName,
+			String instancePath,
+			String cursor,
+			int limit,
+			String componentName,
+			String status,
+			String pathPrefix,
+			int depth,
+			String fields ) {
+
+		this.logger.fine( "Request: list a page of instances for " + (instancePath == null ? "" : instancePath + " in ") + applicationName + "." );
+		String lang = lang( this.manager );
+		Response response;
+
+		Application app = this.manager.applicationMngr().findApplicationByName( applicationName );
+		Instance inst = null;
+		if( app == null )
+			response = handleError( Status.NOT_FOUND, new RestError( REST_INEXISTING, application( applicationName )), lang ).build();
+
+		else if( instancePath != null
+				&& ( inst = InstanceHelpers.findInstanceByPath( app, instancePath )) == null )
+			response = handleError( Status.NOT_FOUND, new RestError( REST_INEXISTING, instance( instancePath ), application( applicationName )), lang ).build();
+
+		else if( status != null && ! InstanceStatus.isValidState( status ))
+			response = handleError( Status.FORBIDDEN, new RestError( REST_INEXISTING, name( status )), lang ).build();
+
+		else {
+			InstancesPageOutput output = inst == null
+					? new InstancesPageOutput( app.getRootInstances(), "" )
+					: new InstancesPageOutput( inst.getChildren(), instancePath );
+
+			output.setCursor( cursor );
+			output.setComponentName( componentName );
+			output.setPathPrefix( pathPrefix );
+			output.setMaxDepth( depth );
+			if( limit > 0 )
+				output.setLimit( limit );
+
+			if( status != null )
+				output.setStatus( InstanceStatus.whichStatus( status ));
+
+			if( fields != null )
+				output.setFields( new HashSet<>( Utils.splitNicely( fields, "," )));
+
+			response = Response.ok( output ).build();
+		}
+
+		return response;
+	}
+
+
 	/*
 	 * (non-Javadoc)
 	 * @see net.roboconf.dm.rest.services.internal.resources.IApplicationResource
@@ -634,6 +742,44 @@ public class ApplicationResource implements IApplicationResource {
 	}
 
 
+	/*
+	 * (non-Javadoc)
+	 * @see net.roboconf.dm.rest.services.internal.resources.IApplicationResource
+	 * #applyInstanceOperations(java.lang.String, java.util.List)
+	 */
+	@Override
+	public Response applyInstanceOperations( String applicationName, List<InstanceOperation> operations ) {
+
+		int count = operations == null ? 0 : operations.size();
+		this.logger.fine( "Request: apply " + count + " instance operations in " + applicationName + "." );
+
+		String lang = lang( this.manager );
+		Response response;
+		try {
+			ManagedApplication ma = this.manager.applicationMngr().findManagedApplicationByName( applicationName );
+			if( ma == null ) {
+				response = handleError(
+						Status.NOT_FOUND,
+						new RestError( REST_INEXISTING, application( applicationName )),
+						lang ).build();
+
+			} else {
+				List<InstanceOperation> ops = operations == null ? new ArrayList<InstanceOperation>( 0 ) : operations;
+				List<InstanceOperationResult> results = this.manager.instancesMngr().applyOperations( ma, ops );
+				response = Response.ok( results ).build();
+			}
+
+		} catch( IOException e ) {
+			response = RestServicesUtils.handleError(
+					Status.FORBIDDEN,
+					new RestError( ErrorCode.REST_UNDETAILED_ERROR, e ),
+					lang ).build();
+		}
+
+		return response;
+	}
+
+
 	/*
 	 * (non-Javadoc)
 	 * @see net.roboconf.dm.rest.services.internal.resources.IApplicationResource
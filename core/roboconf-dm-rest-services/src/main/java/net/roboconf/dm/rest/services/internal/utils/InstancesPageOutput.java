@@ -0,0 +1,291 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.dm.rest.commons.json.JSonBindingUtils;
+
+/**
+ * Streams a page of instances as JSon.
+ * <p>
+ * Instances are walked in the order defined by {@link net.roboconf.core.model.comparators.InstanceComparator}
+ * (parents first, then siblings sorted by name). They are written as soon as they are found,
+ * so that no intermediate collection is built, whatever the size of the application.
+ * Sub-trees that cannot match the path prefix, or that are located before the cursor, are skipped.
+ * </p>
+ * <p>
+ * The output looks like <code>{ "instances": [ ... ], "next": "/path/of/the/last/instance" }</code>.
+ * The "next" field is only written when other instances match the criteria. Its value can be
+ * used as the cursor to get the next page.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstancesPageOutput implements StreamingOutput {
+
+	public static final int DEFAULT_LIMIT = 100;
+	public static final int MAX_LIMIT = 1000;
+
+	static final String INSTANCES = "instances";
+	static final String NEXT = "next";
+
+	private static final ObjectMapper MAPPER = JSonBindingUtils.createObjectMapper();
+	private static final Comparator<Instance> NAME_COMPARATOR = new InstanceNameComparator();
+
+	private final Collection<Instance> rootInstances;
+	private final String rootPath;
+
+	private String cursor, componentName, pathPrefix;
+	private InstanceStatus status;
+	private Set<String> fields;
+	private int maxDepth = 0, limit = DEFAULT_LIMIT;
+
+
+	/**
+	 * Constructor.
+	 * @param rootInstances the instances to start the walk from (root instances or the children of an instance)
+	 * @param rootPath the path of the parent of these instances (empty for root instances)
+	 */
+	public InstancesPageOutput( Collection<Instance> rootInstances, String rootPath ) {
+		this.rootInstances = rootInstances;
+		this.rootPath = rootPath;
+	}
+
+
+	/**
+	 * @param cursor the path of the last instance of the previous page (null to start from the beginning)
+	 */
+	public void setCursor( String cursor ) {
+		this.cursor = cursor;
+	}
+
+	/**
+	 * @param componentName the name of the component instances must be associated with (null to ignore)
+	 */
+	public void setComponentName( String componentName ) {
+		this.componentName = componentName;
+	}
+
+	/**
+	 * @param pathPrefix the prefix instance paths must start with (null to ignore)
+	 */
+	public void setPathPrefix( String pathPrefix ) {
+		this.pathPrefix = pathPrefix;
+	}
+
+	/**
+	 * @param status the status instances must have (null to ignore)
+	 */
+	public void setStatus( InstanceStatus status ) {
+		this.status = status;
+	}
+
+	/**
+	 * @param fields the JSon fields to write for every instance (null to write all of them)
+	 */
+	public void setFields( Set<String> fields ) {
+		this.fields = fields;
+	}
+
+	/**
+	 * @param maxDepth the maximum depth, relative to the root instances (1 for the root instances only, 0 for no limit)
+	 */
+	public void setMaxDepth( int maxDepth ) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @param limit the maximum number of instances to write (values are forced to [1, {@value #MAX_LIMIT}])
+	 */
+	public void setLimit( int limit ) {
+		this.limit = Math.max( 1, Math.min( MAX_LIMIT, limit ));
+	}
+
+
+	@Override
+	public void write( OutputStream output ) throws IOException {
+
+		JsonGenerator generator = MAPPER.getFactory().createGenerator( output );
+		try {
+			generator.writeStartObject();
+			generator.writeArrayFieldStart( INSTANCES );
+			String next = writeInstances( generator );
+			generator.writeEndArray();
+
+			if( next != null )
+				generator.writeStringField( NEXT, next );
+
+			generator.writeEndObject();
+
+		} finally {
+			generator.close();
+		}
+	}
+
+
+	/**
+	 * Walks the instances and writes those that match the criteria.
+	 * @param generator a JSon generator
+	 * @return the cursor for the next page, or null if there is no other instance to write
+	 * @throws IOException if something went wrong
+	 */
+	private String writeInstances( JsonGenerator generator ) throws IOException {
+
+		List<Level> levels = new ArrayList<> ();
+		levels.add( new Level( this.rootInstances, this.rootPath, 1 ));
+
+		String lastPath = null;
+		int count = 0;
+		while( ! levels.isEmpty()) {
+
+			Level level = levels.get( levels.size() - 1 );
+			if( ! level.iterator.hasNext()) {
+				levels.remove( levels.size() - 1 );
+				continue;
+			}
+
+			Instance instance = level.iterator.next();
+			String path = level.parentPath + "/" + instance.getName();
+
+			// Skip sub-trees that were entirely written in previous pages
+			int comparison = this.cursor == null ? 1 : comparePaths( path, this.cursor );
+			boolean ancestorOfCursor = this.cursor != null && this.cursor.startsWith( path + "/" );
+			if( comparison < 0 && ! ancestorOfCursor )
+				continue;
+
+			// Skip sub-trees that cannot match the path prefix
+			if( this.pathPrefix != null
+					&& ! path.startsWith( this.pathPrefix )
+					&& ! this.pathPrefix.startsWith( path + "/" ))
+				continue;
+
+			if( comparison > 0 && matches( instance, path )) {
+				if( count == this.limit )
+					return lastPath;
+
+				JSonBindingUtils.writeInstance( generator, instance, path, this.fields );
+				lastPath = path;
+				count ++;
+			}
+
+			if( this.maxDepth <= 0 || level.depth < this.maxDepth )
+				levels.add( new Level( instance.getChildren(), path, level.depth + 1 ));
+		}
+
+		return null;
+	}
+
+
+	/**
+	 * @param instance an instance
+	 * @param path its path
+	 * @return true if the instance matches the filters
+	 */
+	private boolean matches( Instance instance, String path ) {
+
+		return ( this.pathPrefix == null || path.startsWith( this.pathPrefix ))
+				&& ( this.status == null || this.status == instance.getStatus())
+				&& ( this.componentName == null
+						|| instance.getComponent() != null && this.componentName.equals( instance.getComponent().getName()));
+	}
+
+
+	/**
+	 * Compares instance paths segment by segment, as {@link net.roboconf.core.model.comparators.InstanceComparator} does.
+	 * @param p1 a first path
+	 * @param p2 a second path
+	 * @return a negative integer, zero, or a positive integer if p1 is before, equal to, or after p2
+	 */
+	static int comparePaths( String p1, String p2 ) {
+
+		String[] s1 = p1.substring( 1 ).split( "/" );
+		String[] s2 = p2.substring( 1 ).split( "/" );
+
+		int result = 0;
+		for( int i=0; i<Math.min( s1.length, s2.length ) && result == 0; i++ )
+			result = s1[ i ].compareTo( s2[ i ]);
+
+		return result != 0 ? result : s1.length - s2.length;
+	}
+
+
+	/**
+	 * A level in the instances tree.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class Level {
+
+		final Iterator<Instance> iterator;
+		final String parentPath;
+		final int depth;
+
+
+		/**
+		 * Constructor.
+		 * @param instances the instances of this level
+		 * @param parentPath the path of their parent
+		 * @param depth their depth
+		 */
+		Level( Collection<Instance> instances, String parentPath, int depth ) {
+
+			List<Instance> sortedInstances = new ArrayList<>( instances );
+			Collections.sort( sortedInstances, NAME_COMPARATOR );
+
+			this.iterator = sortedInstances.iterator();
+			this.parentPath = parentPath;
+			this.depth = depth;
+		}
+	}
+
+
+	/**
+	 * Compares sibling instances by name.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class InstanceNameComparator implements Comparator<Instance> {
+
+		@Override
+		public int compare( Instance o1, Instance o2 ) {
+			return o1.getName().compareTo( o2.getName());
+		}
+	}
+}
@@ -65,8 +65,9 @@ public class RoboconfWebSocket implements WebSocketListener {
 
 	@Override
 	public void onWebSocketText( String message ) {
-		this.logger.finest( "An unexpected text message was received on the web socket. Session origin: " + this.session.getRemoteAddress());
-		// nothing else, we do not expect requests on the web socket
+		// Text messages are subscriptions (filters for notifications)
+		this.logger.finest( "A subscription was received on the web socket. Session origin: " + this.session.getRemoteAddress());
+		WebSocketHandler.updateSubscription( this.session, message );
 	}
 
 	@Override
@@ -26,20 +26,30 @@
 package net.roboconf.dm.rest.services.internal.websocket;
 
 import java.io.IOException;
-import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import net.roboconf.core.model.beans.Application;
 import net.roboconf.core.model.beans.ApplicationTemplate;
 import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.model.runtime.EventType;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.management.events.IDmListener;
@@ -47,11 +57,31 @@ import net.roboconf.dm.rest.commons.beans.WebSocketMessage;
 import net.roboconf.dm.rest.commons.json.JSonBindingUtils;
 
 /**
+ * Propagates the DM's notifications to web socket clients.
+ * <p>
+ * Notifications are serialized once, and then queued for every session.
+ * Sessions send their messages asynchronously, one after the other, so that the DM
+ * is never blocked by a slow client. A session whose queue is full is closed.
+ * Successive notifications about the same instance are coalesced while they wait in a queue.
+ * </p>
+ * <p>
+ * Clients can restrict the notifications they receive by sending a subscription
+ * on the web socket, e.g. <code>{ "apps": [ "app1", "app2" ], "events": [ "CHANGED" ] }</code>.
+ * Application and instance notifications are filtered by application name, and all the
+ * notifications but raw messages are filtered by event type. An empty object resets the filters.
+ * </p>
+ *
  * @author Vincent Zurczak - Linagora
  */
 public class WebSocketHandler implements IDmListener {
 
-	private final static Set<Session> SESSIONS = new HashSet<> ();
+	static final int MAX_QUEUED_MESSAGES = 256;
+	static final String SUBSCRIPTION_APPS = "apps";
+	static final String SUBSCRIPTION_EVENTS = "events";
+
+	private static final Map<Session,SessionContext> SESSIONS = new LinkedHashMap<> ();
+	private static final ObjectMapper MAPPER = JSonBindingUtils.createObjectMapper();
+	private static final ObjectWriter WRITER = MAPPER.writer();
 
 	private final AtomicBoolean enabled = new AtomicBoolean( false );
 	private final Logger logger = Logger.getLogger( getClass().getName());
@@ -61,7 +91,7 @@ public class WebSocketHandler implements IDmListener {
 
 	public static void addSession( Session session ) {
 		synchronized( SESSIONS ) {
-			SESSIONS.add( session );
+			SESSIONS.put( session, new SessionContext( session ));
 		}
 	}
 
@@ -76,7 +106,7 @@ public class WebSocketHandler implements IDmListener {
 
 		Set<Session> result;
 		synchronized( SESSIONS ) {
-			result = Collections.unmodifiableSet( SESSIONS );
+			result = Collections.unmodifiableSet( new HashSet<>( SESSIONS.keySet()));
 		}
 
 		return result;
@@ -88,6 +118,39 @@ public class WebSocketHandler implements IDmListener {
 		}
 	}
 
+	static SessionContext findContext( Session session ) {
+		synchronized( SESSIONS ) {
+			return SESSIONS.get( session );
+		}
+	}
+
+
+	/**
+	 * Updates the subscription of a session.
+	 * @param session a session
+	 * @param subscription a JSon object (see the class description)
+	 */
+	public static void updateSubscription( Session session, String subscription ) {
+
+		SessionContext ctx = findContext( session );
+		Logger logger = Logger.getLogger( WebSocketHandler.class.getName());
+		if( ctx == null ) {
+			logger.fine( "A subscription was received for an unknown web socket session." );
+
+		} else try {
+			JsonNode node = MAPPER.readTree( subscription );
+			if( node == null || ! node.isObject())
+				throw new IOException( "A JSon object was expected." );
+
+			ctx.updateFilters( readStrings( node.get( SUBSCRIPTION_APPS )), readStrings( node.get( SUBSCRIPTION_EVENTS )));
+			logger.fine( "The subscription of a web socket client was updated. Session origin: " + session.getRemoteAddress());
+
+		} catch( IOException e ) {
+			logger.warning( "An invalid subscription was received on a web socket. Session origin: " + session.getRemoteAddress());
+			Utils.logException( logger, e );
+		}
+	}
+
 
 	// IDmListener
 
@@ -112,24 +175,25 @@ public class WebSocketHandler implements IDmListener {
 	@Override
 	public void application( Application application, EventType eventType ) {
 		WebSocketMessage message = new WebSocketMessage( application, eventType );
-		String msg = asJson( message );
-		send( msg );
+		send( message, application.getName(), eventType, null );
 	}
 
 
 	@Override
 	public void applicationTemplate( ApplicationTemplate tpl, EventType eventType ) {
 		WebSocketMessage message = new WebSocketMessage( tpl, eventType );
-		String msg = asJson( message );
-		send( msg );
+		send( message, null, eventType, null );
 	}
 
 
 	@Override
 	public void instance( Instance instance, Application application, EventType eventType ) {
+
+		// Successive changes of an instance can be coalesced (only the last state matters).
+		// Other events (creation, deletion) must not be overtaken by a coalesced change.
 		WebSocketMessage message = new WebSocketMessage( instance, application, eventType );
-		String msg = asJson( message );
-		send( msg );
+		String instanceKey = application.getName() + "|" + InstanceHelpers.computeInstancePath( instance );
+		send( message, application.getName(), eventType, instanceKey );
 	}
 
 
@@ -139,8 +203,7 @@ public class WebSocketHandler implements IDmListener {
 		// We do not use "data"
 		if( message != null ) {
 			WebSocketMessage wrappedMessage = new WebSocketMessage( message );
-			String msg = asJson( wrappedMessage );
-			send( msg );
+			send( wrappedMessage, null, null, null );
 		}
 	}
 
@@ -154,10 +217,7 @@ public class WebSocketHandler implements IDmListener {
 
 		String result = null;
 		try {
-			ObjectMapper mapper = JSonBindingUtils.createObjectMapper();
-			StringWriter writer = new StringWriter();
-			mapper.writeValue( writer, message );
-			result = writer.toString();
+			result = WRITER.writeValueAsString( message );
 
 		} catch( IOException e ) {
 			this.logger.severe( "A notification could not be prepared. It will not be sent. " + e.getMessage());
@@ -169,34 +229,253 @@ public class WebSocketHandler implements IDmListener {
 
 
 	/**
-	 * Sends a message to all the connected sessions.
+	 * Queues a message for all the connected (and interested) sessions.
 	 * @param message the message to send
+	 * @param applicationName the associated application name (null if not related to an application)
+	 * @param eventType the event type (null for raw messages)
+	 * @param instanceKey a key that identifies the instance the message is about (can be null)
 	 */
-	private void send( String message ) {
+	private void send( WebSocketMessage message, String applicationName, EventType eventType, String instanceKey ) {
 
 		if( ! this.enabled.get()) {
 			this.logger.finest( "Notifications were disabled by the DM." );
+			return;
+		}
 
-		} else if( message == null ) {
+		// Find the interested sessions
+		List<SessionContext> contexts = new ArrayList<> ();
+		synchronized( SESSIONS ) {
+			for( SessionContext ctx : SESSIONS.values()) {
+				if( ctx.accepts( applicationName, eventType ))
+					contexts.add( ctx );
+			}
+		}
+
+		// Serialize once
+		String msg = contexts.isEmpty() ? null : asJson( message );
+		if( msg == null ) {
 			this.logger.finest( "No message to send to web socket clients." );
 
-		} else synchronized( SESSIONS ) {
-			for( Session session : SESSIONS ) {
-				try {
-					this.logger.finest( "Sending a message to a web socket client..." );
-					session.getRemote().sendString( message );
-
-				} catch( IOException e ) {
-					StringBuilder sb = new StringBuilder( "A notification could not be propagated for session " );
-					sb.append( session.getRemoteAddress());
-					sb.append( "." );
-					if( ! Utils.isEmptyOrWhitespaces( e.getMessage()))
-						sb.append( " " + e.getMessage());
-
-					this.logger.severe( sb.toString());
-					Utils.logException( this.logger, e );
+		} else {
+			for( SessionContext ctx : contexts ) {
+				this.logger.finest( "Queuing a message for a web socket client..." );
+				if( ! ctx.enqueue( instanceKey, eventType == EventType.CHANGED, msg ))
+					evict( ctx );
+			}
+		}
+	}
+
+
+	/**
+	 * Evicts a session that does not consume its messages fast enough.
+	 * @param ctx the session context
+	 */
+	private void evict( SessionContext ctx ) {
+
+		removeSession( ctx.session );
+		this.logger.warning( "A web socket client was too slow to consume notifications. It was disconnected. Session origin: " + ctx.session.getRemoteAddress());
+		try {
+			ctx.session.close( StatusCode.POLICY_VIOLATION, "Too many pending notifications." );
+
+		} catch( Exception e ) {
+			Utils.logException( this.logger, e );
+		}
+	}
+
+
+	/**
+	 * @param node a JSon node (can be null)
+	 * @return null if the node is null or empty, a non-null set otherwise
+	 */
+	private static Set<String> readStrings( JsonNode node ) {
+
+		Set<String> result = null;
+		if( node != null && node.size() > 0 ) {
+			result = new HashSet<> ();
+			for( JsonNode item : node )
+				result.add( item.asText());
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * The outbound queue and the subscription of a session.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static class SessionContext implements WriteCallback {
+
+		final Session session;
+		private final Logger logger = Logger.getLogger( getClass().getName());
+
+		// Key = a unique entry key, value = serialized message
+		private final LinkedHashMap<QueueKey,String> queue = new LinkedHashMap<> ();
+
+		// Key = instance key, value = the queued change that can still be replaced
+		private final Map<String,QueueKey> replaceableChanges = new HashMap<> ();
+		private boolean sending = false;
+		private volatile Set<String> applicationNames, eventTypes;
+
+
+		/**
+		 * Constructor.
+		 * @param session
+		 */
+		SessionContext( Session session ) {
+			this.session = session;
+		}
+
+
+		/**
+		 * Updates the filters.
+		 * @param applicationNames the application names (null to accept all of them)
+		 * @param eventTypes the event types (null to accept all of them)
+		 */
+		void updateFilters( Set<String> applicationNames, Set<String> eventTypes ) {
+			this.applicationNames = applicationNames;
+			this.eventTypes = eventTypes;
+		}
+
+
+		/**
+		 * @param applicationName an application name (null if the notification is not related to an application)
+		 * @param eventType an event type (null for raw messages)
+		 * @return true if this session is interested by a notification
+		 */
+		boolean accepts( String applicationName, EventType eventType ) {
+
+			Set<String> apps = this.applicationNames;
+			Set<String> events = this.eventTypes;
+			return ( applicationName == null || apps == null || apps.contains( applicationName ))
+					&& ( eventType == null || events == null || events.contains( eventType.toString()));
+		}
+
+
+		/**
+		 * Queues a message and starts sending if necessary.
+		 * <p>
+		 * A change replaces the previous change of the same instance that was not yet sent,
+		 * and takes its position in the queue. Other messages about an instance (e.g. its deletion)
+		 * prevent the changes queued before them from being replaced: a change is never sent
+		 * before a message that was queued before it.
+		 * </p>
+		 *
+		 * @param instanceKey a key that identifies the instance the message is about (can be null)
+		 * @param change true if the message is a change that can replace a previous one
+		 * @param msg the message
+		 * @return false if the queue was full, true otherwise
+		 */
+		boolean enqueue( String instanceKey, boolean change, String msg ) {
+
+			boolean startSending = false;
+			synchronized( this ) {
+				QueueKey key = instanceKey == null ? null : this.replaceableChanges.get( instanceKey );
+				if( key != null && change ) {
+					// Replacing a value keeps the position in the queue
+					this.queue.put( key, msg );
+
+				} else if( this.queue.size() >= MAX_QUEUED_MESSAGES ) {
+					return false;
+
+				} else {
+					key = new QueueKey( instanceKey );
+					this.queue.put( key, msg );
+					if( instanceKey != null && change )
+						this.replaceableChanges.put( instanceKey, key );
+					else if( instanceKey != null )
+						this.replaceableChanges.remove( instanceKey );
+				}
+
+				if( ! this.sending ) {
+					this.sending = true;
+					startSending = true;
+				}
+			}
+
+			if( startSending )
+				sendNext();
+
+			return true;
+		}
+
+
+		/**
+		 * @return the number of messages waiting to be sent
+		 */
+		synchronized int getQueuedMessagesCount() {
+			return this.queue.size();
+		}
+
+
+		/**
+		 * Sends the next queued message, if any.
+		 */
+		void sendNext() {
+
+			String msg;
+			synchronized( this ) {
+				Iterator<Map.Entry<QueueKey,String>> it = this.queue.entrySet().iterator();
+				if( ! it.hasNext()) {
+					this.sending = false;
+					return;
 				}
+
+				Map.Entry<QueueKey,String> entry = it.next();
+				msg = entry.getValue();
+				it.remove();
+
+				// A change that is being sent cannot be replaced anymore
+				QueueKey key = entry.getKey();
+				if( key.instanceKey != null && this.replaceableChanges.get( key.instanceKey ) == key )
+					this.replaceableChanges.remove( key.instanceKey );
 			}
+
+			try {
+				this.logger.finest( "Sending a message to a web socket client..." );
+				this.session.getRemote().sendString( msg, this );
+
+			} catch( Exception e ) {
+				writeFailed( e );
+			}
+		}
+
+
+		@Override
+		public void writeSuccess() {
+			sendNext();
+		}
+
+
+		@Override
+		public void writeFailed( Throwable t ) {
+
+			StringBuilder sb = new StringBuilder( "A notification could not be propagated for session " );
+			sb.append( this.session.getRemoteAddress());
+			sb.append( "." );
+			if( ! Utils.isEmptyOrWhitespaces( t.getMessage()))
+				sb.append( " " + t.getMessage());
+
+			this.logger.severe( sb.toString());
+			Utils.logException( this.logger, t );
+			sendNext();
+		}
+	}
+
+
+	/**
+	 * The key of a queued message.
+	 * <p>
+	 * Keys are compared by identity: every queued message has its own key.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static final class QueueKey {
+		final String instanceKey;
+
+		QueueKey( String instanceKey ) {
+			this.instanceKey = instanceKey;
 		}
 	}
 }
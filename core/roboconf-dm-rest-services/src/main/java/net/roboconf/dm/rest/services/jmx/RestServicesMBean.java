@@ -43,6 +43,35 @@ public interface RestServicesMBean {
 	 */
 	long getRestRequestsWithAuthFailureCount();
 
+	/**
+	 * @return the total number of audit records that were dropped because too many requests were received
+	 * <p>
+	 * This measure only makes sense when authentication is enabled.
+	 * </p>
+	 */
+	long getAuditRecordsDroppedCount();
+
+	/**
+	 * @return the total number of requests that were rejected because a client sent too many requests
+	 * <p>
+	 * This measure only makes sense when rate limiting is enabled.
+	 * </p>
+	 */
+	long getRateLimitedRequestsCount();
+
+	/**
+	 * @return the total number of expensive requests that were rejected because too many were already running
+	 * <p>
+	 * This measure only makes sense when the number of concurrent expensive requests is limited.
+	 * </p>
+	 */
+	long getConcurrencyLimitedRequestsCount();
+
+	/**
+	 * @return the number of expensive requests that are currently processed
+	 */
+	int getCurrentExpensiveRequestsCount();
+
 	/**
 	 * @return true if authentication is enabled, false otherwise
 	 */
@@ -62,6 +62,7 @@ import net.roboconf.dm.management.Manager;
 import net.roboconf.dm.rest.commons.UrlConstants;
 import net.roboconf.dm.rest.commons.json.JSonBindingUtils;
 import net.roboconf.dm.rest.commons.security.AuthenticationManager;
+import net.roboconf.dm.rest.services.internal.admission.AdmissionController;
 import net.roboconf.dm.rest.services.internal.filters.AuthenticationFilter;
 import net.roboconf.messaging.api.MessagingConstants;
 
@@ -139,7 +140,7 @@ public class ServletRegistrationComponentTest {
 		Mockito.verifyZeroInteractions( this.bundleContext );
 		this.register.starting();
 
-		Assert.assertEquals( 3, httpService.pathToServlet.size());
+		Assert.assertEquals( 4, httpService.pathToServlet.size());
 		Mockito.verify( this.bundleContext, Mockito.only()).registerService(
 				Mockito.eq( Filter.class ),
 				Mockito.any( AuthenticationFilter.class ),
@@ -154,6 +155,9 @@ public class ServletRegistrationComponentTest {
 		HttpServlet websocketServlet = (HttpServlet) httpService.pathToServlet.get( ServletRegistrationComponent.WEBSOCKET_CONTEXT );
 		Assert.assertNotNull( websocketServlet );
 
+		HttpServlet metricsServlet = (HttpServlet) httpService.pathToServlet.get( ServletRegistrationComponent.METRICS_CONTEXT );
+		Assert.assertNotNull( metricsServlet );
+
 		// Check there is no authentication manager
 		Assert.assertNull( this.register.authenticationMngr );
 		this.register.setAuthenticationRealm( "realm" );
@@ -315,6 +319,99 @@ public class ServletRegistrationComponentTest {
 	}
 
 
+	@Test
+	public void testSetSessionSettings() throws Exception {
+
+		// No NPE
+		this.register.setSessionMaxCount( 20 );
+		this.register.setSessionSigningKey( "secret" );
+
+		// Act like if the manager had been created
+		this.register.authenticationMngr = Mockito.mock( AuthenticationManager.class );
+
+		this.register.setSessionMaxCount( 50 );
+		this.register.setSessionSigningKey( null );
+		this.register.setSessionPeriod( 30 );
+
+		Mockito.verify( this.register.authenticationMngr ).setMaxSessions( 50 );
+		Mockito.verify( this.register.authenticationMngr ).setSigningKey( null );
+		Mockito.verify( this.register.authenticationMngr ).setSessionPeriod( 30 );
+		Mockito.verifyNoMoreInteractions( this.register.authenticationMngr );
+
+		// A new realm means a new manager
+		AuthenticationManager oldMngr = this.register.authenticationMngr;
+		this.register.setAuthenticationRealm( "realm" );
+		Assert.assertNotSame( oldMngr, this.register.authenticationMngr );
+	}
+
+
+	@Test
+	public void testSetMetricsSettings() throws Exception {
+
+		// No NPE
+		this.register.setMetricsAnonymousAccess( true );
+		this.register.setMetricsScrapeToken( "token" );
+
+		// Act like if the component had been started
+		this.register.authenticationFilter = Mockito.mock( AuthenticationFilter.class );
+
+		this.register.setMetricsAnonymousAccess( false );
+		this.register.setMetricsScrapeToken( "other" );
+
+		Mockito.verify( this.register.authenticationFilter ).setMetricsAnonymousAccess( false );
+		Mockito.verify( this.register.authenticationFilter ).setMetricsScrapeToken( "other" );
+		Mockito.verifyNoMoreInteractions( this.register.authenticationFilter );
+	}
+
+
+	@Test
+	public void testSetAdmissionSettings() throws Exception {
+
+		// No NPE
+		this.register.setRateLimit( 10 );
+		this.register.setRateLimitBurst( 20 );
+		this.register.setMaxConcurrentExpensiveRequests( 2 );
+		Assert.assertEquals( 0, this.register.getCurrentExpensiveRequestsCount());
+
+		// Act like if the component had been started
+		this.register.authenticationFilter = Mockito.mock( AuthenticationFilter.class );
+
+		this.register.setRateLimit( 5 );
+		this.register.setRateLimitBurst( 8 );
+		this.register.setMaxConcurrentExpensiveRequests( 3 );
+
+		Mockito.verify( this.register.authenticationFilter ).setRateLimit( 5 );
+		Mockito.verify( this.register.authenticationFilter ).setRateLimitBurst( 8 );
+		Mockito.verify( this.register.authenticationFilter ).setMaxConcurrentExpensiveRequests( 3 );
+		Mockito.verifyNoMoreInteractions( this.register.authenticationFilter );
+
+		// Counters
+		this.register.rateLimitedRequestsCount.set( 4 );
+		this.register.concurrencyLimitedRequestsCount.set( 2 );
+		Assert.assertEquals( 4, this.register.getRateLimitedRequestsCount());
+		Assert.assertEquals( 2, this.register.getConcurrencyLimitedRequestsCount());
+
+		this.register.reset();
+		Assert.assertEquals( 0, this.register.getRateLimitedRequestsCount());
+		Assert.assertEquals( 0, this.register.getConcurrencyLimitedRequestsCount());
+
+		// Settings are propagated when the filter is created
+		HttpServiceForTest httpService = new HttpServiceForTest();
+		this.register.setHttpService( httpService );
+		this.register.starting();
+
+		AdmissionController admissionController = this.register.authenticationFilter.getAdmissionController();
+		Assert.assertTrue( admissionController.isRateLimitEnabled());
+		Assert.assertTrue( admissionController.enterExpensiveRequest());
+		Assert.assertEquals( 1, this.register.getCurrentExpensiveRequestsCount());
+		admissionController.leaveExpensiveRequest();
+		Assert.assertEquals( 0, this.register.getCurrentExpensiveRequestsCount());
+
+		this.register.stopping();
+		Assert.assertEquals( 0, this.register.getCurrentExpensiveRequestsCount());
+	}
+
+
 	@Test
 	public void testSetAuthenticationRealm() throws Exception {
 
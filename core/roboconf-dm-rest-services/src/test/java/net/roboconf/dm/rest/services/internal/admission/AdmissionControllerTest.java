@@ -0,0 +1,192 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class AdmissionControllerTest {
+
+	private AtomicLong rateLimitedCount, concurrencyLimitedCount;
+	private AdmissionController controller;
+
+
+	@Before
+	public void setup() {
+		this.rateLimitedCount = new AtomicLong();
+		this.concurrencyLimitedCount = new AtomicLong();
+		this.controller = new AdmissionController( this.rateLimitedCount, this.concurrencyLimitedCount );
+	}
+
+
+	@Test
+	public void testRateLimit_disabledByDefault() {
+
+		Assert.assertFalse( this.controller.isRateLimitEnabled());
+		for( int i=0; i<1000; i++ )
+			Assert.assertEquals( 0, this.controller.acquireToken( "ip:127.0.0.1", 0 ));
+
+		Assert.assertEquals( 0, this.controller.getClientsCount());
+		Assert.assertEquals( 0, this.rateLimitedCount.get());
+	}
+
+
+	@Test
+	public void testRateLimit_burstAndRefill() {
+
+		this.controller.setRateLimit( 2 );
+		this.controller.setRateLimitBurst( 5 );
+		Assert.assertTrue( this.controller.isRateLimitEnabled());
+
+		// A full bucket allows a burst
+		long now = 0;
+		for( int i=0; i<5; i++ )
+			Assert.assertEquals( "Request " + i, 0, this.controller.acquireToken( "c1", now ));
+
+		Assert.assertEquals( 1, this.controller.acquireToken( "c1", now ));
+		Assert.assertEquals( 1, this.rateLimitedCount.get());
+
+		// Other clients have their own bucket
+		Assert.assertEquals( 0, this.controller.acquireToken( "c2", now ));
+		Assert.assertEquals( 2, this.controller.getClientsCount());
+
+		// Half a second later, one token was added
+		now += TimeUnit.MILLISECONDS.toNanos( 500 );
+		Assert.assertEquals( 0, this.controller.acquireToken( "c1", now ));
+		Assert.assertEquals( 1, this.controller.acquireToken( "c1", now ));
+		Assert.assertEquals( 2, this.rateLimitedCount.get());
+
+		// Buckets do not hold more tokens than their capacity
+		now += TimeUnit.MINUTES.toNanos( 5 );
+		for( int i=0; i<5; i++ )
+			Assert.assertEquals( "Request " + i, 0, this.controller.acquireToken( "c1", now ));
+
+		Assert.assertEquals( 1, this.controller.acquireToken( "c1", now ));
+		Assert.assertEquals( 3, this.rateLimitedCount.get());
+	}
+
+
+	@Test
+	public void testRateLimit_retryAfter() {
+
+		// Without a burst, the bucket holds one second of requests
+		this.controller.setRateLimit( 1 );
+		Assert.assertEquals( 0, this.controller.acquireToken( "c", 0 ));
+		Assert.assertEquals( 1, this.controller.acquireToken( "c", 0 ));
+
+		// Clients are told to retry in at least one second
+		long now = TimeUnit.MILLISECONDS.toNanos( 100 );
+		Assert.assertEquals( 1, this.controller.acquireToken( "c", now ));
+
+		// Changing the rate also changes the capacity
+		this.controller.setRateLimit( 100 );
+		now += TimeUnit.SECONDS.toNanos( 1 );
+		for( int i=0; i<100; i++ )
+			Assert.assertEquals( "Request " + i, 0, this.controller.acquireToken( "c", now ));
+
+		Assert.assertEquals( 1, this.controller.acquireToken( "c", now ));
+	}
+
+
+	@Test
+	public void testRateLimit_boundedNumberOfClients() {
+
+		this.controller.setRateLimit( 1 );
+		for( int i=0; i<AdmissionController.DEFAULT_MAX_CLIENTS; i++ )
+			this.controller.acquireToken( "c" + i, 0 );
+
+		Assert.assertEquals( AdmissionController.DEFAULT_MAX_CLIENTS, this.controller.getClientsCount());
+
+		// No bucket is full: arbitrary ones are dropped, with some margin
+		this.controller.acquireToken( "new", 0 );
+		Assert.assertEquals( AdmissionController.DEFAULT_MAX_CLIENTS / 10 * 9 + 1, this.controller.getClientsCount());
+
+		int evicted = 0;
+		for( int i=0; i<AdmissionController.DEFAULT_MAX_CLIENTS; i++ ) {
+			if( this.controller.acquireToken( "c" + i, 0 ) == 0 )
+				evicted ++;
+		}
+
+		// Evicted clients start with a full bucket
+		Assert.assertTrue( evicted > 0 );
+		Assert.assertTrue( this.controller.getClientsCount() <= AdmissionController.DEFAULT_MAX_CLIENTS );
+	}
+
+
+	@Test
+	public void testRateLimit_boundedNumberOfClients_fullBucketsFirst() {
+
+		this.controller.setRateLimit( 1 );
+		for( int i=0; i<AdmissionController.DEFAULT_MAX_CLIENTS; i++ )
+			this.controller.acquireToken( "c" + i, 0 );
+
+		// Two seconds later, one client is active again
+		long now = TimeUnit.SECONDS.toNanos( 2 );
+		Assert.assertEquals( 0, this.controller.acquireToken( "c0", now ));
+
+		// Idle clients have a full bucket: they are dropped
+		Assert.assertEquals( 0, this.controller.acquireToken( "new", now ));
+		Assert.assertEquals( 2, this.controller.getClientsCount());
+		Assert.assertEquals( 1, this.controller.acquireToken( "c0", now ));
+		Assert.assertEquals( 1, this.controller.acquireToken( "new", now ));
+	}
+
+
+	@Test
+	public void testExpensiveRequests() {
+
+		// No limit by default
+		for( int i=0; i<10; i++ )
+			Assert.assertTrue( this.controller.enterExpensiveRequest());
+
+		Assert.assertEquals( 10, this.controller.getRunningExpensiveRequestsCount());
+		for( int i=0; i<10; i++ )
+			this.controller.leaveExpensiveRequest();
+
+		Assert.assertEquals( 0, this.controller.getRunningExpensiveRequestsCount());
+
+		// With a limit
+		this.controller.setMaxConcurrentExpensiveRequests( 2 );
+		Assert.assertTrue( this.controller.enterExpensiveRequest());
+		Assert.assertTrue( this.controller.enterExpensiveRequest());
+		Assert.assertFalse( this.controller.enterExpensiveRequest());
+		Assert.assertFalse( this.controller.enterExpensiveRequest());
+		Assert.assertEquals( 2, this.controller.getRunningExpensiveRequestsCount());
+		Assert.assertEquals( 2, this.concurrencyLimitedCount.get());
+
+		this.controller.leaveExpensiveRequest();
+		Assert.assertTrue( this.controller.enterExpensiveRequest());
+		Assert.assertEquals( 2, this.controller.getRunningExpensiveRequestsCount());
+		Assert.assertEquals( 0, this.rateLimitedCount.get());
+	}
+}
@@ -91,4 +91,68 @@ public class RestIndexerTest {
 			Assert.assertTrue( ab.getJerseyPath().matches( ab.getUrlPattern()));
 		}
 	}
+
+
+	@Test
+	public void testFindOperation_allOperations() {
+
+		RestIndexer indexer = new RestIndexer();
+		for( RestOperationBean ab : indexer.restMethods ) {
+
+			// Replace path parameters by a value
+			String path = ab.getJerseyPath().replaceAll( "\\{[^}]+\\}", "value" );
+			Assert.assertTrue( path, path.matches( ab.getUrlPattern()));
+
+			RestOperationBean found = indexer.findOperation( ab.getRestVerb(), path );
+			Assert.assertSame( path, ab, found );
+			Assert.assertSame( path, ab, indexer.findOperation( ab.getRestVerb().toLowerCase(), path ));
+		}
+	}
+
+
+	@Test
+	public void testFindOperation_specificCases() {
+
+		RestIndexer indexer = new RestIndexer();
+
+		RestOperationBean ab = indexer.findOperation( "GET", "/app/test/instances/page" );
+		Assert.assertNotNull( ab );
+		Assert.assertEquals( "listChildrenInstancesPage", ab.getMethodName());
+
+		ab = indexer.findOperation( "POST", "/app/test/commands/execute" );
+		Assert.assertNotNull( ab );
+		Assert.assertEquals( "executeCommand", ab.getMethodName());
+
+		ab = indexer.findOperation( "GET", "/app/test/commands/execute" );
+		Assert.assertNotNull( ab );
+		Assert.assertEquals( "getCommandInstructions", ab.getMethodName());
+
+		ab = indexer.findOperation( "GET", "/targets/t1/details" );
+		Assert.assertNotNull( ab );
+		Assert.assertEquals( "/targets/{target-id}/details", ab.getJerseyPath());
+
+		Assert.assertNull( indexer.findOperation( "GET", "/app/test/instances/" ));
+		Assert.assertNull( indexer.findOperation( "GET", "/app//instances" ));
+		Assert.assertNull( indexer.findOperation( "GET", "/app/test/whatever" ));
+		Assert.assertNull( indexer.findOperation( "PATCH", "/app/test/instances" ));
+		Assert.assertNull( indexer.findOperation( "GET", "app/test/instances" ));
+		Assert.assertNull( indexer.findOperation( "GET", null ));
+		Assert.assertNull( indexer.findOperation( null, "/app/test/instances" ));
+	}
+
+
+	@Test
+	public void testExpensiveOperations() {
+
+		RestIndexer indexer = new RestIndexer();
+		Assert.assertTrue( indexer.findOperation( "POST", "/app/test/deploy-all" ).isExpensive());
+		Assert.assertTrue( indexer.findOperation( "POST", "/app/test/instances/bulk" ).isExpensive());
+		Assert.assertTrue( indexer.findOperation( "POST", "/app/test/commands/execute" ).isExpensive());
+
+		Assert.assertFalse( indexer.findOperation( "GET", "/app/test/instances" ).isExpensive());
+		Assert.assertFalse( indexer.findOperation( "GET", "/app/test/instances/page" ).isExpensive());
+		Assert.assertFalse( indexer.findOperation( "GET", "/app/test/commands/execute" ).isExpensive());
+		Assert.assertFalse( indexer.findOperation( "GET", "/applications" ).isExpensive());
+		Assert.assertFalse( indexer.findOperation( "GET", "/targets/t1/details" ).isExpensive());
+	}
 }
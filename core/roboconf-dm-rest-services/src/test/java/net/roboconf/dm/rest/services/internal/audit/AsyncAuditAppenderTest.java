@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class AsyncAuditAppenderTest {
+
+	@Test
+	public void testDropsAreCountedAndReported() throws Exception {
+
+		final CountDownLatch latch = new CountDownLatch( 1 );
+		final CountDownLatch publishing = new CountDownLatch( 1 );
+		final List<LogRecord> records = new ArrayList<> ();
+		Logger logger = Logger.getAnonymousLogger();
+		logger.setUseParentHandlers( false );
+		logger.setLevel( Level.ALL );
+		logger.addHandler( new Handler() {
+
+			@Override
+			public void publish( LogRecord record ) {
+				try {
+					publishing.countDown();
+					latch.await();
+
+				} catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+
+				synchronized( records ) {
+					records.add( record );
+				}
+			}
+
+			@Override
+			public void flush() {
+				// nothing
+			}
+
+			@Override
+			public void close() {
+				// nothing
+			}
+		});
+
+		// The first record is being logged (and blocked), the next two are queued.
+		// The last ones are dropped.
+		AtomicLong droppedCount = new AtomicLong();
+		AsyncAuditAppender appender = new AsyncAuditAppender( logger, 2, droppedCount );
+		Assert.assertTrue( appender.append( newRecord( "1" )));
+		publishing.await();
+
+		Assert.assertTrue( appender.append( newRecord( "2" )));
+		Assert.assertTrue( appender.append( newRecord( "3" )));
+		Assert.assertFalse( appender.append( newRecord( "4" )));
+		Assert.assertFalse( appender.append( newRecord( "5" )));
+
+		Assert.assertEquals( 2, droppedCount.get());
+		Assert.assertEquals( 2, appender.getPendingCount());
+
+		// Unblock the logger
+		latch.countDown();
+		appender.shutdown();
+		for( int i = 0; i < 100 && records.size() < 4; i ++ )
+			Thread.sleep( 50 );
+
+		synchronized( records ) {
+			Assert.assertEquals( 4, records.size());
+			Assert.assertTrue( records.get( 0 ).getMessage().contains( "/1" ));
+
+			Assert.assertEquals( Level.WARNING, records.get( 1 ).getLevel());
+			Assert.assertEquals( AuditLogRecord.LOGGER_NAME, records.get( 1 ).getLoggerName());
+			Assert.assertTrue( records.get( 1 ).getMessage().startsWith( "2 " ));
+
+			Assert.assertTrue( records.get( 2 ).getMessage().contains( "/2" ));
+			Assert.assertTrue( records.get( 3 ).getMessage().contains( "/3" ));
+		}
+
+		// Nothing is accepted anymore
+		Assert.assertFalse( appender.append( newRecord( "6" )));
+		Assert.assertEquals( 3, droppedCount.get());
+	}
+
+
+	private static AuditLogRecord newRecord( String id ) {
+		return new AuditLogRecord( "me", "/target", "/roboconf-dm/target/" + id, "GET", "127.0.0.1", "Gecko", true );
+	}
+}
@@ -25,10 +25,12 @@
 
 package net.roboconf.dm.rest.services.internal.filters;
 
+import static net.roboconf.dm.rest.services.internal.ServletRegistrationComponent.METRICS_CONTEXT;
 import static net.roboconf.dm.rest.services.internal.ServletRegistrationComponent.REST_CONTEXT;
 import static net.roboconf.dm.rest.services.internal.ServletRegistrationComponent.WEBSOCKET_CONTEXT;
 
 import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.Cookie;
@@ -39,12 +41,17 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import net.roboconf.dm.management.api.IPreferencesMngr;
+import net.roboconf.dm.metrics.DmMetrics;
+import net.roboconf.dm.metrics.Histogram;
 import net.roboconf.dm.rest.commons.UrlConstants;
 import net.roboconf.dm.rest.commons.security.AuthenticationManager;
 import net.roboconf.dm.rest.services.cors.ResponseCorsFilter;
 import net.roboconf.dm.rest.services.internal.ServletRegistrationComponent;
+import net.roboconf.dm.rest.services.internal.admission.AdmissionController;
 import net.roboconf.dm.rest.services.internal.resources.IAuthenticationResource;
 import net.roboconf.dm.rest.services.internal.resources.IPreferencesResource;
 
@@ -106,8 +113,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req ).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -137,8 +144,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req ).getQueryString();
 		Mockito.verify( req ).getHeader( ResponseCorsFilter.CORS_REQ_HEADERS );
@@ -180,8 +187,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req ).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -220,8 +227,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req ).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -252,8 +259,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req ).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -284,8 +291,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req, Mockito.times( 2 )).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -315,8 +322,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req ).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -347,8 +354,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req ).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -379,8 +386,8 @@ public class AuthenticationFilterTest {
 
 		this.filter.doFilter( req, resp, chain );
 		Mockito.verify( req ).getCookies();
-		Mockito.verify( req, Mockito.times( 2 )).getRequestURI();
-		Mockito.verify( req, Mockito.times( 2 )).getMethod();
+		Mockito.verify( req ).getRequestURI();
+		Mockito.verify( req ).getMethod();
 		Mockito.verify( req ).getRemoteAddr();
 		Mockito.verify( req, Mockito.times( 2 )).getQueryString();
 		Mockito.verify( req ).getHeader( AuthenticationFilter.USER_AGENT );
@@ -394,6 +401,375 @@ public class AuthenticationFilterTest {
 	}
 
 
+	@Test
+	public void testDoFiler_latencyIsMeasuredPerRoute() throws Exception {
+
+		this.filter.setAuthenticationEnabled( false );
+		Histogram restHistogram = DmMetrics.REGISTRY.histogram( DmMetrics.REST_REQUESTS, null, "route", "GET /app/{name}/instances/page" );
+		Histogram otherHistogram = DmMetrics.REGISTRY.histogram( DmMetrics.REST_REQUESTS, null, "route", AuthenticationFilter.OTHER_ROUTE );
+		long restCount = restHistogram.getCount();
+		long otherCount = otherHistogram.getCount();
+
+		// A REST operation
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( req.getRequestURI()).thenReturn( REST_CONTEXT + "/app/test/instances/page" );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		FilterChain chain = Mockito.mock( FilterChain.class );
+
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.only()).doFilter( req, resp );
+		Assert.assertEquals( restCount + 1, restHistogram.getCount());
+		Assert.assertEquals( otherCount, otherHistogram.getCount());
+
+		// Another application: same route
+		Mockito.when( req.getRequestURI()).thenReturn( REST_CONTEXT + "/app/other/instances/page" );
+		this.filter.doFilter( req, resp, chain );
+		Assert.assertEquals( restCount + 2, restHistogram.getCount());
+		Assert.assertEquals( otherCount, otherHistogram.getCount());
+
+		// Something else (e.g. icons)
+		Mockito.when( req.getRequestURI()).thenReturn( "/roboconf-icons/app/icon.jpg" );
+		this.filter.doFilter( req, resp, chain );
+		Assert.assertEquals( restCount + 2, restHistogram.getCount());
+		Assert.assertEquals( otherCount + 1, otherHistogram.getCount());
+
+		// Failures are measured too
+		Mockito.doThrow( new ServletException( "for test" )).when( chain ).doFilter( req, resp );
+		try {
+			this.filter.doFilter( req, resp, chain );
+			Assert.fail( "An exception was expected." );
+
+		} catch( ServletException e ) {
+			// nothing
+		}
+
+		Assert.assertEquals( otherCount + 2, otherHistogram.getCount());
+	}
+
+
+	@Test
+	public void testDoFiler_metrics_anonymousAccess() throws Exception {
+
+		this.filter.setAuthenticationEnabled( true );
+		this.filter.setAuthenticationManager( Mockito.mock( AuthenticationManager.class ));
+		this.filter.setMetricsAnonymousAccess( true );
+		this.filter.setRateLimit( 2 );
+
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( req.getRequestURI()).thenReturn( METRICS_CONTEXT );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+		Mockito.when( req.getRemoteAddr()).thenReturn( "192.168.1.2" );
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		FilterChain chain = Mockito.mock( FilterChain.class );
+
+		// No session, no audit...
+		this.filter.doFilter( req, resp, chain );
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.times( 2 )).doFilter( req, resp );
+		Mockito.verify( req, Mockito.never()).getCookies();
+		Mockito.verifyZeroInteractions( resp );
+
+		// ... but still limited per IP address
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.times( 2 )).doFilter( req, resp );
+		Mockito.verify( resp ).setHeader( AuthenticationFilter.RETRY_AFTER, "1" );
+		Mockito.verify( resp ).sendError( Mockito.eq( AuthenticationFilter.TOO_MANY_REQUESTS ), Mockito.anyString());
+		Mockito.verifyNoMoreInteractions( resp );
+
+		Assert.assertEquals( 0, this.servletRegistrationComponent.getRestRequestsCount());
+		Assert.assertEquals( 0, this.servletRegistrationComponent.getRestRequestsWithAuthFailureCount());
+		Assert.assertEquals( 1, this.servletRegistrationComponent.getRateLimitedRequestsCount());
+	}
+
+
+	@Test
+	public void testDoFiler_metrics_authenticationRequired() throws Exception {
+
+		final String sessionId = "a1a2a3a4";
+		final long sessionPeriod = -1;
+		AuthenticationManager authMngr = Mockito.mock( AuthenticationManager.class );
+		Mockito.when( authMngr.isSessionValid( sessionId, sessionPeriod )).thenReturn( true );
+
+		this.filter.setAuthenticationEnabled( true );
+		this.filter.setAuthenticationManager( authMngr );
+		this.filter.setSessionPeriod( sessionPeriod );
+
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( req.getRequestURI()).thenReturn( METRICS_CONTEXT );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		FilterChain chain = Mockito.mock( FilterChain.class );
+
+		// No session
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verifyZeroInteractions( chain );
+		Mockito.verify( resp ).sendError( Mockito.eq( 403 ), Mockito.anyString());
+
+		// Valid session
+		Mockito.reset( resp );
+		Mockito.when( req.getCookies()).thenReturn( new Cookie[] {
+			new Cookie( UrlConstants.SESSION_ID, sessionId )
+		});
+
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.only()).doFilter( req, resp );
+		Mockito.verifyZeroInteractions( resp );
+
+		// Scrapes are not REST requests
+		Assert.assertEquals( 0, this.servletRegistrationComponent.getRestRequestsCount());
+		Assert.assertEquals( 0, this.servletRegistrationComponent.getRestRequestsWithAuthFailureCount());
+	}
+
+
+	@Test
+	public void testDoFiler_metrics_noAuthentication_notAnonymous() throws Exception {
+
+		this.filter.setAuthenticationEnabled( false );
+
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( req.getRequestURI()).thenReturn( METRICS_CONTEXT + "/" );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		FilterChain chain = Mockito.mock( FilterChain.class );
+
+		// Disabling authentication does not expose metrics
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verifyZeroInteractions( chain );
+		Mockito.verify( resp ).sendError( Mockito.eq( 403 ), Mockito.anyString());
+	}
+
+
+	@Test
+	public void testDoFiler_metrics_scrapeToken() throws Exception {
+
+		this.filter.setAuthenticationEnabled( false );
+		this.filter.setMetricsScrapeToken( "my-token" );
+		this.filter.setRateLimit( 2 );
+
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( req.getRequestURI()).thenReturn( METRICS_CONTEXT );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+		Mockito.when( req.getRemoteAddr()).thenReturn( "192.168.1.2" );
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		FilterChain chain = Mockito.mock( FilterChain.class );
+
+		// Invalid token
+		Mockito.when( req.getHeader( AuthenticationFilter.AUTHORIZATION )).thenReturn( "Bearer other-token" );
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verifyZeroInteractions( chain );
+		Mockito.verify( resp ).sendError( Mockito.eq( 403 ), Mockito.anyString());
+
+		// Valid token
+		Mockito.reset( resp );
+		Mockito.when( req.getHeader( AuthenticationFilter.AUTHORIZATION )).thenReturn( "Bearer my-token" );
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.only()).doFilter( req, resp );
+		Mockito.verifyZeroInteractions( resp );
+
+		// A valid token does not bypass the rate limit
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.only()).doFilter( req, resp );
+		Mockito.verify( resp ).sendError( Mockito.eq( AuthenticationFilter.TOO_MANY_REQUESTS ), Mockito.anyString());
+		Assert.assertEquals( 1, this.servletRegistrationComponent.getRateLimitedRequestsCount());
+
+		// No token configured
+		Mockito.reset( resp, chain );
+		this.filter.setRateLimit( 0 );
+		this.filter.setMetricsScrapeToken( null );
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verifyZeroInteractions( chain );
+		Mockito.verify( resp ).sendError( Mockito.eq( 403 ), Mockito.anyString());
+	}
+
+
+	@Test
+	public void testIsMetricsPath() {
+
+		Assert.assertFalse( AuthenticationFilter.isMetricsPath( null ));
+		Assert.assertFalse( AuthenticationFilter.isMetricsPath( "" ));
+		Assert.assertFalse( AuthenticationFilter.isMetricsPath( REST_CONTEXT ));
+		Assert.assertFalse( AuthenticationFilter.isMetricsPath( METRICS_CONTEXT + "-other" ));
+		Assert.assertTrue( AuthenticationFilter.isMetricsPath( METRICS_CONTEXT ));
+		Assert.assertTrue( AuthenticationFilter.isMetricsPath( METRICS_CONTEXT + "/" ));
+	}
+
+
+	@Test
+	public void testDoFiler_rateLimit_noAuthentication() throws Exception {
+
+		this.filter.setAuthenticationEnabled( false );
+		this.filter.setRateLimit( 2 );
+
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( req.getRequestURI()).thenReturn( REST_CONTEXT + "/applications" );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+		Mockito.when( req.getRemoteAddr()).thenReturn( "192.168.1.2" );
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		FilterChain chain = Mockito.mock( FilterChain.class );
+
+		// The bucket holds one second of requests
+		this.filter.doFilter( req, resp, chain );
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.times( 2 )).doFilter( req, resp );
+		Mockito.verifyZeroInteractions( resp );
+
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.times( 2 )).doFilter( req, resp );
+		Mockito.verify( resp ).setHeader( AuthenticationFilter.RETRY_AFTER, "1" );
+		Mockito.verify( resp ).sendError( Mockito.eq( AuthenticationFilter.TOO_MANY_REQUESTS ), Mockito.anyString());
+		Mockito.verifyNoMoreInteractions( resp );
+
+		// Another client is not impacted
+		Mockito.reset( resp );
+		Mockito.when( req.getRemoteAddr()).thenReturn( "192.168.1.3" );
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( chain, Mockito.times( 3 )).doFilter( req, resp );
+		Mockito.verifyZeroInteractions( resp );
+
+		Assert.assertEquals( 4, this.servletRegistrationComponent.getRestRequestsCount());
+		Assert.assertEquals( 1, this.servletRegistrationComponent.getRateLimitedRequestsCount());
+		Assert.assertEquals( 0, this.servletRegistrationComponent.getConcurrencyLimitedRequestsCount());
+	}
+
+
+	@Test
+	public void testDoFiler_rateLimit_withAuthentication() throws Exception {
+
+		final long sessionPeriod = -1;
+		this.filter.setAuthenticationEnabled( true );
+		this.filter.setSessionPeriod( sessionPeriod );
+		this.filter.setEnableCors( true );
+		this.filter.setRateLimit( 1 );
+
+		AuthenticationManager authMngr = Mockito.mock( AuthenticationManager.class );
+		Mockito.when( authMngr.isSessionValid( "s1", sessionPeriod )).thenReturn( true );
+		Mockito.when( authMngr.isSessionValid( "s2", sessionPeriod )).thenReturn( true );
+		this.filter.setAuthenticationManager( authMngr );
+
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( req.getRequestURI()).thenReturn( REST_CONTEXT + "/applications" );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+		Mockito.when( req.getRemoteAddr()).thenReturn( "192.168.1.2" );
+		Mockito.when( req.getHeader( ResponseCorsFilter.ORIGIN )).thenReturn( "http://console" );
+		Mockito.when( req.getCookies()).thenReturn( new Cookie[] { new Cookie( UrlConstants.SESSION_ID, "s1" )});
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		FilterChain chain = Mockito.mock( FilterChain.class );
+
+		// Valid sessions are limited separately, even from the same IP address
+		this.filter.doFilter( req, resp, chain );
+		this.filter.doFilter( req, resp, chain );
+
+		Mockito.when( req.getCookies()).thenReturn( new Cookie[] { new Cookie( UrlConstants.SESSION_ID, "s2" )});
+		this.filter.doFilter( req, resp, chain );
+
+		Mockito.verify( chain, Mockito.times( 2 )).doFilter( req, resp );
+		Mockito.verify( resp ).setHeader( AuthenticationFilter.RETRY_AFTER, "1" );
+		Mockito.verify( resp ).setHeader( "Access-Control-Allow-Origin", "http://console" );
+		Mockito.verify( resp ).sendError( Mockito.eq( AuthenticationFilter.TOO_MANY_REQUESTS ), Mockito.anyString());
+		Assert.assertEquals( 1, this.servletRegistrationComponent.getRateLimitedRequestsCount());
+
+		// Invalid sessions cannot be used to get new buckets: they are limited by IP address
+		Mockito.reset( resp );
+		Mockito.when( req.getCookies()).thenReturn( new Cookie[] { new Cookie( UrlConstants.SESSION_ID, "forged-1" )});
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( resp ).sendError( 403, "Authentication is required." );
+
+		Mockito.reset( resp );
+		Mockito.when( req.getCookies()).thenReturn( new Cookie[] { new Cookie( UrlConstants.SESSION_ID, "forged-2" )});
+		this.filter.doFilter( req, resp, chain );
+		Mockito.verify( resp ).sendError( Mockito.eq( AuthenticationFilter.TOO_MANY_REQUESTS ), Mockito.anyString());
+
+		Mockito.verify( chain, Mockito.times( 2 )).doFilter( req, resp );
+		Assert.assertEquals( 2, this.servletRegistrationComponent.getRateLimitedRequestsCount());
+		Assert.assertEquals( 1, this.servletRegistrationComponent.getRestRequestsWithAuthFailureCount());
+
+		// Without any session, the IP address is checked before anything else
+		Mockito.reset( resp, authMngr );
+		Mockito.when( req.getCookies()).thenReturn( null );
+		Mockito.when( req.getHeader( AuthenticationFilter.USER_AGENT )).thenThrow( new IllegalStateException( "No audit expected." ));
+		this.filter.doFilter( req, resp, chain );
+
+		Mockito.verify( resp ).sendError( Mockito.eq( AuthenticationFilter.TOO_MANY_REQUESTS ), Mockito.anyString());
+		Mockito.verifyZeroInteractions( authMngr );
+		Assert.assertEquals( 3, this.servletRegistrationComponent.getRateLimitedRequestsCount());
+	}
+
+
+	@Test
+	public void testDoFiler_expensiveRequests() throws Exception {
+
+		this.filter.setAuthenticationEnabled( false );
+		this.filter.setMaxConcurrentExpensiveRequests( 1 );
+
+		final HttpServletRequest deployReq = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( deployReq.getRequestURI()).thenReturn( REST_CONTEXT + "/app/test/deploy-all" );
+		Mockito.when( deployReq.getMethod()).thenReturn( "POST" );
+
+		final HttpServletRequest listReq = Mockito.mock( HttpServletRequest.class );
+		Mockito.when( listReq.getRequestURI()).thenReturn( REST_CONTEXT + "/applications" );
+		Mockito.when( listReq.getMethod()).thenReturn( "GET" );
+
+		final HttpServletResponse rejectedResp = Mockito.mock( HttpServletResponse.class );
+		final HttpServletResponse listResp = Mockito.mock( HttpServletResponse.class );
+		final FilterChain innerChain = Mockito.mock( FilterChain.class );
+
+		// While a first expensive request is processed, other requests are received
+		FilterChain chain = Mockito.mock( FilterChain.class );
+		Mockito.doAnswer( new Answer<Void>() {
+			@Override
+			public Void answer( InvocationOnMock invocation ) throws Throwable {
+
+				AdmissionController controller = AuthenticationFilterTest.this.filter.getAdmissionController();
+				Assert.assertEquals( 1, controller.getRunningExpensiveRequestsCount());
+
+				AuthenticationFilterTest.this.filter.doFilter( deployReq, rejectedResp, innerChain );
+				AuthenticationFilterTest.this.filter.doFilter( listReq, listResp, innerChain );
+				return null;
+			}
+
+		}).when( chain ).doFilter( Mockito.any( ServletRequest.class ), Mockito.any( ServletResponse.class ));
+
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		this.filter.doFilter( deployReq, resp, chain );
+
+		// The second expensive request was rejected, the cheap one was not
+		Mockito.verify( chain, Mockito.only()).doFilter( deployReq, resp );
+		Mockito.verify( rejectedResp ).setHeader( AuthenticationFilter.RETRY_AFTER, "1" );
+		Mockito.verify( rejectedResp ).sendError( Mockito.eq( AuthenticationFilter.TOO_MANY_REQUESTS ), Mockito.anyString());
+		Mockito.verify( innerChain, Mockito.only()).doFilter( listReq, listResp );
+		Mockito.verifyZeroInteractions( resp, listResp );
+		Assert.assertEquals( 1, this.servletRegistrationComponent.getConcurrencyLimitedRequestsCount());
+
+		// The slot was released
+		Assert.assertEquals( 0, this.filter.getAdmissionController().getRunningExpensiveRequestsCount());
+		Assert.assertEquals( 0, this.servletRegistrationComponent.getCurrentExpensiveRequestsCount());
+
+		this.filter.doFilter( deployReq, rejectedResp, innerChain );
+		Mockito.verify( innerChain ).doFilter( deployReq, rejectedResp );
+		Assert.assertEquals( 1, this.servletRegistrationComponent.getConcurrencyLimitedRequestsCount());
+
+		// Failures release the slot too
+		Mockito.doThrow( new ServletException( "for test" )).when( innerChain ).doFilter( deployReq, rejectedResp );
+		try {
+			this.filter.doFilter( deployReq, rejectedResp, innerChain );
+			Assert.fail( "An exception was expected." );
+
+		} catch( ServletException e ) {
+			// nothing
+		}
+
+		Assert.assertEquals( 0, this.filter.getAdmissionController().getRunningExpensiveRequestsCount());
+	}
+
+
 	@Test
 	public void testCleanPath() {
 
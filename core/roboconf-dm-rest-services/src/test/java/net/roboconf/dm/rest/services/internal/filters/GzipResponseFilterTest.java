@@ -0,0 +1,239 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.filters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
+
+import net.roboconf.core.utils.Utils;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class GzipResponseFilterTest {
+
+	private static final int THRESHOLD = 100;
+
+
+	@Test
+	public void testBigJsonResponse_unknownLength() throws Exception {
+
+		String json = buildJson( 500 );
+		TestWriter writer = new TestWriter();
+		ContainerResponse resp = write( "gzip, deflate", MediaType.APPLICATION_JSON_TYPE, json, -1, writer );
+
+		Assert.assertEquals( GzipResponseFilter.GZIP, resp.getHttpHeaders().getFirst( HttpHeaders.CONTENT_ENCODING ));
+		Assert.assertEquals( HttpHeaders.ACCEPT_ENCODING, resp.getHttpHeaders().getFirst( HttpHeaders.VARY ));
+		Assert.assertEquals( -1, writer.contentLength );
+		Assert.assertTrue( writer.finished );
+		Assert.assertTrue( writer.out.size() < json.length());
+		Assert.assertEquals( json, gunzip( writer.out.toByteArray()));
+	}
+
+
+	@Test
+	public void testBigJsonResponse_knownLength() throws Exception {
+
+		String json = buildJson( 500 );
+		TestWriter writer = new TestWriter();
+		ContainerResponse resp = write( "GZIP", MediaType.APPLICATION_JSON_TYPE, json, json.length(), writer );
+
+		Assert.assertEquals( GzipResponseFilter.GZIP, resp.getHttpHeaders().getFirst( HttpHeaders.CONTENT_ENCODING ));
+		Assert.assertEquals( -1, writer.contentLength );
+		Assert.assertEquals( json, gunzip( writer.out.toByteArray()));
+	}
+
+
+	@Test
+	public void testSmallJsonResponse_unknownLength() throws Exception {
+
+		String json = buildJson( 20 );
+		TestWriter writer = new TestWriter();
+		ContainerResponse resp = write( "gzip", MediaType.APPLICATION_JSON_TYPE, json, -1, writer );
+
+		Assert.assertNull( resp.getHttpHeaders().getFirst( HttpHeaders.CONTENT_ENCODING ));
+		Assert.assertEquals( HttpHeaders.ACCEPT_ENCODING, resp.getHttpHeaders().getFirst( HttpHeaders.VARY ));
+		Assert.assertEquals( json.length(), writer.contentLength );
+		Assert.assertTrue( writer.finished );
+		Assert.assertEquals( json, writer.out.toString( "UTF-8" ));
+	}
+
+
+	@Test
+	public void testSmallJsonResponse_knownLength() throws Exception {
+
+		String json = buildJson( 20 );
+		TestWriter writer = new TestWriter();
+		ContainerResponse resp = write( "gzip", MediaType.APPLICATION_JSON_TYPE, json, json.length(), writer );
+
+		Assert.assertNull( resp.getHttpHeaders().getFirst( HttpHeaders.CONTENT_ENCODING ));
+		Assert.assertEquals( json.length(), writer.contentLength );
+		Assert.assertEquals( json, writer.out.toString( "UTF-8" ));
+	}
+
+
+	@Test
+	public void testBigResponse_notJson() throws Exception {
+
+		String text = buildJson( 500 );
+		TestWriter writer = new TestWriter();
+		ContainerResponse resp = write( "gzip", MediaType.TEXT_PLAIN_TYPE, text, -1, writer );
+
+		Assert.assertNull( resp.getHttpHeaders().getFirst( HttpHeaders.CONTENT_ENCODING ));
+		Assert.assertNull( resp.getHttpHeaders().getFirst( HttpHeaders.VARY ));
+		Assert.assertEquals( text, writer.out.toString( "UTF-8" ));
+	}
+
+
+	@Test
+	public void testNoWrapping() {
+
+		GzipResponseFilter filter = new GzipResponseFilter( THRESHOLD );
+
+		// The client does not support compression
+		ContainerRequest req = Mockito.mock( ContainerRequest.class );
+		ContainerResponse resp = Mockito.mock( ContainerResponse.class );
+		Mockito.when( resp.getEntity()).thenReturn( "ok" );
+		Mockito.when( resp.getHttpHeaders()).thenReturn( new OutBoundHeaders());
+
+		Assert.assertSame( resp, filter.filter( req, resp ));
+		Mockito.verify( resp, Mockito.never()).setContainerResponseWriter( Mockito.any( ContainerResponseWriter.class ));
+
+		// No entity
+		Mockito.when( req.getHeaderValue( HttpHeaders.ACCEPT_ENCODING )).thenReturn( "gzip" );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+		Mockito.when( resp.getEntity()).thenReturn( null );
+		Assert.assertSame( resp, filter.filter( req, resp ));
+		Mockito.verify( resp, Mockito.never()).setContainerResponseWriter( Mockito.any( ContainerResponseWriter.class ));
+
+		// HEAD request
+		Mockito.when( resp.getEntity()).thenReturn( "ok" );
+		Mockito.when( req.getMethod()).thenReturn( "HEAD" );
+		Assert.assertSame( resp, filter.filter( req, resp ));
+		Mockito.verify( resp, Mockito.never()).setContainerResponseWriter( Mockito.any( ContainerResponseWriter.class ));
+
+		// Default constructor
+		Assert.assertNotNull( new GzipResponseFilter());
+	}
+
+
+	/**
+	 * Simulates the way Jersey writes a response.
+	 */
+	private ContainerResponse write( String acceptEncoding, MediaType mediaType, String entity, long contentLength, TestWriter writer )
+	throws IOException {
+
+		ContainerRequest req = Mockito.mock( ContainerRequest.class );
+		Mockito.when( req.getHeaderValue( HttpHeaders.ACCEPT_ENCODING )).thenReturn( acceptEncoding );
+		Mockito.when( req.getMethod()).thenReturn( "GET" );
+
+		ContainerResponse resp = Mockito.mock( ContainerResponse.class );
+		Mockito.when( resp.getEntity()).thenReturn( entity );
+		Mockito.when( resp.getMediaType()).thenReturn( mediaType );
+		Mockito.when( resp.getHttpHeaders()).thenReturn( new OutBoundHeaders());
+		Mockito.when( resp.getContainerResponseWriter()).thenReturn( writer );
+
+		new GzipResponseFilter( THRESHOLD ).filter( req, resp );
+		ArgumentCaptor<ContainerResponseWriter> captor = ArgumentCaptor.forClass( ContainerResponseWriter.class );
+		Mockito.verify( resp ).setContainerResponseWriter( captor.capture());
+
+		// Write by small chunks, like Jackson would
+		ContainerResponseWriter wrapper = captor.getValue();
+		OutputStream out = wrapper.writeStatusAndHeaders( contentLength, resp );
+		byte[] bytes = entity.getBytes( StandardCharsets.UTF_8 );
+		for( int i = 0; i < bytes.length; i += 16 ) {
+			out.write( bytes, i, Math.min( 16, bytes.length - i ));
+			out.flush();
+		}
+
+		wrapper.finish();
+		return resp;
+	}
+
+
+	private static String buildJson( int count ) {
+
+		StringBuilder sb = new StringBuilder( "[" );
+		for( int i = 0; i < count; i ++ ) {
+			if( sb.length() + 2 > count )
+				break;
+
+			sb.append( i % 10 );
+		}
+
+		return sb.append( "]" ).toString();
+	}
+
+
+	private static String gunzip( byte[] bytes ) throws IOException {
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		Utils.copyStreamSafely( new GZIPInputStream( new ByteArrayInputStream( bytes )), os );
+		return os.toString( "UTF-8" );
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class TestWriter implements ContainerResponseWriter {
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long contentLength = -2;
+		boolean finished = false;
+
+
+		@Override
+		public OutputStream writeStatusAndHeaders( long contentLength, ContainerResponse response ) {
+			Assert.assertEquals( -2, this.contentLength );
+			this.contentLength = contentLength;
+			return this.out;
+		}
+
+
+		@Override
+		public void finish() {
+			this.finished = true;
+		}
+	}
+}
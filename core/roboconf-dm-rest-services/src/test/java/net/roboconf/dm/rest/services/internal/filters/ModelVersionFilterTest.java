@@ -0,0 +1,350 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.filters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+
+import net.roboconf.dm.management.Manager;
+import net.roboconf.dm.management.api.INotificationMngr;
+import net.roboconf.dm.management.api.ITargetsMngr;
+import net.roboconf.dm.rest.services.internal.filters.ModelVersionFilter.VersionedResource;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class ModelVersionFilterTest {
+
+	private INotificationMngr notificationMngr;
+	private ITargetsMngr targetsMngr;
+	private ModelVersionFilter filter;
+
+
+	@Before
+	public void prepareFilter() {
+
+		this.notificationMngr = Mockito.mock( INotificationMngr.class );
+		this.targetsMngr = Mockito.mock( ITargetsMngr.class );
+
+		Manager manager = Mockito.mock( Manager.class );
+		Mockito.when( manager.notificationMngr()).thenReturn( this.notificationMngr );
+		Mockito.when( manager.targetsMngr()).thenReturn( this.targetsMngr );
+
+		this.filter = new ModelVersionFilter( manager );
+	}
+
+
+	@Test
+	public void testFindVersionedResource() {
+
+		VersionedResource res = ModelVersionFilter.findVersionedResource( "applications" );
+		Assert.assertNotNull( res );
+		Assert.assertNull( res.applicationName );
+		Assert.assertTrue( res.global );
+		Assert.assertFalse( res.targets );
+
+		Assert.assertNotNull( ModelVersionFilter.findVersionedResource( "/applications/templates/" ));
+		Assert.assertNull( ModelVersionFilter.findVersionedResource( "applications/image" ));
+
+		res = ModelVersionFilter.findVersionedResource( "app/test/instances" );
+		Assert.assertNotNull( res );
+		Assert.assertEquals( "test", res.applicationName );
+		Assert.assertFalse( res.global );
+		Assert.assertFalse( res.targets );
+
+		Assert.assertNotNull( ModelVersionFilter.findVersionedResource( "app/test/instances/page" ));
+		Assert.assertNotNull( ModelVersionFilter.findVersionedResource( "app/test/components/children" ));
+		Assert.assertNotNull( ModelVersionFilter.findVersionedResource( "app/test/bind" ));
+		Assert.assertNull( ModelVersionFilter.findVersionedResource( "app/test/commands" ));
+		Assert.assertNull( ModelVersionFilter.findVersionedResource( "app/test" ));
+
+		res = ModelVersionFilter.findVersionedResource( "app/test/targets" );
+		Assert.assertNotNull( res );
+		Assert.assertEquals( "test", res.applicationName );
+		Assert.assertTrue( res.targets );
+
+		res = ModelVersionFilter.findVersionedResource( "targets/t1/usage" );
+		Assert.assertNotNull( res );
+		Assert.assertNull( res.applicationName );
+		Assert.assertTrue( res.global );
+		Assert.assertTrue( res.targets );
+
+		Assert.assertNull( ModelVersionFilter.findVersionedResource( "preferences" ));
+		Assert.assertNull( ModelVersionFilter.findVersionedResource( "" ));
+	}
+
+
+	@Test
+	public void testFindWaitDelay() {
+
+		Assert.assertEquals( 0, ModelVersionFilter.findWaitDelay( null ));
+		Assert.assertEquals( 0, ModelVersionFilter.findWaitDelay( "return=minimal" ));
+		Assert.assertEquals( 5000, ModelVersionFilter.findWaitDelay( "wait=5" ));
+		Assert.assertEquals( 10000, ModelVersionFilter.findWaitDelay( "return=minimal, Wait = 10" ));
+		Assert.assertEquals( ModelVersionFilter.MAX_WAIT_MS, ModelVersionFilter.findWaitDelay( "wait=3600" ));
+		Assert.assertEquals( ModelVersionFilter.MAX_WAIT_MS, ModelVersionFilter.findWaitDelay( "wait=99999999999999999999" ));
+	}
+
+
+	@Test
+	public void testMatches() {
+
+		Assert.assertFalse( ModelVersionFilter.matches( null, "v1" ));
+		Assert.assertFalse( ModelVersionFilter.matches( "\"v2\"", "v1" ));
+		Assert.assertFalse( ModelVersionFilter.matches( "v1", "v1" ));
+		Assert.assertTrue( ModelVersionFilter.matches( "\"v1\"", "v1" ));
+		Assert.assertTrue( ModelVersionFilter.matches( "W/\"v1\"", "v1" ));
+		Assert.assertTrue( ModelVersionFilter.matches( "\"v0\", \"v1\"", "v1" ));
+		Assert.assertTrue( ModelVersionFilter.matches( "*", "v1" ));
+	}
+
+
+	@Test
+	public void testComputeEtag() {
+
+		Mockito.when( this.notificationMngr.getModelVersion( "app" )).thenReturn( 4L );
+		Mockito.when( this.notificationMngr.getModelVersion( null )).thenReturn( 9L );
+		Mockito.when( this.targetsMngr.getVersion()).thenReturn( 2L );
+
+		String appTag = this.filter.computeEtag( new VersionedResource( "app", false, false ));
+		String appTargetsTag = this.filter.computeEtag( new VersionedResource( "app", false, true ));
+		String targetsTag = this.filter.computeEtag( new VersionedResource( null, true, true ));
+
+		Assert.assertTrue( appTag.endsWith( "-a4" ));
+		Assert.assertTrue( appTargetsTag.endsWith( "-a4-t2" ));
+		Assert.assertTrue( targetsTag.endsWith( "-m9-t2" ));
+
+		Mockito.when( this.notificationMngr.getModelVersion( "app" )).thenReturn( 5L );
+		Assert.assertNotEquals( appTag, this.filter.computeEtag( new VersionedResource( "app", false, false )));
+	}
+
+
+	@Test
+	public void testConditionalGet() {
+
+		Mockito.when( this.notificationMngr.getModelVersion( "app" )).thenReturn( 4L );
+
+		// First request: no ETag
+		ContainerRequest req = mockRequest( "GET", "app/app/instances", null, null );
+		Assert.assertSame( req, this.filter.filter( req ));
+
+		ContainerResponse resp = mockResponse( Status.OK );
+		this.filter.filter( req, resp );
+		Object etag = resp.getHttpHeaders().getFirst( HttpHeaders.ETAG );
+		Assert.assertNotNull( etag );
+
+		// Second request: same ETag => not modified
+		req = mockRequest( "GET", "app/app/instances", etag.toString(), null );
+		try {
+			this.filter.filter( req );
+			Assert.fail( "A 304 response was expected." );
+
+		} catch( WebApplicationException e ) {
+			Assert.assertEquals( Status.NOT_MODIFIED.getStatusCode(), e.getResponse().getStatus());
+			Assert.assertEquals( etag, e.getResponse().getMetadata().getFirst( HttpHeaders.ETAG ));
+		}
+
+		// Once the model changed, the request goes through
+		Mockito.when( this.notificationMngr.getModelVersion( "app" )).thenReturn( 5L );
+		req = mockRequest( "GET", "app/app/instances", etag.toString(), null );
+		Assert.assertSame( req, this.filter.filter( req ));
+
+		resp = mockResponse( Status.OK );
+		this.filter.filter( req, resp );
+		Assert.assertNotEquals( etag, resp.getHttpHeaders().getFirst( HttpHeaders.ETAG ));
+	}
+
+
+	@Test
+	public void testNoEtag() {
+
+		// Not a GET
+		ContainerRequest req = mockRequest( "POST", "app/app/instances", null, null );
+		Assert.assertSame( req, this.filter.filter( req ));
+		ContainerResponse resp = mockResponse( Status.OK );
+		this.filter.filter( req, resp );
+		Assert.assertNull( resp.getHttpHeaders().getFirst( HttpHeaders.ETAG ));
+
+		// Not versioned
+		req = mockRequest( "GET", "preferences", null, null );
+		Assert.assertSame( req, this.filter.filter( req ));
+		resp = mockResponse( Status.OK );
+		this.filter.filter( req, resp );
+		Assert.assertNull( resp.getHttpHeaders().getFirst( HttpHeaders.ETAG ));
+
+		// Errors
+		req = mockRequest( "GET", "app/inexisting/instances", null, null );
+		Assert.assertSame( req, this.filter.filter( req ));
+		resp = mockResponse( Status.NOT_FOUND );
+		this.filter.filter( req, resp );
+		Assert.assertNull( resp.getHttpHeaders().getFirst( HttpHeaders.ETAG ));
+		Mockito.verifyZeroInteractions( this.targetsMngr );
+	}
+
+
+	@Test
+	public void testLongPolling_change() throws Exception {
+
+		Mockito.when( this.targetsMngr.getVersion()).thenReturn( 1L );
+		String etag = new EntityTag( this.filter.computeEtag( new VersionedResource( "app", false, true ))).toString();
+
+		// The version changes while we wait => the request goes through
+		ContainerRequest req = mockRequest( "GET", "app/app/targets", etag, "wait=5" );
+		Mockito.when( this.targetsMngr.getVersion()).thenReturn( 1L, 2L );
+
+		Assert.assertSame( req, this.filter.filter( req ));
+		Mockito.verify( this.notificationMngr, Mockito.atLeast( 1 )).waitForModelVersionChange(
+				Mockito.eq( "app" ),
+				Mockito.anyLong(),
+				Mockito.eq( ModelVersionFilter.WAIT_SLICE_MS ));
+	}
+
+
+	@Test
+	public void testLongPolling_timeout() throws Exception {
+
+		Mockito.when( this.targetsMngr.getVersion()).thenReturn( 3L );
+		Mockito.when( this.notificationMngr.waitForModelVersionChange(
+				Mockito.anyString(),
+				Mockito.anyLong(),
+				Mockito.anyLong())).thenAnswer( new Answer<Long>() {
+
+			@Override
+			public Long answer( InvocationOnMock invocation ) throws Throwable {
+				Thread.sleep((Long) invocation.getArguments()[ 2 ]);
+				return 0L;
+			}
+		});
+
+		String etag = new EntityTag( this.filter.computeEtag( new VersionedResource( null, true, true ))).toString();
+
+		// Nothing changes
+		ContainerRequest req = mockRequest( "GET", "targets", etag, "wait=1" );
+		try {
+			this.filter.filter( req );
+			Assert.fail( "A 304 response was expected." );
+
+		} catch( WebApplicationException e ) {
+			Assert.assertEquals( Status.NOT_MODIFIED.getStatusCode(), e.getResponse().getStatus());
+		}
+
+		// The global version is the one we wait on
+		Mockito.verify( this.notificationMngr, Mockito.atLeast( 1 )).waitForModelVersionChange(
+				Mockito.isNull( String.class ),
+				Mockito.anyLong(),
+				Mockito.anyLong());
+	}
+
+
+	@Test
+	public void testLongPolling_tooManyWaiters() throws Exception {
+
+		Mockito.when( this.targetsMngr.getVersion()).thenReturn( 3L );
+		String etag = new EntityTag( this.filter.computeEtag( new VersionedResource( null, true, true ))).toString();
+		Assert.assertEquals( ModelVersionFilter.MAX_WAITERS, this.filter.waiters.drainPermits());
+
+		// All the waiting slots are taken
+		ContainerRequest req = mockRequest( "GET", "targets", etag, "wait=5" );
+		try {
+			this.filter.filter( req );
+			Assert.fail( "A 503 response was expected." );
+
+		} catch( WebApplicationException e ) {
+			Assert.assertEquals( Status.SERVICE_UNAVAILABLE.getStatusCode(), e.getResponse().getStatus());
+			Assert.assertNotNull( e.getResponse().getMetadata().getFirst( ModelVersionFilter.RETRY_AFTER ));
+		}
+
+		Mockito.verify( this.notificationMngr, Mockito.never()).waitForModelVersionChange(
+				Mockito.anyString(),
+				Mockito.anyLong(),
+				Mockito.anyLong());
+
+		// Requests that do not wait are not impacted
+		req = mockRequest( "GET", "targets", etag, null );
+		try {
+			this.filter.filter( req );
+			Assert.fail( "A 304 response was expected." );
+
+		} catch( WebApplicationException e ) {
+			Assert.assertEquals( Status.NOT_MODIFIED.getStatusCode(), e.getResponse().getStatus());
+		}
+
+		// Once released, slots can be used again
+		this.filter.waiters.release( ModelVersionFilter.MAX_WAITERS );
+		req = mockRequest( "GET", "targets", etag, "wait=1" );
+		try {
+			this.filter.filter( req );
+			Assert.fail( "A 304 response was expected." );
+
+		} catch( WebApplicationException e ) {
+			Assert.assertEquals( Status.NOT_MODIFIED.getStatusCode(), e.getResponse().getStatus());
+		}
+
+		Assert.assertEquals( ModelVersionFilter.MAX_WAITERS, this.filter.waiters.availablePermits());
+	}
+
+
+	private ContainerRequest mockRequest( String method, String path, String ifNoneMatch, String prefer ) {
+
+		Map<String,Object> properties = new HashMap<> ();
+		ContainerRequest req = Mockito.mock( ContainerRequest.class );
+		Mockito.when( req.getMethod()).thenReturn( method );
+		Mockito.when( req.getPath( true )).thenReturn( path );
+		Mockito.when( req.getHeaderValue( HttpHeaders.IF_NONE_MATCH )).thenReturn( ifNoneMatch );
+		Mockito.when( req.getHeaderValue( ModelVersionFilter.PREFER )).thenReturn( prefer );
+		Mockito.when( req.getProperties()).thenReturn( properties );
+
+		return req;
+	}
+
+
+	private ContainerResponse mockResponse( Status status ) {
+
+		MultivaluedMap<String,Object> headers = new OutBoundHeaders();
+		ContainerResponse resp = Mockito.mock( ContainerResponse.class );
+		Mockito.when( resp.getStatus()).thenReturn( status.getStatusCode());
+		Mockito.when( resp.getHttpHeaders()).thenReturn( headers );
+
+		return resp;
+	}
+}
@@ -33,9 +33,14 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.junit.Assert;
 import net.roboconf.core.Constants;
+import net.roboconf.core.model.beans.Application;
+import net.roboconf.core.model.beans.ApplicationTemplate;
+import net.roboconf.core.model.runtime.EventType;
 import net.roboconf.core.utils.IconUtils;
+import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.internal.utils.ConfigurationUtils;
 import net.roboconf.dm.management.Manager;
+import net.roboconf.dm.rest.services.internal.icons.IconServlet.CachedIcon;
 
 import org.junit.After;
 import org.junit.Rule;
@@ -100,4 +105,91 @@ public class IconServletTest {
 		servlet.doGet( req, resp );
 		Mockito.verify( resp ).setContentType( IconUtils.MIME_JPG );
 	}
+
+
+	@Test
+	public void testCacheAndConditionalRequests() throws Exception {
+
+		// Prepare the servlet
+		File configurationDirectory = this.folder.newFolder();
+
+		this.manager = new Manager();
+		this.manager.configurationMngr().setWorkingDirectory( configurationDirectory );
+
+		File appDir = ConfigurationUtils.findApplicationDirectory( "app", configurationDirectory );
+		File descDir = new File( appDir, Constants.PROJECT_DIR_DESC );
+		Assert.assertTrue( descDir.mkdirs());
+
+		File iconFile = new File( descDir, "whatever.jpg" );
+		Utils.writeStringInto( "some content", iconFile );
+
+		IconServlet servlet = new IconServlet( this.manager );
+
+		// The icon is cached
+		CachedIcon icon = servlet.findIcon( "/app/whatever.jpg" );
+		Assert.assertNotNull( icon );
+		Assert.assertNotNull( icon.content );
+		Assert.assertSame( icon, servlet.findIcon( "/app/whatever.jpg" ));
+		Assert.assertNull( servlet.findIcon( null ));
+		Assert.assertNull( servlet.findIcon( "/inexisting/whatever.jpg" ));
+
+		// Unrelated events do not invalidate the cache
+		this.manager.notificationMngr().raw( "whatever" );
+		Assert.assertSame( icon, servlet.findIcon( "/app/whatever.jpg" ));
+
+		// Application and template events do
+		this.manager.notificationMngr().application( new Application( "app", new ApplicationTemplate( "tpl" )), EventType.CREATED );
+		CachedIcon newIcon = servlet.findIcon( "/app/whatever.jpg" );
+		Assert.assertNotSame( icon, newIcon );
+		Assert.assertEquals( icon.etag, newIcon.etag );
+
+		this.manager.notificationMngr().applicationTemplate( new ApplicationTemplate( "tpl" ), EventType.CHANGED );
+		Assert.assertNotSame( newIcon, servlet.findIcon( "/app/whatever.jpg" ));
+
+		// So does a modification on the disk
+		icon = servlet.findIcon( "/app/whatever.jpg" );
+		Assert.assertTrue( iconFile.setLastModified( icon.lastModified - 10000 ));
+		newIcon = servlet.findIcon( "/app/whatever.jpg" );
+		Assert.assertNotSame( icon, newIcon );
+		Assert.assertNotEquals( icon.etag, newIcon.etag );
+		icon = newIcon;
+
+		// A first request
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		ServletOutputStream out = Mockito.mock( ServletOutputStream.class );
+		Mockito.when( resp.getOutputStream()).thenReturn( out );
+		Mockito.when( req.getPathInfo()).thenReturn( "/app/whatever.jpg" );
+		Mockito.when( req.getDateHeader( "If-Modified-Since" )).thenReturn( -1L );
+
+		servlet.doGet( req, resp );
+		Mockito.verify( resp ).setHeader( "ETag", icon.etag );
+		Mockito.verify( resp ).setHeader( "Cache-Control", IconServlet.CACHE_CONTROL_VALUE );
+		Mockito.verify( resp ).setDateHeader( "Last-Modified", icon.lastModified );
+		Mockito.verify( resp ).setContentType( IconUtils.MIME_JPG );
+		Mockito.verify( resp ).setContentLength( "some content".length());
+		Mockito.verify( out ).write( icon.content );
+		Mockito.verify( resp, Mockito.never()).setStatus( Mockito.anyInt());
+
+		// Conditional request with an ETag
+		resp = Mockito.mock( HttpServletResponse.class );
+		Mockito.when( req.getHeader( "If-None-Match" )).thenReturn( "\"other\", " + icon.etag );
+		servlet.doGet( req, resp );
+		Mockito.verify( resp ).setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+		Mockito.verify( resp, Mockito.never()).getOutputStream();
+
+		Mockito.when( req.getHeader( "If-None-Match" )).thenReturn( "\"other\"" );
+		Assert.assertFalse( IconServlet.isNotModified( req, icon ));
+
+		// Conditional request with a date
+		Mockito.when( req.getHeader( "If-None-Match" )).thenReturn( null );
+		Mockito.when( req.getDateHeader( "If-Modified-Since" )).thenReturn( icon.lastModified );
+		Assert.assertTrue( IconServlet.isNotModified( req, icon ));
+
+		Mockito.when( req.getDateHeader( "If-Modified-Since" )).thenReturn( icon.lastModified - 5000 );
+		Assert.assertFalse( IconServlet.isNotModified( req, icon ));
+
+		Mockito.when( req.getDateHeader( "If-Modified-Since" )).thenThrow( new IllegalArgumentException( "for test" ));
+		Assert.assertFalse( IconServlet.isNotModified( req, icon ));
+	}
 }
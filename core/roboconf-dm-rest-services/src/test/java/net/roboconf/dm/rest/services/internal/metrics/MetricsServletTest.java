@@ -0,0 +1,92 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.metrics;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import net.roboconf.dm.metrics.Gauge;
+import net.roboconf.dm.metrics.MetricsRegistry;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class MetricsServletTest {
+
+	@Test
+	public void testDoGet() throws Exception {
+
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.histogram( "roboconf_test_seconds", "For tests.", "type", "msg" ).record( 2000000L );
+		registry.registerGauge( "roboconf_test_depth", "For tests.", new Gauge() {
+			@Override
+			public long getValue() {
+				return 4;
+			}
+		});
+
+		MetricsServlet servlet = new MetricsServlet( registry );
+		HttpServletRequest req = Mockito.mock( HttpServletRequest.class );
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		ServletOutputStream out = Mockito.mock( ServletOutputStream.class );
+		Mockito.when( resp.getOutputStream()).thenReturn( out );
+
+		servlet.doGet( req, resp );
+		Mockito.verify( resp ).setStatus( HttpServletResponse.SC_OK );
+		Mockito.verify( resp ).setContentType( MetricsRegistry.CONTENT_TYPE );
+
+		ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass( byte[].class );
+		Mockito.verify( out ).write( captor.capture());
+		Mockito.verify( resp ).setContentLength( captor.getValue().length );
+
+		String content = new String( captor.getValue(), StandardCharsets.UTF_8 );
+		Assert.assertEquals( registry.toPrometheusText(), content );
+		Assert.assertTrue( content.contains( "roboconf_test_seconds_count{type=\"msg\"} 1\n" ));
+		Assert.assertTrue( content.contains( "roboconf_test_depth 4\n" ));
+	}
+
+
+	@Test
+	public void testDefaultRegistry() throws Exception {
+
+		MetricsServlet servlet = new MetricsServlet();
+		HttpServletResponse resp = Mockito.mock( HttpServletResponse.class );
+		ServletOutputStream out = Mockito.mock( ServletOutputStream.class );
+		Mockito.when( resp.getOutputStream()).thenReturn( out );
+
+		servlet.doGet( Mockito.mock( HttpServletRequest.class ), resp );
+		Mockito.verify( resp ).setContentType( MetricsRegistry.CONTENT_TYPE );
+		Mockito.verify( out ).write( Mockito.any( byte[].class ));
+	}
+}
@@ -25,6 +25,7 @@
 
 package net.roboconf.dm.rest.services.internal.resources.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -38,8 +39,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -48,6 +51,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import net.roboconf.core.Constants;
 import net.roboconf.core.internal.tests.TestApplication;
 import net.roboconf.core.internal.tests.TestUtils;
@@ -58,6 +63,8 @@ import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.ComponentHelpers;
 import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.dm.internal.test.TestManagerWrapper;
 import net.roboconf.dm.internal.test.TestTargetResolver;
 import net.roboconf.dm.management.ManagedApplication;
@@ -65,6 +72,7 @@ import net.roboconf.dm.management.Manager;
 import net.roboconf.dm.rest.commons.beans.ApplicationBindings;
 import net.roboconf.dm.rest.commons.beans.ApplicationBindings.ApplicationBindingItem;
 import net.roboconf.dm.rest.commons.beans.TargetAssociation;
+import net.roboconf.dm.rest.commons.json.JSonBindingUtils;
 import net.roboconf.dm.rest.services.internal.resources.IApplicationResource;
 import net.roboconf.messaging.api.MessagingConstants;
 import net.roboconf.messaging.api.internal.client.test.TestClient;
@@ -447,6 +455,118 @@ public class ApplicationResourceTest {
 	}
 
 
+	@Test
+	public void testListChildrenInstances_filtersAndPagination() throws Exception {
+
+		// Filters
+		List<Instance> instances = this.resource.listChildrenInstances( this.app.getName(), null, true, "vm", null, 0, 0 );
+		Assert.assertEquals( 2, instances.size());
+		Assert.assertEquals( "/mysql-vm", InstanceHelpers.computeInstancePath( instances.get( 0 )));
+		Assert.assertEquals( "/tomcat-vm", InstanceHelpers.computeInstancePath( instances.get( 1 )));
+
+		this.app.getTomcat().setStatus( InstanceStatus.DEPLOYED_STARTED );
+		instances = this.resource.listChildrenInstances( this.app.getName(), null, true, null, "DEPLOYED_STARTED", 0, 0 );
+		Assert.assertEquals( 1, instances.size());
+		Assert.assertEquals( this.app.getTomcat(), instances.get( 0 ));
+
+		instances = this.resource.listChildrenInstances( this.app.getName(), null, true, "tomcat", "NOT_DEPLOYED", 0, 0 );
+		Assert.assertEquals( 0, instances.size());
+
+		// Pagination
+		List<Instance> allInstances = this.resource.listChildrenInstances( this.app.getName(), null, true );
+		instances = this.resource.listChildrenInstances( this.app.getName(), null, true, null, null, 1, 2 );
+		Assert.assertEquals( allInstances.subList( 1, 3 ), instances );
+
+		instances = this.resource.listChildrenInstances( this.app.getName(), null, true, null, null, -5, 2 );
+		Assert.assertEquals( allInstances.subList( 0, 2 ), instances );
+
+		instances = this.resource.listChildrenInstances( this.app.getName(), null, true, null, null, 50, 2 );
+		Assert.assertEquals( 0, instances.size());
+
+		instances = this.resource.listChildrenInstances( this.app.getName(), null, true, null, null, 0, 0 );
+		Assert.assertEquals( allInstances, instances );
+	}
+
+
+	@Test
+	public void testListChildrenInstances_invalidStatus() throws Exception {
+
+		// Rejected in the same way than pages of instances
+		Response resp = this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 0, null, "oops", null, 0, null );
+		Assert.assertEquals( Status.FORBIDDEN.getStatusCode(), resp.getStatus());
+
+		try {
+			this.resource.listChildrenInstances( this.app.getName(), null, true, null, "oops", 0, 0 );
+			Assert.fail( "An exception was expected." );
+
+		} catch( WebApplicationException e ) {
+			Assert.assertEquals( resp.getStatus(), e.getResponse().getStatus());
+			Assert.assertEquals( resp.getEntity(), e.getResponse().getEntity());
+		}
+	}
+
+
+	@Test
+	public void testListChildrenInstancesPage() throws Exception {
+
+		// Errors
+		Response resp = this.resource.listChildrenInstancesPage( "inexisting", null, null, 0, null, null, null, 0, null );
+		Assert.assertEquals( Status.NOT_FOUND.getStatusCode(), resp.getStatus());
+
+		resp = this.resource.listChildrenInstancesPage( this.app.getName(), "/bip/bip", null, 0, null, null, null, 0, null );
+		Assert.assertEquals( Status.NOT_FOUND.getStatusCode(), resp.getStatus());
+
+		resp = this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 0, null, "oops", null, 0, null );
+		Assert.assertEquals( Status.FORBIDDEN.getStatusCode(), resp.getStatus());
+
+		// All the instances, sorted
+		JsonNode page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 0, null, null, null, 0, null ));
+		Assert.assertEquals(
+				Arrays.asList( "/mysql-vm", "/mysql-vm/mysql-server", "/tomcat-vm", "/tomcat-vm/tomcat-server", "/tomcat-vm/tomcat-server/hello-world" ),
+				paths( page ));
+		Assert.assertNull( page.get( "next" ));
+		Assert.assertEquals( "vm", page.get( "instances" ).get( 0 ).get( "component" ).get( "name" ).textValue());
+
+		// Pagination
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 2, null, null, null, 0, null ));
+		Assert.assertEquals( Arrays.asList( "/mysql-vm", "/mysql-vm/mysql-server" ), paths( page ));
+		Assert.assertEquals( "/mysql-vm/mysql-server", page.get( "next" ).textValue());
+
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, "/mysql-vm/mysql-server", 2, null, null, null, 0, null ));
+		Assert.assertEquals( Arrays.asList( "/tomcat-vm", "/tomcat-vm/tomcat-server" ), paths( page ));
+		Assert.assertEquals( "/tomcat-vm/tomcat-server", page.get( "next" ).textValue());
+
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, "/tomcat-vm/tomcat-server", 2, null, null, null, 0, null ));
+		Assert.assertEquals( Arrays.asList( "/tomcat-vm/tomcat-server/hello-world" ), paths( page ));
+		Assert.assertNull( page.get( "next" ));
+
+		// Filters
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 0, "vm", null, null, 0, null ));
+		Assert.assertEquals( Arrays.asList( "/mysql-vm", "/tomcat-vm" ), paths( page ));
+
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 0, null, null, null, 1, null ));
+		Assert.assertEquals( Arrays.asList( "/mysql-vm", "/tomcat-vm" ), paths( page ));
+
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 0, null, null, "/tomcat-vm/", 0, null ));
+		Assert.assertEquals( Arrays.asList( "/tomcat-vm/tomcat-server", "/tomcat-vm/tomcat-server/hello-world" ), paths( page ));
+
+		this.app.getTomcat().setStatus( InstanceStatus.DEPLOYED_STARTED );
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 0, null, "DEPLOYED_STARTED", null, 0, null ));
+		Assert.assertEquals( Arrays.asList( "/tomcat-vm/tomcat-server" ), paths( page ));
+
+		String tomcatVmPath = InstanceHelpers.computeInstancePath( this.app.getTomcatVm());
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), tomcatVmPath, null, 0, null, null, null, 1, null ));
+		Assert.assertEquals( Arrays.asList( "/tomcat-vm/tomcat-server" ), paths( page ));
+
+		// Projection
+		page = readPage( this.resource.listChildrenInstancesPage( this.app.getName(), null, null, 1, null, null, null, 0, "path, status" ));
+		JsonNode instance = page.get( "instances" ).get( 0 );
+		Assert.assertEquals( 2, instance.size());
+		Assert.assertEquals( "/mysql-vm", instance.get( "path" ).textValue());
+		Assert.assertEquals( "NOT_DEPLOYED", instance.get( "status" ).textValue());
+	}
+
+
 	@Test
 	public void testListComponents() throws Exception {
 
@@ -534,6 +654,56 @@ public class ApplicationResourceTest {
 	}
 
 
+	@Test
+	@SuppressWarnings( "unchecked" )
+	public void testApplyInstanceOperations() throws Exception {
+
+		Assert.assertEquals( 2, this.app.getRootInstances().size());
+		String componentName = this.app.getMySqlVm().getComponent().getName();
+		List<InstanceOperation> operations = Arrays.asList(
+				InstanceOperation.add( null, new Instance( "vm-mail" ).component( new Component( componentName ))),
+				InstanceOperation.add( null, new Instance( "vm-mail" ).component( new Component( componentName ))));
+
+		Response resp = this.resource.applyInstanceOperations( this.app.getName(), operations );
+		Assert.assertEquals( Status.OK.getStatusCode(), resp.getStatus());
+		Assert.assertEquals( 3, this.app.getRootInstances().size());
+
+		List<InstanceOperationResult> results = (List<InstanceOperationResult>) resp.getEntity();
+		Assert.assertEquals( 2, results.size());
+		Assert.assertTrue( results.get( 0 ).isSuccess());
+		Assert.assertFalse( results.get( 1 ).isSuccess());
+
+		// No operation
+		resp = this.resource.applyInstanceOperations( this.app.getName(), null );
+		Assert.assertEquals( Status.OK.getStatusCode(), resp.getStatus());
+		Assert.assertEquals( 0, ((List<InstanceOperationResult>) resp.getEntity()).size());
+	}
+
+
+	@Test
+	public void testApplyInstanceOperations_inexistingApplication() throws Exception {
+
+		List<InstanceOperation> operations = Arrays.asList( InstanceOperation.remove( "/inexisting" ));
+		Response resp = this.resource.applyInstanceOperations( "inexisting", operations );
+		Assert.assertEquals( Status.NOT_FOUND.getStatusCode(), resp.getStatus());
+	}
+
+
+	@Test
+	public void testApplyInstanceOperations_IOException() throws Exception {
+
+		this.msgClient.connected.set( false );
+
+		String componentName = this.app.getMySqlVm().getComponent().getName();
+		List<InstanceOperation> operations = Arrays.asList(
+				InstanceOperation.add( null, new Instance( "vm-mail" ).component( new Component( componentName ))));
+
+		Response resp = this.resource.applyInstanceOperations( this.app.getName(), operations );
+		Assert.assertEquals( Status.FORBIDDEN.getStatusCode(), resp.getStatus());
+		Assert.assertEquals( 2, this.app.getRootInstances().size());
+	}
+
+
 	@Test
 	public void testAddInstance_root_nullComponent() throws Exception {
 
@@ -1421,4 +1591,24 @@ public class ApplicationResourceTest {
 		Assert.assertEquals( 0, this.app.getTemplate().getTags().size());
 		Assert.assertEquals( Status.NOT_FOUND.getStatusCode(), resp.getStatus());
 	}
+
+
+	private static JsonNode readPage( Response resp ) throws Exception {
+
+		Assert.assertEquals( Status.OK.getStatusCode(), resp.getStatus());
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		((StreamingOutput) resp.getEntity()).write( os );
+
+		return JSonBindingUtils.createObjectMapper().readTree( os.toByteArray());
+	}
+
+
+	private static List<String> paths( JsonNode page ) {
+
+		List<String> result = new ArrayList<> ();
+		for( JsonNode instance : page.get( "instances" ))
+			result.add( instance.get( "path" ).textValue());
+
+		return result;
+	}
 }
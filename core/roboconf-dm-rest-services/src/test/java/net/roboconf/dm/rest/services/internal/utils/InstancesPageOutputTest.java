@@ -0,0 +1,114 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.services.internal.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import net.roboconf.core.model.beans.Application;
+import net.roboconf.core.model.beans.ApplicationTemplate;
+import net.roboconf.core.model.beans.Component;
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.comparators.InstanceComparator;
+import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.dm.rest.commons.json.JSonBindingUtils;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class InstancesPageOutputTest {
+
+	@Test
+	public void testComparePaths() {
+
+		Assert.assertEquals( 0, InstancesPageOutput.comparePaths( "/a/b", "/a/b" ));
+		Assert.assertTrue( InstancesPageOutput.comparePaths( "/a", "/a/b" ) < 0 );
+		Assert.assertTrue( InstancesPageOutput.comparePaths( "/a/b", "/a" ) > 0 );
+		Assert.assertTrue( InstancesPageOutput.comparePaths( "/a/z", "/b" ) < 0 );
+
+		// Segments are compared, not whole strings ('-' is before '/')
+		Assert.assertTrue( InstancesPageOutput.comparePaths( "/a/b", "/a-b" ) < 0 );
+	}
+
+
+	@Test
+	public void testAllPagesMatchTheSortedInstances() throws Exception {
+
+		// Build a big tree
+		Component comp = new Component( "comp" );
+		Application app = new Application( "app", new ApplicationTemplate());
+		for( int i = 0; i < 20; i ++ ) {
+			Instance root = new Instance( "root-" + i ).component( comp );
+			app.getRootInstances().add( root );
+			for( int j = 0; j < 10; j ++ ) {
+				Instance child = new Instance( "child-" + j ).component( comp );
+				InstanceHelpers.insertChild( root, child );
+				for( int k = 0; k < 3; k ++ )
+					InstanceHelpers.insertChild( child, new Instance( "leaf-" + k ).component( comp ));
+			}
+		}
+
+		List<String> expected = new ArrayList<> ();
+		List<Instance> allInstances = InstanceHelpers.getAllInstances( app );
+		Collections.sort( allInstances, new InstanceComparator());
+		for( Instance inst : allInstances )
+			expected.add( InstanceHelpers.computeInstancePath( inst ));
+
+		// Read all the pages
+		List<String> found = new ArrayList<> ();
+		String cursor = null;
+		int pages = 0;
+		do {
+			InstancesPageOutput output = new InstancesPageOutput( app.getRootInstances(), "" );
+			output.setCursor( cursor );
+			output.setLimit( 7 );
+
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			output.write( os );
+			JsonNode page = JSonBindingUtils.createObjectMapper().readTree( os.toByteArray());
+
+			Assert.assertTrue( page.get( InstancesPageOutput.INSTANCES ).size() <= 7 );
+			for( JsonNode instance : page.get( InstancesPageOutput.INSTANCES ))
+				found.add( instance.get( "path" ).textValue());
+
+			JsonNode next = page.get( InstancesPageOutput.NEXT );
+			cursor = next == null ? null : next.textValue();
+			pages ++;
+
+		} while( cursor != null );
+
+		Assert.assertEquals( 20 * 41, expected.size());
+		Assert.assertEquals( expected, found );
+		Assert.assertEquals( 118, pages );
+	}
+}
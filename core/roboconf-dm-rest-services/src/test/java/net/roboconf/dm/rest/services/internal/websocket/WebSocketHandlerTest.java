@@ -29,16 +29,22 @@ import java.io.IOException;
 
 import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import net.roboconf.core.model.beans.Application;
 import net.roboconf.core.model.beans.ApplicationTemplate;
 import net.roboconf.core.model.beans.Component;
 import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.runtime.EventType;
 
 /**
@@ -92,7 +98,7 @@ public class WebSocketHandlerTest {
 		handler.enableNotifications();
 		handler.application( app, EventType.CREATED );
 		Mockito.verify( this.remoteEndpoint )
-				.sendString( "{\"event\":\"CREATED\",\"app\":{\"name\":\"test\",\"displayName\":\"test\",\"tplName\":\"test-tpl\"}}" );
+				.sendString( Mockito.eq( "{\"event\":\"CREATED\",\"app\":{\"name\":\"test\",\"displayName\":\"test\",\"tplName\":\"test-tpl\"}}" ), Mockito.any( WriteCallback.class ));
 	}
 
 
@@ -105,7 +111,7 @@ public class WebSocketHandlerTest {
 		handler.enableNotifications();
 		handler.applicationTemplate( template, EventType.DELETED );
 		Mockito.verify( this.remoteEndpoint )
-				.sendString( "{\"event\":\"DELETED\",\"tpl\":{\"name\":\"test-tpl\",\"displayName\":\"test-tpl\",\"apps\":[]}}" );
+				.sendString( Mockito.eq( "{\"event\":\"DELETED\",\"tpl\":{\"name\":\"test-tpl\",\"displayName\":\"test-tpl\",\"apps\":[]}}" ), Mockito.any( WriteCallback.class ));
 	}
 
 
@@ -126,7 +132,7 @@ public class WebSocketHandlerTest {
 				"{\"event\":\"CHANGED\",\"app\":{\"name\":\"test\",\"displayName\":\"test\",\"tplName\":\"test-tpl\"},\"inst\":"
 				+ "{\"name\":\"inst\",\"path\":\"/inst\",\"status\":\"NOT_DEPLOYED\",\"component\":{\"name\":\"comp\"}}}";
 
-		Mockito.verify( this.remoteEndpoint ).sendString( expected );
+		Mockito.verify( this.remoteEndpoint ).sendString( Mockito.eq( expected ), Mockito.any( WriteCallback.class ));
 	}
 
 
@@ -136,7 +142,7 @@ public class WebSocketHandlerTest {
 		WebSocketHandler handler = configuredHandler();
 		handler.enableNotifications();
 		handler.raw( "this is a raw notification" );
-		Mockito.verify( this.remoteEndpoint ).sendString( "{\"msg\":\"this is a raw notification\"}" );
+		Mockito.verify( this.remoteEndpoint ).sendString( Mockito.eq( "{\"msg\":\"this is a raw notification\"}" ), Mockito.any( WriteCallback.class ));
 	}
 
 
@@ -146,7 +152,7 @@ public class WebSocketHandlerTest {
 		WebSocketHandler handler = configuredHandler();
 		handler.enableNotifications();
 		handler.raw( null );
-		Mockito.verify( this.remoteEndpoint, Mockito.never()).sendString( Mockito.anyString());
+		Mockito.verify( this.remoteEndpoint, Mockito.never()).sendString( Mockito.anyString(), Mockito.any( WriteCallback.class ));
 	}
 
 
@@ -156,7 +162,7 @@ public class WebSocketHandlerTest {
 		WebSocketHandler handler = configuredHandler();
 		handler.disableNotifications();
 		handler.raw( "this is a raw notification" );
-		Mockito.verify( this.remoteEndpoint, Mockito.never()).sendString( Mockito.anyString());
+		Mockito.verify( this.remoteEndpoint, Mockito.never()).sendString( Mockito.anyString(), Mockito.any( WriteCallback.class ));
 	}
 
 
@@ -166,9 +172,9 @@ public class WebSocketHandlerTest {
 		WebSocketHandler handler = configuredHandler();
 		handler.enableNotifications();
 
-		Mockito.doThrow( new IOException()).when( this.remoteEndpoint ).sendString( Mockito.anyString());
+		Mockito.doThrow( new RuntimeException()).when( this.remoteEndpoint ).sendString( Mockito.anyString(), Mockito.any( WriteCallback.class ));
 		handler.raw( "this is another raw notification" );
-		Mockito.verify( this.remoteEndpoint ).sendString( "{\"msg\":\"this is another raw notification\"}" );
+		Mockito.verify( this.remoteEndpoint ).sendString( Mockito.eq( "{\"msg\":\"this is another raw notification\"}" ), Mockito.any( WriteCallback.class ));
 	}
 
 
@@ -178,9 +184,166 @@ public class WebSocketHandlerTest {
 		WebSocketHandler handler = configuredHandler();
 		handler.enableNotifications();
 
-		Mockito.doThrow( new IOException( "some reason" )).when( this.remoteEndpoint ).sendString( Mockito.anyString());
+		Mockito.doAnswer( new Answer<Void>() {
+			@Override
+			public Void answer( InvocationOnMock invocation ) throws Throwable {
+				((WriteCallback) invocation.getArguments()[ 1 ]).writeFailed( new IOException( "some reason" ));
+				return null;
+			}
+
+		}).when( this.remoteEndpoint ).sendString( Mockito.anyString(), Mockito.any( WriteCallback.class ));
 		handler.raw( "this is another raw notification" );
-		Mockito.verify( this.remoteEndpoint ).sendString( "{\"msg\":\"this is another raw notification\"}" );
+		Mockito.verify( this.remoteEndpoint ).sendString( Mockito.eq( "{\"msg\":\"this is another raw notification\"}" ), Mockito.any( WriteCallback.class ));
+	}
+
+
+	@Test
+	public void testNotifications_asynchronousAndCoalesced() throws Exception {
+
+		ApplicationTemplate template = new ApplicationTemplate( "test-tpl" );
+		Application app = new Application( "test", template );
+		Instance inst = new Instance( "inst" ).component( new Component( "comp" ));
+
+		// The remote end point does not acknowledge messages: they remain queued
+		WebSocketHandler handler = configuredHandler();
+		handler.enableNotifications();
+		handler.raw( "first" );
+		Mockito.verify( this.remoteEndpoint, Mockito.only()).sendString( Mockito.anyString(), Mockito.any( WriteCallback.class ));
+
+		handler.instance( inst, app, EventType.CHANGED );
+		inst.setStatus( InstanceStatus.DEPLOYING );
+		handler.instance( inst, app, EventType.CHANGED );
+		handler.raw( "second" );
+		inst.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		handler.instance( inst, app, EventType.CHANGED );
+
+		// Only the last state of the instance is kept
+		WebSocketHandler.SessionContext ctx = WebSocketHandler.findContext( this.session );
+		Assert.assertEquals( 2, ctx.getQueuedMessagesCount());
+
+		// Acknowledge the messages
+		ArgumentCaptor<String> msg = ArgumentCaptor.forClass( String.class );
+		ctx.writeSuccess();
+		ctx.writeSuccess();
+		ctx.writeSuccess();
+		Assert.assertEquals( 0, ctx.getQueuedMessagesCount());
+
+		Mockito.verify( this.remoteEndpoint, Mockito.times( 3 )).sendString( msg.capture(), Mockito.any( WriteCallback.class ));
+		Assert.assertEquals( "{\"msg\":\"first\"}", msg.getAllValues().get( 0 ));
+		Assert.assertTrue( msg.getAllValues().get( 1 ).contains( "DEPLOYED_STARTED" ));
+		Assert.assertEquals( "{\"msg\":\"second\"}", msg.getAllValues().get( 2 ));
+	}
+
+
+	@Test
+	public void testNotifications_changesDoNotOvertakeOtherEvents() throws Exception {
+
+		ApplicationTemplate template = new ApplicationTemplate( "test-tpl" );
+		Application app = new Application( "test", template );
+		Instance inst = new Instance( "inst" ).component( new Component( "comp" ));
+
+		// The remote end point does not acknowledge messages: they remain queued
+		WebSocketHandler handler = configuredHandler();
+		handler.enableNotifications();
+		handler.raw( "first" );
+
+		// CHANGED, DELETED, CHANGED => the last change is not coalesced with the first one
+		inst.setStatus( InstanceStatus.DEPLOYING );
+		handler.instance( inst, app, EventType.CHANGED );
+		handler.instance( inst, app, EventType.DELETED );
+		inst.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		handler.instance( inst, app, EventType.CHANGED );
+
+		// Following changes are coalesced with the last one
+		inst.setStatus( InstanceStatus.DEPLOYED_STOPPED );
+		handler.instance( inst, app, EventType.CHANGED );
+
+		WebSocketHandler.SessionContext ctx = WebSocketHandler.findContext( this.session );
+		Assert.assertEquals( 3, ctx.getQueuedMessagesCount());
+
+		// Acknowledge the messages
+		ArgumentCaptor<String> msg = ArgumentCaptor.forClass( String.class );
+		for( int i = 0; i < 4; i ++ )
+			ctx.writeSuccess();
+
+		Assert.assertEquals( 0, ctx.getQueuedMessagesCount());
+		Mockito.verify( this.remoteEndpoint, Mockito.times( 4 )).sendString( msg.capture(), Mockito.any( WriteCallback.class ));
+		Assert.assertEquals( "{\"msg\":\"first\"}", msg.getAllValues().get( 0 ));
+		Assert.assertTrue( msg.getAllValues().get( 1 ).contains( "CHANGED" ));
+		Assert.assertTrue( msg.getAllValues().get( 1 ).contains( "DEPLOYING" ));
+		Assert.assertTrue( msg.getAllValues().get( 2 ).contains( "DELETED" ));
+		Assert.assertTrue( msg.getAllValues().get( 3 ).contains( "CHANGED" ));
+		Assert.assertTrue( msg.getAllValues().get( 3 ).contains( "DEPLOYED_STOPPED" ));
+
+		// A change that is being sent is not replaced
+		handler.instance( inst, app, EventType.CHANGED );
+		handler.instance( inst, app, EventType.CHANGED );
+		Assert.assertEquals( 1, ctx.getQueuedMessagesCount());
+	}
+
+
+	@Test
+	public void testNotifications_slowConsumerIsEvicted() throws Exception {
+
+		WebSocketHandler handler = configuredHandler();
+		handler.enableNotifications();
+
+		// One message is being sent, the others are queued
+		for( int i = 0; i <= WebSocketHandler.MAX_QUEUED_MESSAGES; i ++ )
+			handler.raw( "msg " + i );
+
+		Assert.assertEquals( 1, WebSocketHandler.getSessionsCount());
+		Mockito.verify( this.session, Mockito.never()).close( Mockito.anyInt(), Mockito.anyString());
+
+		handler.raw( "one too many" );
+		Assert.assertEquals( 0, WebSocketHandler.getSessionsCount());
+		Mockito.verify( this.session, Mockito.times( 1 )).close( Mockito.eq( StatusCode.POLICY_VIOLATION ), Mockito.anyString());
+	}
+
+
+	@Test
+	public void testNotifications_withSubscription() throws Exception {
+
+		ApplicationTemplate template = new ApplicationTemplate( "test-tpl" );
+		Application app1 = new Application( "app1", template );
+		Application app2 = new Application( "app2", template );
+
+		WebSocketHandler handler = configuredHandler();
+		handler.enableNotifications();
+		Mockito.doAnswer( new Answer<Void>() {
+			@Override
+			public Void answer( InvocationOnMock invocation ) throws Throwable {
+				((WriteCallback) invocation.getArguments()[ 1 ]).writeSuccess();
+				return null;
+			}
+
+		}).when( this.remoteEndpoint ).sendString( Mockito.anyString(), Mockito.any( WriteCallback.class ));
+
+		// Invalid subscriptions are ignored
+		WebSocketHandler.updateSubscription( this.session, "oops" );
+		WebSocketHandler.updateSubscription( this.session, "[]" );
+		WebSocketHandler.updateSubscription( Mockito.mock( Session.class ), "{}" );
+
+		// Filter by application and event type
+		WebSocketHandler.updateSubscription( this.session, "{ \"apps\": [ \"app2\" ], \"events\": [ \"CREATED\", \"CHANGED\" ] }" );
+		handler.application( app1, EventType.CREATED );
+		handler.application( app2, EventType.DELETED );
+		handler.applicationTemplate( template, EventType.DELETED );
+		handler.application( app2, EventType.CREATED );
+		handler.applicationTemplate( template, EventType.CHANGED );
+		handler.raw( "raw" );
+
+		ArgumentCaptor<String> msg = ArgumentCaptor.forClass( String.class );
+		Mockito.verify( this.remoteEndpoint, Mockito.times( 3 )).sendString( msg.capture(), Mockito.any( WriteCallback.class ));
+		Assert.assertTrue( msg.getAllValues().get( 0 ).contains( "\"CREATED\",\"app\":{\"name\":\"app2\"" ));
+		Assert.assertTrue( msg.getAllValues().get( 1 ).contains( "\"CHANGED\",\"tpl\"" ));
+		Assert.assertEquals( "{\"msg\":\"raw\"}", msg.getAllValues().get( 2 ));
+
+		// Reset the filters
+		Mockito.reset( this.remoteEndpoint );
+		WebSocketHandler.updateSubscription( this.session, "{}" );
+		handler.application( app1, EventType.DELETED );
+		Mockito.verify( this.remoteEndpoint, Mockito.times( 1 )).sendString( Mockito.anyString(), Mockito.any( WriteCallback.class ));
 	}
 
 
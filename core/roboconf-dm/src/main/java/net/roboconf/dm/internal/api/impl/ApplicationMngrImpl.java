@@ -55,6 +55,7 @@ import net.roboconf.dm.management.ManagedApplication;
 import net.roboconf.dm.management.api.IApplicationMngr;
 import net.roboconf.dm.management.api.IApplicationTemplateMngr;
 import net.roboconf.dm.management.api.IAutonomicMngr;
+import net.roboconf.dm.management.api.ICommandsMngr;
 import net.roboconf.dm.management.api.IConfigurationMngr;
 import net.roboconf.dm.management.api.IMessagingMngr;
 import net.roboconf.dm.management.api.INotificationMngr;
@@ -84,6 +85,7 @@ public class ApplicationMngrImpl implements IApplicationMngr {
 	private final IAutonomicMngr autonomicMngr;
 
 	private IApplicationTemplateMngr applicationTemplateMngr;
+	private ICommandsMngr commandsMngr;
 
 
 	/**
@@ -121,6 +123,14 @@ public class ApplicationMngrImpl implements IApplicationMngr {
 	}
 
 
+	/**
+	 * @param commandsMngr the commandsMngr to set
+	 */
+	public void setCommandsMngr( ICommandsMngr commandsMngr ) {
+		this.commandsMngr = commandsMngr;
+	}
+
+
 	@Override
 	public Application findApplicationByName( String applicationName ) {
 		ManagedApplication ma = this.nameToManagedApplication.get( applicationName );
@@ -242,6 +252,10 @@ public class ApplicationMngrImpl implements IApplicationMngr {
 		// Remove the autonomic context
 		this.autonomicMngr.unloadApplicationRules( app );
 
+		// Forget its cached commands
+		if( this.commandsMngr != null )
+			this.commandsMngr.applicationWasDeleted( app );
+
 		// Delete artifacts
 		this.logger.info( "Deleting the application called " + app.getName() + "..." );
 		this.nameToManagedApplication.remove( app.getName());
@@ -449,6 +463,8 @@ public class ApplicationMngrImpl implements IApplicationMngr {
 
 				this.messagingMngr.sendMessageSafely( ma, inst, msg );
 			}
+
+			this.notificationMngr.application( ma.getApplication(), EventType.CHANGED );
 		}
 	}
 
@@ -487,6 +503,8 @@ public class ApplicationMngrImpl implements IApplicationMngr {
 
 				this.messagingMngr.sendMessageSafely( ma, inst, msg );
 			}
+
+			this.notificationMngr.application( ma.getApplication(), EventType.CHANGED );
 		}
 	}
 }
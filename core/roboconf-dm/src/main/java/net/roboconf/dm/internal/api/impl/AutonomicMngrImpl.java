@@ -26,6 +26,8 @@
 package net.roboconf.dm.internal.api.impl;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -128,21 +130,29 @@ public class AutonomicMngrImpl implements IAutonomicMngr {
 
 	@Override
 	public void handleEvent( ManagedApplication ma, MsgNotifAutonomic event ) {
+		handleEvents( ma, Collections.singletonList( event ));
+	}
 
-		try {
-			// Register the event
-			this.logger.fine( "Autonomic event '" + event.getEventName() + "' is about to be recorded." );
 
+	@Override
+	public void handleEvents( ManagedApplication ma, Collection<MsgNotifAutonomic> events ) {
+
+		try {
 			// Find the rules that are impacted by the current event registration
 			AutonomicApplicationContext ctx = this.appNameToContext.get( ma.getName());
 			if( ctx == null ) {
 				this.logger.fine( "No autonomic context was found for application " + ma.getApplication() + "." );
 
 			} else {
-				ctx.registerEvent( event.getEventName());
+				// Register all the events before looking for rules (once for the whole batch)
+				for( MsgNotifAutonomic event : events ) {
+					this.logger.fine( "Autonomic event '" + event.getEventName() + "' is about to be recorded (" + event.getOccurrences() + " occurrence(s))." );
+					ctx.registerEvent( event.getEventName());
+				}
+
 				List<Rule> rulesToExecute = ctx.findRulesToExecute();
 				if( rulesToExecute.isEmpty()) {
-					this.logger.fine( "No rule was found after the event '" + event.getEventName() + "' occurred." );
+					this.logger.fine( "No rule was found after " + events.size() + " autonomic event(s) occurred." );
 
 				} else {
 					// Prepare the (shared and read-only) execution context
@@ -170,7 +180,7 @@ public class AutonomicMngrImpl implements IAutonomicMngr {
 
 					// Process the rules
 					for( Rule rule : rulesToExecute ) {
-						this.logger.fine( "Applying rule '" + rule.getRuleName() + "' for event '" + event.getEventName() + "'." );
+						this.logger.fine( "Applying rule '" + rule.getRuleName() + "' for event '" + rule.getEventName() + "'." );
 						ctx.recordPreExecution( rule.getRuleName());
 						for( String commandName : rule.getCommandsToInvoke())
 							this.commandsMngr.execute( ma.getApplication(), commandName, execCtx, CommandHistoryItem.ORIGIN_AUTONOMIC, rule.getRuleName());
@@ -32,10 +32,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -46,7 +48,9 @@ import net.roboconf.core.model.ParsingError;
 import net.roboconf.core.model.beans.Application;
 import net.roboconf.core.model.runtime.CommandHistoryItem;
 import net.roboconf.core.utils.Utils;
+import net.roboconf.dm.internal.commands.CommandsCache;
 import net.roboconf.dm.internal.commands.CommandsExecutor;
+import net.roboconf.dm.internal.commands.CommandsHistoryWriter;
 import net.roboconf.dm.management.Manager;
 import net.roboconf.dm.management.api.ICommandsMngr;
 import net.roboconf.dm.management.exceptions.CommandException;
@@ -58,8 +62,24 @@ import net.roboconf.dm.management.exceptions.CommandException;
 public class CommandsMngrImpl implements ICommandsMngr {
 
 	static final int DEFAULT_ITEMS_PER_PAGE = 20;
+	static final int MAX_BOOKMARKS = 256;
+
 	private final Logger logger = Logger.getLogger( getClass().getName());
 	private final Manager manager;
+	private final CommandsCache commandsCache = new CommandsCache();
+	private final CommandsHistoryWriter historyWriter;
+
+	// Bookmarks are used for keyset pagination (LRU map).
+	// The generation changes every time an entry is recorded. Guarded by the map.
+	private long historyGeneration;
+	final Map<String,HistoryBookmark> historyBookmarks = new LinkedHashMap<String,HistoryBookmark>( 16, 0.75f, true ) {
+		private static final long serialVersionUID = -3471264716185934545L;
+
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<String,HistoryBookmark> eldest ) {
+			return size() > MAX_BOOKMARKS;
+		}
+	};
 
 
 	/**
@@ -68,6 +88,23 @@ public class CommandsMngrImpl implements ICommandsMngr {
 	 */
 	public CommandsMngrImpl( Manager manager ) {
 		this.manager = manager;
+		this.historyWriter = new CommandsHistoryWriter( manager );
+	}
+
+
+	/**
+	 * Starts the writer for commands history.
+	 */
+	public void start() {
+		this.historyWriter.start();
+	}
+
+
+	/**
+	 * Stops the writer for commands history (pending entries are written).
+	 */
+	public void stop() {
+		this.historyWriter.stop();
 	}
 
 
@@ -77,6 +114,7 @@ public class CommandsMngrImpl implements ICommandsMngr {
 		File cmdFile = findCommandFile( app, commandName );
 		Utils.createDirectory( cmdFile.getParentFile());
 		Utils.writeStringInto( commandText, cmdFile );
+		this.commandsCache.invalidate( app, cmdFile );
 	}
 
 
@@ -85,6 +123,13 @@ public class CommandsMngrImpl implements ICommandsMngr {
 
 		File cmdFile = findCommandFile( app, commandName );
 		Utils.deleteFilesRecursively( cmdFile );
+		this.commandsCache.invalidate( app, cmdFile );
+	}
+
+
+	@Override
+	public void applicationWasDeleted( Application app ) {
+		this.commandsCache.invalidate( app );
 	}
 
 
@@ -141,6 +186,21 @@ public class CommandsMngrImpl implements ICommandsMngr {
 	 *
 	 * Right now, the "roboconf-dm" bundle can be used as a usual Java library
 	 * and only depends on JRE (and Roboconf) classes.
+	 *
+	 * Insertions are performed asynchronously, by the history writer.
+	 * Queries flush it first, so that they see what was recorded before.
+	 *
+	 * History pages are retrieved with keyset pagination when possible.
+	 * The API is based on offsets (page numbers), but users mostly browse pages
+	 * one after the other. So, every query stores a bookmark for the next page:
+	 * the sort value and the ID of its last row. When the next page is requested,
+	 * we search the rows located after it instead of skipping all the previous rows.
+	 *
+	 * A bookmark is only valid while no row was inserted before it. So, when an entry
+	 * is recorded, the bookmarks located after it (with respect to their sort criteria
+	 * and order) are dropped. This way, results never depend on the bookmarks: the same
+	 * page is returned with and without them. Bookmarks computed by queries that ran
+	 * while an entry was recorded are not stored.
 	 */
 
 
@@ -160,7 +220,9 @@ public class CommandsMngrImpl implements ICommandsMngr {
 			PreparedStatement ps = null;
 			ResultSet sqlRes = null;
 			try {
+				this.historyWriter.flush();
 				conn = dataSource.getConnection();
+				this.historyWriter.ensureSchema( dataSource, conn );
 
 				StringBuilder sb = new StringBuilder();
 				sb.append( "SELECT count( * ) FROM commands_history" );
@@ -225,28 +287,89 @@ public class CommandsMngrImpl implements ICommandsMngr {
 			PreparedStatement ps = null;
 			ResultSet sqlRes = null;
 			try {
+				long generation;
+				synchronized( this.historyBookmarks ) {
+					generation = this.historyGeneration;
+				}
+
+				this.historyWriter.flush();
 				conn = dataSource.getConnection();
+				this.historyWriter.ensureSchema( dataSource, conn );
+
+				// Find the closest bookmark before the requested position.
+				// Rows located after it are found with the index, only the remaining ones are skipped.
+				String bookmarkKey = applicationName + "|" + sortCriteria + "|" + sortingOrder + "|";
+				HistoryBookmark bookmark = null;
+				int bookmarkPosition = 0;
+				synchronized( this.historyBookmarks ) {
+					for( Map.Entry<String,HistoryBookmark> entry : this.historyBookmarks.entrySet()) {
+						String key = entry.getKey();
+						if( ! key.startsWith( bookmarkKey )
+								|| key.indexOf( '|', bookmarkKey.length()) != -1 )
+							continue;
+
+						int position = Integer.parseInt( key.substring( bookmarkKey.length()));
+						if( position <= start && position > bookmarkPosition ) {
+							bookmarkPosition = position;
+							bookmark = entry.getValue();
+						}
+					}
+
+					// Refresh its position in the LRU map
+					if( bookmark != null )
+						this.historyBookmarks.get( bookmarkKey + bookmarkPosition );
+				}
 
+				int offset = start - bookmarkPosition;
+
+				// Build the query.
+				// The ID is used to sort rows with the same criteria value.
+				boolean filter = ! Utils.isEmptyOrWhitespaces( applicationName );
 				StringBuilder sb = new StringBuilder();
-				sb.append( "SELECT * FROM commands_history " );
-				if( ! Utils.isEmptyOrWhitespaces( applicationName ))
-					sb.append( " WHERE application = ?" );
+				sb.append( "SELECT * FROM commands_history" );
+				if( filter || bookmark != null )
+					sb.append( " WHERE " );
+
+				if( filter )
+					sb.append( "application = ?" );
+
+				if( filter && bookmark != null )
+					sb.append( " AND " );
+
+				String comparator = "asc".equals( sortingOrder ) ? " > " : " < ";
+				if( bookmark != null ) {
+					sb.append( "(" + sortCriteria + comparator + "?" );
+					sb.append( " OR (" + sortCriteria + " = ? AND id" + comparator + "?))" );
+				}
 
 				sb.append( " ORDER BY " );
 				sb.append( sortCriteria );
 				sb.append( " " );
 				sb.append( sortingOrder );
+				sb.append( ", id " );
+				sb.append( sortingOrder );
 				sb.append( " LIMIT " );
 				sb.append( maxEntry );
-				sb.append( " OFFSET " );
-				sb.append( start );
+				if( offset > 0 ) {
+					sb.append( " OFFSET " );
+					sb.append( offset );
+				}
 
 				// Use PreparedStatement to prevent SQL injection
 				ps = conn.prepareStatement( sb.toString());
-				if( ! Utils.isEmptyOrWhitespaces( applicationName ))
-					ps.setString( 1, applicationName );
+				int index = 1;
+				if( filter )
+					ps.setString( index ++, applicationName );
+
+				if( bookmark != null ) {
+					ps.setObject( index ++, bookmark.sortValue );
+					ps.setObject( index ++, bookmark.sortValue );
+					ps.setLong( index ++, bookmark.id );
+				}
 
 				// Build the result
+				Object lastSortValue = null;
+				long lastId = -1;
 				for( sqlRes = ps.executeQuery(); sqlRes.next(); ) {
 					String appName = sqlRes.getString( "application" );
 					String commandName = sqlRes.getString( "command" );
@@ -259,6 +382,20 @@ public class CommandsMngrImpl implements ICommandsMngr {
 					result.add( new CommandHistoryItem(
 							appName, commandName, origin, originDetails,
 							executionResult, executionStart, duration ));
+
+					lastSortValue = sqlRes.getObject( sortCriteria );
+					lastId = sqlRes.getLong( "id" );
+				}
+
+				// Store a bookmark for the next page, unless an entry was recorded meanwhile
+				if( lastSortValue != null ) {
+					synchronized( this.historyBookmarks ) {
+						if( generation == this.historyGeneration ) {
+							this.historyBookmarks.put(
+									bookmarkKey + (start + result.size()),
+									new HistoryBookmark( applicationName, sortCriteria, sortingOrder, lastSortValue, lastId ));
+						}
+					}
 				}
 
 			} catch( SQLException e ) {
@@ -300,7 +437,7 @@ public class CommandsMngrImpl implements ICommandsMngr {
 		long startInMilliSeconds = System.currentTimeMillis();
 		long startInNanoSeconds = System.nanoTime();
 		try {
-			CommandsExecutor executor = new CommandsExecutor( this.manager, app, cmdFile, executionContext );
+			CommandsExecutor executor = new CommandsExecutor( this.manager, app, cmdFile, executionContext, this.commandsCache );
 			executor.execute();
 			if( executor.wereInstructionSkipped())
 				result = CommandHistoryItem.EXECUTION_OK_WITH_SKIPPED;
@@ -310,118 +447,73 @@ public class CommandsMngrImpl implements ICommandsMngr {
 			throw e;
 
 		} finally {
-			recordInHistory( startInMilliSeconds, startInNanoSeconds, result, app.getName(), commandName, origin, originDetails );
+			long duration = System.nanoTime() - startInNanoSeconds;
+			CommandHistoryItem item = new CommandHistoryItem(
+					app.getName(), commandName, origin, originDetails,
+					result, startInMilliSeconds, duration );
+
+			synchronized( this.historyBookmarks ) {
+				this.historyWriter.record( item );
+				dropShiftedBookmarks( item );
+			}
 		}
 	}
 
 
 	/**
-	 * @param startInMilliSeconds
-	 * @param startInNanoSeconds
-	 * @param result
-	 * @param applicationName
-	 * @param commandName
-	 * @param origin
+	 * Drops the bookmarks whose position is shifted by a new history entry.
+	 * <p>
+	 * Must be invoked while holding the lock on {@link #historyBookmarks}.
+	 * </p>
+	 *
+	 * @param item a new history entry
 	 */
-	private void recordInHistory(
-			long startInMilliSeconds,
-			long startInNanoSeconds,
-			int result,
-			String applicationName,
-			String commandName,
-			int origin,
-			String originDetails ) {
-
-		long duration = System.nanoTime() - startInNanoSeconds;
-		DataSource dataSource = this.manager.getDataSource();
-
-		// The data source is optional.
-		if( dataSource != null ) {
-
-			// We try to insert the record.
-			boolean failed = false;
-			Connection conn = null;
-			try {
-				conn = dataSource.getConnection();
-				recordEntry( conn, startInMilliSeconds, duration, result, applicationName, commandName, origin, originDetails );
-
-			} catch( SQLException e ) {
-				failed = true;
-			}
-
-			// If it fails, we assume the table does not exist.
-			// We thus try to create it and retry the insertion.
-			// It avoids executing two SQL statements every time we try to insert it.
-
-			// In Karaf, the data source can be configured / modified dynamically.
-			// So, it is better to have a resilient implementation.
-			try {
-				if( failed ) {
-					createTable( conn );
-					recordEntry( conn, startInMilliSeconds, duration, result, applicationName, commandName, origin, originDetails );
-				}
-
-			} catch( SQLException e ) {
-				this.logger.severe( "An error occurred while storing the result of a command execution in database." );
-				Utils.logException( this.logger, e );
-
-			} finally {
-				Utils.closeConnection( conn, this.logger );
-			}
+	void dropShiftedBookmarks( CommandHistoryItem item ) {
+
+		this.historyGeneration ++;
+		for( Iterator<HistoryBookmark> it = this.historyBookmarks.values().iterator(); it.hasNext(); ) {
+			HistoryBookmark bookmark = it.next();
+			if( ! Utils.isEmptyOrWhitespaces( bookmark.applicationName )
+					&& ! bookmark.applicationName.equals( item.getApplicationName()))
+				continue;
+
+			Object itemValue;
+			if( "application".equals( bookmark.sortCriteria ))
+				itemValue = item.getApplicationName();
+			else if( "command".equals( bookmark.sortCriteria ))
+				itemValue = item.getCommandName();
+			else if( "origin".equals( bookmark.sortCriteria ))
+				itemValue = item.getOrigin();
+			else if( "result".equals( bookmark.sortCriteria ))
+				itemValue = item.getExecutionResult();
+			else
+				itemValue = item.getStart();
+
+			// New entries have the biggest ID: on equal values, they come last in ascending order
+			Integer comparison = compare( itemValue, bookmark.sortValue );
+			if( comparison == null
+					|| "asc".equals( bookmark.sortingOrder ) && comparison < 0
+					|| "desc".equals( bookmark.sortingOrder ) && comparison >= 0 )
+				it.remove();
 		}
 	}
 
 
-	private void recordEntry(
-			Connection conn,
-			long start,
-			long duration,
-			int result,
-			String applicationName,
-			String commandName,
-			int origin,
-			String originDetails ) throws SQLException {
-
-		String req = "INSERT INTO commands_history( application, command, start, duration, result, origin, details ) values( ?, ?, ?, ?, ?, ?, ? )";
-		PreparedStatement ps = null;
-		try {
-			ps = conn.prepareStatement( req );
-			ps.setString( 1, applicationName );
-			ps.setString( 2, commandName );
-			ps.setLong( 3, start );
-			ps.setLong( 4, duration );
-			ps.setInt( 5, result );
-			ps.setInt( 6, origin );
-			ps.setString( 7, originDetails );
-			ps.execute();
-
-		} finally {
-			Utils.closeStatement( ps, this.logger );
-		}
-	}
-
-
-	private void createTable( Connection conn ) throws SQLException {
+	/**
+	 * Compares a value with the sort value of a bookmark.
+	 * @param value a value (not null)
+	 * @param sortValue a sort value read from the database (not null)
+	 * @return the comparison result, or null if the values cannot be compared
+	 */
+	private static Integer compare( Object value, Object sortValue ) {
 
-		StringBuilder sb = new StringBuilder( "CREATE TABLE IF NOT EXISTS commands_history (" );
-		sb.append( "id INT NOT NULL AUTO_INCREMENT," );
-		sb.append( "application VARCHAR(255)," );
-		sb.append( "command VARCHAR(255)," );
-		sb.append( "start BIGINT," );
-		sb.append( "duration BIGINT," );
-		sb.append( "result SMALLINT," );
-		sb.append( "origin SMALLINT," );
-		sb.append( "details VARCHAR(255)," );
-		sb.append( "PRIMARY KEY( id ))" );
+		Integer result = null;
+		if( value instanceof Number && sortValue instanceof Number )
+			result = Long.compare(((Number) value).longValue(), ((Number) sortValue).longValue());
+		else if( value instanceof String && sortValue instanceof String )
+			result = ((String) value).compareTo((String) sortValue );
 
-		Statement st = null;
-		try {
-			st = conn.createStatement();
-			st.execute( sb.toString());
-
-		} finally {
-			Utils.closeStatement( st, this.logger );
-		}
+		return result;
 	}
 
 
@@ -434,4 +526,33 @@ public class CommandsMngrImpl implements ICommandsMngr {
 		File cmdDir = new File( app.getDirectory(), Constants.PROJECT_DIR_COMMANDS );
 		return new File( cmdDir, name );
 	}
+
+
+	/**
+	 * A bookmark for keyset pagination.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	static final class HistoryBookmark {
+
+		final String applicationName, sortCriteria, sortingOrder;
+		final Object sortValue;
+		final long id;
+
+
+		/**
+		 * Constructor.
+		 * @param applicationName the application used to filter the history (can be null)
+		 * @param sortCriteria the sort criteria
+		 * @param sortingOrder the sorting order
+		 * @param sortValue the sort value of the last row of a page
+		 * @param id the ID of the last row of a page
+		 */
+		HistoryBookmark( String applicationName, String sortCriteria, String sortingOrder, Object sortValue, long id ) {
+			this.applicationName = applicationName;
+			this.sortCriteria = sortCriteria;
+			this.sortingOrder = sortingOrder;
+			this.sortValue = sortValue;
+			this.id = id;
+		}
+	}
 }
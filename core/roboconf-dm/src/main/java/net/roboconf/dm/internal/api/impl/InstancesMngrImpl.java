@@ -27,6 +27,7 @@ package net.roboconf.dm.internal.api.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -37,10 +38,14 @@ import java.util.Objects;
 import java.util.logging.Logger;
 
 import net.roboconf.core.model.beans.Application;
+import net.roboconf.core.model.beans.Component;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.helpers.ComponentHelpers;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.model.runtime.EventType;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.core.utils.ResourceUtils;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.internal.api.IRandomMngr;
@@ -57,6 +62,7 @@ import net.roboconf.dm.management.api.ITargetsMngr;
 import net.roboconf.dm.management.api.ITargetsMngr.TargetProperties;
 import net.roboconf.dm.management.exceptions.ImpossibleInsertionException;
 import net.roboconf.dm.management.exceptions.UnauthorizedActionException;
+import net.roboconf.dm.metrics.DmMetrics;
 import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdAddInstance;
 import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdChangeInstanceState;
 import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdRemoveInstance;
@@ -142,20 +148,8 @@ public class InstancesMngrImpl implements IInstancesMngr {
 	public void addInstance( ManagedApplication ma, Instance parentInstance, Instance instance )
 	throws ImpossibleInsertionException, IOException {
 
-		// Insert it, if possible
 		this.messagingMngr.checkMessagingConfiguration();
-		if( ! InstanceHelpers.tryToInsertChildInstance( ma.getApplication(), parentInstance, instance ))
-			throw new ImpossibleInsertionException( instance.getName());
-
-		// Generate values for random variables, if any
-		this.randomMngr.generateRandomValues( ma.getApplication(), instance );
-
-		// Send it to the agent
-		this.logger.fine( "Instance " + InstanceHelpers.computeInstancePath( instance ) + " was successfully added in " + ma.getName() + "." );
-		Instance scopedInstance = InstanceHelpers.findScopedInstance( instance );
-
-		// Store the message because we want to make sure the message is not lost
-		ma.storeAwaitingMessage( instance, new MsgCmdAddInstance( scopedInstance ));
+		insertInstance( ma, parentInstance, instance );
 
 		ConfigurationUtils.saveInstances( ma );
 		this.notificationMngr.instance( instance, ma.getApplication(), EventType.CREATED );
@@ -170,6 +164,17 @@ public class InstancesMngrImpl implements IInstancesMngr {
 	}
 
 
+	@Override
+	public void instancesWereUpdated( Collection<Instance> instances, ManagedApplication ma ) {
+
+		for( Instance instance : instances )
+			this.notificationMngr.instance( instance, ma.getApplication(), EventType.CHANGED );
+
+		if( ! instances.isEmpty())
+			ConfigurationUtils.saveInstances( ma );
+	}
+
+
 	@Override
 	public void removeInstance( ManagedApplication ma, Instance instance )
 	throws UnauthorizedActionException, IOException {
@@ -183,48 +188,10 @@ public class InstancesMngrImpl implements IInstancesMngr {
 	throws UnauthorizedActionException, IOException {
 
 		this.messagingMngr.checkMessagingConfiguration();
-		for( Instance i : InstanceHelpers.buildHierarchicalList( instance )) {
-
-			// Ife have an instance that is not undeployed...
-			if( i.getStatus() != InstanceStatus.NOT_DEPLOYED ) {
-
-				// We cannot remove it immediately => exception
-				if( immediate )
-					throw new UnauthorizedActionException( "Instances are still deployed or running. They cannot be removed in " + ma.getName() + "." );
-
-				// Otherwise, indicate we will delete it later
-				instance.data.put( Instance.DELETE_WHEN_NOT_DEPLOYED, "true" );
-
-				// No need to go further
-				return;
-			}
-
-			// If it is "not deployed", then we will try to delete it anyway.
-		}
-
-		// Whatever is the state of the agent, we try to send a message.
-		MsgCmdRemoveInstance message = new MsgCmdRemoveInstance( instance );
-		this.messagingMngr.sendMessageSafely( ma, instance, message );
-
-		// Remove it from the model
-		if( instance.getParent() == null ) {
-			ma.getApplication().getRootInstances().remove( instance );
-			this.autonomicMngr.notifyVmWasDeletedByHand( instance );
-
-		} else {
-			instance.getParent().getChildren().remove( instance );
+		if( detachInstance( ma, instance, immediate )) {
+			ConfigurationUtils.saveInstances( ma );
+			this.notificationMngr.instance( instance, ma.getApplication(), EventType.DELETED );
 		}
-
-		// Release random values, if any
-		this.randomMngr.releaseRandomValues( ma.getApplication(), instance );
-
-		// Deal with locked targets
-		releaseLockedTargets( ma.getApplication(), instance );
-
-		// Persist the model and notify
-		this.logger.fine( "Instance " + InstanceHelpers.computeInstancePath( instance ) + " was successfully removed in " + ma.getName() + "." );
-		ConfigurationUtils.saveInstances( ma );
-		this.notificationMngr.instance( instance, ma.getApplication(), EventType.DELETED );
 	}
 
 
@@ -334,6 +301,30 @@ public class InstancesMngrImpl implements IInstancesMngr {
 	}
 
 
+	@Override
+	public List<InstanceOperationResult> applyOperations( ManagedApplication ma, List<InstanceOperation> operations )
+	throws IOException {
+
+		this.messagingMngr.checkMessagingConfiguration();
+		this.logger.fine( "Applying " + operations.size() + " instance operations in " + ma.getName() + "..." );
+
+		List<InstanceOperationResult> result = new ArrayList<>( operations.size());
+		List<Map.Entry<Instance,EventType>> events = new ArrayList<> ();
+		for( InstanceOperation op : operations )
+			result.add( applyOperation( ma, op, events ));
+
+		// Persist the model and notify, once for all
+		if( ! events.isEmpty())
+			ConfigurationUtils.saveInstances( ma );
+
+		for( Map.Entry<Instance,EventType> event : events )
+			this.notificationMngr.instance( event.getKey(), ma.getApplication(), event.getValue());
+
+		this.logger.fine( operations.size() + " instance operations were applied in " + ma.getName() + "." );
+		return result;
+	}
+
+
 	@Override
 	public void deployAndStartAll( ManagedApplication ma, Instance instance ) throws IOException {
 
@@ -414,6 +405,160 @@ public class InstancesMngrImpl implements IInstancesMngr {
 	}
 
 
+	/**
+	 * Inserts an instance in the model, without persisting it nor notifying anyone.
+	 * @param ma the managed application
+	 * @param parentInstance the parent instance
+	 * @param instance the instance to insert (not null)
+	 * @throws ImpossibleInsertionException if the instance could not be added
+	 */
+	private void insertInstance( ManagedApplication ma, Instance parentInstance, Instance instance )
+	throws ImpossibleInsertionException {
+
+		// Insert it, if possible
+		if( ! InstanceHelpers.tryToInsertChildInstance( ma.getApplication(), parentInstance, instance ))
+			throw new ImpossibleInsertionException( instance.getName());
+
+		// Generate values for random variables, if any
+		this.randomMngr.generateRandomValues( ma.getApplication(), instance );
+
+		// Send it to the agent
+		this.logger.fine( "Instance " + InstanceHelpers.computeInstancePath( instance ) + " was successfully added in " + ma.getName() + "." );
+		Instance scopedInstance = InstanceHelpers.findScopedInstance( instance );
+
+		// Store the message because we want to make sure the message is not lost
+		ma.storeAwaitingMessage( instance, new MsgCmdAddInstance( scopedInstance ));
+	}
+
+
+	/**
+	 * Removes an instance from the model, without persisting it nor notifying anyone.
+	 * @param ma the managed application
+	 * @param instance the instance to remove (not null)
+	 * @param immediate true to delete it immediately, false to ask Roboconf to delete it when it is possible
+	 * @return true if the instance was removed, false if it will be removed later
+	 * @throws UnauthorizedActionException if we try to remove immediately an instance that seems to be running
+	 * @throws IOException if an error occurred with the messaging
+	 */
+	private boolean detachInstance( ManagedApplication ma, Instance instance, boolean immediate )
+	throws UnauthorizedActionException, IOException {
+
+		for( Instance i : InstanceHelpers.buildHierarchicalList( instance )) {
+
+			// Ife have an instance that is not undeployed...
+			if( i.getStatus() != InstanceStatus.NOT_DEPLOYED ) {
+
+				// We cannot remove it immediately => exception
+				if( immediate )
+					throw new UnauthorizedActionException( "Instances are still deployed or running. They cannot be removed in " + ma.getName() + "." );
+
+				// Otherwise, indicate we will delete it later
+				instance.data.put( Instance.DELETE_WHEN_NOT_DEPLOYED, "true" );
+
+				// No need to go further
+				return false;
+			}
+
+			// If it is "not deployed", then we will try to delete it anyway.
+		}
+
+		// Whatever is the state of the agent, we try to send a message.
+		MsgCmdRemoveInstance message = new MsgCmdRemoveInstance( instance );
+		this.messagingMngr.sendMessageSafely( ma, instance, message );
+
+		// Remove it from the model
+		if( instance.getParent() == null ) {
+			ma.getApplication().getRootInstances().remove( instance );
+			this.autonomicMngr.notifyVmWasDeletedByHand( instance );
+
+		} else {
+			instance.getParent().getChildren().remove( instance );
+		}
+
+		// Release random values, if any
+		this.randomMngr.releaseRandomValues( ma.getApplication(), instance );
+
+		// Deal with locked targets
+		releaseLockedTargets( ma.getApplication(), instance );
+
+		this.logger.fine( "Instance " + InstanceHelpers.computeInstancePath( instance ) + " was successfully removed in " + ma.getName() + "." );
+		return true;
+	}
+
+
+	/**
+	 * Applies a single operation on an instance, without persisting the model.
+	 * @param ma the managed application
+	 * @param op the operation
+	 * @param events a list to which notifications to send are added
+	 * @return a non-null result
+	 */
+	private InstanceOperationResult applyOperation( ManagedApplication ma, InstanceOperation op, List<Map.Entry<Instance,EventType>> events ) {
+
+		String path = op.getInstancePath();
+		String error = null;
+		try {
+			Instance instance = null;
+			if( op.getType() == null ) {
+				error = "An operation type is required.";
+
+			} else if( path != null
+					&& ( instance = InstanceHelpers.findInstanceByPath( ma.getApplication(), path )) == null ) {
+				error = "Instance " + path + " was not found in " + ma.getName() + ".";
+
+			} else switch( op.getType()) {
+			case ADD:
+				Instance newInstance = op.getInstance();
+				Component component;
+				if( newInstance == null || newInstance.getComponent() == null ) {
+					error = "An instance, associated with a component, is required.";
+
+				} else if(( component = ComponentHelpers.findComponent( ma.getApplication(), newInstance.getComponent().getName())) == null ) {
+					error = "Component " + newInstance.getComponent().getName() + " was not found in " + ma.getName() + ".";
+
+				} else {
+					// The instance may only contain hints (component name, exports...)
+					newInstance.setComponent( component );
+					InstanceHelpers.fixOverriddenExports( newInstance );
+
+					insertInstance( ma, instance, newInstance );
+					path = InstanceHelpers.computeInstancePath( newInstance );
+					events.add( new AbstractMap.SimpleEntry<>( newInstance, EventType.CREATED ));
+				}
+
+				break;
+
+			case REMOVE:
+				if( instance == null )
+					error = "The path of the instance to remove is required.";
+				else if( detachInstance( ma, instance, true ))
+					events.add( new AbstractMap.SimpleEntry<>( instance, EventType.DELETED ));
+
+				break;
+
+			case CHANGE_STATE:
+				if( instance == null )
+					error = "The path of the instance to update is required.";
+				else if( op.getNewStatus() == null )
+					error = "A new status is required.";
+				else
+					changeInstanceState( ma, instance, op.getNewStatus());
+
+				break;
+			}
+
+		} catch( ImpossibleInsertionException | UnauthorizedActionException | IOException | TargetException e ) {
+			error = e.getMessage();
+			Utils.logException( this.logger, e );
+		}
+
+		if( error != null )
+			this.logger.fine( "An instance operation failed in " + ma.getName() + ". " + error );
+
+		return new InstanceOperationResult( path, error == null, error );
+	}
+
+
 	/**
 	 * Deploys a scoped instance.
 	 * @param ma the managed application
@@ -477,12 +622,16 @@ public class InstancesMngrImpl implements IInstancesMngr {
 
 			// FIXME: there can be many problems here.
 			// Not sure we handle all the possible problems correctly.
+			long start = System.nanoTime();
 			try {
 				machineId = targetHandler.createMachine( parameters );
 
 			} catch( TargetException e ) {
 				this.targetsMngr.unlockTarget( ma.getApplication(), scopedInstance );
 				throw e;
+
+			} finally {
+				DmMetrics.recordTargetCreation( targetHandler.getTargetId(), start );
 			}
 
 			scopedInstance.data.put( Instance.MACHINE_ID, machineId );
@@ -29,13 +29,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import net.roboconf.core.model.beans.Application;
 import net.roboconf.core.model.beans.ApplicationTemplate;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.runtime.EventType;
+import net.roboconf.dm.internal.utils.VersionCounter;
 import net.roboconf.dm.management.api.INotificationMngr;
 import net.roboconf.dm.management.events.IDmListener;
 
@@ -48,6 +52,12 @@ public class NotificationMngrImpl implements INotificationMngr {
 	private final List<IDmListener> dmListeners = new ArrayList<> ();
 	private final AtomicBoolean enableNotifications = new AtomicBoolean( false );
 
+	// Application versions are taken from the global sequence.
+	// So, an application that is deleted and created again never reuses a version.
+	private final VersionCounter modelVersion = new VersionCounter();
+	private final Map<String,Long> applicationVersions = new ConcurrentHashMap<> ();
+	private final AtomicLong templatesAndApplicationsVersion = new AtomicLong();
+
 
 	@Override
 	public String getId() {
@@ -131,8 +141,50 @@ public class NotificationMngrImpl implements INotificationMngr {
 	}
 
 
+	@Override
+	public long getModelVersion( String applicationName ) {
+
+		Long result;
+		if( applicationName == null )
+			result = this.modelVersion.get();
+		else
+			result = this.applicationVersions.get( applicationName );
+
+		return result == null ? 0 : result;
+	}
+
+
+	@Override
+	public long getTemplatesAndApplicationsVersion() {
+		return this.templatesAndApplicationsVersion.get();
+	}
+
+
+	@Override
+	public long waitForModelVersionChange( String applicationName, long knownVersion, long timeoutMs )
+	throws InterruptedException {
+
+		// Read the global version first: any change made after that will wake us up
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		long globalVersion = this.modelVersion.get();
+		long result = getModelVersion( applicationName );
+
+		long remaining = timeoutMs;
+		while( result == knownVersion && remaining > 0 ) {
+			globalVersion = this.modelVersion.waitForChange( globalVersion, remaining );
+			result = getModelVersion( applicationName );
+			remaining = deadline - System.currentTimeMillis();
+		}
+
+		return result;
+	}
+
+
 	@Override
 	public void application( Application application, EventType eventType ) {
+
+		this.templatesAndApplicationsVersion.incrementAndGet();
+		updateVersions( application, eventType == EventType.DELETED );
 		synchronized( this.dmListeners ) {
 			for( IDmListener listener : this.dmListeners )
 				listener.application( application, eventType );
@@ -142,6 +194,9 @@ public class NotificationMngrImpl implements INotificationMngr {
 
 	@Override
 	public void applicationTemplate( ApplicationTemplate tpl, EventType eventType ) {
+
+		this.templatesAndApplicationsVersion.incrementAndGet();
+		updateVersions( null, false );
 		synchronized( this.dmListeners ) {
 			for( IDmListener listener : this.dmListeners )
 				listener.applicationTemplate( tpl, eventType );
@@ -151,6 +206,8 @@ public class NotificationMngrImpl implements INotificationMngr {
 
 	@Override
 	public void instance( Instance instance, Application application, EventType eventType ) {
+
+		updateVersions( application, false );
 		synchronized( this.dmListeners ) {
 			for( IDmListener listener : this.dmListeners )
 				listener.instance( instance, application, eventType );
@@ -158,6 +215,12 @@ public class NotificationMngrImpl implements INotificationMngr {
 	}
 
 
+	@Override
+	public void modelChanged( Application application ) {
+		updateVersions( application, false );
+	}
+
+
 	@Override
 	public void raw( String message, Object... data ) {
 		synchronized( this.dmListeners ) {
@@ -167,6 +230,24 @@ public class NotificationMngrImpl implements INotificationMngr {
 	}
 
 
+	/**
+	 * Increments the model version and updates the application's one.
+	 * @param application an application (can be null)
+	 * @param deleted true if the application was deleted
+	 */
+	private void updateVersions( Application application, boolean deleted ) {
+
+		// Waiting threads must not see the new global version before the application's one
+		synchronized( this.modelVersion ) {
+			long version = this.modelVersion.increment();
+			if( application != null && deleted )
+				this.applicationVersions.remove( application.getName());
+			else if( application != null )
+				this.applicationVersions.put( application.getName(), version );
+		}
+	}
+
+
 	private void listListeners() {
 
 		List<IDmListener> dmListenersCopy = new ArrayList<> ();
@@ -41,6 +41,7 @@ import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.internal.api.IRandomMngr;
 import net.roboconf.dm.internal.api.impl.beans.InstanceContext;
 import net.roboconf.dm.internal.utils.ConfigurationUtils;
+import net.roboconf.dm.management.api.INotificationMngr;
 import net.roboconf.dm.management.api.IPreferencesMngr;
 
 /**
@@ -57,9 +58,19 @@ public class RandomMngrImpl implements IRandomMngr {
 	final Map<InstanceContext,List<Integer>> agentToRandomPorts = new HashMap<> ();
 
 	private final Logger logger = Logger.getLogger( getClass().getName());
+	private final INotificationMngr notificationMngr;
 	private IPreferencesMngr preferencesMngr;
 
 
+	/**
+	 * Constructor.
+	 * @param notificationMngr
+	 */
+	public RandomMngrImpl( INotificationMngr notificationMngr ) {
+		this.notificationMngr = notificationMngr;
+	}
+
+
 	/**
 	 * @param preferencesMngr the preferencesMngr to set
 	 */
@@ -72,6 +83,7 @@ public class RandomMngrImpl implements IRandomMngr {
 	public synchronized void generateRandomValues( Application application, Instance instance ) {
 
 		// Exported variables that are random will be set a value
+		boolean generated = false;
 		for( ExportedVariable var : instance.getComponent().exportedVariables.values()) {
 
 			// Not random?
@@ -82,13 +94,17 @@ public class RandomMngrImpl implements IRandomMngr {
 			if( var.getRandomKind() == RandomKind.PORT ) {
 				// Acknowledge: verify a random value was not already set on it.
 				// Otherwise, generate a random port and associate it.
-				if( ! acknowledgePort( application, instance, var.getName()))
+				if( ! acknowledgePort( application, instance, var.getName())) {
 					generateRandomPort( application, instance, var.getName());
+					generated = true;
+				}
 			}
 		}
 
 		// Save the updated model
 		ConfigurationUtils.saveInstances( application );
+		if( generated )
+			this.notificationMngr.modelChanged( application );
 	}
 
 
@@ -176,8 +192,10 @@ public class RandomMngrImpl implements IRandomMngr {
 			}
 
 			// Save the updated model?
-			if( ! variablesToRegenerate.isEmpty())
+			if( ! variablesToRegenerate.isEmpty()) {
 				ConfigurationUtils.saveInstances( application );
+				this.notificationMngr.modelChanged( application );
+			}
 		}
 	}
 
@@ -61,6 +61,7 @@ import net.roboconf.dm.internal.api.impl.beans.InstanceContext;
 import net.roboconf.dm.internal.api.impl.beans.TargetPropertiesImpl;
 import net.roboconf.dm.internal.utils.ConfigurationUtils;
 import net.roboconf.dm.internal.utils.TargetHelpers;
+import net.roboconf.dm.internal.utils.VersionCounter;
 import net.roboconf.dm.management.api.IConfigurationMngr;
 import net.roboconf.dm.management.api.ITargetsMngr;
 import net.roboconf.dm.management.exceptions.UnauthorizedActionException;
@@ -97,6 +98,8 @@ public class TargetsMngrImpl implements ITargetsMngr {
 	private final IConfigurationMngr configurationMngr;
 	private final Map<InstanceContext,String> instanceToCachedId;
 
+	private final VersionCounter version = new VersionCounter();
+
 	final ConcurrentHashMap<String,Boolean> targetIds = new ConcurrentHashMap<> ();
 
 
@@ -168,6 +171,7 @@ public class TargetsMngrImpl implements ITargetsMngr {
 			Utils.writeStringInto( creator, createdByFile );
 		}
 
+		this.version.increment();
 		return targetId;
 	}
 
@@ -240,6 +244,7 @@ public class TargetsMngrImpl implements ITargetsMngr {
 			throw new UnauthorizedActionException( "Target " + targetId + " does not exist." );
 
 		Utils.writeStringInto( newTargetContent, targetFile );
+		this.version.increment();
 	}
 
 
@@ -259,6 +264,7 @@ public class TargetsMngrImpl implements ITargetsMngr {
 		this.targetIds.remove( targetId );
 		File targetDirectory = findTargetDirectory( targetId );
 		Utils.deleteFilesRecursively( targetDirectory );
+		this.version.increment();
 	}
 
 
@@ -716,6 +722,21 @@ public class TargetsMngrImpl implements ITargetsMngr {
 	}
 
 
+	// Versions
+
+
+	@Override
+	public long getVersion() {
+		return this.version.get();
+	}
+
+
+	@Override
+	public long waitForVersionChange( long knownVersion, long timeoutMs ) throws InterruptedException {
+		return this.version.waitForChange( knownVersion, timeoutMs );
+	}
+
+
 	// Private methods
 
 
@@ -838,10 +859,13 @@ public class TargetsMngrImpl implements ITargetsMngr {
 
 	private void writeProperties( Properties props, File file ) throws IOException {
 
+		// Associations, hints and usage are all written here
 		if( props.isEmpty())
 			Utils.deleteFilesRecursivelyAndQuietly( file );
 		else
 			Utils.writePropertiesFile( props, file );
+
+		this.version.increment();
 	}
 
 
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.internal.commands;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.roboconf.core.commands.CommandsParser;
+import net.roboconf.core.commands.CommandsParser.CommandLine;
+import net.roboconf.core.model.beans.Application;
+import net.roboconf.core.model.beans.ApplicationTemplate;
+
+/**
+ * A cache for commands files.
+ * <p>
+ * Commands files are read and split into lines once, and then reused until they are modified.
+ * Parsed (and validated) instructions are also reused, as long as the application's model version
+ * did not change. Variables and instructions are indeed resolved against the state of the application
+ * (e.g. to find existing instances, compute indexes, etc). Files whose parsing does not only depend
+ * on this state (time or random variables, executions of other commands) are parsed at every execution.
+ * </p>
+ * <p>
+ * Entries are associated with an application and a file. They are invalidated when the file's
+ * modification date or size changes, or when the application (or its template) is not the same
+ * object anymore (e.g. an application was deleted and another one was created with the same name).
+ * Entries of deleted applications must be removed with {@link #invalidate(Application)}.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class CommandsCache {
+
+	private final Map<String,Entry> cache = new ConcurrentHashMap<> ();
+
+
+	/**
+	 * Parses a commands file, by reusing its lines and instructions when possible.
+	 * <p>
+	 * Returned parsers may be shared. Their instructions must not be modified.
+	 * </p>
+	 *
+	 * @param app an application (not null)
+	 * @param commandsFile a commands file (not null)
+	 * @param modelVersion the current version of the application's model
+	 * @return a parser (never null)
+	 */
+	public CommandsParser parse( Application app, File commandsFile, long modelVersion ) {
+
+		String key = key( app, commandsFile );
+		long lastModified = commandsFile.lastModified();
+		long length = commandsFile.length();
+
+		Entry entry = this.cache.get( key );
+		if( entry == null
+				|| entry.app != app
+				|| entry.template != app.getTemplate()
+				|| entry.lastModified != lastModified
+				|| entry.length != length ) {
+
+			List<CommandLine> lines = CommandsParser.readLines( commandsFile );
+			entry = new Entry( app, lastModified, length, lines );
+
+			// Files that do not exist cannot be executed, there is no need to cache them
+			if( commandsFile.exists())
+				this.cache.put( key, entry );
+			else
+				this.cache.remove( key );
+		}
+
+		ParsedCommands parsed = entry.parsed;
+		CommandsParser result;
+		if( parsed != null && parsed.modelVersion == modelVersion ) {
+			result = parsed.parser;
+
+		} else {
+			result = new CommandsParser( app, commandsFile, entry.lines );
+			if( entry.cacheable )
+				entry.parsed = new ParsedCommands( modelVersion, result );
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Invalidates the cache entry associated with a commands file.
+	 * <p>
+	 * Modification dates may not be precise enough to detect quick
+	 * updates. This method should be invoked when a commands file is updated or deleted.
+	 * </p>
+	 *
+	 * @param app an application (not null)
+	 * @param commandsFile a commands file (not null)
+	 */
+	public void invalidate( Application app, File commandsFile ) {
+		this.cache.remove( key( app, commandsFile ));
+	}
+
+
+	/**
+	 * Invalidates all the cache entries associated with an application.
+	 * <p>
+	 * This method should be invoked when an application is deleted.
+	 * </p>
+	 *
+	 * @param app an application (not null)
+	 */
+	public void invalidate( Application app ) {
+
+		for( Iterator<Entry> it = this.cache.values().iterator(); it.hasNext(); ) {
+			Entry entry = it.next();
+			if( entry.app == app || Objects.equals( entry.app.getName(), app.getName()))
+				it.remove();
+		}
+	}
+
+
+	/**
+	 * @return the number of cached files
+	 */
+	int size() {
+		return this.cache.size();
+	}
+
+
+	/**
+	 * Builds the cache key for a commands file.
+	 * @param app an application
+	 * @param commandsFile a commands file
+	 * @return a non-null string
+	 */
+	private static String key( Application app, File commandsFile ) {
+		return app.getName() + "|" + commandsFile.getAbsolutePath();
+	}
+
+
+	/**
+	 * A cache entry.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class Entry {
+
+		final Application app;
+		final ApplicationTemplate template;
+		final long lastModified, length;
+		final List<CommandLine> lines;
+		final boolean cacheable;
+		volatile ParsedCommands parsed;
+
+
+		/**
+		 * Constructor.
+		 * @param app
+		 * @param lastModified
+		 * @param length
+		 * @param lines
+		 */
+		Entry( Application app, long lastModified, long length, List<CommandLine> lines ) {
+			this.app = app;
+			this.template = app.getTemplate();
+			this.lastModified = lastModified;
+			this.length = length;
+			this.lines = lines;
+			this.cacheable = ! CommandsParser.containsVolatileInstructions( lines );
+		}
+	}
+
+
+	/**
+	 * Parsed instructions and the model version they were resolved against.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class ParsedCommands {
+
+		final long modelVersion;
+		final CommandsParser parser;
+
+
+		/**
+		 * Constructor.
+		 * @param modelVersion
+		 * @param parser
+		 */
+		ParsedCommands( long modelVersion, CommandsParser parser ) {
+			this.modelVersion = modelVersion;
+			this.parser = parser;
+		}
+	}
+}
@@ -57,6 +57,7 @@ public class CommandsExecutor {
 	private final Application app;
 	private final Manager manager;
 	private final CommandExecutionContext executionContext;
+	private final CommandsCache commandsCache;
 	private boolean instructionSkipped = false;
 
 
@@ -83,7 +84,26 @@ public class CommandsExecutor {
 			Application app,
 			File commandsFile,
 			CommandExecutionContext executionContext ) {
+		this( manager, app, commandsFile, executionContext, null );
+	}
+
 
+	/**
+	 * Constructor.
+	 * @param manager the manager
+	 * @param app an application (not null)
+	 * @param commandsFile a file containing commands (not null)
+	 * @param executionContext an execution context
+	 * @param commandsCache a cache for commands files (can be null)
+	 */
+	public CommandsExecutor(
+			Manager manager,
+			Application app,
+			File commandsFile,
+			CommandExecutionContext executionContext,
+			CommandsCache commandsCache ) {
+
+		this.commandsCache = commandsCache;
 		this.commandsFile = commandsFile;
 		this.app = app;
 		this.manager = manager;
@@ -103,7 +123,15 @@ public class CommandsExecutor {
 	public void execute() throws CommandException {
 
 		try {
-			CommandsParser parser = new CommandsParser( this.app, this.commandsFile );
+			CommandsParser parser;
+			if( this.commandsCache != null ) {
+				long modelVersion = this.manager.notificationMngr().getModelVersion( this.app.getName());
+				parser = this.commandsCache.parse( this.app, this.commandsFile, modelVersion );
+
+			} else {
+				parser = new CommandsParser( this.app, this.commandsFile );
+			}
+
 			if( RoboconfErrorHelpers.containsCriticalErrors( parser.getParsingErrors()))
 				throw new CommandException( "Invalid command file. " + this.commandsFile.getName() + " contains errors." );
 
@@ -0,0 +1,433 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.internal.commands;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import net.roboconf.core.model.runtime.CommandHistoryItem;
+import net.roboconf.core.utils.Utils;
+import net.roboconf.dm.management.Manager;
+
+/**
+ * A class that stores the history of commands executions in a database.
+ * <p>
+ * Entries are not written when commands are executed. They are put in a bounded
+ * queue which is periodically flushed by a background thread, in JDBC batches. This way,
+ * the execution of commands does not depend on the database. If the queue is full, new entries
+ * are dropped (and counted).
+ * </p>
+ * <p>
+ * Readers should invoke {@link #flush()} before querying the database, so that
+ * they see all the entries that were recorded before.
+ * </p>
+ * <p>
+ * Entries recorded before {@link #start()} wait in the queue. Entries recorded after
+ * {@link #stop()} are dropped. Batches are inserted in a transaction, so that a failed
+ * (and retried) batch does not leave partial rows.
+ * </p>
+ * <p>
+ * The data source is optional and can change at runtime (e.g. in Karaf).
+ * The database schema is created when the writer starts, and then once for every new data source.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class CommandsHistoryWriter {
+
+	static final int QUEUE_CAPACITY = 10000;
+	static final int BATCH_SIZE = 200;
+	static final long FLUSH_PERIOD = 1000;
+	static final long STOP_TIMEOUT = 10000;
+
+	private static final String INSERT = "INSERT INTO commands_history( application, command, start, duration, result, origin, details ) values( ?, ?, ?, ?, ?, ?, ? )";
+
+	private final Logger logger = Logger.getLogger( getClass().getName());
+	private final Manager manager;
+	private final BlockingQueue<CommandHistoryItem> queue = new ArrayBlockingQueue<>( QUEUE_CAPACITY );
+	private final AtomicBoolean flushRequested = new AtomicBoolean( false );
+	private final AtomicLong droppedEntries = new AtomicLong();
+	private final AtomicLong writtenBatches = new AtomicLong();
+
+	private final Object writeLock = new Object();
+	private DataSource dataSourceWithSchema;
+	private volatile ScheduledExecutorService executor;
+	private volatile boolean stopped = false;
+
+
+	/**
+	 * Constructor.
+	 * @param manager the manager (to get the data source)
+	 */
+	public CommandsHistoryWriter( Manager manager ) {
+		this.manager = manager;
+	}
+
+
+	/**
+	 * Starts the background writer and creates the database schema, if possible.
+	 */
+	public synchronized void start() {
+
+		this.stopped = false;
+		if( this.executor == null ) {
+			this.executor = Executors.newSingleThreadScheduledExecutor( new WriterThreadFactory());
+			this.executor.scheduleWithFixedDelay( new FlushRunnable(), FLUSH_PERIOD, FLUSH_PERIOD, TimeUnit.MILLISECONDS );
+		}
+
+		DataSource dataSource = this.manager.getDataSource();
+		if( dataSource != null ) {
+			Connection conn = null;
+			try {
+				conn = dataSource.getConnection();
+				ensureSchema( dataSource, conn );
+
+			} catch( SQLException e ) {
+				this.logger.warning( "The database schema for commands history could not be created." );
+				Utils.logException( this.logger, e );
+
+			} finally {
+				Utils.closeConnection( conn, this.logger );
+			}
+		}
+	}
+
+
+	/**
+	 * Stops the background writer and writes the pending entries.
+	 * <p>
+	 * The flush in progress, if any, is completed. Entries recorded
+	 * after this method was invoked are dropped.
+	 * </p>
+	 */
+	public synchronized void stop() {
+
+		this.stopped = true;
+		ScheduledExecutorService executor = this.executor;
+		this.executor = null;
+		if( executor != null ) {
+			executor.shutdown();
+			try {
+				if( ! executor.awaitTermination( STOP_TIMEOUT, TimeUnit.MILLISECONDS ))
+					this.logger.warning( "The writer for commands history did not stop in time." );
+
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				this.logger.warning( "Interrupted while waiting for the writer of commands history to stop." );
+			}
+		}
+
+		flush();
+	}
+
+
+	/**
+	 * Records an entry (asynchronously).
+	 * <p>
+	 * Nothing is recorded if there is no data source, or if the writer was stopped.
+	 * </p>
+	 *
+	 * @param item a non-null item
+	 */
+	public void record( CommandHistoryItem item ) {
+
+		if( this.manager.getDataSource() == null )
+			return;
+
+		if( this.stopped ) {
+			this.droppedEntries.incrementAndGet();
+			this.logger.fine( "The writer for commands history is stopped. An entry was dropped." );
+			return;
+		}
+
+		if( ! this.queue.offer( item )) {
+			if( this.droppedEntries.incrementAndGet() % QUEUE_CAPACITY == 1 )
+				this.logger.warning( "The queue for commands history is full. Entries are dropped. Dropped count: " + this.droppedEntries.get());
+
+			return;
+		}
+
+		// Do not wait for the next periodic flush if there is enough to fill a batch.
+		// Entries recorded before the writer starts wait for it.
+		ScheduledExecutorService executor = this.executor;
+		if( executor != null
+				&& this.queue.size() >= BATCH_SIZE
+				&& this.flushRequested.compareAndSet( false, true )) {
+
+			try {
+				executor.execute( new FlushRunnable());
+
+			} catch( RejectedExecutionException e ) {
+				// The writer is being stopped, it will flush the queue
+				this.flushRequested.set( false );
+			}
+		}
+	}
+
+
+	/**
+	 * Writes all the pending entries in the database.
+	 * <p>
+	 * When this method returns, all the entries recorded before its invocation
+	 * have been written (or dropped if the database was not available).
+	 * </p>
+	 */
+	public void flush() {
+
+		synchronized( this.writeLock ) {
+			this.flushRequested.set( false );
+			List<CommandHistoryItem> batch = new ArrayList<>( BATCH_SIZE );
+			while( this.queue.drainTo( batch, BATCH_SIZE ) > 0 ) {
+				write( batch );
+				batch.clear();
+			}
+		}
+	}
+
+
+	/**
+	 * Makes sure the database schema exists for a given data source.
+	 * <p>
+	 * SQL statements are only executed the first time a data source is used.
+	 * </p>
+	 *
+	 * @param dataSource the data source
+	 * @param conn a connection obtained from this data source
+	 * @throws SQLException if the schema could not be created
+	 */
+	public void ensureSchema( DataSource dataSource, Connection conn ) throws SQLException {
+
+		synchronized( this.writeLock ) {
+			if( this.dataSourceWithSchema != dataSource ) {
+				createSchema( conn );
+				this.dataSourceWithSchema = dataSource;
+			}
+		}
+	}
+
+
+	/**
+	 * @return the number of entries that were dropped because the queue was full
+	 */
+	public long getDroppedEntriesCount() {
+		return this.droppedEntries.get();
+	}
+
+
+	/**
+	 * @return the number of batches written in the database
+	 * <p>
+	 * This number can be used to detect changes in the database.
+	 * </p>
+	 */
+	public long getWrittenBatchesCount() {
+		return this.writtenBatches.get();
+	}
+
+
+	/**
+	 * Writes a batch of entries.
+	 * <p>
+	 * Must be invoked while holding the write lock.
+	 * </p>
+	 *
+	 * @param batch a non-null list of entries
+	 */
+	private void write( List<CommandHistoryItem> batch ) {
+
+		DataSource dataSource = this.manager.getDataSource();
+		if( dataSource == null )
+			return;
+
+		Connection conn = null;
+		try {
+			conn = dataSource.getConnection();
+
+			// In Karaf, the data source can be configured / modified dynamically.
+			// So, it is better to have a resilient implementation. If the insertion fails,
+			// we assume the table was dropped. We thus try to create it and retry the insertion.
+			ensureSchema( dataSource, conn );
+			try {
+				insert( conn, batch );
+
+			} catch( SQLException e ) {
+				this.dataSourceWithSchema = null;
+				ensureSchema( dataSource, conn );
+				insert( conn, batch );
+			}
+
+			this.writtenBatches.incrementAndGet();
+
+		} catch( SQLException e ) {
+			this.logger.severe( "An error occurred while storing the result of command executions in database. Lost entries: " + batch.size());
+			Utils.logException( this.logger, e );
+
+		} finally {
+			Utils.closeConnection( conn, this.logger );
+		}
+	}
+
+
+	/**
+	 * Inserts entries in the database, in a single batch and a single transaction.
+	 * <p>
+	 * Either all the entries are inserted, or none of them.
+	 * </p>
+	 *
+	 * @param conn a connection
+	 * @param batch a non-null list of entries
+	 * @throws SQLException if something went wrong
+	 */
+	private void insert( Connection conn, List<CommandHistoryItem> batch ) throws SQLException {
+
+		PreparedStatement ps = null;
+		boolean autoCommit = conn.getAutoCommit();
+		try {
+			conn.setAutoCommit( false );
+			ps = conn.prepareStatement( INSERT );
+			for( CommandHistoryItem item : batch ) {
+				ps.setString( 1, item.getApplicationName());
+				ps.setString( 2, item.getCommandName());
+				ps.setLong( 3, item.getStart());
+				ps.setLong( 4, item.getDuration());
+				ps.setInt( 5, item.getExecutionResult());
+				ps.setInt( 6, item.getOrigin());
+				ps.setString( 7, item.getOriginDetails());
+				ps.addBatch();
+			}
+
+			ps.executeBatch();
+			conn.commit();
+
+		} catch( SQLException e ) {
+			rollback( conn );
+			throw e;
+
+		} finally {
+			Utils.closeStatement( ps, this.logger );
+			conn.setAutoCommit( autoCommit );
+		}
+	}
+
+
+	/**
+	 * Rolls back the current transaction, without throwing any exception.
+	 * @param conn a connection
+	 */
+	private void rollback( Connection conn ) {
+
+		try {
+			conn.rollback();
+
+		} catch( SQLException e ) {
+			this.logger.warning( "A transaction could not be rolled back for commands history." );
+			Utils.logException( this.logger, e );
+		}
+	}
+
+
+	/**
+	 * Creates the table and the indexes (if they do not exist).
+	 * @param conn a connection
+	 * @throws SQLException if something went wrong
+	 */
+	private void createSchema( Connection conn ) throws SQLException {
+
+		StringBuilder sb = new StringBuilder( "CREATE TABLE IF NOT EXISTS commands_history (" );
+		sb.append( "id INT NOT NULL AUTO_INCREMENT," );
+		sb.append( "application VARCHAR(255)," );
+		sb.append( "command VARCHAR(255)," );
+		sb.append( "start BIGINT," );
+		sb.append( "duration BIGINT," );
+		sb.append( "result SMALLINT," );
+		sb.append( "origin SMALLINT," );
+		sb.append( "details VARCHAR(255)," );
+		sb.append( "PRIMARY KEY( id ))" );
+
+		Statement st = null;
+		try {
+			st = conn.createStatement();
+			st.execute( sb.toString());
+
+			// History is mainly browsed by start date, for all or for a given application
+			st.execute( "CREATE INDEX IF NOT EXISTS commands_history_start ON commands_history( start, id )" );
+			st.execute( "CREATE INDEX IF NOT EXISTS commands_history_application ON commands_history( application, start, id )" );
+
+		} finally {
+			Utils.closeStatement( st, this.logger );
+		}
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private class FlushRunnable implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				flush();
+
+			} catch( Exception e ) {
+				// Do not kill the periodic task
+				CommandsHistoryWriter.this.logger.severe( "An error occurred while flushing commands history. " + e.getMessage());
+				Utils.logException( CommandsHistoryWriter.this.logger, e );
+			}
+		}
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class WriterThreadFactory implements ThreadFactory {
+
+		@Override
+		public Thread newThread( Runnable r ) {
+
+			Thread result = new Thread( r, "Roboconf - Commands History Writer" );
+			result.setDaemon( true );
+			return result;
+		}
+	}
+}
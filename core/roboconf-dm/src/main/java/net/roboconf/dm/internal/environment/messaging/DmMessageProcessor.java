@@ -28,7 +28,14 @@ package net.roboconf.dm.internal.environment.messaging;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import net.roboconf.core.model.beans.Application;
@@ -41,13 +48,17 @@ import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.internal.utils.DmUtils;
 import net.roboconf.dm.management.ManagedApplication;
 import net.roboconf.dm.management.Manager;
+import net.roboconf.dm.metrics.DmMetrics;
 import net.roboconf.messaging.api.AbstractMessageProcessor;
 import net.roboconf.messaging.api.business.IDmClient;
 import net.roboconf.messaging.api.messages.Message;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.AbstractMsgNotif;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomicEvents;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifHeartbeat;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceChanged;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceRemoved;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstancesChanged;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifLogs;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifMachineDown;
 import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdSetScopedInstance;
@@ -71,6 +82,11 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 	// Set as a class attribute so that it can be replaced for unit tests.
 	String tmpDir = System.getProperty( "java.io.tmpdir" );
 
+	// Logs are written in the background, so that big files do not block message processing.
+	// The thread is released when it remains idle. Logs that cannot be queued are dropped.
+	static final int MAX_PENDING_LOGS = 16;
+	final ThreadPoolExecutor logsWriter;
+
 
 	/**
 	 * Constructor.
@@ -79,6 +95,23 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 	public DmMessageProcessor( Manager manager ) {
 		super( "Roboconf DM - Message Processor" );
 		this.manager = manager;
+
+		this.logsWriter = new ThreadPoolExecutor(
+				1, 1, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>( MAX_PENDING_LOGS ),
+				new LogsWriterThreadFactory(),
+				new DiscardLogsPolicy());
+
+		this.logsWriter.allowCoreThreadTimeOut( true );
+	}
+
+
+	@Override
+	public void stopProcessor() {
+		super.stopProcessor();
+
+		// Pending logs are still written, new ones are dropped
+		this.logsWriter.shutdown();
 	}
 
 
@@ -90,29 +123,41 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 	@Override
 	public void processMessage( Message message ) {
 
-		if( message instanceof MsgNotifMachineDown )
-			processMsgNotifMachineDown((MsgNotifMachineDown) message );
+		long start = System.nanoTime();
+		try {
+			if( message instanceof MsgNotifMachineDown )
+				processMsgNotifMachineDown((MsgNotifMachineDown) message );
+
+			else if( message instanceof MsgNotifInstanceChanged )
+				processMsgNotifInstanceChanged((MsgNotifInstanceChanged) message );
+
+			else if( message instanceof MsgNotifInstancesChanged )
+				processMsgNotifInstancesChanged((MsgNotifInstancesChanged) message );
 
-		else if( message instanceof MsgNotifInstanceChanged )
-			processMsgNotifInstanceChanged((MsgNotifInstanceChanged) message );
+			else if( message instanceof MsgNotifInstanceRemoved )
+				processMsgNotifInstanceRemoved((MsgNotifInstanceRemoved) message );
 
-		else if( message instanceof MsgNotifInstanceRemoved )
-			processMsgNotifInstanceRemoved((MsgNotifInstanceRemoved) message );
+			else if( message instanceof MsgNotifHeartbeat )
+				processMsgNotifHeartbeat((MsgNotifHeartbeat) message );
 
-		else if( message instanceof MsgNotifHeartbeat )
-			processMsgNotifHeartbeat((MsgNotifHeartbeat) message );
+			else if(message instanceof MsgNotifAutonomic)
+				processMsgMonitoringEvent((MsgNotifAutonomic) message );
 
-		else if(message instanceof MsgNotifAutonomic)
-			processMsgMonitoringEvent((MsgNotifAutonomic) message );
+			else if( message instanceof MsgNotifAutonomicEvents )
+				processMsgMonitoringEvents((MsgNotifAutonomicEvents) message );
 
-		else if( message instanceof MsgEcho )
-			this.manager.debugMngr().notifyMsgEchoReceived((MsgEcho) message );
+			else if( message instanceof MsgEcho )
+				this.manager.debugMngr().notifyMsgEchoReceived((MsgEcho) message );
 
-		else if( message instanceof MsgNotifLogs )
-			processMsgNotifLogs((MsgNotifLogs) message );
+			else if( message instanceof MsgNotifLogs )
+				processMsgNotifLogs((MsgNotifLogs) message );
 
-		else
-			this.logger.warning( "The DM got an undetermined message to process: " + message.getClass().getName());
+			else
+				this.logger.warning( "The DM got an undetermined message to process: " + message.getClass().getName());
+
+		} finally {
+			DmMetrics.recordMessageProcessing( message.getClass().getSimpleName(), start );
+		}
 	}
 
 
@@ -126,6 +171,12 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 
 		// Dump these messages in the temporary directory...
 		File dumpDir = new File( this.tmpDir, path.toString());
+		this.logsWriter.execute( new LogsWriter( message, dumpDir ));
+	}
+
+
+	private void writeLogs( MsgNotifLogs message, File dumpDir ) {
+
 		try {
 			Utils.createDirectory( dumpDir );
 			for( Map.Entry<String,byte[]> entry : message.getLogFiles().entrySet()) {
@@ -217,9 +268,11 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 			// Log and notify
 			this.logger.finest( "A heart beat was acknowledged for " + scopedInstancePath + " in the application " + ma + "." );
 			InstanceStatus oldStatus = scopedInstance.getStatus();
-			ma.acknowledgeHeartBeat( scopedInstance );
+			boolean dataChanged = ma.acknowledgeHeartBeat( scopedInstance );
 			if( ipWasSet || oldStatus != scopedInstance.getStatus())
 				this.manager.instancesMngr().instanceWasUpdated( scopedInstance, ma );
+			else if( dataChanged )
+				this.manager.notificationMngr().modelChanged( ma.getApplication());
 
 			try {
 				// Need to send the model to the agent?
@@ -249,10 +302,43 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 
 	private void processMsgNotifInstanceChanged( MsgNotifInstanceChanged message ) {
 
-		String instancePath = message.getInstancePath();
 		ManagedApplication ma = this.manager.applicationMngr().findManagedApplicationByName( message.getApplicationName());
+		Instance instance = applyInstanceChange( message, ma );
+
+		// Notify the changes!
+		if( instance != null )
+			this.manager.instancesMngr().instanceWasUpdated( instance, ma );
+	}
+
+
+	private void processMsgNotifInstancesChanged( MsgNotifInstancesChanged message ) {
+
+		// Apply all the changes, and then save and notify them at once
+		ManagedApplication ma = this.manager.applicationMngr().findManagedApplicationByName( message.getApplicationName());
+		List<Instance> updatedInstances = new ArrayList<> ();
+		for( MsgNotifInstanceChanged change : message.getChanges()) {
+			Instance instance = applyInstanceChange( change, ma );
+			if( instance != null )
+				updatedInstances.add( instance );
+		}
+
+		if( ! updatedInstances.isEmpty())
+			this.manager.instancesMngr().instancesWereUpdated( updatedInstances, ma );
+	}
+
+
+	/**
+	 * Applies an instance change in the DM's model.
+	 * @param message the change
+	 * @param ma the application (can be null)
+	 * @return the updated instance, or null if the change was dismissed
+	 */
+	private Instance applyInstanceChange( MsgNotifInstanceChanged message, ManagedApplication ma ) {
+
+		String instancePath = message.getInstancePath();
 		Application app = ma == null ? null : ma.getApplication();
 		Instance instance = InstanceHelpers.findInstanceByPath( app, instancePath );
+		Instance result = null;
 
 		// If 'app' is null, then 'instance' is also null.
 		if( instance == null ) {
@@ -288,10 +374,10 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 			sb.append( instancePath );
 			sb.append( ". Imports were updated too." );
 			this.logger.fine( sb.toString());
-
-			// Notify the changes!
-			this.manager.instancesMngr().instanceWasUpdated( instance, ma );
+			result = instance;
 		}
+
+		return result;
 	}
 
 
@@ -324,10 +410,32 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 
 	private void processMsgMonitoringEvent( MsgNotifAutonomic message ) {
 
+		ManagedApplication ma = findManagedApplicationForAutonomic( message );
+		if( ma != null )
+			this.manager.autonomicMngr().handleEvent( ma, message );
+	}
+
+
+	private void processMsgMonitoringEvents( MsgNotifAutonomicEvents message ) {
+
+		ManagedApplication ma = findManagedApplicationForAutonomic( message );
+		if( ma != null && ! message.getEvents().isEmpty())
+			this.manager.autonomicMngr().handleEvents( ma, message.getEvents());
+	}
+
+
+	/**
+	 * Finds the application an autonomic notification is associated with.
+	 * @param message an autonomic notification
+	 * @return the managed application, or null if the agent could not be found
+	 */
+	private ManagedApplication findManagedApplicationForAutonomic( AbstractMsgNotif message ) {
+
 		Application app = this.manager.applicationMngr().findApplicationByName( message.getApplicationName());
 		Instance scopedInstance = InstanceHelpers.findInstanceByPath( app, message.getScopedInstancePath());
 
 		// If 'app' is null, then 'instance' is also null.
+		ManagedApplication result = null;
 		if( scopedInstance == null ) {
 			StringBuilder sb = new StringBuilder();
 			sb.append( "A notification associated with autonomic management was received for an unknown instance: " );
@@ -338,8 +446,78 @@ public class DmMessageProcessor extends AbstractMessageProcessor<IDmClient> {
 			this.logger.warning( sb.toString());
 
 		} else {
-			ManagedApplication ma = this.manager.applicationMngr().findManagedApplicationByName( app.getName());
-			this.manager.autonomicMngr().handleEvent( ma, message );
+			result = this.manager.applicationMngr().findManagedApplicationByName( app.getName());
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private final class LogsWriter implements Runnable {
+
+		final MsgNotifLogs message;
+		final File dumpDir;
+
+
+		LogsWriter( MsgNotifLogs message, File dumpDir ) {
+			this.message = message;
+			this.dumpDir = dumpDir;
+		}
+
+
+		@Override
+		public void run() {
+			writeLogs( this.message, this.dumpDir );
+		}
+	}
+
+
+	/**
+	 * Drops the logs that cannot be written in the background.
+	 * <p>
+	 * This happens when too many logs are waiting to be written, or when the processor was stopped.
+	 * Writing them in the processing thread would block the processing of other messages.
+	 * </p>
+	 *
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class DiscardLogsPolicy implements RejectedExecutionHandler {
+
+		private final Logger logger = Logger.getLogger( DmMessageProcessor.class.getName());
+
+
+		@Override
+		public void rejectedExecution( Runnable r, ThreadPoolExecutor executor ) {
+
+			MsgNotifLogs message = ((LogsWriter) r).message;
+			StringBuilder sb = new StringBuilder();
+			sb.append( "Logs from agent " );
+			sb.append( message.getScopedInstancePath());
+			sb.append( " @ " );
+			sb.append( message.getApplicationName());
+			sb.append( executor.isShutdown()
+					? " were dropped, the DM's message processor was stopped."
+					: " were dropped, too many logs are waiting to be written." );
+
+			this.logger.warning( sb.toString());
+		}
+	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class LogsWriterThreadFactory implements ThreadFactory {
+
+		@Override
+		public Thread newThread( Runnable r ) {
+
+			Thread result = new Thread( r, "Roboconf DM - Logs Writer" );
+			result.setDaemon( true );
+			return result;
 		}
 	}
 }
@@ -42,6 +42,7 @@ import net.roboconf.core.model.beans.Graphs;
 import net.roboconf.core.utils.IconUtils;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.management.ManagedApplication;
+import net.roboconf.dm.metrics.DmMetrics;
 
 /**
  * @author Vincent Zurczak - Linagora
@@ -114,6 +115,7 @@ public final class ConfigurationUtils {
 	 */
 	public static void saveInstances( Application app ) {
 
+		long start = System.nanoTime();
 		File targetFile = new File( app.getDirectory(), Constants.PROJECT_DIR_INSTANCES + "/" + INSTANCES_FILE );
 		try {
 			Utils.createDirectory( targetFile.getParentFile());
@@ -123,6 +125,9 @@ public final class ConfigurationUtils {
 			Logger logger = Logger.getLogger( ConfigurationUtils.class.getName());
 			logger.severe( "Failed to save instances. " + e.getMessage());
 			Utils.logException( logger, e );
+
+		} finally {
+			DmMetrics.recordPersistence( start );
 		}
 	}
 
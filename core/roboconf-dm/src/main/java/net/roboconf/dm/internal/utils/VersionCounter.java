@@ -0,0 +1,80 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.internal.utils;
+
+/**
+ * A monotonic version counter that can be waited on.
+ * <p>
+ * Readers compare the version they know with the current one. Long-polling
+ * clients can block until the version changes (or until a time-out expires).
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class VersionCounter {
+
+	private long version = 0;
+
+
+	/**
+	 * @return the current version
+	 */
+	public synchronized long get() {
+		return this.version;
+	}
+
+
+	/**
+	 * Increments the version and wakes up the threads waiting for a change.
+	 * @return the new version
+	 */
+	public synchronized long increment() {
+		this.version ++;
+		notifyAll();
+		return this.version;
+	}
+
+
+	/**
+	 * Waits for the version to be different from a known one.
+	 * @param knownVersion the version the caller already knows
+	 * @param timeoutMs the maximum time to wait, in milliseconds
+	 * @return the current version (which may be the known one if the time-out expired)
+	 * @throws InterruptedException if the current thread was interrupted
+	 */
+	public synchronized long waitForChange( long knownVersion, long timeoutMs )
+	throws InterruptedException {
+
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		long remaining = timeoutMs;
+		while( this.version == knownVersion && remaining > 0 ) {
+			wait( remaining );
+			remaining = deadline - System.currentTimeMillis();
+		}
+
+		return this.version;
+	}
+}
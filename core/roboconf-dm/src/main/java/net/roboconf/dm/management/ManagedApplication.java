@@ -163,8 +163,9 @@ public class ManagedApplication {
 	/**
 	 * Acknowledges a heart beat.
 	 * @param scopedInstance a root instance
+	 * @return true if the instance's status or data were modified, false otherwise
 	 */
-	public void acknowledgeHeartBeat( Instance scopedInstance ) {
+	public boolean acknowledgeHeartBeat( Instance scopedInstance ) {
 
 		String count = scopedInstance.data.get( MISSED_HEARTBEATS );
 		if( count != null
@@ -175,22 +176,33 @@ public class ManagedApplication {
 		// If we were deploying, store it.
 		// If we were in problem, store it.
 		// If we were already deployed and started, do NOT override it.
+		boolean changed = count != null;
 		if( scopedInstance.getStatus() != InstanceStatus.DEPLOYED_STARTED
-				|| ! scopedInstance.data.containsKey( Instance.RUNNING_FROM ))
+				|| ! scopedInstance.data.containsKey( Instance.RUNNING_FROM )) {
 			scopedInstance.data.put( Instance.RUNNING_FROM, String.valueOf( new Date().getTime()));
+			changed = true;
+		}
 
 		scopedInstance.setStatus( InstanceStatus.DEPLOYED_STARTED );
 		scopedInstance.data.remove( MISSED_HEARTBEATS );
+
+		return changed;
 	}
 
 
 	/**
 	 * Check the scoped instances states with respect to missed heart beats.
+	 * <p>
+	 * Missed heart beats are stored in the instances data. So, any change
+	 * results in a new model version.
+	 * </p>
+	 *
 	 * @param notificationMngr
 	 */
 	public void checkStates( INotificationMngr notificationMngr ) {
 
 		// Check the status of scoped instances
+		boolean changed = false;
 		Collection<Instance> scopedInstances = InstanceHelpers.findAllScopedInstances( this.application );
 		for( Instance scopedInstance : scopedInstances ) {
 
@@ -200,7 +212,7 @@ public class ManagedApplication {
 			if( scopedInstance.getStatus() == InstanceStatus.NOT_DEPLOYED
 					|| scopedInstance.getStatus() == InstanceStatus.DEPLOYING
 					|| scopedInstance.getStatus() == InstanceStatus.UNDEPLOYING ) {
-				scopedInstance.data.remove( MISSED_HEARTBEATS );
+				changed |= scopedInstance.data.remove( MISSED_HEARTBEATS ) != null;
 				continue;
 			}
 
@@ -214,6 +226,10 @@ public class ManagedApplication {
 			}
 
 			scopedInstance.data.put( MISSED_HEARTBEATS, String.valueOf( count ));
+			changed = true;
 		}
+
+		if( changed )
+			notificationMngr.modelChanged( this.application );
 	}
 }
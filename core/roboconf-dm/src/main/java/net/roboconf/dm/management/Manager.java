@@ -73,9 +73,12 @@ import net.roboconf.dm.management.api.IPreferencesMngr;
 import net.roboconf.dm.management.api.ITargetHandlerResolver;
 import net.roboconf.dm.management.api.ITargetsMngr;
 import net.roboconf.dm.management.events.IDmListener;
+import net.roboconf.dm.metrics.DmMetrics;
+import net.roboconf.dm.metrics.Gauge;
 import net.roboconf.messaging.api.business.ListenerCommand;
 import net.roboconf.messaging.api.factory.IMessagingClientFactory;
 import net.roboconf.messaging.api.factory.MessagingClientFactoryRegistry;
+import net.roboconf.messaging.api.jmx.RoboconfMessageQueue;
 import net.roboconf.target.api.TargetHandler;
 
 /**
@@ -123,12 +126,12 @@ public class Manager implements IReconfigurable, ManagerMBean {
 	private final MessagingMngrImpl messagingMngr;
 	private final ApplicationMngrImpl applicationMngr;
 	private final InstancesMngrImpl instancesMngr;
+	private final CommandsMngrImpl commandsMngr;
 
 	private final IConfigurationMngr configurationMngr;
 	private final IApplicationTemplateMngr applicationTemplateMngr;
 	private final ITargetsMngr targetsMngr;
 	private final IDebugMngr debugMngr;
-	private final ICommandsMngr commandsMngr;
 	private final IAutonomicMngr autonomicMngr;
 
 	private final TargetHandlerResolverImpl defaultTargetHandlerResolver;
@@ -148,7 +151,7 @@ public class Manager implements IReconfigurable, ManagerMBean {
 		// We do not want to mix N frameworks.
 		this.notificationMngr = new NotificationMngrImpl();
 		this.configurationMngr = new ConfigurationMngrImpl();
-		this.randomMngr = new RandomMngrImpl();
+		this.randomMngr = new RandomMngrImpl( this.notificationMngr );
 
 		this.messagingMngr = new MessagingMngrImpl();
 		this.defaultTargetHandlerResolver = new TargetHandlerResolverImpl();
@@ -164,6 +167,7 @@ public class Manager implements IReconfigurable, ManagerMBean {
 
 		this.applicationTemplateMngr = new ApplicationTemplateMngrImpl( this.notificationMngr, this.targetsMngr, this.applicationMngr, this.configurationMngr );
 		this.applicationMngr.setApplicationTemplateMngr( this.applicationTemplateMngr );
+		this.applicationMngr.setCommandsMngr( this.commandsMngr );
 
 		this.targetConfigurator = new TargetConfiguratorImpl();
 		this.targetConfigurator.setTargetHandlerResolver( this.defaultTargetHandlerResolver );
@@ -199,9 +203,25 @@ public class Manager implements IReconfigurable, ManagerMBean {
 		this.messagingClient.associateMessageProcessor( messageProcessor );
 		this.messagingMngr.setMessagingClient( this.messagingClient );
 
+		// Expose the number of messages waiting to be processed.
+		// The size of a linked blocking queue is read without any lock.
+		final RoboconfMessageQueue messageQueue = messageProcessor.getMessageQueue();
+		DmMetrics.REGISTRY.registerGauge(
+				DmMetrics.MESSAGE_QUEUE_DEPTH,
+				"Number of messages received by the DM and waiting to be processed.",
+				new Gauge() {
+					@Override
+					public long getValue() {
+						return messageQueue.size();
+					}
+				});
+
 		// Start the target configurator
 		this.targetConfigurator.start();
 
+		// Start the writer for commands history
+		this.commandsMngr.start();
+
 		// Run the timer
 		this.timer = new Timer( "Roboconf's Management Timer", false );
 		this.timer.scheduleAtFixedRate( new CheckerForStoredMessagesTask( this.applicationMngr, this.messagingMngr ), 0, TIMER_PERIOD );
@@ -252,6 +272,9 @@ public class Manager implements IReconfigurable, ManagerMBean {
 		// Stop the target configurator
 		this.targetConfigurator.stop();
 
+		// Write the pending history entries
+		this.commandsMngr.stop();
+
 		// Stops listening to the debug queue.
 		if( this.messagingClient != null ) {
 			try {
@@ -261,6 +284,7 @@ public class Manager implements IReconfigurable, ManagerMBean {
 				this.logger.log( Level.WARNING, "Cannot stop to listen to the debug queue", e );
 			}
 
+			DmMetrics.REGISTRY.unregisterGauge( DmMetrics.MESSAGE_QUEUE_DEPTH );
 			this.messagingClient.getMessageProcessor().stopProcessor();
 			this.messagingClient.getMessageProcessor().interrupt();
 			try {
@@ -25,6 +25,8 @@
 
 package net.roboconf.dm.management.api;
 
+import java.util.Collection;
+
 import net.roboconf.core.model.beans.Application;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.dm.management.ManagedApplication;
@@ -83,4 +85,16 @@ public interface IAutonomicMngr {
 	 * @param event the autonomic event message
 	 */
 	void handleEvent( ManagedApplication ma, MsgNotifAutonomic event );
+
+
+	/**
+	 * Reacts upon several autonomic events at once.
+	 * <p>
+	 * All the events are recorded before the rules are evaluated.
+	 * </p>
+	 *
+	 * @param ma the managed application
+	 * @param events the autonomic events (not null)
+	 */
+	void handleEvents( ManagedApplication ma, Collection<MsgNotifAutonomic> events );
 }
@@ -161,6 +161,13 @@ public interface ICommandsMngr {
 	int getHistoryNumberOfPages( int itemsPerPage, String applicationName );
 
 
+	/**
+	 * Removes any reference to an application after it was deleted.
+	 * @param app an application
+	 */
+	void applicationWasDeleted( Application app );
+
+
 	/**
 	 * A context to set constraints on commands.
 	 * <p>
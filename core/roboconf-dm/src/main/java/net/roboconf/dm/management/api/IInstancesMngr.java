@@ -26,9 +26,13 @@
 package net.roboconf.dm.management.api;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.dm.management.ManagedApplication;
 import net.roboconf.dm.management.exceptions.ImpossibleInsertionException;
 import net.roboconf.dm.management.exceptions.UnauthorizedActionException;
@@ -57,6 +61,17 @@ public interface IInstancesMngr {
 	 */
 	void instanceWasUpdated( Instance instance, ManagedApplication ma );
 
+	/**
+	 * Invoked when several instances were modified at once.
+	 * <p>
+	 * Notifications are sent for every instance, but the application's instances are saved only once.
+	 * </p>
+	 *
+	 * @param instances the updated instances (not null)
+	 * @param ma the associated application
+	 */
+	void instancesWereUpdated( Collection<Instance> instances, ManagedApplication ma );
+
 	/**
 	 * Removes an instance.
 	 * <p>
@@ -129,6 +144,26 @@ public interface IInstancesMngr {
 	void changeInstanceState( ManagedApplication ma, Instance instance, InstanceStatus newStatus )
 	throws IOException, TargetException;
 
+	/**
+	 * Applies several operations on instances at once.
+	 * <p>
+	 * Operations are applied in the given order. A failing operation does not prevent
+	 * the next ones from being applied. Once all the operations were applied, the application's
+	 * instances are saved once, and then notifications are sent for added and removed instances.
+	 * </p>
+	 * <p>
+	 * The components of the instances to add are resolved by name in the application's graph.
+	 * Instances are removed only if they are not deployed.
+	 * </p>
+	 *
+	 * @param ma the managed application
+	 * @param operations the operations to apply (not null)
+	 * @return a non-null list of results, with one result per operation (in the same order)
+	 * @throws IOException if the messaging is not configured correctly
+	 */
+	List<InstanceOperationResult> applyOperations( ManagedApplication ma, List<InstanceOperation> operations )
+	throws IOException;
+
 	/**
 	 * Deploys and starts all the instances of an application.
 	 * @param ma an application
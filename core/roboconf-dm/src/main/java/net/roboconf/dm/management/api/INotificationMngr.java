@@ -25,6 +25,7 @@
 
 package net.roboconf.dm.management.api;
 
+import net.roboconf.core.model.beans.Application;
 import net.roboconf.dm.management.events.IDmListener;
 
 /**
@@ -32,5 +33,50 @@ import net.roboconf.dm.management.events.IDmListener;
  */
 public interface INotificationMngr extends IDmListener {
 
-	// nothing
+	/**
+	 * Gets the version of the model.
+	 * <p>
+	 * Versions are monotonic. They change every time an application, an application
+	 * template or an instance is modified. An application's version only changes when this
+	 * application (or one of its instances) is modified.
+	 * </p>
+	 *
+	 * @param applicationName an application name, or null for the whole model
+	 * @return the current version (0 if the application is unknown)
+	 */
+	long getModelVersion( String applicationName );
+
+	/**
+	 * Gets a version that only changes when applications or templates are created, modified or deleted.
+	 * <p>
+	 * Unlike {@link #getModelVersion(String)}, this version is not impacted by instances.
+	 * It is convenient to invalidate caches that depend on applications and templates (e.g. icons).
+	 * </p>
+	 *
+	 * @return the current version
+	 */
+	long getTemplatesAndApplicationsVersion();
+
+	/**
+	 * Waits for the version of the model to change.
+	 * @param applicationName an application name, or null for the whole model
+	 * @param knownVersion the version the caller already knows
+	 * @param timeoutMs the maximum time to wait, in milliseconds
+	 * @return the current version (which may be the known one if the time-out expired)
+	 * @throws InterruptedException if the current thread was interrupted
+	 */
+	long waitForModelVersionChange( String applicationName, long knownVersion, long timeoutMs )
+	throws InterruptedException;
+
+
+	/**
+	 * Indicates the model of an application changed, without notifying listeners.
+	 * <p>
+	 * This is used for runtime data (e.g. missed heart beats) that are visible
+	 * through the REST API but that do not deserve a notification.
+	 * </p>
+	 *
+	 * @param application the application whose model changed (not null)
+	 */
+	void modelChanged( Application application );
 }
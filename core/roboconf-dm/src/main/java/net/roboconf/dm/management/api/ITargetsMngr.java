@@ -374,4 +374,29 @@ public interface ITargetsMngr {
 	 * @return an existing file if such a script was found, null otherwise
 	 */
 	File findScriptForDm( AbstractApplication app, Instance scopedInstance );
+
+
+	// Versions
+
+
+	/**
+	 * Gets the version of the targets store.
+	 * <p>
+	 * This version is monotonic. It changes every time a target, an association,
+	 * a hint or a target usage is modified.
+	 * </p>
+	 *
+	 * @return the current version
+	 */
+	long getVersion();
+
+
+	/**
+	 * Waits for the version of the targets store to change.
+	 * @param knownVersion the version the caller already knows
+	 * @param timeoutMs the maximum time to wait, in milliseconds
+	 * @return the current version (which may be the known one if the time-out expired)
+	 * @throws InterruptedException if the current thread was interrupted
+	 */
+	long waitForVersionChange( long knownVersion, long timeoutMs ) throws InterruptedException;
 }
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.metrics;
+
+/**
+ * The metrics of the DM.
+ * <p>
+ * There is only one DM per JVM. So, like the counters of the web socket,
+ * the registry is static. This makes it reachable from the utility classes
+ * and from the REST services without additional wiring.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public final class DmMetrics {
+
+	public static final String MESSAGE_PROCESSING = "roboconf_dm_message_processing_seconds";
+	public static final String REST_REQUESTS = "roboconf_dm_rest_request_seconds";
+	public static final String PERSISTENCE = "roboconf_dm_persistence_seconds";
+	public static final String TARGET_CREATION = "roboconf_dm_target_creation_seconds";
+	public static final String MESSAGE_QUEUE_DEPTH = "roboconf_dm_message_queue_depth";
+
+	/**
+	 * The registry all the DM metrics go to.
+	 */
+	public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+
+	/**
+	 * Private empty constructor.
+	 */
+	private DmMetrics() {
+		// nothing
+	}
+
+
+	/**
+	 * Records the time spent to process a message.
+	 * @param messageType the message type (e.g. the simple name of its class)
+	 * @param startInNanos the instant the processing started, obtained with {@link System#nanoTime()}
+	 */
+	public static void recordMessageProcessing( String messageType, long startInNanos ) {
+		REGISTRY.histogram(
+				MESSAGE_PROCESSING,
+				"Time spent by the DM to process messages from agents, per message type.",
+				"type", messageType ).recordSince( startInNanos );
+	}
+
+
+	/**
+	 * Records the time spent to serve a REST request.
+	 * @param route the route, i.e. the REST verb and the path template (not the requested URI)
+	 * @param startInNanos the instant the request was received, obtained with {@link System#nanoTime()}
+	 */
+	public static void recordRestRequest( String route, long startInNanos ) {
+		REGISTRY.histogram(
+				REST_REQUESTS,
+				"Time spent to serve REST requests, per route.",
+				"route", route ).recordSince( startInNanos );
+	}
+
+
+	/**
+	 * Records the time spent to save the instances of an application.
+	 * @param startInNanos the instant the persistence started, obtained with {@link System#nanoTime()}
+	 */
+	public static void recordPersistence( long startInNanos ) {
+		REGISTRY.histogram(
+				PERSISTENCE,
+				"Time spent to save the instances of an application on the disk." ).recordSince( startInNanos );
+	}
+
+
+	/**
+	 * Records the time spent to create a machine.
+	 * @param targetHandlerId the ID of the target handler that created the machine
+	 * @param startInNanos the instant the creation started, obtained with {@link System#nanoTime()}
+	 */
+	public static void recordTargetCreation( String targetHandlerId, long startInNanos ) {
+		REGISTRY.histogram(
+				TARGET_CREATION,
+				"Time spent by target handlers to create machines, per target handler.",
+				"target", targetHandlerId ).recordSince( startInNanos );
+	}
+}
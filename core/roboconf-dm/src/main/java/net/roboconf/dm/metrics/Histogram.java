@@ -0,0 +1,162 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, with fixed buckets.
+ * <p>
+ * Recording a value is lock-free: it only increments atomic counters.
+ * Reading the histogram never blocks the threads that record values.
+ * The result may be slightly inconsistent with a value being recorded
+ * at the same time, which is acceptable for monitoring.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class Histogram {
+
+	/**
+	 * The default upper bounds of the buckets, in seconds.
+	 * <p>
+	 * They cover fast operations (message processing, REST requests)
+	 * as well as slow ones (machine creation).
+	 * </p>
+	 */
+	public static final double[] DEFAULT_BOUNDS = {
+		0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5,
+		1, 2.5, 5, 10, 30, 60, 120, 300
+	};
+
+	private final long[] boundsInNanos;
+	private final double[] bounds;
+
+	// One more counter for values that exceed all the bounds
+	private final AtomicLongArray counts;
+	private final AtomicLong sumInNanos = new AtomicLong();
+
+
+	/**
+	 * Constructor.
+	 */
+	public Histogram() {
+		this( DEFAULT_BOUNDS );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param bounds the upper bounds of the buckets, in seconds and in ascending order
+	 */
+	public Histogram( double[] bounds ) {
+
+		this.bounds = bounds.clone();
+		this.boundsInNanos = new long[ bounds.length ];
+		for( int i=0; i<bounds.length; i++ )
+			this.boundsInNanos[ i ] = (long) (bounds[ i ] * 1000000000d);
+
+		this.counts = new AtomicLongArray( bounds.length + 1 );
+	}
+
+
+	/**
+	 * Records a duration.
+	 * @param durationInNanos a duration in nanoseconds (negative values are considered as zero)
+	 */
+	public void record( long durationInNanos ) {
+
+		long value = Math.max( 0, durationInNanos );
+		int index = 0;
+		while( index < this.boundsInNanos.length && value > this.boundsInNanos[ index ])
+			index ++;
+
+		this.counts.incrementAndGet( index );
+		this.sumInNanos.addAndGet( value );
+	}
+
+
+	/**
+	 * Records the time elapsed since a given instant.
+	 * @param startInNanos an instant obtained with {@link System#nanoTime()}
+	 */
+	public void recordSince( long startInNanos ) {
+		record( System.nanoTime() - startInNanos );
+	}
+
+
+	/**
+	 * @return a copy of the upper bounds of the buckets, in seconds
+	 */
+	public double[] getBounds() {
+		return this.bounds.clone();
+	}
+
+
+	/**
+	 * Takes a snapshot of the cumulative counts.
+	 * <p>
+	 * The value at index <code>i</code> is the number of recorded durations
+	 * that were lower or equal to the i-th bound. The last value is the
+	 * total number of recorded durations.
+	 * </p>
+	 *
+	 * @return a non-null array, whose size is the number of bounds plus one
+	 */
+	public long[] getCumulativeCounts() {
+
+		long[] result = new long[ this.counts.length()];
+		long total = 0;
+		for( int i=0; i<result.length; i++ ) {
+			total += this.counts.get( i );
+			result[ i ] = total;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * @return the total number of recorded durations
+	 */
+	public long getCount() {
+
+		long result = 0;
+		for( int i=0; i<this.counts.length(); i++ )
+			result += this.counts.get( i );
+
+		return result;
+	}
+
+
+	/**
+	 * @return the sum of the recorded durations, in seconds
+	 */
+	public double getSum() {
+		return this.sumInNanos.get() / 1000000000d;
+	}
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A registry of metrics that can be exported in Prometheus' text format.
+ * <p>
+ * Histograms are created on demand, the first time they are requested.
+ * They are then kept in concurrent maps. So, recording a value never locks
+ * anything, and exporting the metrics never blocks the threads that record values.
+ * Entries are sorted, so that the output is stable from one export to another.
+ * </p>
+ * <p>
+ * Label values should come from a bounded set (message types, REST routes,
+ * target handlers...). Never use instance paths or URIs with parameters.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class MetricsRegistry {
+
+	/**
+	 * The content type of the text format.
+	 */
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final ConcurrentMap<String,HistogramFamily> histograms = new ConcurrentSkipListMap<> ();
+	private final ConcurrentMap<String,GaugeEntry> gauges = new ConcurrentSkipListMap<> ();
+
+
+	/**
+	 * Finds or creates a histogram without label.
+	 * @param name the metric name (not null)
+	 * @param help a description of the metric
+	 * @return a non-null histogram
+	 */
+	public Histogram histogram( String name, String help ) {
+		return histogram( name, help, null, null );
+	}
+
+
+	/**
+	 * Finds or creates a histogram with a label.
+	 * <p>
+	 * All the histograms that share a name must share the same label name.
+	 * The label name used the first time a given metric name is requested is kept.
+	 * </p>
+	 *
+	 * @param name the metric name (not null)
+	 * @param help a description of the metric
+	 * @param labelName the label name (null for no label)
+	 * @param labelValue the label value (null for no label)
+	 * @return a non-null histogram
+	 */
+	public Histogram histogram( String name, String help, String labelName, String labelValue ) {
+
+		HistogramFamily family = this.histograms.get( name );
+		if( family == null ) {
+			family = new HistogramFamily( help, labelName );
+			HistogramFamily existing = this.histograms.putIfAbsent( name, family );
+			if( existing != null )
+				family = existing;
+		}
+
+		String key = labelValue == null ? "" : labelValue;
+		Histogram result = family.children.get( key );
+		if( result == null ) {
+			result = new Histogram();
+			Histogram existing = family.children.putIfAbsent( key, result );
+			if( existing != null )
+				result = existing;
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Registers a gauge.
+	 * <p>
+	 * A gauge that was registered with the same name is replaced.
+	 * </p>
+	 *
+	 * @param name the metric name (not null)
+	 * @param help a description of the metric
+	 * @param gauge the gauge (not null)
+	 */
+	public void registerGauge( String name, String help, Gauge gauge ) {
+		this.gauges.put( name, new GaugeEntry( help, gauge ));
+	}
+
+
+	/**
+	 * Unregisters a gauge.
+	 * @param name the metric name
+	 */
+	public void unregisterGauge( String name ) {
+		this.gauges.remove( name );
+	}
+
+
+	/**
+	 * Exports all the metrics in Prometheus' text format (version 0.0.4).
+	 * @return a non-null string
+	 */
+	public String toPrometheusText() {
+
+		StringBuilder sb = new StringBuilder();
+		for( Map.Entry<String,HistogramFamily> entry : this.histograms.entrySet()) {
+
+			String name = entry.getKey();
+			HistogramFamily family = entry.getValue();
+			writeHeader( sb, name, family.help, "histogram" );
+
+			for( Map.Entry<String,Histogram> child : family.children.entrySet()) {
+
+				// Only keep the label if a value was specified
+				String label = "";
+				if( family.labelName != null && ! child.getKey().isEmpty())
+					label = family.labelName + "=\"" + escapeLabelValue( child.getKey()) + "\"";
+
+				// Take a single snapshot, so that buckets and count are consistent
+				Histogram histogram = child.getValue();
+				double[] bounds = histogram.getBounds();
+				long[] counts = histogram.getCumulativeCounts();
+				for( int i=0; i<counts.length; i++ ) {
+					String le = i < bounds.length ? String.valueOf( bounds[ i ]) : "+Inf";
+					String labels = label.isEmpty() ? "" : label + ",";
+					sb.append( name ).append( "_bucket{" ).append( labels );
+					sb.append( "le=\"" ).append( le ).append( "\"} " ).append( counts[ i ]).append( '\n' );
+				}
+
+				String labels = label.isEmpty() ? "" : "{" + label + "}";
+				sb.append( name ).append( "_sum" ).append( labels ).append( ' ' ).append( histogram.getSum()).append( '\n' );
+				sb.append( name ).append( "_count" ).append( labels ).append( ' ' ).append( counts[ counts.length - 1 ]).append( '\n' );
+			}
+		}
+
+		for( Map.Entry<String,GaugeEntry> entry : this.gauges.entrySet()) {
+			writeHeader( sb, entry.getKey(), entry.getValue().help, "gauge" );
+			sb.append( entry.getKey()).append( ' ' ).append( entry.getValue().gauge.getValue()).append( '\n' );
+		}
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * Writes the HELP and TYPE lines of a metric.
+	 * @param sb a string builder
+	 * @param name the metric name
+	 * @param help the metric description (can be null)
+	 * @param type the metric type
+	 */
+	private static void writeHeader( StringBuilder sb, String name, String help, String type ) {
+
+		if( help != null ) {
+			String escaped = help.replace( "\\", "\\\\" ).replace( "\n", "\\n" );
+			sb.append( "# HELP " ).append( name ).append( ' ' ).append( escaped ).append( '\n' );
+		}
+
+		sb.append( "# TYPE " ).append( name ).append( ' ' ).append( type ).append( '\n' );
+	}
+
+
+	/**
+	 * Escapes a label value, as specified by the text format.
+	 * @param value a non-null value
+	 * @return a non-null string
+	 */
+	static String escapeLabelValue( String value ) {
+		return value.replace( "\\", "\\\\" ).replace( "\"", "\\\"" ).replace( "\n", "\\n" );
+	}
+
+
+	/**
+	 * Histograms that share a same name.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class HistogramFamily {
+
+		final String help;
+		final String labelName;
+		final ConcurrentMap<String,Histogram> children = new ConcurrentSkipListMap<> ();
+
+
+		/**
+		 * Constructor.
+		 * @param help
+		 * @param labelName
+		 */
+		HistogramFamily( String help, String labelName ) {
+			this.help = help;
+			this.labelName = labelName;
+		}
+	}
+
+
+	/**
+	 * A gauge and its description.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static class GaugeEntry {
+
+		final String help;
+		final Gauge gauge;
+
+
+		/**
+		 * Constructor.
+		 * @param help
+		 * @param gauge
+		 */
+		GaugeEntry( String help, Gauge gauge ) {
+			this.help = help;
+			this.gauge = gauge;
+		}
+	}
+}
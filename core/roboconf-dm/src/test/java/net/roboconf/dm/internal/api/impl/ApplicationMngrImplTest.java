@@ -58,6 +58,7 @@ import net.roboconf.dm.internal.utils.ConfigurationUtils;
 import net.roboconf.dm.management.ManagedApplication;
 import net.roboconf.dm.management.api.IApplicationTemplateMngr;
 import net.roboconf.dm.management.api.IAutonomicMngr;
+import net.roboconf.dm.management.api.ICommandsMngr;
 import net.roboconf.dm.management.api.IConfigurationMngr;
 import net.roboconf.dm.management.api.IMessagingMngr;
 import net.roboconf.dm.management.api.INotificationMngr;
@@ -83,6 +84,7 @@ public class ApplicationMngrImplTest {
 	private IConfigurationMngr configurationMngr;
 	private IApplicationTemplateMngr applicationTemplateMngr;
 	private IAutonomicMngr autonomicMngr;
+	private ICommandsMngr commandsMngr;
 
 	private File dmDirectory;
 	private IDmClient dmClientMock;
@@ -110,6 +112,9 @@ public class ApplicationMngrImplTest {
 
 		this.mngr.setApplicationTemplateMngr( this.applicationTemplateMngr );
 
+		this.commandsMngr = Mockito.mock( ICommandsMngr.class );
+		this.mngr.setCommandsMngr( this.commandsMngr );
+
 		this.dmDirectory = this.folder.newFolder();
 		Mockito.when( this.configurationMngr.getWorkingDirectory()).thenReturn( this.dmDirectory );
 	}
@@ -175,6 +180,7 @@ public class ApplicationMngrImplTest {
 		Assert.assertEquals( 0, this.mngr.getManagedApplications().size());
 
 		Mockito.verify( this.autonomicMngr, Mockito.times( 1 )).unloadApplicationRules( ma.getApplication());
+		Mockito.verify( this.commandsMngr, Mockito.times( 1 )).applicationWasDeleted( ma.getApplication());
 	}
 
 
@@ -178,6 +178,29 @@ public class AutonomicMngrImplTest {
 	}
 
 
+	@Test
+	public void testHandleEvents_rulesAreEvaluatedOnce() throws Exception {
+
+		Application app = new Application( "app", new TestApplicationTemplate());
+		AutonomicApplicationContext ctx = Mockito.spy( new AutonomicApplicationContext( app ));
+		Mockito.when( ctx.findRulesToExecute()).thenReturn( new ArrayList<Rule>( 0 ));
+		this.autonomicMngr.appNameToContext.put( "app", ctx );
+
+		ManagedApplication ma = new ManagedApplication( app );
+		this.autonomicMngr.handleEvents( ma, Arrays.asList(
+				new MsgNotifAutonomic( "app", "/root", "event1", null ),
+				new MsgNotifAutonomic( "app", "/root", "event2", null, 4 )));
+
+		Mockito.verify( ctx, Mockito.times( 1 )).findRulesToExecute();
+		Mockito.verifyZeroInteractions( this.commandsMngr );
+
+		Map<?,?> eventNameToLastRecordTime = TestUtils.getInternalField( ctx, "eventNameToLastRecordTime", Map.class );
+		Assert.assertEquals( 2, eventNameToLastRecordTime.size());
+		Assert.assertNotNull( eventNameToLastRecordTime.get( "event1" ));
+		Assert.assertNotNull( eventNameToLastRecordTime.get( "event2" ));
+	}
+
+
 	@Test
 	public void testHandleEvent_withContext_withRule_negativeMaxVmNumber() throws Exception {
 
@@ -28,7 +28,11 @@ package net.roboconf.dm.internal.api.impl;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.h2.jdbcx.JdbcDataSource;
 import org.junit.Assert;
@@ -43,7 +47,9 @@ import net.roboconf.core.model.ParsingError;
 import net.roboconf.core.model.beans.Application;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.model.runtime.CommandHistoryItem;
+import net.roboconf.dm.internal.api.impl.CommandsMngrImpl.HistoryBookmark;
 import net.roboconf.dm.management.Manager;
+import net.roboconf.dm.management.api.INotificationMngr;
 import net.roboconf.dm.management.exceptions.CommandException;
 
 /**
@@ -66,6 +72,7 @@ public class CommandsMngrImplTest {
 		this.app = new TestApplication();
 		this.app.setDirectory( this.folder.newFolder());
 		this.manager = Mockito.mock( Manager.class );
+		Mockito.when( this.manager.notificationMngr()).thenReturn( Mockito.mock( INotificationMngr.class ));
 
 		this.cmdMngr = new CommandsMngrImpl( this.manager );
 		Assert.assertEquals( "", this.cmdMngr.getCommandInstructions( this.app, "" ));
@@ -253,6 +260,110 @@ public class CommandsMngrImplTest {
 	}
 
 
+	@Test
+	public void testWithHistory_keysetPagination() throws Exception {
+
+		// Create a H2 data source
+		JdbcDataSource ds = new JdbcDataSource();
+		File dataFile = this.folder.newFile();
+		ds.setURL( "jdbc:h2:" + dataFile.getAbsolutePath());
+		ds.setUser( "roboconf" );
+		ds.setPassword( "roboconf" );
+		Mockito.when( this.manager.getDataSource()).thenReturn( ds );
+
+		// Execute commands (several of them start at the same time)
+		String cmdName = "my-command";
+		this.cmdMngr.createOrUpdateCommand( this.app, cmdName, "write hop into %TMP%/roboconf-test-keyset.txt" );
+
+		final int repeatCount = 23;
+		for( int i=0; i<repeatCount; i++ )
+			this.cmdMngr.execute( this.app, cmdName, CommandHistoryItem.ORIGIN_REST_API, "source " + i );
+
+		// Browse all the pages, one after the other
+		for( String sortingOrder : new String[] { "asc", "desc" }) {
+			for( String sortCriteria : new String[] { "start", "application", "result" }) {
+
+				List<String> details = new ArrayList<> ();
+				for( int page=0; page<5; page ++ ) {
+					for( CommandHistoryItem item : this.cmdMngr.getHistory( page * 5, 5, sortCriteria, sortingOrder, this.app.getName()))
+						details.add( item.getOriginDetails());
+				}
+
+				// Bookmarks were created...
+				Assert.assertTrue( this.cmdMngr.historyBookmarks.size() > 0 );
+
+				// ... and no entry was missed nor duplicated
+				Assert.assertEquals( sortCriteria + " " + sortingOrder, repeatCount, details.size());
+				Assert.assertEquals( sortCriteria + " " + sortingOrder, repeatCount, new HashSet<>( details ).size());
+				if( "start".equals( sortCriteria )) {
+					Assert.assertEquals( "source 0", details.get( "asc".equals( sortingOrder ) ? 0 : repeatCount - 1 ));
+					Assert.assertEquals( "source 22", details.get( "asc".equals( sortingOrder ) ? repeatCount - 1 : 0 ));
+				}
+
+				// Same results with and without bookmarks
+				this.cmdMngr.historyBookmarks.clear();
+				List<CommandHistoryItem> items = this.cmdMngr.getHistory( 10, 5, sortCriteria, sortingOrder, null );
+				Assert.assertEquals( 5, items.size());
+				for( int i=0; i<items.size(); i++ )
+					Assert.assertEquals( details.get( i + 10 ), items.get( i ).getOriginDetails());
+			}
+		}
+
+		// Jumping to a page relies on the closest bookmark
+		this.cmdMngr.historyBookmarks.clear();
+		List<CommandHistoryItem> items = this.cmdMngr.getHistory( 0, 5, "start", "desc", null );
+		Assert.assertEquals( "source 22", items.get( 0 ).getOriginDetails());
+		this.cmdMngr.getHistory( 0, 5, "start", "asc", null );
+
+		items = this.cmdMngr.getHistory( 15, 5, "start", "desc", null );
+		Assert.assertEquals( "source 7", items.get( 0 ).getOriginDetails());
+		Assert.assertNotNull( this.cmdMngr.historyBookmarks.get( "null|start|desc|5" ));
+		Assert.assertNotNull( this.cmdMngr.historyBookmarks.get( "null|start|desc|20" ));
+		Assert.assertNotNull( this.cmdMngr.historyBookmarks.get( "null|start|asc|5" ));
+
+		// New entries shift the pages sorted by descending start: their bookmarks are dropped.
+		// Bookmarks of ascending pages are located before the new entry, they remain.
+		this.cmdMngr.execute( this.app, cmdName, CommandHistoryItem.ORIGIN_REST_API, "new source" );
+		Assert.assertNull( this.cmdMngr.historyBookmarks.get( "null|start|desc|5" ));
+		Assert.assertNull( this.cmdMngr.historyBookmarks.get( "null|start|desc|20" ));
+		Assert.assertNotNull( this.cmdMngr.historyBookmarks.get( "null|start|asc|5" ));
+
+		// Pages are the same as without bookmarks
+		items = this.cmdMngr.getHistory( 5, 5, "start", "desc", null );
+		Assert.assertEquals( "source 18", items.get( 0 ).getOriginDetails());
+
+		items = this.cmdMngr.getHistory( 0, 5, "start", "desc", null );
+		Assert.assertEquals( "new source", items.get( 0 ).getOriginDetails());
+
+		items = this.cmdMngr.getHistory( 5, 5, "start", "asc", null );
+		Assert.assertEquals( "source 5", items.get( 0 ).getOriginDetails());
+	}
+
+
+	@Test
+	public void testDropShiftedBookmarks() {
+
+		CommandHistoryItem item = new CommandHistoryItem( "app", "cmd", CommandHistoryItem.ORIGIN_REST_API, null, CommandHistoryItem.EXECUTION_OK, 100L, 1L );
+		Map<String,HistoryBookmark> bookmarks = this.cmdMngr.historyBookmarks;
+		synchronized( bookmarks ) {
+			bookmarks.put( "start-asc-before", new HistoryBookmark( null, "start", "asc", 50L, 1 ));
+			bookmarks.put( "start-asc-after", new HistoryBookmark( null, "start", "asc", 150L, 2 ));
+			bookmarks.put( "start-asc-equal", new HistoryBookmark( null, "start", "asc", 100L, 3 ));
+			bookmarks.put( "start-desc-before", new HistoryBookmark( null, "start", "desc", 150L, 4 ));
+			bookmarks.put( "start-desc-equal", new HistoryBookmark( null, "start", "desc", 100L, 5 ));
+			bookmarks.put( "other-app", new HistoryBookmark( "other", "start", "desc", 50L, 6 ));
+			bookmarks.put( "command-asc-after", new HistoryBookmark( "app", "command", "asc", "dmd", 7 ));
+			bookmarks.put( "command-asc-before", new HistoryBookmark( "app", "command", "asc", "bmd", 8 ));
+			bookmarks.put( "result-incomparable", new HistoryBookmark( null, "result", "asc", "?", 9 ));
+
+			this.cmdMngr.dropShiftedBookmarks( item );
+			Assert.assertEquals(
+					new HashSet<>( Arrays.asList( "start-asc-before", "start-asc-equal", "start-desc-before", "other-app", "command-asc-before" )),
+					bookmarks.keySet());
+		}
+	}
+
+
 	@Test
 	public void testWithHistory_noSource() throws Exception {
 
@@ -25,6 +25,7 @@
 
 package net.roboconf.dm.internal.api.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -42,16 +43,21 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import net.roboconf.core.Constants;
 import net.roboconf.core.internal.tests.TestApplication;
 import net.roboconf.core.model.beans.Application;
+import net.roboconf.core.model.beans.Component;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.model.runtime.EventType;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.dm.internal.api.IRandomMngr;
 import net.roboconf.dm.internal.api.ITargetConfigurator;
 import net.roboconf.dm.internal.api.impl.beans.TargetPropertiesImpl;
 import net.roboconf.dm.internal.test.TestTargetResolver;
+import net.roboconf.dm.internal.utils.ConfigurationUtils;
 import net.roboconf.dm.management.ManagedApplication;
 import net.roboconf.dm.management.api.IConfigurationMngr;
 import net.roboconf.dm.management.api.IInstancesMngr;
@@ -856,4 +862,143 @@ public class InstancesMngrImplTest {
 		Assert.assertEquals( app.getMySqlVm(), InstanceHelpers.findInstanceByPath( app, "/" + app.getMySqlVm().getName()));
 		Assert.assertEquals( "true", app.getMySqlVm().data.get( Instance.DELETE_WHEN_NOT_DEPLOYED ));
 	}
+
+
+	@Test
+	public void testApplyOperations() throws Exception {
+
+		// Prepare the manager
+		INotificationMngr notificationMngr = Mockito.mock( INotificationMngr.class );
+		IRandomMngr randomMngr = Mockito.mock( IRandomMngr.class );
+		ITargetConfigurator targetConfigurator = Mockito.mock( ITargetConfigurator.class );
+		IMessagingMngr messagingMngr = Mockito.mock( IMessagingMngr.class );
+		ITargetsMngr targetsMngr = Mockito.mock( ITargetsMngr.class );
+
+		IInstancesMngr mngr = new InstancesMngrImpl( messagingMngr, notificationMngr, targetsMngr, randomMngr, targetConfigurator );
+
+		TestApplication app = new TestApplication();
+		app.setDirectory( this.folder.newFolder());
+		ManagedApplication ma = new ManagedApplication( app );
+
+		File instancesFile = new File( app.getDirectory(), Constants.PROJECT_DIR_INSTANCES + "/" + ConfigurationUtils.INSTANCES_FILE );
+		Assert.assertFalse( instancesFile.exists());
+
+		// Prepare the operations
+		String tomcatVmPath = InstanceHelpers.computeInstancePath( app.getTomcatVm());
+		String warPath = InstanceHelpers.computeInstancePath( app.getWar());
+		String mysqlPath = InstanceHelpers.computeInstancePath( app.getMySql());
+		String mysqlComponentName = app.getMySql().getComponent().getName();
+
+		app.getMySql().setStatus( InstanceStatus.DEPLOYED_STARTED );
+		List<InstanceOperation> operations = new ArrayList<> ();
+
+		// 0. Add a child instance, with only a component name
+		operations.add( InstanceOperation.add( tomcatVmPath, new Instance( "mysql-2" ).component( new Component( mysqlComponentName ))));
+
+		// 1. Add a root instance
+		operations.add( InstanceOperation.add( null, new Instance( "vm-2" ).component( app.getTomcatVm().getComponent())));
+
+		// 2. Add an instance the graph does not allow there
+		operations.add( InstanceOperation.add( tomcatVmPath, new Instance( "war-2" ).component( app.getWar().getComponent())));
+
+		// 3. Add an instance under an inexisting parent
+		operations.add( InstanceOperation.add( "/inexisting", new Instance( "mysql-3" ).component( app.getMySql().getComponent())));
+
+		// 4. Add an instance with an unknown component
+		operations.add( InstanceOperation.add( null, new Instance( "vm-3" ).component( new Component( "unknown" ))));
+
+		// 5. Add an instance without component
+		operations.add( InstanceOperation.add( null, new Instance( "vm-4" )));
+
+		// 6. Remove an instance
+		operations.add( InstanceOperation.remove( warPath ));
+
+		// 7. Remove a running instance
+		operations.add( InstanceOperation.remove( mysqlPath ));
+
+		// 8. Remove without path
+		operations.add( InstanceOperation.remove( null ));
+
+		// 9. Change a state
+		operations.add( InstanceOperation.changeState( tomcatVmPath + "/mysql-2", InstanceStatus.NOT_DEPLOYED ));
+
+		// 10. Change a state, without status
+		operations.add( InstanceOperation.changeState( mysqlPath, null ));
+
+		// 11. No type
+		operations.add( new InstanceOperation( null, mysqlPath ));
+
+		// Apply them
+		List<InstanceOperationResult> results = mngr.applyOperations( ma, operations );
+		Assert.assertEquals( operations.size(), results.size());
+
+		boolean[] expectedSuccesses = { true, true, false, false, false, false, true, false, false, true, false, false };
+		for( int i = 0; i < expectedSuccesses.length; i ++ ) {
+			InstanceOperationResult result = results.get( i );
+			Assert.assertEquals( "Operation " + i, expectedSuccesses[ i ], result.isSuccess());
+			Assert.assertEquals( "Operation " + i, result.isSuccess(), result.getMessage() == null );
+		}
+
+		Assert.assertEquals( tomcatVmPath + "/mysql-2", results.get( 0 ).getInstancePath());
+		Assert.assertEquals( "/vm-2", results.get( 1 ).getInstancePath());
+		Assert.assertEquals( warPath, results.get( 6 ).getInstancePath());
+
+		// Verify the model
+		Instance newMysql = InstanceHelpers.findInstanceByPath( app, tomcatVmPath + "/mysql-2" );
+		Assert.assertNotNull( newMysql );
+		Assert.assertEquals( app.getMySql().getComponent(), newMysql.getComponent());
+		Assert.assertNotNull( InstanceHelpers.findInstanceByPath( app, "/vm-2" ));
+		Assert.assertNull( InstanceHelpers.findInstanceByPath( app, tomcatVmPath + "/war-2" ));
+		Assert.assertNull( InstanceHelpers.findInstanceByPath( app, warPath ));
+		Assert.assertNotNull( InstanceHelpers.findInstanceByPath( app, mysqlPath ));
+		Assert.assertEquals( 3, app.getRootInstances().size());
+
+		// The model was saved, and notifications were sent for added and removed instances
+		Assert.assertTrue( instancesFile.exists());
+		Mockito.verify( messagingMngr, Mockito.atLeastOnce()).checkMessagingConfiguration();
+		Mockito.verify( notificationMngr ).instance( newMysql, app, EventType.CREATED );
+		Mockito.verify( notificationMngr ).instance( InstanceHelpers.findInstanceByPath( app, "/vm-2" ), app, EventType.CREATED );
+		Mockito.verify( notificationMngr ).instance( app.getWar(), app, EventType.DELETED );
+		Mockito.verifyNoMoreInteractions( notificationMngr );
+
+		// Messages are stored for new instances
+		Assert.assertEquals( 1, ma.removeAwaitingMessages( newMysql ).size());
+	}
+
+
+	@Test
+	public void testApplyOperations_nothingChanged() throws Exception {
+
+		INotificationMngr notificationMngr = Mockito.mock( INotificationMngr.class );
+		IMessagingMngr messagingMngr = Mockito.mock( IMessagingMngr.class );
+		IInstancesMngr mngr = new InstancesMngrImpl( messagingMngr, notificationMngr, null, null, null );
+
+		TestApplication app = new TestApplication();
+		app.setDirectory( this.folder.newFolder());
+		ManagedApplication ma = new ManagedApplication( app );
+
+		List<InstanceOperationResult> results = mngr.applyOperations( ma, new ArrayList<InstanceOperation>( 0 ));
+		Assert.assertEquals( 0, results.size());
+
+		results = mngr.applyOperations( ma, Arrays.asList( InstanceOperation.remove( "/inexisting" )));
+		Assert.assertEquals( 1, results.size());
+		Assert.assertFalse( results.get( 0 ).isSuccess());
+		Assert.assertEquals( "/inexisting", results.get( 0 ).getInstancePath());
+
+		// Nothing to save, nothing to notify
+		File instancesFile = new File( app.getDirectory(), Constants.PROJECT_DIR_INSTANCES + "/" + ConfigurationUtils.INSTANCES_FILE );
+		Assert.assertFalse( instancesFile.exists());
+		Mockito.verifyZeroInteractions( notificationMngr );
+	}
+
+
+	@Test( expected = IOException.class )
+	public void testApplyOperations_invalidMessaging() throws Exception {
+
+		IMessagingMngr messagingMngr = Mockito.mock( IMessagingMngr.class );
+		Mockito.doThrow( new IOException( "for test" )).when( messagingMngr ).checkMessagingConfiguration();
+
+		IInstancesMngr mngr = new InstancesMngrImpl( messagingMngr, null, null, null, null );
+		mngr.applyOperations( new ManagedApplication( new TestApplication()), Arrays.asList( InstanceOperation.remove( "/inexisting" )));
+	}
 }
@@ -29,6 +29,10 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import net.roboconf.core.model.beans.Application;
+import net.roboconf.core.model.beans.ApplicationTemplate;
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.runtime.EventType;
 import net.roboconf.dm.management.events.IDmListener;
 
 /**
@@ -88,4 +92,92 @@ public class NotificationMngrImplTest {
 		Mockito.verify( listener1, Mockito.only()).disableNotifications();
 		Mockito.verify( listener2, Mockito.only()).disableNotifications();
 	}
+
+
+	@Test
+	public void testModelVersions() throws Exception {
+
+		NotificationMngrImpl mngr = new NotificationMngrImpl();
+		Application app1 = new Application( "app1", new ApplicationTemplate());
+		Application app2 = new Application( "app2", new ApplicationTemplate());
+
+		Assert.assertEquals( 0, mngr.getModelVersion( null ));
+		Assert.assertEquals( 0, mngr.getModelVersion( app1.getName()));
+
+		// Versions are updated even if notifications are disabled
+		mngr.application( app1, EventType.CREATED );
+		long v1 = mngr.getModelVersion( app1.getName());
+		Assert.assertTrue( v1 > 0 );
+		Assert.assertEquals( v1, mngr.getModelVersion( null ));
+		Assert.assertEquals( 0, mngr.getModelVersion( app2.getName()));
+
+		// Changes in another application do not impact app1
+		mngr.application( app2, EventType.CREATED );
+		mngr.instance( new Instance( "i" ), app2, EventType.CHANGED );
+		mngr.applicationTemplate( new ApplicationTemplate(), EventType.CREATED );
+		Assert.assertEquals( v1, mngr.getModelVersion( app1.getName()));
+		Assert.assertTrue( mngr.getModelVersion( app2.getName()) > v1 );
+		Assert.assertTrue( mngr.getModelVersion( null ) > mngr.getModelVersion( app2.getName()));
+
+		// Raw messages do not change anything
+		long global = mngr.getModelVersion( null );
+		long tplAndApps = mngr.getTemplatesAndApplicationsVersion();
+		mngr.raw( "hi" );
+		Assert.assertEquals( global, mngr.getModelVersion( null ));
+		Assert.assertEquals( tplAndApps, mngr.getTemplatesAndApplicationsVersion());
+		Assert.assertEquals( 3, tplAndApps );
+
+		// Instance changes impact app1
+		mngr.instance( new Instance( "i" ), app1, EventType.CHANGED );
+		long v2 = mngr.getModelVersion( app1.getName());
+		Assert.assertTrue( v2 > v1 );
+		Assert.assertEquals( tplAndApps, mngr.getTemplatesAndApplicationsVersion());
+
+		// So do changes in runtime data
+		mngr.modelChanged( app1 );
+		Assert.assertTrue( mngr.getModelVersion( app1.getName()) > v2 );
+		v2 = mngr.getModelVersion( app1.getName());
+		Assert.assertEquals( tplAndApps, mngr.getTemplatesAndApplicationsVersion());
+
+		// Deleted applications are forgotten
+		mngr.application( app1, EventType.DELETED );
+		Assert.assertEquals( 0, mngr.getModelVersion( app1.getName()));
+
+		// Versions are never reused
+		mngr.application( app1, EventType.CREATED );
+		Assert.assertTrue( mngr.getModelVersion( app1.getName()) > v2 );
+	}
+
+
+	@Test
+	public void testWaitForModelVersionChange() throws Exception {
+
+		final NotificationMngrImpl mngr = new NotificationMngrImpl();
+		final Application app1 = new Application( "app1", new ApplicationTemplate());
+		final Application app2 = new Application( "app2", new ApplicationTemplate());
+		mngr.application( app1, EventType.CREATED );
+		long v1 = mngr.getModelVersion( app1.getName());
+
+		// Time-out
+		Assert.assertEquals( v1, mngr.waitForModelVersionChange( app1.getName(), v1, 10 ));
+
+		// No wait if the known version is not the current one
+		Assert.assertEquals( v1, mngr.waitForModelVersionChange( app1.getName(), v1 - 1, 5000 ));
+
+		// Wake up only when app1 changes
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				mngr.instance( new Instance( "i" ), app2, EventType.CREATED );
+				mngr.instance( new Instance( "i" ), app1, EventType.CREATED );
+			}
+		};
+
+		thread.start();
+		long v2 = mngr.waitForModelVersionChange( app1.getName(), v1, 5000 );
+		thread.join();
+
+		Assert.assertEquals( mngr.getModelVersion( app1.getName()), v2 );
+		Assert.assertTrue( v2 > v1 );
+	}
 }
@@ -39,6 +39,7 @@ import net.roboconf.core.internal.tests.TestApplication;
 import net.roboconf.core.model.beans.ExportedVariable.RandomKind;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.dm.management.api.INotificationMngr;
 import net.roboconf.dm.management.api.IPreferencesMngr;
 
 /**
@@ -51,6 +52,7 @@ public class RandomMngrTest {
 
 	private RandomMngrImpl mngr;
 	private IPreferencesMngr preferencesMngr;
+	private INotificationMngr notificationMngr;
 
 
 	@Before
@@ -60,7 +62,8 @@ public class RandomMngrTest {
 		Mockito.when( this.preferencesMngr.get( Mockito.anyString())).thenReturn( "" );
 		Mockito.when( this.preferencesMngr.getJavaxMailProperties()).thenReturn( new Properties());
 
-		this.mngr = new RandomMngrImpl();
+		this.notificationMngr = Mockito.mock( INotificationMngr.class );
+		this.mngr = new RandomMngrImpl( this.notificationMngr );
 		this.mngr.setPreferencesMngr( this.preferencesMngr );
 	}
 
@@ -89,6 +92,7 @@ public class RandomMngrTest {
 		this.mngr.generateAllRandomValues( app1 );
 		verify( app1.getWar(), "war.port", "10000" );
 		Assert.assertEquals( 1, this.mngr.agentToRandomPorts.size());
+		Mockito.verify( this.notificationMngr ).modelChanged( app1 );
 
 		verify( app2.getWar(), "war.port", null );
 		this.mngr.generateAllRandomValues( app2 );
@@ -211,6 +215,7 @@ public class RandomMngrTest {
 		this.mngr.generateAllRandomValues( app1 );
 		verify( app1.getWar(), "war.port", "43210" );
 		Assert.assertEquals( 1, this.mngr.agentToRandomPorts.size());
+		Mockito.verifyZeroInteractions( this.notificationMngr );
 	}
 
 
@@ -237,6 +242,7 @@ public class RandomMngrTest {
 		// The value cannot have changed
 		verify( app1.getWar(), "war.port", "17401" );
 		Assert.assertEquals( 1, this.mngr.agentToRandomPorts.size());
+		Mockito.verifyZeroInteractions( this.notificationMngr );
 		Assert.assertEquals( 1, this.mngr.agentToRandomPorts.values().iterator().next().size());
 		Assert.assertEquals( 17401, this.mngr.agentToRandomPorts.values().iterator().next().get( 0 ).intValue());
 	}
@@ -330,7 +336,7 @@ public class RandomMngrTest {
 		verify( app1.getWar(), "war.port", "17401" );
 		verify( newWar, "war.port", "10000" );
 		Assert.assertEquals( 1, this.mngr.agentToRandomPorts.size());
-		Assert.assertEquals( 2, this.mngr.agentToRandomPorts.values().iterator().next().size());
+		Assert.assertEquals( 2, this.mngr.agentToRandomPorts.values().iterator().next().size());		Mockito.verify( this.notificationMngr ).modelChanged( app1 );
 	}
 
 
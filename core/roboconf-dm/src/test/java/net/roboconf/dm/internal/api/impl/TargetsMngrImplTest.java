@@ -1402,4 +1402,44 @@ public class TargetsMngrImplTest {
 		Assert.assertTrue( new File( targetDir, "script.sh" ).exists());
 		Assert.assertFalse( new File( targetDir, "titi.sh").exists());
 	}
+
+
+	@Test
+	public void testVersions() throws Exception {
+
+		TestApplication app = new TestApplication();
+		String mySqlPath = InstanceHelpers.computeInstancePath( app.getMySqlVm());
+
+		long version = this.mngr.getVersion();
+		String targetId = this.mngr.createTarget( "prop: ok\nid: abc\nhandler: h" );
+		Assert.assertTrue( this.mngr.getVersion() > version );
+
+		version = this.mngr.getVersion();
+		this.mngr.associateTargetWith( targetId, app, mySqlPath );
+		Assert.assertTrue( this.mngr.getVersion() > version );
+
+		version = this.mngr.getVersion();
+		this.mngr.addHint( targetId, app );
+		Assert.assertTrue( this.mngr.getVersion() > version );
+
+		version = this.mngr.getVersion();
+		this.mngr.updateTarget( targetId, "prop: ko\nhandler: h" );
+		Assert.assertTrue( this.mngr.getVersion() > version );
+
+		// Reading does not change anything
+		version = this.mngr.getVersion();
+		this.mngr.findTargetId( app, mySqlPath );
+		this.mngr.listAllTargets();
+		this.mngr.findTargetById( targetId );
+		Assert.assertEquals( version, this.mngr.getVersion());
+		Assert.assertEquals( version, this.mngr.waitForVersionChange( version, 10 ));
+
+		// Otherwise, waiting returns the new version
+		this.mngr.dissociateTargetFrom( app, mySqlPath );
+		Assert.assertTrue( this.mngr.waitForVersionChange( version, 10 ) > version );
+
+		version = this.mngr.getVersion();
+		this.mngr.deleteTarget( targetId );
+		Assert.assertTrue( this.mngr.getVersion() > version );
+	}
 }
@@ -25,6 +25,9 @@
 
 package net.roboconf.dm.internal.autonomic;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -38,6 +41,7 @@ import net.roboconf.dm.management.ManagedApplication;
 import net.roboconf.dm.management.Manager;
 import net.roboconf.dm.management.api.IAutonomicMngr;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomicEvents;
 
 /**
  * @author Vincent Zurczak - Linagora
@@ -88,6 +92,44 @@ public class DmMessageProcessorForAutonomicTest {
 	}
 
 
+	@Test
+	public void testAutonomicEventsMessage_appIsRegistered() throws Exception {
+
+		ManagedApplication ma = new ManagedApplication( this.app );
+		TestManagerWrapper wrapper = new TestManagerWrapper( this.manager );
+		wrapper.addManagedApplication( ma );
+
+		String path = "/" + this.app.getTomcatVm().getName();
+		List<MsgNotifAutonomic> events = Arrays.asList(
+				new MsgNotifAutonomic( this.app.getName(), path, "e1", "we do not care" ),
+				new MsgNotifAutonomic( this.app.getName(), path, "e2", "we do not care", 3 ));
+
+		MsgNotifAutonomicEvents msg = new MsgNotifAutonomicEvents( this.app.getName(), path, events );
+		DmMessageProcessor processor = new DmMessageProcessor( this.manager );
+		processor.processMessage( msg );
+
+		Mockito.verify( this.autonomicMngr, Mockito.times( 1 )).handleEvents( ma, msg.getEvents());
+		Mockito.verifyNoMoreInteractions( this.autonomicMngr );
+	}
+
+
+	@Test
+	public void testAutonomicEventsMessage_invalidAgentIdentifier() throws Exception {
+
+		ManagedApplication ma = new ManagedApplication( this.app );
+		TestManagerWrapper wrapper = new TestManagerWrapper( this.manager );
+		wrapper.addManagedApplication( ma );
+
+		MsgNotifAutonomicEvents msg = new MsgNotifAutonomicEvents( this.app.getName(), "/invalid/id", Arrays.asList(
+				new MsgNotifAutonomic( this.app.getName(), "/invalid/id", "e1", "we do not care" )));
+
+		DmMessageProcessor processor = new DmMessageProcessor( this.manager );
+		processor.processMessage( msg );
+
+		Mockito.verifyZeroInteractions( this.autonomicMngr );
+	}
+
+
 	@Test
 	public void testAutonomicMessage_appIsNotRegistered() throws Exception {
 
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.internal.commands;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.roboconf.core.commands.CommandsParser;
+import net.roboconf.core.commands.RenameCommandInstruction;
+import net.roboconf.core.errors.ErrorCode;
+import net.roboconf.core.internal.tests.TestApplication;
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.utils.Utils;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class CommandsCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void testCacheIsUsedAndResolutionIsContextual() throws Exception {
+
+		TestApplication app = new TestApplication();
+		Instance vm = new Instance( "vm 1" ).component( app.getTomcatVm().getComponent());
+		app.getRootInstances().add( vm );
+
+		File f = this.folder.newFile();
+		Utils.writeStringInto( "rename /vm 1 as vm 2", f );
+
+		CommandsCache cache = new CommandsCache();
+		Assert.assertEquals( 0, cache.size());
+
+		CommandsParser parser = cache.parse( app, f, 1 );
+		Assert.assertEquals( 1, cache.size());
+		Assert.assertEquals( 0, parser.getParsingErrors().size());
+		Assert.assertEquals( 1, parser.getInstructions().size());
+
+		// Same model version => the parsed instructions are reused
+		Assert.assertSame( parser, cache.parse( app, f, 1 ));
+
+		// The file is not read again, but instructions are resolved against the current model
+		app.getRootInstances().remove( vm );
+		parser = cache.parse( app, f, 2 );
+		Assert.assertEquals( 1, cache.size());
+		Assert.assertEquals( 1, parser.getParsingErrors().size());
+		Assert.assertEquals( ErrorCode.CMD_NO_MATCHING_INSTANCE, parser.getParsingErrors().get( 0 ).getErrorCode());
+		Assert.assertSame( parser, cache.parse( app, f, 2 ));
+	}
+
+
+	@Test
+	public void testVolatileInstructionsAreAlwaysParsed() throws Exception {
+
+		TestApplication app = new TestApplication();
+		File f = this.folder.newFile();
+		Utils.writeStringInto( "define id = $(UUID)\nrename /tomcat-vm as vm $(id)", f );
+
+		CommandsCache cache = new CommandsCache();
+		CommandsParser parser1 = cache.parse( app, f, 1 );
+		CommandsParser parser2 = cache.parse( app, f, 1 );
+		Assert.assertNotSame( parser1, parser2 );
+		Assert.assertEquals( 1, cache.size());
+
+		String name1 = ((RenameCommandInstruction) parser1.getInstructions().get( 1 )).getNewInstanceName();
+		String name2 = ((RenameCommandInstruction) parser2.getInstructions().get( 1 )).getNewInstanceName();
+		Assert.assertNotEquals( name1, name2 );
+	}
+
+
+	@Test
+	public void testApplicationInvalidation() throws Exception {
+
+		TestApplication app = new TestApplication();
+		TestApplication otherApp = new TestApplication();
+		otherApp.setName( "other" );
+
+		File f1 = this.folder.newFile();
+		Utils.writeStringInto( "rename /tomcat-vm as vm 2", f1 );
+		File f2 = this.folder.newFile();
+		Utils.writeStringInto( "rename /mysql-vm as vm 3", f2 );
+
+		CommandsCache cache = new CommandsCache();
+		cache.parse( app, f1, 1 );
+		cache.parse( app, f2, 1 );
+		cache.parse( otherApp, f1, 1 );
+		Assert.assertEquals( 3, cache.size());
+
+		cache.invalidate( app );
+		Assert.assertEquals( 1, cache.size());
+
+		cache.invalidate( otherApp );
+		Assert.assertEquals( 0, cache.size());
+	}
+
+
+	@Test
+	public void testInvalidation() throws Exception {
+
+		TestApplication app = new TestApplication();
+		File f = this.folder.newFile();
+		Utils.writeStringInto( "rename /tomcat-vm as vm 2", f );
+
+		CommandsCache cache = new CommandsCache();
+		Assert.assertEquals( 1, cache.parse( app, f, 1 ).getInstructions().size());
+		Assert.assertEquals( 1, cache.size());
+
+		// File modification (the size changes)
+		Utils.writeStringInto( "rename /tomcat-vm as vm 2\nrename /mysql-vm as vm 3", f );
+		Assert.assertEquals( 2, cache.parse( app, f, 1 ).getInstructions().size());
+		Assert.assertEquals( 1, cache.size());
+
+		// Explicit invalidation (the size does not change)
+		Utils.writeStringInto( "rename /tomcat-vm as vm 4\nrename /mysql-vm as vm 5", f );
+		cache.invalidate( app, f );
+		Assert.assertEquals( 0, cache.size());
+		CommandsParser parser = cache.parse( app, f, 1 );
+		Assert.assertEquals( "vm 5", ((RenameCommandInstruction) parser.getInstructions().get( 1 )).getNewInstanceName());
+		Assert.assertEquals( 1, cache.size());
+
+		// Another application with the same name
+		TestApplication otherApp = new TestApplication();
+		parser = cache.parse( otherApp, f, 1 );
+		Assert.assertSame( otherApp, parser.getInstructions().get( 0 ).getApplication());
+		Assert.assertEquals( 1, cache.size());
+
+		// Deleted files are removed from the cache
+		Utils.deleteFilesRecursively( f );
+		parser = cache.parse( app, f, 1 );
+		Assert.assertEquals( 0, parser.getInstructions().size());
+		Assert.assertEquals( ErrorCode.CMD_INEXISTING_COMMAND_FILE, parser.getParsingErrors().get( 0 ).getErrorCode());
+		Assert.assertEquals( 0, cache.size());
+	}
+}
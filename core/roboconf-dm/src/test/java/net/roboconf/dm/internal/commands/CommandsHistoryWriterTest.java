@@ -0,0 +1,234 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.internal.commands;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import net.roboconf.core.model.runtime.CommandHistoryItem;
+import net.roboconf.dm.management.Manager;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class CommandsHistoryWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private JdbcDataSource dataSource;
+	private Manager manager;
+	private CommandsHistoryWriter writer;
+
+
+	@Before
+	public void prepare() throws Exception {
+
+		this.dataSource = new JdbcDataSource();
+		File dataFile = this.folder.newFile();
+		this.dataSource.setURL( "jdbc:h2:" + dataFile.getAbsolutePath());
+		this.dataSource.setUser( "roboconf" );
+		this.dataSource.setPassword( "roboconf" );
+
+		this.manager = Mockito.mock( Manager.class );
+		this.writer = new CommandsHistoryWriter( this.manager );
+	}
+
+
+	@After
+	public void stopWriter() {
+		this.writer.stop();
+	}
+
+
+	@Test
+	public void testNoDataSource() throws Exception {
+
+		this.writer.start();
+		this.writer.record( newItem( 0 ));
+		this.writer.flush();
+
+		Assert.assertEquals( 0, this.writer.getWrittenBatchesCount());
+		Assert.assertEquals( 0, this.writer.getDroppedEntriesCount());
+	}
+
+
+	@Test
+	public void testBatchesAndFlush() throws Exception {
+
+		Mockito.when( this.manager.getDataSource()).thenReturn( this.dataSource );
+		this.writer.start();
+
+		// Records are written in batches
+		int count = CommandsHistoryWriter.BATCH_SIZE * 2 + 3;
+		for( int i=0; i<count; i++ )
+			this.writer.record( newItem( i ));
+
+		this.writer.flush();
+		Assert.assertEquals( count, countRows());
+		Assert.assertTrue( this.writer.getWrittenBatchesCount() >= 3 );
+		Assert.assertTrue( this.writer.getWrittenBatchesCount() < count );
+		Assert.assertEquals( 0, this.writer.getDroppedEntriesCount());
+
+		// The background writer flushes periodically
+		this.writer.record( newItem( count ));
+		long before = this.writer.getWrittenBatchesCount();
+		for( int i=0; i<20 && this.writer.getWrittenBatchesCount() == before; i++ )
+			Thread.sleep( CommandsHistoryWriter.FLUSH_PERIOD / 4 );
+
+		Assert.assertEquals( count + 1, countRows());
+	}
+
+
+	@Test
+	public void testTableIsRecreated() throws Exception {
+
+		Mockito.when( this.manager.getDataSource()).thenReturn( this.dataSource );
+		this.writer.record( newItem( 0 ));
+		this.writer.flush();
+		Assert.assertEquals( 1, countRows());
+
+		// Drop the table
+		Connection conn = this.dataSource.getConnection();
+		Statement st = conn.createStatement();
+		st.execute( "DROP TABLE commands_history" );
+		st.close();
+		conn.close();
+
+		// It is created again when necessary
+		this.writer.record( newItem( 1 ));
+		this.writer.flush();
+		Assert.assertEquals( 1, countRows());
+	}
+
+
+	@Test
+	public void testStopFlushes() throws Exception {
+
+		Mockito.when( this.manager.getDataSource()).thenReturn( this.dataSource );
+		this.writer.start();
+		this.writer.record( newItem( 0 ));
+		this.writer.record( newItem( 1 ));
+		this.writer.stop();
+
+		Assert.assertEquals( 2, countRows());
+	}
+
+
+	@Test
+	public void testSchemaIsCreatedAtStart() throws Exception {
+
+		Mockito.when( this.manager.getDataSource()).thenReturn( this.dataSource );
+		this.writer.start();
+		Assert.assertEquals( 0, countRows());
+	}
+
+
+	@Test
+	public void testRecordsAfterStopAreDropped() throws Exception {
+
+		Mockito.when( this.manager.getDataSource()).thenReturn( this.dataSource );
+		this.writer.start();
+		this.writer.stop();
+
+		this.writer.record( newItem( 0 ));
+		this.writer.flush();
+		Assert.assertEquals( 0, countRows());
+		Assert.assertEquals( 1, this.writer.getDroppedEntriesCount());
+
+		// Until it is restarted
+		this.writer.start();
+		this.writer.record( newItem( 1 ));
+		this.writer.flush();
+		Assert.assertEquals( 1, countRows());
+	}
+
+
+	@Test
+	public void testFailedBatchesAreRolledBack() throws Exception {
+
+		PreparedStatement ps = Mockito.mock( PreparedStatement.class );
+		Mockito.when( ps.executeBatch()).thenThrow( new SQLException( "for test" ));
+
+		Connection conn = Mockito.mock( Connection.class );
+		Mockito.when( conn.getAutoCommit()).thenReturn( true );
+		Mockito.when( conn.prepareStatement( Mockito.anyString())).thenReturn( ps );
+		Mockito.when( conn.createStatement()).thenReturn( Mockito.mock( Statement.class ));
+
+		DataSource ds = Mockito.mock( DataSource.class );
+		Mockito.when( ds.getConnection()).thenReturn( conn );
+		Mockito.when( this.manager.getDataSource()).thenReturn( ds );
+
+		this.writer.record( newItem( 0 ));
+		this.writer.flush();
+
+		// The insertion is retried once, nothing is committed
+		Mockito.verify( ps, Mockito.times( 2 )).executeBatch();
+		Mockito.verify( conn, Mockito.times( 2 )).rollback();
+		Mockito.verify( conn, Mockito.never()).commit();
+		Mockito.verify( conn, Mockito.times( 2 )).setAutoCommit( true );
+		Assert.assertEquals( 0, this.writer.getWrittenBatchesCount());
+	}
+
+
+	private int countRows() throws Exception {
+
+		Connection conn = this.dataSource.getConnection();
+		Statement st = conn.createStatement();
+		ResultSet rs = st.executeQuery( "SELECT count( * ) FROM commands_history" );
+		try {
+			Assert.assertTrue( rs.next());
+			return rs.getInt( 1 );
+
+		} finally {
+			rs.close();
+			st.close();
+			conn.close();
+		}
+	}
+
+
+	private static CommandHistoryItem newItem( int index ) {
+		return new CommandHistoryItem(
+				"app", "cmd " + index, CommandHistoryItem.ORIGIN_AUTONOMIC, "details",
+				CommandHistoryItem.EXECUTION_OK, System.currentTimeMillis(), 10 );
+	}
+}
@@ -26,8 +26,10 @@
 package net.roboconf.dm.internal.environment.messaging;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -42,17 +44,21 @@ import net.roboconf.core.internal.tests.TestApplication;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.model.runtime.EventType;
 import net.roboconf.dm.internal.test.TestManagerWrapper;
 import net.roboconf.dm.internal.test.TestTargetResolver;
 import net.roboconf.dm.management.ManagedApplication;
 import net.roboconf.dm.management.Manager;
 import net.roboconf.dm.management.events.IDmListener;
+import net.roboconf.dm.metrics.DmMetrics;
+import net.roboconf.dm.metrics.Histogram;
 import net.roboconf.messaging.api.MessagingConstants;
 import net.roboconf.messaging.api.internal.client.test.TestClient;
 import net.roboconf.messaging.api.messages.Message;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifHeartbeat;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceChanged;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceRemoved;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstancesChanged;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifLogs;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifMachineDown;
 import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdGatherLogs;
@@ -140,6 +146,48 @@ public class DmMessageProcessorTest {
 	}
 
 
+	@Test
+	public void testProcessingTimeIsMeasured() {
+
+		Histogram echoHistogram = DmMetrics.REGISTRY.histogram( DmMetrics.MESSAGE_PROCESSING, null, "type", MsgEcho.class.getSimpleName());
+		Histogram machineDownHistogram = DmMetrics.REGISTRY.histogram( DmMetrics.MESSAGE_PROCESSING, null, "type", MsgNotifMachineDown.class.getSimpleName());
+		long echoCount = echoHistogram.getCount();
+		long machineDownCount = machineDownHistogram.getCount();
+
+		this.processor.processMessage( new MsgEcho( "hey!" ));
+		this.processor.processMessage( new MsgEcho( "hey again!" ));
+		Assert.assertEquals( echoCount + 2, echoHistogram.getCount());
+		Assert.assertEquals( machineDownCount, machineDownHistogram.getCount());
+
+		this.processor.processMessage( new MsgNotifMachineDown( "app-51", this.app.getMySqlVm()));
+		Assert.assertEquals( echoCount + 2, echoHistogram.getCount());
+		Assert.assertEquals( machineDownCount + 1, machineDownHistogram.getCount());
+	}
+
+
+	@Test
+	public void testProcessingTimeIsMeasured_evenOnFailure() {
+
+		Histogram echoHistogram = DmMetrics.REGISTRY.histogram( DmMetrics.MESSAGE_PROCESSING, null, "type", MsgEcho.class.getSimpleName());
+		long echoCount = echoHistogram.getCount();
+
+		Manager failingManager = Mockito.mock( Manager.class );
+		Mockito.when( failingManager.debugMngr()).thenThrow( new IllegalStateException( "for test" ));
+
+		DmMessageProcessor failingProcessor = new DmMessageProcessor( failingManager );
+		try {
+			failingProcessor.processMessage( new MsgEcho( "hey!" ));
+			Assert.fail( "An exception was expected." );
+
+		} catch( IllegalStateException e ) {
+			Assert.assertEquals( echoCount + 1, echoHistogram.getCount());
+
+		} finally {
+			failingProcessor.stopProcessor();
+		}
+	}
+
+
 	@Test
 	public void testEchoReception() {
 
@@ -168,6 +216,10 @@ public class DmMessageProcessorTest {
 		MsgNotifLogs msg = new MsgNotifLogs( "app", "si", map );
 		this.processor.processMessage( msg );
 
+		// Logs are written in the background
+		this.processor.stopProcessor();
+		Assert.assertTrue( this.processor.logsWriter.awaitTermination( 5, TimeUnit.SECONDS ));
+
 		Assert.assertTrue( output.exists());
 		Assert.assertEquals( 2, output.listFiles().length );
 		Assert.assertTrue( new File( output, "karaf.log" ).exists());
@@ -190,10 +242,32 @@ public class DmMessageProcessorTest {
 		MsgNotifLogs msg = new MsgNotifLogs( "app", "si", map );
 		this.processor.processMessage( msg );
 
+		// Logs are written in the background
+		this.processor.stopProcessor();
+		Assert.assertTrue( this.processor.logsWriter.awaitTermination( 5, TimeUnit.SECONDS ));
+
 		Assert.assertFalse( output.exists());
 	}
 
 
+	@Test
+	public void testProcessMsgNotifLogs_afterStop() throws Exception {
+
+		this.processor.tmpDir = this.folder.newFolder().getAbsolutePath();
+		Map<String,byte[]> map = new HashMap<>( 1 );
+		map.put( "karaf.log", new byte[ 0 ]);
+
+		// The queue of logs to write is bounded
+		Assert.assertEquals( DmMessageProcessor.MAX_PENDING_LOGS, this.processor.logsWriter.getQueue().remainingCapacity());
+
+		// Once stopped, logs are not written anymore (and not in the processing thread either)
+		this.processor.stopProcessor();
+		this.processor.processMessage( new MsgNotifLogs( "app", "si", map ));
+		Assert.assertTrue( this.processor.logsWriter.awaitTermination( 5, TimeUnit.SECONDS ));
+		Assert.assertFalse( new File( this.processor.tmpDir, "roboconf-logs/app/si" ).exists());
+	}
+
+
 	@Test
 	public void testProcessMsgNotifInstanceChanged_success() {
 
@@ -250,6 +324,49 @@ public class DmMessageProcessorTest {
 	}
 
 
+	@Test
+	public void testProcessMsgNotifInstancesChanged() throws Exception {
+
+		IDmListener listener = Mockito.mock( IDmListener.class );
+		Mockito.when( listener.getId()).thenReturn( "test" );
+		this.manager.listenerAppears( listener );
+
+		this.app.getMySqlVm().setStatus( InstanceStatus.DEPLOYED_STARTED );
+		this.app.getTomcatVm().setStatus( InstanceStatus.NOT_DEPLOYED );
+
+		MsgNotifInstanceChanged msg1 = new MsgNotifInstanceChanged( this.app.getName(), this.app.getMySql());
+		msg1.setNewStatus( InstanceStatus.DEPLOYED_STARTED );
+
+		MsgNotifInstanceChanged msg2 = new MsgNotifInstanceChanged( this.app.getName(), this.app.getMySqlVm());
+		msg2.setNewStatus( InstanceStatus.STOPPING );
+
+		// The root is not deployed, this change will be dismissed
+		MsgNotifInstanceChanged msg3 = new MsgNotifInstanceChanged( this.app.getName(), this.app.getTomcat());
+		msg3.setNewStatus( InstanceStatus.DEPLOYED_STARTED );
+
+		this.processor.processMessage( new MsgNotifInstancesChanged( this.app.getName(), Arrays.asList( msg1, msg2, msg3 )));
+		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, this.app.getMySql().getStatus());
+		Assert.assertEquals( InstanceStatus.STOPPING, this.app.getMySqlVm().getStatus());
+		Assert.assertEquals( InstanceStatus.NOT_DEPLOYED, this.app.getTomcat().getStatus());
+
+		Mockito.verify( listener ).instance( this.app.getMySql(), this.app, EventType.CHANGED );
+		Mockito.verify( listener ).instance( this.app.getMySqlVm(), this.app, EventType.CHANGED );
+		Mockito.verify( listener, Mockito.never()).instance( this.app.getTomcat(), this.app, EventType.CHANGED );
+	}
+
+
+	@Test
+	public void testProcessMsgNotifInstancesChanged_invalidApplication() {
+
+		this.app.getMySqlVm().setStatus( InstanceStatus.DEPLOYED_STARTED );
+		MsgNotifInstanceChanged msg = new MsgNotifInstanceChanged( "app-53", this.app.getMySqlVm());
+		msg.setNewStatus( InstanceStatus.STOPPING );
+
+		this.processor.processMessage( new MsgNotifInstancesChanged( "app-53", Arrays.asList( msg )));
+		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, this.app.getMySqlVm().getStatus());
+	}
+
+
 	@Test
 	public void testProcessMsgNotifInstanceRemoved_success() {
 
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.internal.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class VersionCounterTest {
+
+	@Test
+	public void testIncrementAndWait() throws Exception {
+
+		final VersionCounter counter = new VersionCounter();
+		Assert.assertEquals( 0, counter.get());
+		Assert.assertEquals( 1, counter.increment());
+		Assert.assertEquals( 1, counter.get());
+
+		// Time-out
+		Assert.assertEquals( 1, counter.waitForChange( 1, 10 ));
+
+		// Already changed
+		Assert.assertEquals( 1, counter.waitForChange( 0, 5000 ));
+
+		// Woken up by another thread
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				counter.increment();
+			}
+		};
+
+		thread.start();
+		Assert.assertEquals( 2, counter.waitForChange( 1, 5000 ));
+		thread.join();
+	}
+}
@@ -168,7 +168,7 @@ public class ManagedApplicationTest {
 		Assert.assertNotNull( time );
 
 		this.app.getMySqlVm().setStatus( InstanceStatus.DEPLOYED_STARTED );
-		this.ma.acknowledgeHeartBeat( this.app.getMySqlVm());
+		Assert.assertFalse( this.ma.acknowledgeHeartBeat( this.app.getMySqlVm()));
 		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, this.app.getMySqlVm().getStatus());
 		Assert.assertNull( this.app.getMySqlVm().data.get( ManagedApplication.MISSED_HEARTBEATS ));
 
@@ -198,9 +198,10 @@ public class ManagedApplicationTest {
 		this.app.getMySqlVm().setStatus( InstanceStatus.DEPLOYED_STARTED );
 		this.ma.checkStates( notificationMngr );
 		Assert.assertEquals( "1", this.app.getMySqlVm().data.get( ManagedApplication.MISSED_HEARTBEATS ));
-		Mockito.verifyZeroInteractions( notificationMngr );
+		Mockito.verify( notificationMngr ).modelChanged( this.app );
+		Mockito.verifyNoMoreInteractions( notificationMngr );
 
-		this.ma.acknowledgeHeartBeat( this.app.getMySqlVm());
+		Assert.assertTrue( this.ma.acknowledgeHeartBeat( this.app.getMySqlVm()));
 		Assert.assertNull( this.app.getMySqlVm().data.get( ManagedApplication.MISSED_HEARTBEATS ));
 
 		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, this.app.getMySqlVm().getStatus());
@@ -219,7 +220,9 @@ public class ManagedApplicationTest {
 		this.app.getMySqlVm().setStatus( InstanceStatus.UNDEPLOYING );
 		this.ma.checkStates( notificationMngr );
 		Assert.assertNull( this.app.getMySqlVm().data.get( ManagedApplication.MISSED_HEARTBEATS ));
-		Mockito.verifyZeroInteractions( notificationMngr );
+		Mockito.verify( notificationMngr ).modelChanged( this.app );
+		Mockito.verifyNoMoreInteractions( notificationMngr );
+		Mockito.reset( notificationMngr );
 
 		this.app.getMySqlVm().setStatus( InstanceStatus.DEPLOYING );
 		this.ma.checkStates( notificationMngr );
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class HistogramTest {
+
+	@Test
+	public void testBuckets() {
+
+		Histogram histogram = new Histogram( new double[] { 0.001, 0.01, 1 });
+		Assert.assertEquals( 0, histogram.getCount());
+		Assert.assertEquals( 0d, histogram.getSum(), 0d );
+		Assert.assertArrayEquals( new long[] { 0, 0, 0, 0 }, histogram.getCumulativeCounts());
+
+		histogram.record( TimeUnit.MICROSECONDS.toNanos( 500 ));
+		histogram.record( TimeUnit.MILLISECONDS.toNanos( 1 ));
+		histogram.record( TimeUnit.MILLISECONDS.toNanos( 5 ));
+		histogram.record( TimeUnit.MILLISECONDS.toNanos( 500 ));
+		histogram.record( TimeUnit.SECONDS.toNanos( 3 ));
+		histogram.record( -5 );
+
+		// Bounds are inclusive
+		Assert.assertArrayEquals( new long[] { 3, 4, 5, 6 }, histogram.getCumulativeCounts());
+		Assert.assertEquals( 6, histogram.getCount());
+		Assert.assertEquals( 3.5065, histogram.getSum(), 0.000001 );
+	}
+
+
+	@Test
+	public void testBoundsAreCopied() {
+
+		double[] bounds = { 1, 2 };
+		Histogram histogram = new Histogram( bounds );
+		bounds[ 0 ] = 5;
+
+		Assert.assertEquals( 1d, histogram.getBounds()[ 0 ], 0d );
+		histogram.getBounds()[ 1 ] = 8;
+		Assert.assertEquals( 2d, histogram.getBounds()[ 1 ], 0d );
+	}
+
+
+	@Test
+	public void testDefaultBounds() {
+
+		Histogram histogram = new Histogram();
+		Assert.assertArrayEquals( Histogram.DEFAULT_BOUNDS, histogram.getBounds(), 0d );
+		Assert.assertEquals( Histogram.DEFAULT_BOUNDS.length + 1, histogram.getCumulativeCounts().length );
+
+		histogram.recordSince( System.nanoTime());
+		Assert.assertEquals( 1, histogram.getCount());
+	}
+
+
+	@Test
+	public void testConcurrentRecording() throws Exception {
+
+		final Histogram histogram = new Histogram();
+		List<Thread> threads = new ArrayList<> ();
+		for( int i=0; i<8; i++ ) {
+			threads.add( new Thread() {
+				@Override
+				public void run() {
+					for( int j=0; j<10000; j++ )
+						histogram.record( j * 1000L );
+				}
+			});
+		}
+
+		for( Thread thread : threads )
+			thread.start();
+
+		for( Thread thread : threads )
+			thread.join();
+
+		Assert.assertEquals( 80000, histogram.getCount());
+		long[] counts = histogram.getCumulativeCounts();
+		Assert.assertEquals( 80000, counts[ counts.length - 1 ]);
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class MetricsRegistryTest {
+
+	@Test
+	public void testHistogramsAreReused() {
+
+		MetricsRegistry registry = new MetricsRegistry();
+		Histogram h1 = registry.histogram( "test_seconds", "help", "type", "a" );
+		Assert.assertSame( h1, registry.histogram( "test_seconds", "help", "type", "a" ));
+		Assert.assertNotSame( h1, registry.histogram( "test_seconds", "help", "type", "b" ));
+		Assert.assertNotSame( h1, registry.histogram( "other_seconds", "help", "type", "a" ));
+
+		Histogram h2 = registry.histogram( "no_label_seconds", "help" );
+		Assert.assertSame( h2, registry.histogram( "no_label_seconds", "help" ));
+	}
+
+
+	@Test
+	public void testEmptyRegistry() {
+		Assert.assertEquals( "", new MetricsRegistry().toPrometheusText());
+	}
+
+
+	@Test
+	public void testTextFormat_histograms() {
+
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.histogram( "test_seconds", "A test\nmetric.", "type", "b" ).record( 20000000L );
+		registry.histogram( "test_seconds", "A test\nmetric.", "type", "a" ).record( 2000000L );
+		registry.histogram( "test_seconds", "A test\nmetric.", "type", "a" ).record( 400000000000L );
+		registry.histogram( "simple_seconds", null ).record( 1000000000L );
+
+		String text = registry.toPrometheusText();
+		String[] lines = text.split( "\n" );
+		int bucketsCount = Histogram.DEFAULT_BOUNDS.length + 1;
+
+		// Metrics are sorted by name, then by label value
+		Assert.assertEquals( "# TYPE simple_seconds histogram", lines[ 0 ]);
+		Assert.assertEquals( "simple_seconds_bucket{le=\"0.5\"} 0", lines[ 8 ]);
+		Assert.assertEquals( "simple_seconds_bucket{le=\"1.0\"} 1", lines[ 9 ]);
+		Assert.assertEquals( "simple_seconds_bucket{le=\"+Inf\"} 1", lines[ bucketsCount ]);
+		Assert.assertEquals( "simple_seconds_sum 1.0", lines[ bucketsCount + 1 ]);
+		Assert.assertEquals( "simple_seconds_count 1", lines[ bucketsCount + 2 ]);
+
+		int index = bucketsCount + 3;
+		Assert.assertEquals( "# HELP test_seconds A test\\nmetric.", lines[ index ++ ]);
+		Assert.assertEquals( "# TYPE test_seconds histogram", lines[ index ++ ]);
+		Assert.assertEquals( "test_seconds_bucket{type=\"a\",le=\"0.001\"} 0", lines[ index ]);
+		Assert.assertEquals( "test_seconds_bucket{type=\"a\",le=\"0.005\"} 1", lines[ index + 1 ]);
+		Assert.assertEquals( "test_seconds_bucket{type=\"a\",le=\"300.0\"} 1", lines[ index + bucketsCount - 2 ]);
+		Assert.assertEquals( "test_seconds_bucket{type=\"a\",le=\"+Inf\"} 2", lines[ index + bucketsCount - 1 ]);
+		Assert.assertEquals( "test_seconds_sum{type=\"a\"} 400.002", lines[ index + bucketsCount ]);
+		Assert.assertEquals( "test_seconds_count{type=\"a\"} 2", lines[ index + bucketsCount + 1 ]);
+
+		index += bucketsCount + 2;
+		Assert.assertEquals( "test_seconds_bucket{type=\"b\",le=\"0.001\"} 0", lines[ index ]);
+		Assert.assertEquals( "test_seconds_count{type=\"b\"} 1", lines[ index + bucketsCount + 1 ]);
+		Assert.assertEquals( index + bucketsCount + 2, lines.length );
+	}
+
+
+	@Test
+	public void testTextFormat_gauges() {
+
+		final AtomicLong value = new AtomicLong( 3 );
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.registerGauge( "test_depth", "Depth.", new Gauge() {
+			@Override
+			public long getValue() {
+				return value.get();
+			}
+		});
+
+		Assert.assertEquals( "# HELP test_depth Depth.\n# TYPE test_depth gauge\ntest_depth 3\n", registry.toPrometheusText());
+
+		// Gauges are read at export time
+		value.set( 7 );
+		Assert.assertEquals( "# HELP test_depth Depth.\n# TYPE test_depth gauge\ntest_depth 7\n", registry.toPrometheusText());
+
+		registry.unregisterGauge( "test_depth" );
+		Assert.assertEquals( "", registry.toPrometheusText());
+	}
+
+
+	@Test
+	public void testEscapeLabelValue() {
+
+		Assert.assertEquals( "route", MetricsRegistry.escapeLabelValue( "route" ));
+		Assert.assertEquals( "a\\\"b\\\\c\\nd", MetricsRegistry.escapeLabelValue( "a\"b\\c\nd" ));
+
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.histogram( "test_seconds", null, "route", "GET /a\"b" ).record( 1 );
+		Assert.assertTrue( registry.toPrometheusText().contains( "test_seconds_count{route=\"GET /a\\\"b\"} 1\n" ));
+	}
+}
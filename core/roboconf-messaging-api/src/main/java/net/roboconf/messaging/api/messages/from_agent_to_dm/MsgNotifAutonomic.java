@@ -38,6 +38,7 @@ public class MsgNotifAutonomic extends AbstractMsgNotif {
 
 	private static final long serialVersionUID = -8930645802175790064L;
 	private final String eventName, eventInfo;
+	private final int occurrences;
 
 
 	/**
@@ -48,9 +49,22 @@ public class MsgNotifAutonomic extends AbstractMsgNotif {
 	 * @param eventInfo info about the event (e.g. result of Nagios Livestatus query)
 	 */
 	public MsgNotifAutonomic( String applicationName, String scopedInstancePath, String eventName, String eventInfo ) {
+		this( applicationName, scopedInstancePath, eventName, eventInfo, 1 );
+	}
+
+	/**
+	 * Constructor for aggregated events.
+	 * @param applicationName the application name
+	 * @param scopedInstancePath the scoped instance's path
+	 * @param eventId the event ID
+	 * @param eventInfo info about the last occurrence of the event
+	 * @param occurrences the number of times the event occurred
+	 */
+	public MsgNotifAutonomic( String applicationName, String scopedInstancePath, String eventName, String eventInfo, int occurrences ) {
 		super( applicationName, scopedInstancePath );
 		this.eventInfo = eventInfo;
 		this.eventName = eventName;
+		this.occurrences = occurrences;
 	}
 
 	/**
@@ -66,4 +80,12 @@ public class MsgNotifAutonomic extends AbstractMsgNotif {
 	public String getEventInfo() {
 		return this.eventInfo;
 	}
+
+	/**
+	 * @return the number of times the event occurred since the last notification (at least 1)
+	 */
+	public int getOccurrences() {
+		// Messages serialized by older agents do not have this field
+		return Math.max( 1, this.occurrences );
+	}
 }
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.messaging.api.messages.from_agent_to_dm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Several monitoring events sent at once by a same agent.
+ * <p>
+ * Events are listed in the order they occurred.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class MsgNotifAutonomicEvents extends AbstractMsgNotif {
+
+	private static final long serialVersionUID = 4519627380231698531L;
+	private final List<MsgNotifAutonomic> events;
+
+
+	/**
+	 * Constructor.
+	 * @param applicationName the application name
+	 * @param scopedInstancePath the scoped instance's path
+	 * @param events the events (not null)
+	 */
+	public MsgNotifAutonomicEvents( String applicationName, String scopedInstancePath, Collection<MsgNotifAutonomic> events ) {
+		super( applicationName, scopedInstancePath );
+		this.events = new ArrayList<>( events );
+	}
+
+	/**
+	 * @return the events (not null)
+	 */
+	public List<MsgNotifAutonomic> getEvents() {
+		return Collections.unmodifiableList( this.events );
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.messaging.api.messages.from_agent_to_dm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import net.roboconf.messaging.api.messages.Message;
+
+/**
+ * Several instance changes sent at once.
+ * <p>
+ * Changes are listed in the order they were made.
+ * There is at most one change per instance.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class MsgNotifInstancesChanged extends Message {
+
+	private static final long serialVersionUID = -1707651268853307812L;
+
+	private final String applicationName;
+	private final List<MsgNotifInstanceChanged> changes;
+
+
+	/**
+	 * Constructor.
+	 * @param applicationName the application name
+	 * @param changes the instance changes (not null)
+	 */
+	public MsgNotifInstancesChanged( String applicationName, Collection<MsgNotifInstanceChanged> changes ) {
+		super();
+		this.applicationName = applicationName;
+		this.changes = new ArrayList<>( changes );
+	}
+
+	/**
+	 * @return the applicationName
+	 */
+	public String getApplicationName() {
+		return this.applicationName;
+	}
+
+	/**
+	 * @return the changes (not null)
+	 */
+	public List<MsgNotifInstanceChanged> getChanges() {
+		return Collections.unmodifiableList( this.changes );
+	}
+}
@@ -29,9 +29,83 @@ import net.roboconf.messaging.api.messages.Message;
 
 /**
  * A message that indicates to an agent it must sends its logs.
+ * <p>
+ * Limits can be specified to reduce the amount of data to transfer.
+ * By default, there is no time limit and agents send the end of log files, within a default size limit.
+ * </p>
+ *
  * @author Vincent Zurczak - Linagora
  */
 public class MsgCmdGatherLogs extends Message {
 
 	private static final long serialVersionUID = -97111826628551779L;
+
+	private final long maxBytesPerFile, since, until;
+	private final boolean tail, compressed;
+
+
+	/**
+	 * Constructor (default size limit, no time limit, no compression).
+	 */
+	public MsgCmdGatherLogs() {
+		this( 0, false, 0, 0, false );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param maxBytesPerFile the maximum number of bytes to send per log file (0 for the agent's default limit)
+	 * @param tail true to keep the end of a log file that exceeds the limit, false to keep its beginning
+	 * @param since only log entries written from this date will be sent (in ms since the epoch, 0 for no limit)
+	 * @param until only log entries written until this date will be sent (in ms since the epoch, 0 for no limit)
+	 * @param compressed true to compress log files (GZip)
+	 */
+	public MsgCmdGatherLogs( long maxBytesPerFile, boolean tail, long since, long until, boolean compressed ) {
+		super();
+		this.maxBytesPerFile = maxBytesPerFile;
+		this.tail = tail;
+		this.since = since;
+		this.until = until;
+		this.compressed = compressed;
+	}
+
+
+	/**
+	 * @return the maximum number of bytes to send per log file (0 for the agent's default limit)
+	 */
+	public long getMaxBytesPerFile() {
+		return this.maxBytesPerFile;
+	}
+
+
+	/**
+	 * @return true to keep the end of a log file that exceeds the limit, false to keep its beginning
+	 */
+	public boolean isTail() {
+		return this.tail;
+	}
+
+
+	/**
+	 * @return the date from which log entries should be sent (in ms since the epoch, 0 for no limit)
+	 */
+	public long getSince() {
+		return this.since;
+	}
+
+
+	/**
+	 * @return the date until which log entries should be sent (in ms since the epoch, 0 for no limit)
+	 */
+	public long getUntil() {
+		return this.until;
+	}
+
+
+	/**
+	 * @return true if log files should be compressed
+	 */
+	public boolean isCompressed() {
+		return this.compressed;
+	}
 }
@@ -47,9 +47,11 @@ import net.roboconf.messaging.api.messages.from_agent_to_agent.MsgCmdAddImport;
 import net.roboconf.messaging.api.messages.from_agent_to_agent.MsgCmdRemoveImport;
 import net.roboconf.messaging.api.messages.from_agent_to_agent.MsgCmdRequestImport;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomic;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifAutonomicEvents;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifHeartbeat;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceChanged;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstanceRemoved;
+import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifInstancesChanged;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifLogs;
 import net.roboconf.messaging.api.messages.from_agent_to_dm.MsgNotifMachineDown;
 import net.roboconf.messaging.api.messages.from_dm_to_agent.MsgCmdAddInstance;
@@ -87,6 +89,31 @@ public class SerializationUtilsTest {
 
 		MsgNotifAutonomic msg = new MsgNotifAutonomic( "app1", "instance1", "too high", "oops" );
 		checkBasics( msg, MsgNotifAutonomic.class );
+
+		msg = new MsgNotifAutonomic( "app1", "instance1", "too high", "oops", 5 );
+		checkBasics( msg, MsgNotifAutonomic.class );
+	}
+
+
+	@Test
+	public void testMessage_autonomicEvents() throws Exception {
+
+		MsgNotifAutonomicEvents msg = new MsgNotifAutonomicEvents( "app1", "/vm", Arrays.asList(
+				new MsgNotifAutonomic( "app1", "/vm", "too high", "oops" ),
+				new MsgNotifAutonomic( "app1", "/vm", "too low", "ouch", 4 )));
+
+		// Nested messages do not override equals(), so we cannot use checkBasics()
+		byte[] bytes = SerializationUtils.serializeObject( msg );
+		MsgNotifAutonomicEvents newMsg = (MsgNotifAutonomicEvents) SerializationUtils.deserializeObject( bytes );
+
+		Assert.assertEquals( "app1", newMsg.getApplicationName());
+		Assert.assertEquals( "/vm", newMsg.getScopedInstancePath());
+		Assert.assertEquals( 2, newMsg.getEvents().size());
+		Assert.assertEquals( "too high", newMsg.getEvents().get( 0 ).getEventName());
+		Assert.assertEquals( 1, newMsg.getEvents().get( 0 ).getOccurrences());
+		Assert.assertEquals( "too low", newMsg.getEvents().get( 1 ).getEventName());
+		Assert.assertEquals( "ouch", newMsg.getEvents().get( 1 ).getEventInfo());
+		Assert.assertEquals( 4, newMsg.getEvents().get( 1 ).getOccurrences());
 	}
 
 
@@ -123,6 +150,28 @@ public class SerializationUtilsTest {
 	}
 
 
+	@Test
+	public void testMessage_instancesChanged() throws Exception {
+
+		Instance instance2 = new Instance( "instance2" );
+		instance2.setStatus( InstanceStatus.DEPLOYED_STARTED );
+		MsgNotifInstancesChanged msg = new MsgNotifInstancesChanged( "app2", Arrays.asList(
+				new MsgNotifInstanceChanged( "app2", new Instance( "instance1" )),
+				new MsgNotifInstanceChanged( "app2", instance2 )));
+
+		// Nested messages do not override equals(), so we cannot use checkBasics()
+		byte[] bytes = SerializationUtils.serializeObject( msg );
+		MsgNotifInstancesChanged newMsg = (MsgNotifInstancesChanged) SerializationUtils.deserializeObject( bytes );
+
+		Assert.assertEquals( "app2", newMsg.getApplicationName());
+		Assert.assertEquals( 2, newMsg.getChanges().size());
+		Assert.assertEquals( "/instance1", newMsg.getChanges().get( 0 ).getInstancePath());
+		Assert.assertEquals( InstanceStatus.NOT_DEPLOYED, newMsg.getChanges().get( 0 ).getNewStatus());
+		Assert.assertEquals( "/instance2", newMsg.getChanges().get( 1 ).getInstancePath());
+		Assert.assertEquals( InstanceStatus.DEPLOYED_STARTED, newMsg.getChanges().get( 1 ).getNewStatus());
+	}
+
+
 	@Test
 	public void testMessage_instanceRemoved() throws Exception {
 
@@ -206,6 +255,11 @@ public class SerializationUtilsTest {
 
 		MsgCmdGatherLogs msg = new MsgCmdGatherLogs();
 		checkBasics( msg, MsgCmdGatherLogs.class );
+
+		msg = new MsgCmdGatherLogs( 1024, true, 1000, 2000, true );
+		MsgCmdGatherLogs newMsg = checkBasics( msg, MsgCmdGatherLogs.class );
+		Assert.assertTrue( newMsg.isTail());
+		Assert.assertTrue( newMsg.isCompressed());
 	}
 
 
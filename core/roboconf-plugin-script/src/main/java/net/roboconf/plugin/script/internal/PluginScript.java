@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import net.roboconf.core.model.beans.Import;
@@ -72,6 +73,7 @@ public class PluginScript implements PluginInterface {
 	private static final String SCRIPTS_FOLDER_NAME = "scripts";
 	private static final String TEMPLATES_FOLDER_NAME = "roboconf-templates";
 	private static final String FILES_FOLDER_NAME = "files";
+	static final String GENERATED_SCRIPT_NAME = "roboconf-generated.script";
 
 	private final Logger logger = Logger.getLogger( getClass().getName());
 	String agentId;
@@ -163,6 +165,9 @@ public class PluginScript implements PluginInterface {
 
 		} catch( Exception e ) {
 			throw new PluginException( e );
+
+		} finally {
+			InstanceTemplateHelper.clearCache( instance );
 		}
 	}
 
@@ -196,8 +201,12 @@ public class PluginScript implements PluginInterface {
 
 		} else if (template.exists()) {
 			File generated = generateTemplate(template, instance);
-			executeScript(generated, instance, importChanged, statusChanged, instanceDirectory.getAbsolutePath());
-			Utils.deleteFilesRecursively( generated );
+			try {
+				executeScript(generated, instance, importChanged, statusChanged, instanceDirectory.getAbsolutePath());
+
+			} finally {
+				Utils.deleteFilesRecursively( generated );
+			}
 
 		} else {
 			this.logger.warning("Can not find a script or a template for action " + action);
@@ -207,6 +216,12 @@ public class PluginScript implements PluginInterface {
 
 	/**
 	 * Generates a file from the template and the instance.
+	 * <p>
+	 * The file is generated in the instance's directory and it is deleted
+	 * once it was executed. Compiled templates are cached by {@link InstanceTemplateHelper},
+	 * until the instance is undeployed.
+	 * </p>
+	 *
 	 * @param template
 	 * @param instance
 	 * @return the generated file
@@ -214,9 +229,13 @@ public class PluginScript implements PluginInterface {
 	 */
 	protected File generateTemplate(File template, Instance instance) throws IOException {
 
-		String scriptName = instance.getName().replace( "\\s+", "_" );
-		File generated = File.createTempFile( scriptName, ".script");
+		File instanceDirectory = InstanceHelpers.findInstanceDirectoryOnAgent( instance );
+		File generated = new File( instanceDirectory, GENERATED_SCRIPT_NAME );
+
+		long before = System.nanoTime();
 		InstanceTemplateHelper.injectInstanceImports(instance, template, generated);
+		long renderingTime = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - before );
+		this.logger.fine( "Template " + template.getName() + " was rendered for instance " + instance + " in " + renderingTime + " ms." );
 
 		return generated;
 	}
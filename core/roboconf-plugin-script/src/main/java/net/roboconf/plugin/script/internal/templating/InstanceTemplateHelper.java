@@ -32,12 +32,15 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheFactory;
 
 import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.helpers.InstanceHelpers;
 import net.roboconf.core.utils.Utils;
 
 /**
@@ -46,6 +49,9 @@ import net.roboconf.core.utils.Utils;
  */
 public final class InstanceTemplateHelper {
 
+	// Compiled templates, indexed by instance path and then by absolute path
+	private static final ConcurrentMap<String,ConcurrentMap<String,CompiledTemplate>> CACHE = new ConcurrentHashMap<> ();
+
 	/**
 	 * Private constructor.
 	 */
@@ -68,12 +74,87 @@ public final class InstanceTemplateHelper {
 	public static void injectInstanceImports(Instance instance, File templateFile, Writer writer)
 	throws IOException {
 
-		MustacheFactory mf = new DefaultMustacheFactory( templateFile.getParentFile());
-		Mustache mustache = mf.compile( templateFile.getName());
+		Mustache mustache = compile( InstanceHelpers.computeInstancePath( instance ), templateFile );
 		mustache.execute(writer, new InstanceBean( instance )).flush();
 	}
 
 
+	/**
+	 * Finds or compiles a template.
+	 * <p>
+	 * Compiled templates are cached for the instance, until {@link #clearCache(Instance)}
+	 * is invoked. A template is compiled again when its file was modified (last
+	 * modification date or size).
+	 * </p>
+	 *
+	 * @param instancePath the path of the instance the template is used for
+	 * @param templateFile the template file
+	 * @return a compiled template (never null)
+	 */
+	static Mustache compile( String instancePath, File templateFile ) {
+
+		ConcurrentMap<String,CompiledTemplate> instanceCache = CACHE.get( instancePath );
+		if( instanceCache == null ) {
+			ConcurrentMap<String,CompiledTemplate> newCache = new ConcurrentHashMap<> ();
+			instanceCache = CACHE.putIfAbsent( instancePath, newCache );
+			if( instanceCache == null )
+				instanceCache = newCache;
+		}
+
+		String key = templateFile.getAbsolutePath();
+		long lastModified = templateFile.lastModified();
+		long length = templateFile.length();
+
+		CompiledTemplate compiledTemplate = instanceCache.get( key );
+		if( compiledTemplate == null
+				|| compiledTemplate.lastModified != lastModified
+				|| compiledTemplate.length != length ) {
+
+			// Mustache factories cache compiled templates by name:
+			// a new factory is required to take modifications into account.
+			MustacheFactory mf = new DefaultMustacheFactory( templateFile.getParentFile());
+			compiledTemplate = new CompiledTemplate( mf.compile( templateFile.getName()), lastModified, length );
+			instanceCache.put( key, compiledTemplate );
+		}
+
+		return compiledTemplate.mustache;
+	}
+
+
+	/**
+	 * Removes all the compiled templates from the cache.
+	 */
+	public static void clearCache() {
+		CACHE.clear();
+	}
+
+
+	/**
+	 * Removes the compiled templates of an instance from the cache.
+	 * <p>
+	 * It should be invoked when an instance is undeployed.
+	 * </p>
+	 *
+	 * @param instance an instance
+	 */
+	public static void clearCache( Instance instance ) {
+		CACHE.remove( InstanceHelpers.computeInstancePath( instance ));
+	}
+
+
+	/**
+	 * @return the number of compiled templates in the cache
+	 */
+	public static int cacheSize() {
+
+		int result = 0;
+		for( ConcurrentMap<String,CompiledTemplate> instanceCache : CACHE.values())
+			result += instanceCache.size();
+
+		return result;
+	}
+
+
 	/**
 	 * Reads the import values of the instances and injects them into the template file.
 	 * <p>
@@ -132,4 +213,20 @@ public final class InstanceTemplateHelper {
 	throws IOException {
 		injectInstanceImports( instance, templateFile.getAbsolutePath(), out );
 	}
+
+
+	/**
+	 * A compiled template.
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class CompiledTemplate {
+		final Mustache mustache;
+		final long lastModified, length;
+
+		CompiledTemplate( Mustache mustache, long lastModified, long length ) {
+			this.mustache = mustache;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+	}
 }
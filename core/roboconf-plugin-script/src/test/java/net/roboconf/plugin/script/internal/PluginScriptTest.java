@@ -31,15 +31,20 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import net.roboconf.agent.internal.PluginProxy;
 import net.roboconf.core.internal.tests.TestUtils;
 import net.roboconf.core.model.beans.Component;
 import net.roboconf.core.model.beans.Import;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.utils.ProgramUtils;
+import net.roboconf.core.utils.ProgramUtils.ExecutionOptions;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.plugin.api.PluginException;
+import net.roboconf.plugin.script.internal.templating.InstanceTemplateHelper;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -69,6 +74,7 @@ public class PluginScriptTest {
 	public void resetPlugin() throws Exception {
 
 		// New plugin instance
+		InstanceTemplateHelper.clearCache();
 		this.plugin = new PluginScript();
 		this.plugin.setNames( "app", "test" );
 
@@ -148,6 +154,32 @@ public class PluginScriptTest {
 	}
 
 
+	@Test
+	public void testDeploy_killedAfterTheAgentTimeout() throws Exception {
+
+		Assume.assumeTrue( isLinuxSystem());
+		copyResources( "/BashScriptSlow" );
+
+		// The agent passes its execution options through the proxy
+		ExecutionOptions options = new ExecutionOptions().timeout( 1000 ).killGracePeriod( 500 );
+		PluginProxy proxy = new PluginProxy( this.plugin, options );
+
+		long before = System.nanoTime();
+		try {
+			proxy.deploy( this.inst );
+			Assert.fail( "A plug-in exception was expected." );
+
+		} catch( PluginException e ) {
+			// nothing
+		}
+
+		// The script sleeps for 60 seconds
+		long duration = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - before );
+		Assert.assertTrue( "Duration: " + duration, duration < 20000 );
+		Assert.assertNull( ProgramUtils.setThreadOptions( null ));
+	}
+
+
 	@Test
 	public void testDeploy_template() throws Exception {
 
@@ -263,6 +295,34 @@ public class PluginScriptTest {
 		Assert.assertFalse( file.exists());
 		this.plugin.undeploy( this.inst );
 		assertTrue( file.exists());
+
+		// The working file is deleted once the instance is undeployed
+		Assert.assertFalse( new File( this.instanceDirectory, PluginScript.GENERATED_SCRIPT_NAME ).exists());
+	}
+
+
+	@Test
+	public void testTemplates_workingFileIsDeleted() throws Exception {
+
+		Assume.assumeTrue( isLinuxSystem());
+		copyResources( "/BashTemplate" );
+
+		File generated = new File( this.instanceDirectory, PluginScript.GENERATED_SCRIPT_NAME );
+		Assert.assertFalse( generated.exists());
+
+		this.plugin.deploy( this.inst );
+		Assert.assertFalse( generated.exists());
+		Assert.assertTrue( new File( OUTPUT_DIR, "BashTemplateFile.deploy" ).exists());
+		Assert.assertEquals( 1, InstanceTemplateHelper.cacheSize());
+
+		this.plugin.start( this.inst );
+		Assert.assertFalse( generated.exists());
+		Assert.assertTrue( new File( OUTPUT_DIR, "BashTemplateFile.start" ).exists());
+
+		// Compiled templates are dropped once the instance is undeployed
+		this.plugin.undeploy( this.inst );
+		Assert.assertFalse( generated.exists());
+		Assert.assertEquals( 0, InstanceTemplateHelper.cacheSize());
 	}
 
 
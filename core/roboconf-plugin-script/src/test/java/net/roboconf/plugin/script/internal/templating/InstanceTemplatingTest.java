@@ -34,7 +34,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
@@ -51,6 +53,10 @@ import net.roboconf.core.utils.Utils;
  */
 public class InstanceTemplatingTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
 	@Test
 	public void testImportTemplate() throws Exception {
 
@@ -112,4 +118,43 @@ public class InstanceTemplatingTest {
 		Assert.assertTrue(generated.exists() && generated.isFile());
 		Assert.assertEquals( Utils.readFileContent( generated ), writtenString);
 	}
+
+
+	@Test
+	public void testCompiledTemplatesAreCached() throws Exception {
+
+		InstanceTemplateHelper.clearCache();
+		Assert.assertEquals( 0, InstanceTemplateHelper.cacheSize());
+
+		File templateFile = this.folder.newFile( "test.mustache" );
+		Utils.writeStringInto( "Hello{{#importLists}} {{prefix}}{{/importLists}}!", templateFile );
+
+		Mustache m1 = InstanceTemplateHelper.compile( "/inst", templateFile );
+		Mustache m2 = InstanceTemplateHelper.compile( "/inst", templateFile );
+		Assert.assertSame( m1, m2 );
+		Assert.assertEquals( 1, InstanceTemplateHelper.cacheSize());
+
+		StringWriter writer = new StringWriter();
+		InstanceTemplateHelper.injectInstanceImports( new Instance( "inst" ), templateFile, writer );
+		Assert.assertEquals( "Hello!", writer.toString());
+
+		// Modify the template: it must be compiled again
+		Utils.writeStringInto( "Bye{{#importLists}} {{prefix}}{{/importLists}}!", templateFile );
+		Assert.assertTrue( templateFile.setLastModified( templateFile.lastModified() - 10000 ));
+
+		Mustache m3 = InstanceTemplateHelper.compile( "/inst", templateFile );
+		Assert.assertNotSame( m1, m3 );
+		Assert.assertEquals( 1, InstanceTemplateHelper.cacheSize());
+
+		writer = new StringWriter();
+		InstanceTemplateHelper.injectInstanceImports( new Instance( "inst" ), templateFile, writer );
+		Assert.assertEquals( "Bye!", writer.toString());
+
+		// Clearing the cache of another instance has no effect
+		InstanceTemplateHelper.clearCache( new Instance( "other" ));
+		Assert.assertEquals( 1, InstanceTemplateHelper.cacheSize());
+
+		InstanceTemplateHelper.clearCache( new Instance( "inst" ));
+		Assert.assertEquals( 0, InstanceTemplateHelper.cacheSize());
+	}
 }
@@ -110,10 +110,13 @@ public class CancelRecipeCommand implements Action {
 		if(Utils.isEmptyOrWhitespaces(scopedInstancePath)) scopedInstancePath = "";
 
 		this.out.println("looking up [" + applicationName + "] [" + scopedInstancePath + "]");
-		Process p = ProcessStore.getProcess(applicationName, scopedInstancePath);
-		if(p != null) {
-			p.destroy();
-			ProcessStore.clearProcess(applicationName, scopedInstancePath);
+		List<Process> processes = ProcessStore.getProcesses(applicationName, scopedInstancePath);
+		if(! processes.isEmpty()) {
+			for(Process p : processes) {
+				p.destroy();
+				ProcessStore.clearProcess(applicationName, scopedInstancePath, p);
+			}
+
 			this.out.println("Recipe cancelled !");
 		} else {
 			this.out.println("No running recipe to cancel.");
@@ -27,6 +27,7 @@ package net.roboconf.karaf.commands.dm.logs;
 
 import java.io.File;
 import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,6 +35,7 @@ import org.apache.karaf.shell.api.action.Action;
 import org.apache.karaf.shell.api.action.Argument;
 import org.apache.karaf.shell.api.action.Command;
 import org.apache.karaf.shell.api.action.Completion;
+import org.apache.karaf.shell.api.action.Option;
 import org.apache.karaf.shell.api.action.lifecycle.Reference;
 import org.apache.karaf.shell.api.action.lifecycle.Service;
 
@@ -61,6 +63,18 @@ public class GatherLogsCommand implements Action {
 	@Completion( ScopedInstanceCompleter.class )
 	String scopedInstancePath;
 
+	@Option( name = "--max-size", description = "The maximum size of a log file to retrieve, in KB (0 for no limit)" )
+	long maxSizeInKb = 0;
+
+	@Option( name = "--tail", description = "Retrieve the end of log files instead of their beginning when they exceed the maximum size" )
+	boolean tail = false;
+
+	@Option( name = "--since", description = "Only retrieve the log entries written during the last given minutes (0 for no limit)" )
+	long sinceMinutes = 0;
+
+	@Option( name = "--compress", description = "Compress the log files before sending them (GZip)" )
+	boolean compress = false;
+
 	@Reference
 	Manager manager;
 
@@ -76,6 +90,7 @@ public class GatherLogsCommand implements Action {
 		RbcfInfo info = KarafDmCommandsUtils.findInstances( this.manager, this.applicationName, this.scopedInstancePath, this.out );
 
 		// Send messages
+		long since = this.sinceMinutes > 0 ? System.currentTimeMillis() - TimeUnit.MINUTES.toMillis( this.sinceMinutes ) : 0;
 		for( Instance inst : info.getScopedInstances()) {
 
 			if( inst.getStatus() == InstanceStatus.NOT_DEPLOYED ) {
@@ -95,7 +110,7 @@ public class GatherLogsCommand implements Action {
 				this.logger.fine( sb.toString());
 			}
 
-			MsgCmdGatherLogs message = new MsgCmdGatherLogs();
+			MsgCmdGatherLogs message = new MsgCmdGatherLogs( this.maxSizeInKb * 1024, this.tail, since, 0, this.compress );
 			this.manager.messagingMngr().sendMessageSafely( info.getManagedApplication(), inst, message );
 		}
 
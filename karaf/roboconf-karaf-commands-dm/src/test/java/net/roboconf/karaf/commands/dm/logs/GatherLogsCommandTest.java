@@ -229,4 +229,38 @@ public class GatherLogsCommandTest {
 		Assert.assertTrue( s.contains( "On reception" ));
 		Assert.assertTrue( s.endsWith( "/roboconf-logs..." ));
 	}
+
+
+	@Test
+	public void testExecute_valid_withLimits() throws Exception {
+
+		this.gl.applicationName = this.app.getName();
+		this.gl.scopedInstancePath = InstanceHelpers.computeInstancePath( this.app.getTomcatVm());
+		this.app.getTomcatVm().setStatus( InstanceStatus.DEPLOYED_STARTED );
+
+		this.gl.maxSizeInKb = 2;
+		this.gl.tail = true;
+		this.gl.sinceMinutes = 10;
+		this.gl.compress = true;
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		this.gl.out = new PrintStream( os, true, "UTF-8" );
+
+		long before = System.currentTimeMillis();
+		this.gl.execute();
+
+		ArgumentCaptor<Message> msg = ArgumentCaptor.forClass( Message.class );
+		Mockito.verify( this.messagingMngr, Mockito.times( 1 )).sendMessageSafely(
+				Mockito.eq( this.ma ),
+				Mockito.eq( this.app.getTomcatVm()),
+				msg.capture());
+
+		MsgCmdGatherLogs sentMsg = (MsgCmdGatherLogs) msg.getValue();
+		Assert.assertEquals( 2048, sentMsg.getMaxBytesPerFile());
+		Assert.assertTrue( sentMsg.isTail());
+		Assert.assertTrue( sentMsg.isCompressed());
+		Assert.assertEquals( 0, sentMsg.getUntil());
+		Assert.assertTrue( sentMsg.getSince() <= before - 10 * 60 * 1000 + 1000 );
+		Assert.assertTrue( sentMsg.getSince() >= before - 10 * 60 * 1000 );
+	}
 }
@@ -25,6 +25,12 @@
 
 package net.roboconf.dm.rest.client;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.ws.rs.core.Cookie;
 
 import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
@@ -34,6 +40,9 @@ import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 
 import net.roboconf.dm.rest.client.delegates.ApplicationWsDelegate;
+import net.roboconf.dm.rest.client.delegates.AsyncApplicationWsDelegate;
+import net.roboconf.dm.rest.client.delegates.AsyncManagementWsDelegate;
+import net.roboconf.dm.rest.client.delegates.AsyncTargetWsDelegate;
 import net.roboconf.dm.rest.client.delegates.AuthenticationWsDelegate;
 import net.roboconf.dm.rest.client.delegates.DebugWsDelegate;
 import net.roboconf.dm.rest.client.delegates.ManagementWsDelegate;
@@ -73,6 +82,16 @@ import net.roboconf.dm.rest.commons.json.ObjectMapperProvider;
  * The second log entry either logs the response code (success), or logs the response
  * code and the response message (error in the result).
  * </p>
+ * <p>
+ * About concurrency...<br>
+ * The client can be shared by several threads. Asynchronous variants of some delegates
+ * run requests on a pool of threads, whose size is set when the client is created. At most
+ * {@value #MAX_PENDING_REQUESTS} requests can wait for a thread. Beyond this limit, asynchronous
+ * methods throw a {@link java.util.concurrent.RejectedExecutionException}. Requests
+ * rely on HTTP connections that the JVM keeps alive and reuses. By default, the JVM only keeps
+ * 5 idle connections per server (see the <code>http.maxConnections</code> system property). Using
+ * a bigger pool is possible, but this property should then be updated accordingly.
+ * </p>
  *
  * @author Vincent Zurczak - Linagora
  */
@@ -86,8 +105,21 @@ public class WsClient {
 	private final PreferencesWsDelegate preferencesWsDelegate;
 	private final AuthenticationWsDelegate authenticationWsDelegate;
 
+	private final AsyncApplicationWsDelegate asyncApplicationDelegate;
+	private final AsyncManagementWsDelegate asyncManagementDelegate;
+	private final AsyncTargetWsDelegate asyncTargetWsDelegate;
+
+	public static final int DEFAULT_POOL_SIZE = 5;
+	public static final int DEFAULT_CONNECT_TIMEOUT = 30000;
+	public static final int DEFAULT_READ_TIMEOUT = 0;
+	public static final int MAX_PENDING_REQUESTS = 100;
+	public static final long DESTROY_TIMEOUT = 30000;
+
 	private final Client client;
-	private String sessionId;
+	private final WebResource resource;
+	final ThreadPoolExecutor executor;
+	private volatile String sessionId;
+	private int connectTimeout, readTimeout;
 
 
 	/**
@@ -95,6 +127,16 @@ public class WsClient {
 	 * @param rootUrl the root URL (example: http://192.168.1.18:9007/dm/)
 	 */
 	public WsClient( String rootUrl ) {
+		this( rootUrl, DEFAULT_POOL_SIZE );
+	}
+
+
+	/**
+	 * Constructor.
+	 * @param rootUrl the root URL (example: http://192.168.1.18:9007/dm/)
+	 * @param poolSize the maximum number of asynchronous requests to run in parallel (at least 1)
+	 */
+	public WsClient( String rootUrl, int poolSize ) {
 
 		ClientConfig cc = new DefaultClientConfig();
 		cc.getClasses().add( JacksonJsonProvider.class );
@@ -102,23 +144,108 @@ public class WsClient {
 
 		this.client = Client.create( cc );
 		this.client.setFollowRedirects( true );
+		this.resource = this.client.resource( rootUrl );
+		setConnectTimeout( DEFAULT_CONNECT_TIMEOUT );
+		setReadTimeout( DEFAULT_READ_TIMEOUT );
 
-		WebResource resource = this.client.resource( rootUrl );
-		this.applicationDelegate = new ApplicationWsDelegate( resource, this );
-		this.managementDelegate = new ManagementWsDelegate( resource, this );
-		this.debugDelegate = new DebugWsDelegate( resource, this );
-		this.targetWsDelegate = new TargetWsDelegate( resource, this );
-		this.schedulerDelegate = new SchedulerWsDelegate( resource, this );
-		this.preferencesWsDelegate = new PreferencesWsDelegate( resource, this );
-		this.authenticationWsDelegate = new AuthenticationWsDelegate( resource, this );
+		// Threads are only created when asynchronous requests are sent
+		int size = Math.max( 1, poolSize );
+		this.executor = new ThreadPoolExecutor(
+				size, size, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>( MAX_PENDING_REQUESTS ),
+				new WsClientThreadFactory());
+
+		this.executor.allowCoreThreadTimeOut( true );
+		this.client.setExecutorService( this.executor );
+
+		this.applicationDelegate = new ApplicationWsDelegate( this.resource, this );
+		this.managementDelegate = new ManagementWsDelegate( this.resource, this );
+		this.debugDelegate = new DebugWsDelegate( this.resource, this );
+		this.targetWsDelegate = new TargetWsDelegate( this.resource, this );
+		this.schedulerDelegate = new SchedulerWsDelegate( this.resource, this );
+		this.preferencesWsDelegate = new PreferencesWsDelegate( this.resource, this );
+		this.authenticationWsDelegate = new AuthenticationWsDelegate( this.resource, this );
+
+		this.asyncApplicationDelegate = new AsyncApplicationWsDelegate( this.applicationDelegate, this.executor );
+		this.asyncManagementDelegate = new AsyncManagementWsDelegate( this.managementDelegate, this.executor );
+		this.asyncTargetWsDelegate = new AsyncTargetWsDelegate( this.targetWsDelegate, this.executor );
 	}
 
 
 	/**
 	 * Force the destruction of the JAX-RS client.
+	 * <p>
+	 * Pending asynchronous requests are given {@value #DESTROY_TIMEOUT} milliseconds
+	 * to complete. The ones that are still running after that are interrupted.
+	 * </p>
 	 */
 	public void destroy() {
-		this.client.destroy();
+
+		this.executor.shutdown();
+		try {
+			if( ! this.executor.awaitTermination( DESTROY_TIMEOUT, TimeUnit.MILLISECONDS ))
+				this.executor.shutdownNow();
+
+		} catch( InterruptedException e ) {
+			this.executor.shutdownNow();
+			Thread.currentThread().interrupt();
+
+		} finally {
+			this.client.destroy();
+		}
+	}
+
+
+	/**
+	 * Sets the maximum time to wait for a connection to be established.
+	 * @param connectTimeout a time-out, in milliseconds (0 to wait indefinitely)
+	 */
+	public void setConnectTimeout( int connectTimeout ) {
+		this.connectTimeout = connectTimeout;
+		this.client.setConnectTimeout( connectTimeout );
+
+		// Web resources copy the client's properties when they are created
+		this.resource.setProperty( ClientConfig.PROPERTY_CONNECT_TIMEOUT, connectTimeout );
+	}
+
+
+	/**
+	 * @return the maximum time to wait for a connection to be established (in milliseconds, 0 means infinite)
+	 */
+	public int getConnectTimeout() {
+		return this.connectTimeout;
+	}
+
+
+	/**
+	 * Sets the maximum time to wait for data once a connection was established.
+	 * <p>
+	 * By default, there is no read time-out, as some operations (e.g. deployments
+	 * or long-polling requests) may take a while before the DM answers.
+	 * </p>
+	 *
+	 * @param readTimeout a time-out, in milliseconds (0 to wait indefinitely)
+	 */
+	public void setReadTimeout( int readTimeout ) {
+		this.readTimeout = readTimeout;
+		this.client.setReadTimeout( readTimeout );
+		this.resource.setProperty( ClientConfig.PROPERTY_READ_TIMEOUT, readTimeout );
+	}
+
+
+	/**
+	 * @return the maximum time to wait for data (in milliseconds, 0 means infinite)
+	 */
+	public int getReadTimeout() {
+		return this.readTimeout;
+	}
+
+
+	/**
+	 * @return the maximum number of asynchronous requests that run in parallel
+	 */
+	public int getPoolSize() {
+		return this.executor.getMaximumPoolSize();
 	}
 
 
@@ -171,6 +298,27 @@ public class WsClient {
 		return this.authenticationWsDelegate;
 	}
 
+	/**
+	 * @return the asynchronous variant of the application delegate
+	 */
+	public AsyncApplicationWsDelegate getAsyncApplicationDelegate() {
+		return this.asyncApplicationDelegate;
+	}
+
+	/**
+	 * @return the asynchronous variant of the management delegate
+	 */
+	public AsyncManagementWsDelegate getAsyncManagementDelegate() {
+		return this.asyncManagementDelegate;
+	}
+
+	/**
+	 * @return the asynchronous variant of the target delegate
+	 */
+	public AsyncTargetWsDelegate getAsyncTargetWsDelegate() {
+		return this.asyncTargetWsDelegate;
+	}
+
 	/**
 	 * @return the Jersey client (useful to configure it)
 	 */
@@ -208,4 +356,21 @@ public class WsClient {
 
 		return result;
 	}
+
+
+	/**
+	 * @author Vincent Zurczak - Linagora
+	 */
+	private static final class WsClientThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread( Runnable r ) {
+
+			Thread result = new Thread( r, "Roboconf REST Client - " + this.count.incrementAndGet());
+			result.setDaemon( true );
+			return result;
+		}
+	}
 }
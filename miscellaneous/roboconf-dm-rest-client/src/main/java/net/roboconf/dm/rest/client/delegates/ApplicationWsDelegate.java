@@ -39,6 +39,8 @@ import com.sun.jersey.api.client.WebResource;
 import net.roboconf.core.model.beans.Component;
 import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.dm.rest.client.WsClient;
 import net.roboconf.dm.rest.client.exceptions.ApplicationWsException;
 import net.roboconf.dm.rest.commons.UrlConstants;
@@ -271,6 +273,39 @@ public class ApplicationWsDelegate {
 	}
 
 
+	/**
+	 * Applies several operations on instances at once.
+	 * <p>
+	 * The model is saved only once on the server side, which makes this method much more
+	 * efficient than several invocations of {@link #addInstance(String, String, Instance)},
+	 * {@link #removeInstance(String, String)} or {@link #changeInstanceState(String, InstanceStatus, String)}.
+	 * </p>
+	 *
+	 * @param applicationName the application name
+	 * @param operations the operations to apply
+	 * @return a non-null list of results, with one result per operation (in the same order)
+	 * @throws ApplicationWsException if the operations could not be applied
+	 */
+	public List<InstanceOperationResult> applyInstanceOperations( String applicationName, List<InstanceOperation> operations )
+	throws ApplicationWsException {
+
+		this.logger.finer( "Applying " + operations.size() + " instance operations in " + applicationName + "..." );
+		WebResource path = this.resource.path( UrlConstants.APP ).path( applicationName ).path( "instances" ).path( "bulk" );
+
+		ClientResponse response = this.wsClient.createBuilder( path )
+				.accept( MediaType.APPLICATION_JSON ).type( MediaType.APPLICATION_JSON )
+				.post( ClientResponse.class, operations );
+
+		handleResponse( response );
+		List<InstanceOperationResult> result = response.getEntity( new GenericType<List<InstanceOperationResult>> () {});
+		if( result == null )
+			result = new ArrayList<>( 0 );
+
+		this.logger.finer( result.size() + " instance operations were processed in " + applicationName + "." );
+		return result;
+	}
+
+
 	/**
 	 * Resynchronizes all the instances / agents.
 	 *
@@ -0,0 +1,268 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.roboconf.dm.rest.client.delegates;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.roboconf.core.model.beans.Component;
+import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
+
+/**
+ * An asynchronous variant of {@link ApplicationWsDelegate}.
+ * <p>
+ * Methods return immediately. Requests are run on the pool of the {@link net.roboconf.dm.rest.client.WsClient}.
+ * Errors are wrapped by the {@link java.util.concurrent.ExecutionException} thrown by {@link Future#get()}.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class AsyncApplicationWsDelegate {
+
+	private final ApplicationWsDelegate delegate;
+	private final ExecutorService executor;
+
+
+	/**
+	 * Constructor.
+	 * @param delegate the synchronous delegate
+	 * @param executor the executor that runs the requests
+	 */
+	public AsyncApplicationWsDelegate( ApplicationWsDelegate delegate, ExecutorService executor ) {
+		this.delegate = delegate;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#changeInstanceState(String, InstanceStatus, String)
+	 */
+	public Future<Void> changeInstanceState( final String applicationName, final InstanceStatus newStatus, final String instancePath ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.changeInstanceState( applicationName, newStatus, instancePath );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#setDescription(String, String)
+	 */
+	public Future<Void> setDescription( final String applicationName, final String newDesc ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.setDescription( applicationName, newDesc );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#deployAndStartAll(String, String)
+	 */
+	public Future<Void> deployAndStartAll( final String applicationName, final String instancePath ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.deployAndStartAll( applicationName, instancePath );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#stopAll(String, String)
+	 */
+	public Future<Void> stopAll( final String applicationName, final String instancePath ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.stopAll( applicationName, instancePath );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#undeployAll(String, String)
+	 */
+	public Future<Void> undeployAll( final String applicationName, final String instancePath ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.undeployAll( applicationName, instancePath );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#listChildrenInstances(String, String, boolean)
+	 */
+	public Future<List<Instance>> listChildrenInstances( final String applicationName, final String instancePath, final boolean all ) {
+		return this.executor.submit( new Callable<List<Instance>> () {
+			@Override
+			public List<Instance> call() throws Exception {
+				return AsyncApplicationWsDelegate.this.delegate.listChildrenInstances( applicationName, instancePath, all );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#addInstance(String, String, Instance)
+	 */
+	public Future<Void> addInstance( final String applicationName, final String parentInstancePath, final Instance instance ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.addInstance( applicationName, parentInstancePath, instance );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#removeInstance(String, String)
+	 */
+	public Future<Void> removeInstance( final String applicationName, final String instancePath ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.removeInstance( applicationName, instancePath );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#applyInstanceOperations(String, List)
+	 */
+	public Future<List<InstanceOperationResult>> applyInstanceOperations( final String applicationName, final List<InstanceOperation> operations ) {
+		return this.executor.submit( new Callable<List<InstanceOperationResult>> () {
+			@Override
+			public List<InstanceOperationResult> call() throws Exception {
+				return AsyncApplicationWsDelegate.this.delegate.applyInstanceOperations( applicationName, operations );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#resynchronize(String)
+	 */
+	public Future<Void> resynchronize( final String applicationName ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.resynchronize( applicationName );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#listAllComponents(String)
+	 */
+	public Future<List<Component>> listAllComponents( final String applicationName ) {
+		return this.executor.submit( new Callable<List<Component>> () {
+			@Override
+			public List<Component> call() throws Exception {
+				return AsyncApplicationWsDelegate.this.delegate.listAllComponents( applicationName );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#findComponentChildren(String, String)
+	 */
+	public Future<List<Component>> findComponentChildren( final String applicationName, final String componentName ) {
+		return this.executor.submit( new Callable<List<Component>> () {
+			@Override
+			public List<Component> call() throws Exception {
+				return AsyncApplicationWsDelegate.this.delegate.findComponentChildren( applicationName, componentName );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#findComponentAncestors(String, String)
+	 */
+	public Future<List<Component>> findComponentAncestors( final String applicationName, final String componentName ) {
+		return this.executor.submit( new Callable<List<Component>> () {
+			@Override
+			public List<Component> call() throws Exception {
+				return AsyncApplicationWsDelegate.this.delegate.findComponentAncestors( applicationName, componentName );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#bindApplication(String, String, String)
+	 */
+	public Future<Void> bindApplication( final String applicationName, final String boundTplName, final String boundApp ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncApplicationWsDelegate.this.delegate.bindApplication( applicationName, boundTplName, boundApp );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ApplicationWsDelegate#listAllCommands(String)
+	 */
+	public Future<List<String>> listAllCommands( final String applicationName ) {
+		return this.executor.submit( new Callable<List<String>> () {
+			@Override
+			public List<String> call() throws Exception {
+				return AsyncApplicationWsDelegate.this.delegate.listAllCommands( applicationName );
+			}
+		});
+	}
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.roboconf.dm.rest.client.delegates;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.roboconf.core.model.beans.Application;
+import net.roboconf.core.model.beans.ApplicationTemplate;
+
+/**
+ * An asynchronous variant of {@link ManagementWsDelegate}.
+ * <p>
+ * Methods return immediately. Requests are run on the pool of the {@link net.roboconf.dm.rest.client.WsClient}.
+ * Errors are wrapped by the {@link java.util.concurrent.ExecutionException} thrown by {@link Future#get()}.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class AsyncManagementWsDelegate {
+
+	private final ManagementWsDelegate delegate;
+	private final ExecutorService executor;
+
+
+	/**
+	 * Constructor.
+	 * @param delegate the synchronous delegate
+	 * @param executor the executor that runs the requests
+	 */
+	public AsyncManagementWsDelegate( ManagementWsDelegate delegate, ExecutorService executor ) {
+		this.delegate = delegate;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#uploadZippedApplicationTemplate(File)
+	 */
+	public Future<Void> uploadZippedApplicationTemplate( final File applicationFile ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncManagementWsDelegate.this.delegate.uploadZippedApplicationTemplate( applicationFile );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#loadUnzippedApplicationTemplate(String)
+	 */
+	public Future<Void> loadUnzippedApplicationTemplate( final String localFilePath ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncManagementWsDelegate.this.delegate.loadUnzippedApplicationTemplate( localFilePath );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#loadZippedApplicationTemplate(String)
+	 */
+	public Future<Void> loadZippedApplicationTemplate( final String url ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncManagementWsDelegate.this.delegate.loadZippedApplicationTemplate( url );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#listApplicationTemplates(String, String)
+	 */
+	public Future<List<ApplicationTemplate>> listApplicationTemplates( final String exactName, final String exactQualifier ) {
+		return this.executor.submit( new Callable<List<ApplicationTemplate>> () {
+			@Override
+			public List<ApplicationTemplate> call() throws Exception {
+				return AsyncManagementWsDelegate.this.delegate.listApplicationTemplates( exactName, exactQualifier );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#listApplicationTemplates()
+	 */
+	public Future<List<ApplicationTemplate>> listApplicationTemplates() {
+		return this.executor.submit( new Callable<List<ApplicationTemplate>> () {
+			@Override
+			public List<ApplicationTemplate> call() throws Exception {
+				return AsyncManagementWsDelegate.this.delegate.listApplicationTemplates();
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#deleteApplicationTemplate(String, String)
+	 */
+	public Future<Void> deleteApplicationTemplate( final String templateName, final String templateQualifier ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncManagementWsDelegate.this.delegate.deleteApplicationTemplate( templateName, templateQualifier );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#createApplication(String, String, String)
+	 */
+	public Future<Application> createApplication( final String applicationName, final String templateName, final String templateQualifier ) {
+		return this.executor.submit( new Callable<Application> () {
+			@Override
+			public Application call() throws Exception {
+				return AsyncManagementWsDelegate.this.delegate.createApplication( applicationName, templateName, templateQualifier );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#listApplications(String)
+	 */
+	public Future<List<Application>> listApplications( final String exactName ) {
+		return this.executor.submit( new Callable<List<Application>> () {
+			@Override
+			public List<Application> call() throws Exception {
+				return AsyncManagementWsDelegate.this.delegate.listApplications( exactName );
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#listApplications()
+	 */
+	public Future<List<Application>> listApplications() {
+		return this.executor.submit( new Callable<List<Application>> () {
+			@Override
+			public List<Application> call() throws Exception {
+				return AsyncManagementWsDelegate.this.delegate.listApplications();
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#shutdownApplication(String)
+	 */
+	public Future<Void> shutdownApplication( final String applicationName ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncManagementWsDelegate.this.delegate.shutdownApplication( applicationName );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see ManagementWsDelegate#deleteApplication(String)
+	 */
+	public Future<Void> deleteApplication( final String applicationName ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncManagementWsDelegate.this.delegate.deleteApplication( applicationName );
+				return null;
+			}
+		});
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.roboconf.dm.rest.client.delegates;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.roboconf.core.model.beans.AbstractApplication;
+import net.roboconf.core.model.runtime.TargetWrapperDescriptor;
+
+/**
+ * An asynchronous variant of {@link TargetWsDelegate}.
+ * <p>
+ * Methods return immediately. Requests are run on the pool of the {@link net.roboconf.dm.rest.client.WsClient}.
+ * Errors are wrapped by the {@link java.util.concurrent.ExecutionException} thrown by {@link Future#get()}.
+ * </p>
+ *
+ * @author Vincent Zurczak - Linagora
+ */
+public class AsyncTargetWsDelegate {
+
+	private final TargetWsDelegate delegate;
+	private final ExecutorService executor;
+
+
+	/**
+	 * Constructor.
+	 * @param delegate the synchronous delegate
+	 * @param executor the executor that runs the requests
+	 */
+	public AsyncTargetWsDelegate( TargetWsDelegate delegate, ExecutorService executor ) {
+		this.delegate = delegate;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * @see TargetWsDelegate#listAllTargets()
+	 */
+	public Future<List<TargetWrapperDescriptor>> listAllTargets() {
+		return this.executor.submit( new Callable<List<TargetWrapperDescriptor>> () {
+			@Override
+			public List<TargetWrapperDescriptor> call() throws Exception {
+				return AsyncTargetWsDelegate.this.delegate.listAllTargets();
+			}
+		});
+	}
+
+
+	/**
+	 * @see TargetWsDelegate#createTarget(String)
+	 */
+	public Future<String> createTarget( final String targetContent ) {
+		return this.executor.submit( new Callable<String> () {
+			@Override
+			public String call() throws Exception {
+				return AsyncTargetWsDelegate.this.delegate.createTarget( targetContent );
+			}
+		});
+	}
+
+
+	/**
+	 * @see TargetWsDelegate#deleteTarget(String)
+	 */
+	public Future<Void> deleteTarget( final String targetId ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncTargetWsDelegate.this.delegate.deleteTarget( targetId );
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * @see TargetWsDelegate#associateTarget(AbstractApplication, String, String, boolean)
+	 */
+	public Future<Void> associateTarget( final AbstractApplication app, final String instancePathOrComponentName, final String targetId, final boolean bind ) {
+		return this.executor.submit( new Callable<Void> () {
+			@Override
+			public Void call() throws Exception {
+				AsyncTargetWsDelegate.this.delegate.associateTarget( app, instancePathOrComponentName, targetId, bind );
+				return null;
+			}
+		});
+	}
+}
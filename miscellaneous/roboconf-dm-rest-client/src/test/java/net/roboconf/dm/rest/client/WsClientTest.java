@@ -25,8 +25,21 @@
 
 package net.roboconf.dm.rest.client;
 
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
 import org.junit.Test;
 
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.config.ClientConfig;
+
+import net.roboconf.core.model.runtime.TargetWrapperDescriptor;
+
 /**
  * @author Vincent Zurczak - Linagora
  */
@@ -42,4 +55,102 @@ public class WsClientTest {
 		// Test a second call
 		client.destroy();
 	}
+
+
+	@Test
+	public void testSettings() {
+
+		WsClient client = new WsClient( "http://localhost:9998" );
+		try {
+			Assert.assertEquals( WsClient.DEFAULT_POOL_SIZE, client.getPoolSize());
+			Assert.assertEquals( WsClient.DEFAULT_CONNECT_TIMEOUT, client.getConnectTimeout());
+			Assert.assertEquals( WsClient.DEFAULT_READ_TIMEOUT, client.getReadTimeout());
+			Assert.assertEquals( WsClient.DEFAULT_CONNECT_TIMEOUT, client.getJerseyClient().getProperties().get( ClientConfig.PROPERTY_CONNECT_TIMEOUT ));
+
+			client.setConnectTimeout( 1000 );
+			client.setReadTimeout( 2000 );
+			Assert.assertEquals( 1000, client.getConnectTimeout());
+			Assert.assertEquals( 2000, client.getReadTimeout());
+			Assert.assertEquals( 1000, client.getJerseyClient().getProperties().get( ClientConfig.PROPERTY_CONNECT_TIMEOUT ));
+			Assert.assertEquals( 2000, client.getJerseyClient().getProperties().get( ClientConfig.PROPERTY_READ_TIMEOUT ));
+
+			Assert.assertNotNull( client.getAsyncApplicationDelegate());
+			Assert.assertNotNull( client.getAsyncManagementDelegate());
+			Assert.assertNotNull( client.getAsyncTargetWsDelegate());
+			Assert.assertEquals( WsClient.MAX_PENDING_REQUESTS, client.executor.getQueue().remainingCapacity());
+
+		} finally {
+			client.destroy();
+		}
+
+		client = new WsClient( "http://localhost:9998", 12 );
+		Assert.assertEquals( 12, client.getPoolSize());
+		client.destroy();
+
+		client = new WsClient( "http://localhost:9998", -1 );
+		Assert.assertEquals( 1, client.getPoolSize());
+		client.destroy();
+	}
+
+
+	@Test
+	public void testReadTimeout() throws Exception {
+
+		// A server that accepts connections but never answers
+		try( ServerSocket serverSocket = new ServerSocket( 0 )) {
+
+			WsClient client = new WsClient( "http://localhost:" + serverSocket.getLocalPort(), 2 );
+			client.setReadTimeout( 300 );
+			try {
+				// Synchronous
+				try {
+					client.getTargetWsDelegate().listAllTargets();
+					Assert.fail( "A time-out was expected." );
+
+				} catch( ClientHandlerException e ) {
+					Assert.assertEquals( SocketTimeoutException.class, e.getCause().getClass());
+				}
+
+				// Asynchronous
+				List<Future<List<TargetWrapperDescriptor>>> futures = new ArrayList<> ();
+				for( int i = 0; i < 3; i ++ )
+					futures.add( client.getAsyncTargetWsDelegate().listAllTargets());
+
+				for( Future<List<TargetWrapperDescriptor>> future : futures ) {
+					try {
+						future.get();
+						Assert.fail( "A time-out was expected." );
+
+					} catch( ExecutionException e ) {
+						Assert.assertEquals( ClientHandlerException.class, e.getCause().getClass());
+						Assert.assertEquals( SocketTimeoutException.class, e.getCause().getCause().getClass());
+					}
+				}
+
+			} finally {
+				client.destroy();
+			}
+		}
+	}
+
+
+	@Test
+	public void testDestroy_pendingRequestsAreCompleted() throws Exception {
+
+		// A server that accepts connections but never answers
+		try( ServerSocket serverSocket = new ServerSocket( 0 )) {
+
+			WsClient client = new WsClient( "http://localhost:" + serverSocket.getLocalPort(), 1 );
+			client.setReadTimeout( 300 );
+
+			List<Future<List<TargetWrapperDescriptor>>> futures = new ArrayList<> ();
+			for( int i = 0; i < 3; i ++ )
+				futures.add( client.getAsyncTargetWsDelegate().listAllTargets());
+
+			client.destroy();
+			Assert.assertTrue( client.executor.isTerminated());
+			for( Future<List<TargetWrapperDescriptor>> future : futures )
+				Assert.assertTrue( future.isDone());
+		}
+	}
 }
@@ -53,6 +53,8 @@ import net.roboconf.core.model.beans.Instance;
 import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.ComponentHelpers;
 import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.core.utils.Utils;
 import net.roboconf.dm.internal.test.TestManagerWrapper;
 import net.roboconf.dm.internal.test.TestTargetResolver;
@@ -503,6 +505,71 @@ public class ApplicationWsDelegateTest {
 	}
 
 
+	@Test
+	public void testApplyInstanceOperations() throws Exception {
+
+		String tomcatVmPath = InstanceHelpers.computeInstancePath( this.app.getTomcatVm());
+		String warPath = InstanceHelpers.computeInstancePath( this.app.getWar());
+		String mySqlComponentName = this.app.getMySql().getComponent().getName();
+
+		List<InstanceOperation> operations = new ArrayList<> ();
+		operations.add( InstanceOperation.add( tomcatVmPath, new Instance( "mysql-2" ).component( new Component( mySqlComponentName ))));
+		operations.add( InstanceOperation.add( tomcatVmPath, new Instance( "war-2" ).component( this.app.getWar().getComponent())));
+		operations.add( InstanceOperation.remove( warPath ));
+		operations.add( InstanceOperation.changeState( tomcatVmPath + "/mysql-2", InstanceStatus.NOT_DEPLOYED ));
+		operations.add( InstanceOperation.remove( "/inexisting" ));
+
+		List<InstanceOperationResult> results = this.client.getApplicationDelegate().applyInstanceOperations( this.app.getName(), operations );
+		Assert.assertEquals( 5, results.size());
+
+		Assert.assertTrue( results.get( 0 ).isSuccess());
+		Assert.assertEquals( tomcatVmPath + "/mysql-2", results.get( 0 ).getInstancePath());
+		Assert.assertNull( results.get( 0 ).getMessage());
+
+		Assert.assertFalse( results.get( 1 ).isSuccess());
+		Assert.assertNotNull( results.get( 1 ).getMessage());
+
+		Assert.assertTrue( results.get( 2 ).isSuccess());
+		Assert.assertEquals( warPath, results.get( 2 ).getInstancePath());
+
+		Assert.assertTrue( results.get( 3 ).isSuccess());
+
+		Assert.assertFalse( results.get( 4 ).isSuccess());
+		Assert.assertEquals( "/inexisting", results.get( 4 ).getInstancePath());
+
+		Assert.assertNotNull( InstanceHelpers.findInstanceByPath( this.app, tomcatVmPath + "/mysql-2" ));
+		Assert.assertNull( InstanceHelpers.findInstanceByPath( this.app, tomcatVmPath + "/war-2" ));
+		Assert.assertNull( InstanceHelpers.findInstanceByPath( this.app, warPath ));
+	}
+
+
+	@Test
+	public void testApplyInstanceOperations_manyInstances() throws Exception {
+
+		List<InstanceOperation> operations = new ArrayList<> ();
+		for( int i = 0; i < 500; i ++ ) {
+			Instance vm = new Instance( "vm-" + i ).component( this.app.getMySqlVm().getComponent());
+			operations.add( InstanceOperation.add( null, vm ));
+		}
+
+		List<InstanceOperationResult> results = this.client.getApplicationDelegate().applyInstanceOperations( this.app.getName(), operations );
+		Assert.assertEquals( 500, results.size());
+		for( InstanceOperationResult result : results )
+			Assert.assertTrue( result.toString(), result.isSuccess());
+
+		Assert.assertEquals( 502, this.app.getRootInstances().size());
+	}
+
+
+	@Test( expected = ApplicationWsException.class )
+	public void testApplyInstanceOperations_inexistingApplication() throws Exception {
+
+		List<InstanceOperation> operations = new ArrayList<> ();
+		operations.add( InstanceOperation.remove( "/inexisting" ));
+		this.client.getApplicationDelegate().applyInstanceOperations( "inexisting", operations );
+	}
+
+
 	@Test
 	public void testResynchronize_success() throws ApplicationWsException {
 		final Collection<Instance> rootInstances = this.app.getRootInstances();
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2017 Linagora, Université Joseph Fourier, Floralis
+ *
+ * The present code is developed in the scope of the joint LINAGORA -
+ * Université Joseph Fourier - Floralis research program and is designated
+ * as a "Result" pursuant to the terms and conditions of the LINAGORA
+ * - Université Joseph Fourier - Floralis research program. Each copyright
+ * holder of Results enumerated here above fully & independently holds complete
+ * ownership of the complete Intellectual Property rights applicable to the whole
+ * of said Results, and may freely exploit it in any manner which does not infringe
+ * the moral rights of the other copyright holders.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.roboconf.dm.rest.client.delegates;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.core.UriBuilder;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.jersey.api.container.grizzly2.GrizzlyServerFactory;
+
+import net.roboconf.core.internal.tests.TestApplication;
+import net.roboconf.core.internal.tests.TestUtils;
+import net.roboconf.core.model.beans.Application;
+
+import net.roboconf.dm.internal.test.TestManagerWrapper;
+import net.roboconf.dm.internal.test.TestTargetResolver;
+import net.roboconf.dm.management.ManagedApplication;
+import net.roboconf.dm.management.Manager;
+import net.roboconf.dm.rest.client.WsClient;
+import net.roboconf.dm.rest.client.exceptions.TargetWsException;
+import net.roboconf.dm.rest.services.internal.RestApplication;
+import net.roboconf.messaging.api.MessagingConstants;
+
+/**
+ * @author Vincent Zurczak - Linagora
+ */
+public class AsyncTargetWsDelegateTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private static final String REST_URI = "http://localhost:8090";
+
+	private TestApplication app;
+	private Manager manager;
+	private TestManagerWrapper managerWrapper;
+
+	private WsClient client;
+	private HttpServer httpServer;
+
+
+	@After
+	public void after() {
+
+		this.manager.stop();
+		if( this.httpServer != null )
+			this.httpServer.stop();
+
+		if( this.client != null )
+			this.client.destroy();
+	}
+
+
+	@Before
+	public void before() throws Exception {
+
+		// Create the manager
+		this.manager = new Manager();
+		this.manager.setMessagingType( MessagingConstants.FACTORY_TEST );
+		this.manager.setTargetResolver( new TestTargetResolver());
+		this.manager.configurationMngr().setWorkingDirectory( this.folder.newFolder());
+		this.manager.start();
+
+		// Create the wrapper and complete configuration
+		this.managerWrapper = new TestManagerWrapper( this.manager );
+		this.managerWrapper.configureMessagingForTest();
+		this.manager.reconfigure();
+
+		// Disable the messages timer for predictability
+		TestUtils.getInternalField( this.manager, "timer", Timer.class).cancel();
+
+		URI uri = UriBuilder.fromUri( REST_URI ).build();
+		RestApplication restApp = new RestApplication( this.manager );
+		this.httpServer = GrizzlyServerFactory.createHttpServer( uri, restApp );
+
+		// Load an application
+		this.app = new TestApplication();
+		this.app.setDirectory( this.folder.newFolder());
+		this.managerWrapper.addManagedApplication( new ManagedApplication( this.app ));
+
+		this.client = new WsClient( REST_URI, 4 );
+	}
+
+
+	@Test
+	public void testCreateListAndDelete() throws Exception {
+
+		List<Future<String>> futures = new ArrayList<> ();
+		for( int i = 0; i < 10; i ++ )
+			futures.add( this.client.getAsyncTargetWsDelegate().createTarget( "id: t" + i + "\nhandler: h" ));
+
+		List<String> ids = new ArrayList<> ();
+		for( Future<String> future : futures )
+			ids.add( future.get());
+
+		Assert.assertEquals( 10, ids.size());
+		Assert.assertEquals( 10, this.client.getAsyncTargetWsDelegate().listAllTargets().get().size());
+
+		this.client.getAsyncTargetWsDelegate().deleteTarget( ids.get( 0 )).get();
+		Assert.assertEquals( 9, this.client.getAsyncTargetWsDelegate().listAllTargets().get().size());
+	}
+
+
+	@Test
+	public void testErrorsAreWrapped() throws Exception {
+
+		String targetId = this.client.getTargetWsDelegate().createTarget( "id: tid\nhandler: h" );
+		Application invalidApp = new Application( "invalid", this.app.getTemplate());
+
+		Future<Void> future = this.client.getAsyncTargetWsDelegate().associateTarget( invalidApp, null, targetId, true );
+		try {
+			future.get();
+			Assert.fail( "An exception was expected." );
+
+		} catch( ExecutionException e ) {
+			Assert.assertEquals( TargetWsException.class, e.getCause().getClass());
+		}
+	}
+}
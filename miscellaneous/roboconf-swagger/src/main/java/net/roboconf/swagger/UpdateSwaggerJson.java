@@ -48,7 +48,10 @@ import net.roboconf.core.model.beans.ExportedVariable;
 import net.roboconf.core.model.beans.Graphs;
 import net.roboconf.core.model.beans.ImportedVariable;
 import net.roboconf.core.model.beans.Instance;
+import net.roboconf.core.model.beans.Instance.InstanceStatus;
 import net.roboconf.core.model.helpers.InstanceHelpers;
+import net.roboconf.core.model.runtime.InstanceOperation;
+import net.roboconf.core.model.runtime.InstanceOperationResult;
 import net.roboconf.core.model.runtime.Preference;
 import net.roboconf.core.model.runtime.Preference.PreferenceKeyCategory;
 import net.roboconf.core.model.runtime.ScheduledJob;
@@ -225,6 +228,21 @@ public class UpdateSwaggerJson {
 		s = writer.toString();
 		convertToTypes( s, ScheduledJob.class, newDef );
 
+		// (*) Instance operations
+		InstanceOperation op = InstanceOperation.changeState( "/tomcat-vm/tomcat-server", InstanceStatus.DEPLOYED_STARTED );
+
+		writer = new StringWriter();
+		mapper.writeValue( writer, op );
+		s = writer.toString();
+		convertToTypes( s, InstanceOperation.class, newDef );
+
+		InstanceOperationResult opResult = new InstanceOperationResult( "/tomcat-vm/tomcat-server", false, "some error message" );
+
+		writer = new StringWriter();
+		mapper.writeValue( writer, opResult );
+		s = writer.toString();
+		convertToTypes( s, InstanceOperationResult.class, newDef );
+
 		return newDef;
 	}
 